@@ -0,0 +1,100 @@
+package com.aquila.ibm.mq.gui.alert;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+import com.aquila.ibm.mq.gui.model.AlertSinkConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Forwards alerts to the configured sinks. Every sink has its own bounded queue and thread,
+ * so {@link #publish} never waits and a slow or failing sink does not hold back the others.
+ * Sinks receive alerts in batches and failed batches are retried with exponential backoff.
+ */
+public class AlertDispatcher implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AlertDispatcher.class);
+    /** Time given to the sinks to deliver their queued alerts on close. */
+    static final long CLOSE_TIMEOUT_MS = 2000;
+
+    private final List<SinkChannel> channels = new CopyOnWriteArrayList<>();
+
+    /**
+     * Create the sinks described by the configuration, skipping disabled and invalid ones.
+     */
+    public static AlertDispatcher fromConfig(List<AlertSinkConfig> configs) {
+        AlertDispatcher dispatcher = new AlertDispatcher();
+        for (AlertSinkConfig config : configs) {
+            if (!config.isEnabled()) {
+                continue;
+            }
+            try {
+                dispatcher.addSink(createSink(config), config);
+            } catch (Exception e) {
+                logger.error("Ignoring invalid alert sink {}: {}", config, e.getMessage());
+            }
+        }
+        return dispatcher;
+    }
+
+    private static AlertSink createSink(AlertSinkConfig config) throws Exception {
+        String name = config.getName() != null ? config.getName() : config.getType().name().toLowerCase();
+        return switch (config.getType()) {
+            case FILE -> new FileAlertSink(name, Paths.get(config.getPath()));
+            case SYSLOG -> new SyslogAlertSink(name, config.getHost(), config.getPort());
+            case WEBHOOK -> new WebhookAlertSink(name, URI.create(config.getUrl()));
+            case COMMAND -> new CommandAlertSink(name, config.getCommand());
+        };
+    }
+
+    public void addSink(AlertSink sink, AlertSinkConfig config) {
+        SinkChannel channel = new SinkChannel(sink, config);
+        channels.add(channel);
+        channel.start();
+        logger.info("Forwarding alerts to {} sink {}", config.getType(), sink.getName());
+    }
+
+    /**
+     * Queue an alert for every sink and return at once.
+     */
+    public void publish(AlertManager.AlertEvent event) {
+        for (SinkChannel channel : channels) {
+            channel.offer(event);
+        }
+    }
+
+    public List<SinkMetrics> getMetrics() {
+        List<SinkMetrics> metrics = new ArrayList<>(channels.size());
+        for (SinkChannel channel : channels) {
+            metrics.add(channel.getMetrics());
+        }
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        for (SinkChannel channel : channels) {
+            channel.close(CLOSE_TIMEOUT_MS);
+        }
+        channels.clear();
+    }
+
+    /**
+     * Delivery counters of a sink.
+     * @param queued Alerts waiting in the sink queue
+     * @param capacity Size of the sink queue
+     * @param delivered Alerts the sink accepted
+     * @param dropped Alerts lost to the overflow policy, exhausted retries or shutdown
+     * @param failedAttempts Failed sends, retried or not
+     * @param batches Successful sends
+     * @param lastLatencyMillis Time from queueing to delivery of the oldest alert of the last batch
+     * @param maxLatencyMillis Largest such time
+     */
+    public record SinkMetrics(String name, int queued, int capacity, long delivered, long dropped,
+                              long failedAttempts, long batches, long lastLatencyMillis, long maxLatencyMillis) {
+    }
+}
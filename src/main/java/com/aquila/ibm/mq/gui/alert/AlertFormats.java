@@ -0,0 +1,67 @@
+package com.aquila.ibm.mq.gui.alert;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Wire formats shared by the sinks.
+ */
+final class AlertFormats {
+    private static final Gson gson = new Gson();
+    // RFC 5424 user-level facility
+    private static final int SYSLOG_FACILITY = 1;
+
+    private AlertFormats() {
+    }
+
+    static JsonObject toJsonObject(AlertManager.AlertEvent event) {
+        JsonObject json = new JsonObject();
+        json.addProperty("timestamp", Instant.ofEpochMilli(event.timestamp()).toString());
+        json.addProperty("connection", event.connectionId());
+        json.addProperty("queue", event.queueName());
+        json.addProperty("storm", AlertManager.isStormSummary(event));
+        json.addProperty("depth", event.depth());
+        json.addProperty("maxDepth", event.maxDepth());
+        json.addProperty("oldLevel", event.oldLevel().name());
+        json.addProperty("newLevel", event.newLevel().name());
+        return json;
+    }
+
+    static String toJsonLine(AlertManager.AlertEvent event) {
+        return gson.toJson(toJsonObject(event));
+    }
+
+    static String toJsonArray(List<AlertManager.AlertEvent> batch) {
+        JsonArray array = new JsonArray(batch.size());
+        for (AlertManager.AlertEvent event : batch) {
+            array.add(toJsonObject(event));
+        }
+        return gson.toJson(array);
+    }
+
+    static String toSyslog(AlertManager.AlertEvent event, String hostname) {
+        int priority = SYSLOG_FACILITY * 8 + severity(event.newLevel());
+        String message = AlertManager.isStormSummary(event)
+                ? String.format("Alert storm: %d level changes on %d queues, worst level %s",
+                        event.depth(), event.maxDepth(), event.newLevel())
+                : String.format("Queue %s%s: %s -> %s (depth: %d/%d)",
+                        event.queueName(), event.connectionId() != null ? " on " + event.connectionId() : "",
+                        event.oldLevel(), event.newLevel(), event.depth(), event.maxDepth());
+        return String.format("<%d>1 %s %s ibm-mq-gui - - - %s",
+                priority, Instant.ofEpochMilli(event.timestamp()), hostname, message);
+    }
+
+    private static int severity(ThresholdConfig.AlertLevel level) {
+        return switch (level) {
+            case CRITICAL -> 2;
+            case WARNING -> 4;
+            case NONE -> 6;
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.aquila.ibm.mq.gui.alert;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+
+import java.util.List;
+
+/**
+ * A destination for alerts. Sends run on the sink's own dispatcher thread, so they may block.
+ */
+public interface AlertSink extends AutoCloseable {
+    String getName();
+
+    /**
+     * Deliver a batch of alerts, oldest first.
+     * @throws Exception To have the whole batch retried
+     */
+    void send(List<AlertManager.AlertEvent> batch) throws Exception;
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,54 @@
+package com.aquila.ibm.mq.gui.alert;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a command for each batch of alerts, writing them as JSON lines to its standard input.
+ * A non-zero exit status or a command running longer than the timeout fails the batch.
+ */
+public class CommandAlertSink implements AlertSink {
+    private static final long TIMEOUT_SECONDS = 30;
+    private final String name;
+    private final List<String> command;
+
+    public CommandAlertSink(String name, List<String> command) {
+        this.name = name;
+        this.command = List.copyOf(command);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void send(List<AlertManager.AlertEvent> batch) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            try (Writer stdin = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8)) {
+                for (AlertManager.AlertEvent event : batch) {
+                    stdin.write(AlertFormats.toJsonLine(event));
+                    stdin.write('\n');
+                }
+            }
+            if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IOException("Command " + command + " timed out");
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException("Command " + command + " exited with " + process.exitValue());
+            }
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+}
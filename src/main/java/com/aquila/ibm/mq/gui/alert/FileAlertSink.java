@@ -0,0 +1,37 @@
+package com.aquila.ibm.mq.gui.alert;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends alerts to a file as JSON lines.
+ */
+public class FileAlertSink implements AlertSink {
+    private final String name;
+    private final Path path;
+
+    public FileAlertSink(String name, Path path) {
+        this.name = name;
+        this.path = path;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void send(List<AlertManager.AlertEvent> batch) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (AlertManager.AlertEvent event : batch) {
+            lines.append(AlertFormats.toJsonLine(event)).append('\n');
+        }
+        Files.writeString(path, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,149 @@
+package com.aquila.ibm.mq.gui.alert;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+import com.aquila.ibm.mq.gui.model.AlertSinkConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The bounded queue and delivery thread of one sink.
+ */
+class SinkChannel {
+    private static final Logger logger = LoggerFactory.getLogger(SinkChannel.class);
+
+    private record Queued(AlertManager.AlertEvent event, long enqueuedAt) {
+    }
+
+    private final AlertSink sink;
+    private final AlertSinkConfig config;
+    private final BlockingQueue<Queued> queue;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long lastLatencyNanos;
+    private volatile long maxLatencyNanos;
+
+    SinkChannel(AlertSink sink, AlertSinkConfig config) {
+        this.sink = sink;
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+        this.worker = new Thread(this::run, "AlertSink-" + sink.getName());
+        worker.setDaemon(true);
+    }
+
+    void start() {
+        worker.start();
+    }
+
+    /**
+     * Queue an alert without waiting, applying the overflow policy when the queue is full.
+     */
+    void offer(AlertManager.AlertEvent event) {
+        Queued queued = new Queued(event, System.nanoTime());
+        if (config.getOverflowPolicy() == AlertSinkConfig.OverflowPolicy.DROP_NEWEST) {
+            if (!queue.offer(queued)) {
+                dropped.incrementAndGet();
+            }
+            return;
+        }
+        while (!queue.offer(queued)) {
+            if (queue.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    private void run() {
+        int batchSize = Math.max(1, config.getBatchSize());
+        List<Queued> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Queued first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Give the batch a moment to fill up
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getLingerMillis());
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Queued next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                deliver(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            dropped.addAndGet(batch.size() + queue.size());
+            logger.debug("Alert sink {} interrupted", sink.getName());
+        }
+    }
+
+    private void deliver(List<Queued> batch) throws InterruptedException {
+        List<AlertManager.AlertEvent> events = new ArrayList<>(batch.size());
+        for (Queued queued : batch) {
+            events.add(queued.event());
+        }
+        long backoff = Math.max(1, config.getInitialBackoffMillis());
+        for (int attempt = 0; ; attempt++) {
+            try {
+                sink.send(events);
+                long latency = System.nanoTime() - batch.get(0).enqueuedAt();
+                lastLatencyNanos = latency;
+                maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+                delivered.addAndGet(events.size());
+                batches.incrementAndGet();
+                return;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failedAttempts.incrementAndGet();
+                if (attempt >= config.getMaxRetries()) {
+                    dropped.addAndGet(events.size());
+                    logger.error("Alert sink {} dropped {} alert(s) after {} attempt(s)",
+                            sink.getName(), events.size(), attempt + 1, e);
+                    return;
+                }
+                logger.warn("Alert sink {} failed, retrying in {} ms: {}", sink.getName(), backoff, e.getMessage());
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, Math.max(1, config.getMaxBackoffMillis()));
+            }
+        }
+    }
+
+    /**
+     * Deliver what is queued, waiting at most {@code timeoutMillis}, then stop.
+     */
+    void close(long timeoutMillis) {
+        running = false;
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            worker.interrupt();
+        }
+        sink.close();
+    }
+
+    AlertDispatcher.SinkMetrics getMetrics() {
+        return new AlertDispatcher.SinkMetrics(sink.getName(), queue.size(), config.getQueueCapacity(),
+                delivered.get(), dropped.get(), failedAttempts.get(), batches.get(),
+                TimeUnit.NANOSECONDS.toMillis(lastLatencyNanos), TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos));
+    }
+}
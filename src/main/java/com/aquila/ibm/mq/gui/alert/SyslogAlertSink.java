@@ -0,0 +1,63 @@
+package com.aquila.ibm.mq.gui.alert;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Sends alerts as RFC 5424 syslog messages over UDP, one datagram per alert.
+ */
+public class SyslogAlertSink implements AlertSink {
+    private static final Logger logger = LoggerFactory.getLogger(SyslogAlertSink.class);
+    private final String name;
+    private final InetSocketAddress address;
+    private final String hostname;
+    private final DatagramSocket socket;
+
+    public SyslogAlertSink(String name, String host, int port) throws SocketException {
+        this.name = name;
+        this.address = new InetSocketAddress(host, port);
+        this.hostname = localHostname();
+        this.socket = new DatagramSocket();
+    }
+
+    private static String localHostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "-";
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void send(List<AlertManager.AlertEvent> batch) throws IOException {
+        if (address.isUnresolved()) {
+            throw new UnknownHostException(address.getHostString());
+        }
+        for (AlertManager.AlertEvent event : batch) {
+            byte[] message = AlertFormats.toSyslog(event, hostname).getBytes(StandardCharsets.UTF_8);
+            socket.send(new DatagramPacket(message, message.length, address));
+        }
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+        logger.debug("Closed syslog sink {}", name);
+    }
+}
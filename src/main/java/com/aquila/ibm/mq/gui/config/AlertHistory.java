@@ -0,0 +1,201 @@
+package com.aquila.ibm.mq.gui.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The most recent alert events in a fixed-size ring, with an index of the events of each
+ * queue of each connection. The ring is lock-free and the index only contends on the entry of one queue.
+ * Events pushed out of the ring, and the ones left in it on close, are appended to a
+ * history file when one is configured, where they can still be queried by time range.
+ */
+public class AlertHistory implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AlertHistory.class);
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final int capacity;
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong nextSequence = new AtomicLong();
+    // Sequences of the events of each queue still in the ring, oldest first
+    private final Map<AlertManager.QueueKey, ConcurrentLinkedDeque<Long>> queueIndex = new ConcurrentHashMap<>();
+    private final AlertHistoryFile spillFile;
+
+    /**
+     * @param spillPath File receiving evicted events, null to drop them
+     */
+    public AlertHistory(int capacity, Path spillPath) {
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        AlertHistoryFile file = null;
+        if (spillPath != null) {
+            try {
+                file = new AlertHistoryFile(spillPath);
+            } catch (IOException e) {
+                logger.error("Cannot open alert history file {}, evicted alerts will be dropped", spillPath, e);
+            }
+        }
+        this.spillFile = file;
+    }
+
+    private record Slot(long sequence, AlertManager.AlertEvent event) {
+    }
+
+    public void add(AlertManager.AlertEvent event) {
+        long sequence = nextSequence.getAndIncrement();
+        // Under the entry lock, so an eviction cannot drop the deque while it is being added to
+        queueIndex.compute(event.key(), (key, sequences) -> {
+            ConcurrentLinkedDeque<Long> deque = sequences != null ? sequences : new ConcurrentLinkedDeque<>();
+            deque.addLast(sequence);
+            return deque;
+        });
+        Slot slot = new Slot(sequence, event);
+        int index = (int) (sequence % capacity);
+        while (true) {
+            Slot current = slots.get(index);
+            if (current != null && current.sequence() > sequence) {
+                // A writer a whole lap ahead got there first, this event is already old
+                evict(slot);
+                return;
+            }
+            if (slots.compareAndSet(index, current, slot)) {
+                if (current != null) {
+                    evict(current);
+                }
+                return;
+            }
+        }
+    }
+
+    private void evict(Slot slot) {
+        queueIndex.computeIfPresent(slot.event().key(), (key, sequences) -> {
+            sequences.remove(slot.sequence());
+            return sequences.isEmpty() ? null : sequences;
+        });
+        if (spillFile != null) {
+            try {
+                spillFile.append(slot.event());
+            } catch (IOException e) {
+                logger.error("Failed to write alert to history file", e);
+            }
+        }
+    }
+
+    /**
+     * Events still in the ring, oldest first.
+     */
+    public List<AlertManager.AlertEvent> getEvents() {
+        long end = nextSequence.get();
+        long start = Math.max(0, end - capacity);
+        List<AlertManager.AlertEvent> events = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            AlertManager.AlertEvent event = get(sequence);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Events of one queue still in the ring, oldest first.
+     * @param connectionId The connection of the queue, null for the events raised without one
+     */
+    public List<AlertManager.AlertEvent> getEvents(String connectionId, String queueName) {
+        ConcurrentLinkedDeque<Long> sequences = queueIndex.get(new AlertManager.QueueKey(connectionId, queueName));
+        if (sequences == null) {
+            return List.of();
+        }
+        List<AlertManager.AlertEvent> events = new ArrayList<>(sequences.size());
+        for (long sequence : sequences) {
+            AlertManager.AlertEvent event = get(sequence);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private AlertManager.AlertEvent get(long sequence) {
+        Slot slot = slots.get((int) (sequence % capacity));
+        return slot != null && slot.sequence() == sequence ? slot.event() : null;
+    }
+
+    /**
+     * Events between two times, in the history file then in the ring.
+     * @param connectionId The connection, null for all connections
+     * @param queueName The queue, null for all queues
+     * @param fromMillis Start time in epoch milliseconds, inclusive
+     * @param toMillis End time in epoch milliseconds, exclusive
+     */
+    public List<AlertManager.AlertEvent> query(String connectionId, String queueName, long fromMillis, long toMillis) {
+        List<AlertManager.AlertEvent> events = new ArrayList<>();
+        if (spillFile != null) {
+            try {
+                events.addAll(spillFile.query(connectionId, queueName, fromMillis, toMillis));
+            } catch (IOException e) {
+                logger.error("Failed to read alert history file", e);
+            }
+        }
+        boolean indexed = connectionId != null && queueName != null;
+        for (AlertManager.AlertEvent event : indexed ? getEvents(connectionId, queueName) : getEvents()) {
+            if (event.timestamp() >= fromMillis && event.timestamp() < toMillis
+                    && (connectionId == null || connectionId.equals(event.connectionId()))
+                    && (queueName == null || queueName.equals(event.queueName()))) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Drop all events, including the history file. Not atomic with concurrent additions.
+     */
+    public void clear() {
+        long end = nextSequence.get();
+        for (int i = 0; i < capacity; i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.sequence() < end) {
+                slots.compareAndSet(i, slot, null);
+            }
+        }
+        queueIndex.clear();
+        if (spillFile != null) {
+            try {
+                spillFile.clear();
+            } catch (IOException e) {
+                logger.error("Failed to clear alert history file", e);
+            }
+        }
+    }
+
+    /**
+     * Write the events still in the ring to the history file, so they survive a restart, and close it.
+     */
+    @Override
+    public void close() {
+        if (spillFile != null) {
+            try {
+                for (AlertManager.AlertEvent event : getEvents()) {
+                    spillFile.append(event);
+                }
+            } catch (IOException e) {
+                logger.error("Failed to write alerts to history file", e);
+            }
+            spillFile.close();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.aquila.ibm.mq.gui.config;
+
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only file of alert events, read through memory mappings. The file starts with a
+ * format marker, then each record is the timestamp, depths and levels in a fixed header
+ * followed by the UTF-8 connection ID and queue name. A last record truncated by a crash is
+ * cut off when the file is opened, a file of another format is started over.
+ */
+class AlertHistoryFile implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AlertHistoryFile.class);
+    // "ALH" and the format version
+    private static final int MAGIC = 0x414C4802;
+    private static final int FILE_HEADER_SIZE = Integer.BYTES;
+    // timestamp, depth, maxDepth, oldLevel, newLevel, connection length, name length
+    private static final int HEADER_SIZE = Long.BYTES + 2 * Integer.BYTES + 2 + 2 * Short.BYTES;
+    /** Largest region mapped at once. */
+    static final long MAP_CHUNK_SIZE = 64L * 1024 * 1024;
+    private static final ThresholdConfig.AlertLevel[] LEVELS = ThresholdConfig.AlertLevel.values();
+
+    private final Path path;
+    private final FileChannel channel;
+
+    AlertHistoryFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        if (!hasMagic()) {
+            if (channel.size() > 0) {
+                logger.warn("Starting over {}, written in another format", path);
+            }
+            clear();
+        }
+        long size = channel.size();
+        long valid = scanFile(null, null, Long.MIN_VALUE, Long.MIN_VALUE, new ArrayList<>());
+        if (valid < size) {
+            logger.warn("Truncating incomplete record at the end of {}", path);
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+    }
+
+    private boolean hasMagic() throws IOException {
+        if (channel.size() < FILE_HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        channel.read(buffer, 0);
+        return buffer.getInt(0) == MAGIC;
+    }
+
+    synchronized void append(AlertManager.AlertEvent event) throws IOException {
+        // No connection is stored as an empty one
+        byte[] connection = event.connectionId() != null ? event.connectionId().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] name = event.queueName().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + connection.length + name.length);
+        buffer.putLong(event.timestamp())
+                .putInt(event.depth())
+                .putInt(event.maxDepth())
+                .put((byte) event.oldLevel().ordinal())
+                .put((byte) event.newLevel().ordinal())
+                .putShort((short) connection.length)
+                .putShort((short) name.length)
+                .put(connection)
+                .put(name)
+                .flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * @param connectionId The connection, null for all connections
+     * @param queueName The queue, null for all queues
+     * @param fromMillis Start time in epoch milliseconds, inclusive
+     * @param toMillis End time in epoch milliseconds, exclusive
+     */
+    List<AlertManager.AlertEvent> query(String connectionId, String queueName, long fromMillis, long toMillis) throws IOException {
+        byte[] wantedConnection = connectionId != null ? connectionId.getBytes(StandardCharsets.UTF_8) : null;
+        byte[] wantedName = queueName != null ? queueName.getBytes(StandardCharsets.UTF_8) : null;
+        List<AlertManager.AlertEvent> events = new ArrayList<>();
+        scanFile(wantedConnection, wantedName, fromMillis, toMillis, events);
+        return events;
+    }
+
+    /**
+     * @return Length of the file up to the end of its complete records
+     */
+    private long scanFile(byte[] wantedConnection, byte[] wantedName, long fromMillis, long toMillis,
+                          List<AlertManager.AlertEvent> events) throws IOException {
+        long size = channel.size();
+        long position = FILE_HEADER_SIZE;
+        while (position < size) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_CHUNK_SIZE, size - position));
+            int consumed = scan(map, wantedConnection, wantedName, fromMillis, toMillis, events);
+            if (consumed == 0) {
+                // Truncated last record
+                break;
+            }
+            position += consumed;
+        }
+        return position;
+    }
+
+    /**
+     * Read the complete records of a mapped region.
+     * @return Bytes consumed
+     */
+    private static int scan(ByteBuffer map, byte[] wantedConnection, byte[] wantedName, long fromMillis, long toMillis,
+                            List<AlertManager.AlertEvent> events) {
+        while (map.remaining() >= HEADER_SIZE) {
+            int start = map.position();
+            long timestamp = map.getLong();
+            int depth = map.getInt();
+            int maxDepth = map.getInt();
+            int oldLevel = map.get();
+            int newLevel = map.get();
+            int connectionLength = map.getShort() & 0xFFFF;
+            int nameLength = map.getShort() & 0xFFFF;
+            if (map.remaining() < connectionLength + nameLength) {
+                map.position(start);
+                break;
+            }
+            int connectionOffset = map.position();
+            int nameOffset = connectionOffset + connectionLength;
+            if (timestamp < fromMillis || timestamp >= toMillis
+                    || (wantedConnection != null && !bytesEqual(map, connectionOffset, connectionLength, wantedConnection))
+                    || (wantedName != null && !bytesEqual(map, nameOffset, nameLength, wantedName))) {
+                map.position(nameOffset + nameLength);
+                continue;
+            }
+            byte[] connection = new byte[connectionLength];
+            map.get(connection);
+            byte[] name = new byte[nameLength];
+            map.get(name);
+            events.add(new AlertManager.AlertEvent(connectionLength == 0 ? null : new String(connection, StandardCharsets.UTF_8),
+                    new String(name, StandardCharsets.UTF_8),
+                    depth, maxDepth, LEVELS[oldLevel], LEVELS[newLevel], timestamp));
+        }
+        return map.position();
+    }
+
+    private static boolean bytesEqual(ByteBuffer map, int offset, int length, byte[] wanted) {
+        if (length != wanted.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (map.get(offset + i) != wanted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    synchronized void clear() throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.position(FILE_HEADER_SIZE);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close alert history file {}", path, e);
+        }
+    }
+}
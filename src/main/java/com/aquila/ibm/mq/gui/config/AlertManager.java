@@ -1,59 +1,169 @@
 package com.aquila.ibm.mq.gui.config;
 
 import com.aquila.ibm.mq.gui.model.QueueInfo;
+import com.aquila.ibm.mq.gui.model.QueueTrend;
 import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import com.aquila.ibm.mq.gui.util.AlertSoundEngine;
 import com.aquila.ibm.mq.gui.util.SoundPlayer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
+/**
+ * Tracks the alert level of each queue. A level is entered at its threshold and left with
+ * hysteresis (see {@link ThresholdConfig#getAlertLevel(QueueInfo, ThresholdConfig.AlertLevel)}),
+ * and a new level must hold for a dwell time before it is reported. When many levels change
+ * at once the changes are folded into periodic storm summaries.
+ * <p>
+ * Thresholds with trend conditions also keep a {@link QueueTrend} of the recent samples of
+ * the queue, and the reported level is the higher of the depth and the trend levels. Rates
+ * are the growth of the depth, which is what polling sees of the enqueue and dequeue rates.
+ * <p>
+ * All the state is kept per {@link QueueKey}, so queues of the same name on different queue
+ * managers are tracked apart.
+ */
 public class AlertManager {
     private static final Logger logger = LoggerFactory.getLogger(AlertManager.class);
+    private static final String ALERT_HISTORY_FILE = "alert-history.bin";
+    /** Time a higher level must hold before it is reported. */
+    public static final long DEFAULT_RAISE_DWELL_MS = 0;
+    /** Time a lower level must hold before it is reported. */
+    public static final long DEFAULT_CLEAR_DWELL_MS = 15_000;
+    public static final int DEFAULT_STORM_THRESHOLD = 25;
+    public static final long DEFAULT_STORM_WINDOW_MS = 10_000;
     private final ConfigManager configManager;
-    private final SoundPlayer soundPlayer;
-    private final Map<String, ThresholdConfig.AlertLevel> currentAlertLevels;
-    private final List<AlertEvent> alertHistory;
+    private final AlertSoundEngine soundEngine;
+    private final Map<QueueKey, ThresholdConfig.AlertLevel> currentAlertLevels;
+    // Level each queue is moving to, and since when
+    private final Map<QueueKey, PendingLevel> pendingLevels = new ConcurrentHashMap<>();
+    private final Map<QueueKey, QueueTrend> trends = new ConcurrentHashMap<>();
+    private final AlertHistory alertHistory;
+    private final AlertStormDetector stormDetector = new AlertStormDetector(DEFAULT_STORM_THRESHOLD, DEFAULT_STORM_WINDOW_MS);
     private boolean soundEnabled = true;
+    private volatile long raiseDwellMillis = DEFAULT_RAISE_DWELL_MS;
+    private volatile long clearDwellMillis = DEFAULT_CLEAR_DWELL_MS;
+    private LongSupplier clock = System::currentTimeMillis;
+    private final List<Consumer<AlertEvent>> alertListeners = new CopyOnWriteArrayList<>();
 
     public AlertManager(ConfigManager configManager) {
         this.configManager = configManager;
-        this.soundPlayer = new SoundPlayer();
+        this.soundEngine = new AlertSoundEngine(new SoundPlayer());
         this.currentAlertLevels = new ConcurrentHashMap<>();
-        this.alertHistory = Collections.synchronizedList(new ArrayList<>());
+        // Evicted alerts are only persisted for the application, not for managers built without configuration
+        this.alertHistory = new AlertHistory(AlertHistory.DEFAULT_CAPACITY,
+                configManager != null ? Paths.get(ConfigManager.CONFIG_DIR, ALERT_HISTORY_FILE) : null);
+    }
+
+    /**
+     * A queue of a queue manager.
+     * @param connectionId The connection of the queue, null when only one is monitored
+     */
+    public record QueueKey(String connectionId, String queueName) {
     }
 
     public ThresholdConfig.AlertLevel checkQueue(QueueInfo queueInfo) {
-        ThresholdConfig threshold = configManager.getThreshold(queueInfo.getQueue());
-        ThresholdConfig.AlertLevel newLevel = threshold.getAlertLevel(queueInfo);
-        ThresholdConfig.AlertLevel currentLevel = currentAlertLevels.getOrDefault(
-            queueInfo.getQueue(), ThresholdConfig.AlertLevel.NONE);
-
-        if (newLevel != currentLevel) {
-            handleAlertLevelChange(queueInfo, currentLevel, newLevel);
-            currentAlertLevels.put(queueInfo.getQueue(), newLevel);
+        return checkQueue(null, queueInfo, getThreshold(queueInfo.getQueue()));
+    }
+
+    public ThresholdConfig.AlertLevel checkQueue(QueueInfo queueInfo, ThresholdConfig threshold) {
+        return checkQueue(null, queueInfo, threshold);
+    }
+
+    /**
+     * Check a queue against a threshold the caller already looked up.
+     * @param connectionId The connection the queue was polled on, null when only one is monitored
+     * @return The reported level, which lags the depth by the dwell time
+     */
+    public ThresholdConfig.AlertLevel checkQueue(String connectionId, QueueInfo queueInfo, ThresholdConfig threshold) {
+        long now = clock.getAsLong();
+        flushStormSummary(now);
+
+        QueueKey key = new QueueKey(connectionId, queueInfo.getQueue());
+        ThresholdConfig.AlertLevel currentLevel = currentAlertLevels.getOrDefault(key, ThresholdConfig.AlertLevel.NONE);
+        ThresholdConfig.AlertLevel level = threshold.getAlertLevel(queueInfo, currentLevel);
+        ThresholdConfig.AlertLevel trendLevel = checkTrend(key, queueInfo, threshold, now);
+        ThresholdConfig.AlertLevel newLevel = trendLevel.compareTo(level) > 0 ? trendLevel : level;
+        if (newLevel == currentLevel) {
+            pendingLevels.remove(key);
+            return currentLevel;
+        }
+
+        // Atomic, as a queue can be checked by a lane while the UI clears it
+        PendingLevel pending = pendingLevels.compute(key, (k, existing) ->
+                existing != null && existing.level() == newLevel ? existing : new PendingLevel(newLevel, now));
+        long dwell = newLevel.compareTo(currentLevel) > 0 ? raiseDwellMillis : clearDwellMillis;
+        if (now - pending.since() < dwell) {
+            return currentLevel;
         }
 
+        pendingLevels.remove(key, pending);
+        if (newLevel == ThresholdConfig.AlertLevel.NONE) {
+            currentAlertLevels.remove(key);
+        } else {
+            currentAlertLevels.put(key, newLevel);
+        }
+        handleAlertLevelChange(connectionId, queueInfo, currentLevel, newLevel, now);
         return newLevel;
     }
 
-    private void handleAlertLevelChange(QueueInfo queueInfo,
-                                       ThresholdConfig.AlertLevel oldLevel,
-                                       ThresholdConfig.AlertLevel newLevel) {
-        logger.info("Alert level changed for queue {}: {} -> {}",
-                   queueInfo.getQueue(), oldLevel, newLevel);
+    private ThresholdConfig.AlertLevel checkTrend(QueueKey key, QueueInfo queueInfo, ThresholdConfig threshold, long now) {
+        if (!threshold.hasTrendConditions()) {
+            trends.remove(key);
+            return ThresholdConfig.AlertLevel.NONE;
+        }
+        long windowMillis = threshold.getTrendWindowSeconds() * 1000L;
+        QueueTrend trend = trends.compute(key, (k, existing) ->
+                existing != null && existing.getWindowMillis() == windowMillis ? existing : new QueueTrend(windowMillis));
+        trend.add(now, queueInfo);
+        return threshold.getTrendLevel(trend, now);
+    }
+
+    /**
+     * @return The recent samples of a queue with trend conditions, null if it has none
+     */
+    public QueueTrend getTrend(String connectionId, String queueName) {
+        return trends.get(new QueueKey(connectionId, queueName));
+    }
 
+    private record PendingLevel(ThresholdConfig.AlertLevel level, long since) {
+    }
+
+    private void handleAlertLevelChange(String connectionId,
+                                       QueueInfo queueInfo,
+                                       ThresholdConfig.AlertLevel oldLevel,
+                                       ThresholdConfig.AlertLevel newLevel,
+                                       long now) {
         AlertEvent event = new AlertEvent(
+            connectionId,
             queueInfo.getQueue(),
             queueInfo.getCurrentDepth(),
             queueInfo.getMaxDepth(),
             oldLevel,
             newLevel,
-            LocalDateTime.now()
+            now
         );
+
+        switch (stormDetector.admit(event, now)) {
+            case SUPPRESS -> {
+                return;
+            }
+            case STORM_STARTED -> logger.warn("Alert storm started, summarising further level changes");
+            case PUBLISH -> {
+            }
+        }
+        logger.info("Alert level changed for queue {} on {}: {} -> {}",
+                   queueInfo.getQueue(), connectionId, oldLevel, newLevel);
         alertHistory.add(event);
+        notifyListeners(event);
 
         if (newLevel == ThresholdConfig.AlertLevel.CRITICAL ||
             newLevel == ThresholdConfig.AlertLevel.WARNING) {
@@ -63,36 +173,114 @@ public class AlertManager {
         }
     }
 
-    private void playAlertSound(ThresholdConfig.AlertLevel level) {
-        try {
-            if (level == ThresholdConfig.AlertLevel.CRITICAL) {
-                soundPlayer.playAlert();
-            } else if (level == ThresholdConfig.AlertLevel.WARNING) {
-                soundPlayer.playWarning();
+    private void flushStormSummary(long now) {
+        AlertEvent summary = stormDetector.summarize(now);
+        if (summary != null) {
+            logger.warn("Alert storm: {} level changes on {} queues, worst level {}",
+                    summary.depth(), summary.maxDepth(), summary.newLevel());
+            alertHistory.add(summary);
+            notifyListeners(summary);
+            if (soundEnabled && summary.newLevel() != ThresholdConfig.AlertLevel.NONE) {
+                playAlertSound(summary.newLevel());
+            }
+        }
+    }
+
+    /**
+     * Receive the alerts recorded in the history, on the monitor thread that raised them.
+     * Listeners must not block.
+     */
+    public void addAlertListener(Consumer<AlertEvent> listener) {
+        alertListeners.add(listener);
+    }
+
+    public void removeAlertListener(Consumer<AlertEvent> listener) {
+        alertListeners.remove(listener);
+    }
+
+    private void notifyListeners(AlertEvent event) {
+        for (Consumer<AlertEvent> listener : alertListeners) {
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                logger.error("Alert listener failed", e);
             }
-        } catch (Exception e) {
-            logger.error("Failed to play alert sound", e);
         }
     }
 
-    public ThresholdConfig.AlertLevel getCurrentAlertLevel(String queueName) {
-        return currentAlertLevels.getOrDefault(queueName, ThresholdConfig.AlertLevel.NONE);
+    /**
+     * Whether level changes are currently folded into storm summaries.
+     */
+    public boolean isStorm() {
+        return stormDetector.isStorm();
     }
 
-    public Map<String, ThresholdConfig.AlertLevel> getAllCurrentAlerts() {
+    /**
+     * Storm summaries are history events with this queue name: their depth is the number of
+     * level changes, their max depth the number of queues, their new level the worst one.
+     */
+    public static boolean isStormSummary(AlertEvent event) {
+        return AlertStormDetector.STORM_QUEUE_NAME.equals(event.queueName());
+    }
+
+    public void setDwellMillis(long raiseDwellMillis, long clearDwellMillis) {
+        this.raiseDwellMillis = raiseDwellMillis;
+        this.clearDwellMillis = clearDwellMillis;
+    }
+
+    /**
+     * More than {@code threshold} level changes within {@code windowMillis} start a storm.
+     */
+    public void setStormDetection(int threshold, long windowMillis) {
+        stormDetector.setThreshold(threshold);
+        stormDetector.setWindowMillis(windowMillis);
+    }
+
+    void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Queue the sound and return, the monitor never waits for playback.
+     */
+    private void playAlertSound(ThresholdConfig.AlertLevel level) {
+        if (level == ThresholdConfig.AlertLevel.CRITICAL) {
+            soundEngine.request(SoundPlayer.Sound.ALERT);
+        } else if (level == ThresholdConfig.AlertLevel.WARNING) {
+            soundEngine.request(SoundPlayer.Sound.WARNING);
+        }
+    }
+
+    public ThresholdConfig getThreshold(String queueName) {
+        return configManager.getThreshold(queueName);
+    }
+
+    public ThresholdConfig.AlertLevel getCurrentAlertLevel(String connectionId, String queueName) {
+        return currentAlertLevels.getOrDefault(new QueueKey(connectionId, queueName), ThresholdConfig.AlertLevel.NONE);
+    }
+
+    public Map<QueueKey, ThresholdConfig.AlertLevel> getAllCurrentAlerts() {
         return new HashMap<>(currentAlertLevels);
     }
 
+    /**
+     * Recent alerts, oldest first. Older ones are in the history file, see {@link #getAlertHistory(String, String, Instant, Instant)}.
+     */
     public List<AlertEvent> getAlertHistory() {
-        return new ArrayList<>(alertHistory);
+        return alertHistory.getEvents();
     }
 
-    public List<AlertEvent> getAlertHistory(String queueName) {
-        synchronized (alertHistory) {
-            return alertHistory.stream()
-                .filter(e -> e.getQueueName().equals(queueName))
-                .toList();
-        }
+    public List<AlertEvent> getAlertHistory(String connectionId, String queueName) {
+        return alertHistory.getEvents(connectionId, queueName);
+    }
+
+    /**
+     * Alerts raised between two times, including the ones evicted to the history file.
+     * @param connectionId The connection, null for all connections
+     * @param queueName The queue, null for all queues
+     */
+    public List<AlertEvent> getAlertHistory(String connectionId, String queueName, Instant from, Instant to) {
+        return alertHistory.query(connectionId, queueName, from.toEpochMilli(), to.toEpochMilli());
     }
 
     public void clearAlertHistory() {
@@ -100,9 +288,12 @@ public class AlertManager {
         logger.info("Alert history cleared");
     }
 
-    public void clearQueueAlert(String queueName) {
-        currentAlertLevels.remove(queueName);
-        logger.info("Cleared alert for queue: {}", queueName);
+    public void clearQueueAlert(String connectionId, String queueName) {
+        QueueKey key = new QueueKey(connectionId, queueName);
+        currentAlertLevels.remove(key);
+        pendingLevels.remove(key);
+        trends.remove(key);
+        logger.info("Cleared alert for queue {} on {}", queueName, connectionId);
     }
 
     public boolean isSoundEnabled() {
@@ -114,54 +305,48 @@ public class AlertManager {
         logger.info("Sound alerts {}", soundEnabled ? "enabled" : "disabled");
     }
 
-    public static class AlertEvent {
-        private final String queueName;
-        private final int depth;
-        private final int maxDepth;
-        private final ThresholdConfig.AlertLevel oldLevel;
-        private final ThresholdConfig.AlertLevel newLevel;
-        private final LocalDateTime timestamp;
-
-        public AlertEvent(String queueName, int depth, int maxDepth,
-                         ThresholdConfig.AlertLevel oldLevel,
-                         ThresholdConfig.AlertLevel newLevel,
-                         LocalDateTime timestamp) {
-            this.queueName = queueName;
-            this.depth = depth;
-            this.maxDepth = maxDepth;
-            this.oldLevel = oldLevel;
-            this.newLevel = newLevel;
-            this.timestamp = timestamp;
-        }
-
-        public String getQueueName() {
-            return queueName;
-        }
+    /**
+     * Alerts of the same level raised within this window play a single sound.
+     */
+    public void setSoundCoalesceWindowMillis(long windowMillis) {
+        soundEngine.setCoalesceWindowMillis(windowMillis);
+    }
 
-        public int getDepth() {
-            return depth;
-        }
+    public long getSoundCoalesceWindowMillis() {
+        return soundEngine.getCoalesceWindowMillis();
+    }
 
-        public int getMaxDepth() {
-            return maxDepth;
-        }
+    /**
+     * Stop the sound engine and close the history file.
+     */
+    public void close() {
+        soundEngine.shutdown();
+        alertHistory.close();
+    }
 
-        public ThresholdConfig.AlertLevel getOldLevel() {
-            return oldLevel;
-        }
+    /**
+     * An alert level change.
+     * @param connectionId The connection of the queue, null when only one is monitored and for storm summaries
+     * @param timestamp Epoch milliseconds
+     */
+    public record AlertEvent(String connectionId, String queueName, int depth, int maxDepth,
+                             ThresholdConfig.AlertLevel oldLevel,
+                             ThresholdConfig.AlertLevel newLevel,
+                             long timestamp) {
 
-        public ThresholdConfig.AlertLevel getNewLevel() {
-            return newLevel;
+        public LocalDateTime getTimestamp() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
         }
 
-        public LocalDateTime getTimestamp() {
-            return timestamp;
+        public QueueKey key() {
+            return new QueueKey(connectionId, queueName);
         }
 
         @Override
         public String toString() {
-            return String.format("[%s] %s: %s -> %s (depth: %d/%d)",
-                timestamp, queueName, oldLevel, newLevel, depth, maxDepth);
+            return String.format("[%s] %s%s: %s -> %s (depth: %d/%d)",
+                getTimestamp(), queueName, connectionId != null ? " on " + connectionId : "",
+                oldLevel, newLevel, depth, maxDepth);
         }
     }
 }
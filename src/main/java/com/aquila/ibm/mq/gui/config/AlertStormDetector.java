@@ -0,0 +1,94 @@
+package com.aquila.ibm.mq.gui.config;
+
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Detects alert storms: more than {@code threshold} level changes within {@code windowMillis}.
+ * During a storm changes are only counted and summarised once per window. The storm ends
+ * with the first window that has no more than {@code threshold} changes.
+ */
+class AlertStormDetector {
+    /** Queue name of storm summaries, not a valid MQ queue name. */
+    static final String STORM_QUEUE_NAME = "*";
+
+    enum Admission {
+        /** Publish the change as usual. */
+        PUBLISH,
+        /** The change starts a storm, publish it as a storm start. */
+        STORM_STARTED,
+        /** Part of an ongoing storm, count it only. */
+        SUPPRESS
+    }
+
+    private final Deque<Long> recentChanges = new ArrayDeque<>();
+    private volatile int threshold;
+    private volatile long windowMillis;
+    private boolean storm;
+    private long summaryStartedAt;
+    private int suppressed;
+    private final Set<AlertManager.QueueKey> stormQueues = new HashSet<>();
+    private ThresholdConfig.AlertLevel worstLevel = ThresholdConfig.AlertLevel.NONE;
+
+    AlertStormDetector(int threshold, long windowMillis) {
+        this.threshold = threshold;
+        this.windowMillis = windowMillis;
+    }
+
+    synchronized Admission admit(AlertManager.AlertEvent event, long now) {
+        if (storm) {
+            suppressed++;
+            stormQueues.add(event.key());
+            if (event.newLevel().compareTo(worstLevel) > 0) {
+                worstLevel = event.newLevel();
+            }
+            return Admission.SUPPRESS;
+        }
+        recentChanges.addLast(now);
+        while (!recentChanges.isEmpty() && recentChanges.peekFirst() <= now - windowMillis) {
+            recentChanges.removeFirst();
+        }
+        if (recentChanges.size() > threshold) {
+            storm = true;
+            summaryStartedAt = now;
+            recentChanges.clear();
+            return Admission.STORM_STARTED;
+        }
+        return Admission.PUBLISH;
+    }
+
+    /**
+     * Summarise the current storm window once it is over.
+     * @return The summary, or null if there is no storm, the window is not over or had no change
+     */
+    synchronized AlertManager.AlertEvent summarize(long now) {
+        if (!storm || now - summaryStartedAt < windowMillis) {
+            return null;
+        }
+        // depth: changes folded into the summary, maxDepth: queues involved
+        AlertManager.AlertEvent summary = suppressed == 0 ? null : new AlertManager.AlertEvent(null, STORM_QUEUE_NAME,
+                suppressed, stormQueues.size(), ThresholdConfig.AlertLevel.NONE, worstLevel, summaryStartedAt);
+        storm = suppressed > threshold;
+        summaryStartedAt = now;
+        suppressed = 0;
+        stormQueues.clear();
+        worstLevel = ThresholdConfig.AlertLevel.NONE;
+        return summary;
+    }
+
+    synchronized boolean isStorm() {
+        return storm;
+    }
+
+    void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+}
@@ -1,11 +1,14 @@
 package com.aquila.ibm.mq.gui.config;
 
+import com.aquila.ibm.mq.gui.model.AlertSinkConfig;
+import com.aquila.ibm.mq.gui.model.DepthRetention;
 import com.aquila.ibm.mq.gui.model.HierarchyConfig;
 import com.aquila.ibm.mq.gui.model.QueueBrowserConfig;
 import com.aquila.ibm.mq.gui.model.QueueManagerConfig;
 import com.aquila.ibm.mq.gui.model.ThresholdConfig;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import lombok.Getter;
 import org.slf4j.Logger;
@@ -16,7 +19,10 @@ import java.lang.reflect.Type;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class ConfigManager {
@@ -25,13 +31,19 @@ public class ConfigManager {
     private static final String CONNECTIONS_FILE = "connections.json";
     private static final String THRESHOLDS_FILE = "thresholds.json";
     private static final String HIERARCHY_FILE = "hierarchy.json";
+    private static final String ALERT_SINKS_FILE = "alert-sinks.json";
+    private static final String DEPTH_RETENTION_FILE = "depth-retention.json";
     private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
     private Map<String, QueueManagerConfig> queueManagers = loadConnections();
     @Getter
     private Map<String, QueueBrowserConfig> queueBrowserConfigMap = new HashMap<>();
+    private final ThresholdRepository thresholdRepository;
 
     public ConfigManager() {
         initConfigDirectory();
+        thresholdRepository = new ThresholdRepository(Paths.get(CONFIG_DIR, THRESHOLDS_FILE));
+        thresholdRepository.load();
+        thresholdRepository.startWatching();
     }
 
     private void initConfigDirectory() {
@@ -93,44 +105,76 @@ public class ConfigManager {
         logger.info("Deleted connection: {}", name);
     }
 
+    /**
+     * @return A modifiable copy of the thresholds held in memory, in file order
+     */
     public Map<String, ThresholdConfig> loadThresholds() {
-        final File file = new File(CONFIG_DIR, THRESHOLDS_FILE);
+        final Map<String, ThresholdConfig> thresholds = new LinkedHashMap<>();
+        thresholdRepository.getAll().forEach((key, threshold) -> thresholds.put(key, new ThresholdConfig(threshold)));
+        return thresholds;
+    }
+
+    public void saveThresholds(Map<String, ThresholdConfig> thresholds) {
+        thresholdRepository.saveAll(thresholds);
+    }
+
+    public void saveThreshold(String queueName, ThresholdConfig threshold) {
+        thresholdRepository.save(queueName, threshold);
+    }
+
+    public ThresholdConfig getThreshold(String queueName) {
+        return thresholdRepository.get(queueName);
+    }
+
+    /**
+     * Load the destinations alerts are forwarded to.
+     *
+     * @return The sink configurations, empty if the file doesn't exist
+     */
+    public List<AlertSinkConfig> loadAlertSinks() {
+        final File file = new File(CONFIG_DIR, ALERT_SINKS_FILE);
         if (!file.exists()) {
-            logger.info("No thresholds file found, returning empty map");
-            return new HashMap<>();
+            return new ArrayList<>();
         }
 
         try (Reader reader = new FileReader(file)) {
-            final Type mapType = new TypeToken<Map<String, ThresholdConfig>>() {
+            final Type listType = new TypeToken<List<AlertSinkConfig>>() {
             }.getType();
-            final Map<String, ThresholdConfig> thresholds = gson.fromJson(reader, mapType);
-            logger.info("Loaded {} threshold(s)", thresholds != null ? thresholds.size() : 0);
-            return thresholds != null ? thresholds : new HashMap<>();
-        } catch (IOException e) {
-            logger.error("Failed to load thresholds", e);
-            return new HashMap<>();
+            final List<AlertSinkConfig> sinks = gson.fromJson(reader, listType);
+            logger.info("Loaded {} alert sink(s)", sinks != null ? sinks.size() : 0);
+            return sinks != null ? sinks : new ArrayList<>();
+        } catch (IOException | JsonParseException e) {
+            logger.error("Failed to load alert sinks", e);
+            return new ArrayList<>();
         }
     }
 
-    public void saveThresholds(Map<String, ThresholdConfig> thresholds) {
-        final File file = new File(CONFIG_DIR, THRESHOLDS_FILE);
-        try (Writer writer = new FileWriter(file)) {
-            gson.toJson(thresholds, writer);
-            logger.info("Saved {} threshold(s)", thresholds.size());
-        } catch (IOException e) {
-            logger.error("Failed to save thresholds", e);
+    /**
+     * Load how long the depth history is kept.
+     *
+     * @return The retention, the defaults if the file doesn't exist
+     */
+    public DepthRetention loadDepthRetention() {
+        final File file = new File(CONFIG_DIR, DEPTH_RETENTION_FILE);
+        if (!file.exists()) {
+            return new DepthRetention();
         }
-    }
 
-    public void saveThreshold(String queueName, ThresholdConfig threshold) {
-        final Map<String, ThresholdConfig> thresholds = loadThresholds();
-        thresholds.put(queueName, threshold);
-        saveThresholds(thresholds);
+        try (Reader reader = new FileReader(file)) {
+            final DepthRetention retention = gson.fromJson(reader, DepthRetention.class);
+            logger.info("Loaded depth retention: {}", retention);
+            return retention != null ? retention : new DepthRetention();
+        } catch (IOException | JsonParseException e) {
+            logger.error("Failed to load depth retention", e);
+            return new DepthRetention();
+        }
     }
 
-    public ThresholdConfig getThreshold(String queueName) {
-        final Map<String, ThresholdConfig> thresholds = loadThresholds();
-        return thresholds.getOrDefault(queueName, new ThresholdConfig());
+    /**
+     * Write pending threshold changes and stop watching the configuration files.
+     */
+    public void close() {
+        thresholdRepository.close();
     }
 
     /**
@@ -0,0 +1,335 @@
+package com.aquila.ibm.mq.gui.config;
+
+import com.aquila.ibm.mq.gui.model.DepthHistory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Depth samples of one queue manager for one day, in fixed-size records read and written
+ * through memory mappings. Queue names are numbered in a names file next to the segment.
+ * <p>
+ * A raw segment is appended to in arrival order, 12 bytes per sample: the offset from the
+ * start of the day, the queue number and the depth. It grows by mapped chunks and its record
+ * count is kept in the header. A compacted segment holds the same samples grouped by queue,
+ * 8 bytes per sample, after an index giving the position of each queue, so the samples of
+ * one queue are a contiguous slice.
+ */
+class DepthSegment implements AutoCloseable {
+    static final int MAGIC = 0x44505448;
+    static final int RAW = 1;
+    static final int COMPACTED = 2;
+    // magic, format, day start, record count, queue count, unused
+    static final int HEADER_SIZE = 32;
+    private static final int COUNT_POSITION = 16;
+    private static final int QUEUE_COUNT_POSITION = 20;
+    static final int RAW_RECORD_SIZE = 12;
+    static final int COMPACTED_RECORD_SIZE = 8;
+    static final int INDEX_ENTRY_SIZE = 12;
+    /** Records per mapped chunk of a raw segment. */
+    static final int CHUNK_RECORDS = 1 << 20;
+
+    private final Path path;
+    private final Path namesPath;
+    private final FileChannel channel;
+    private final int format;
+    private final long dayStart;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private int count;
+    // Compacted segments only
+    private MappedByteBuffer compacted;
+    private int queueCount;
+
+    private DepthSegment(Path path, FileChannel channel, boolean writable, long dayStart) throws IOException {
+        this.path = path;
+        this.namesPath = namesPath(path);
+        this.channel = channel;
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        if (channel.size() < HEADER_SIZE) {
+            if (!writable) {
+                throw new IOException("Empty depth segment " + path);
+            }
+            this.header = channel.map(mode, 0, HEADER_SIZE);
+            header.putInt(0, MAGIC).putInt(4, RAW).putLong(8, dayStart);
+        } else {
+            this.header = channel.map(mode, 0, HEADER_SIZE);
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a depth segment: " + path);
+        }
+        this.format = header.getInt(4);
+        this.dayStart = header.getLong(8);
+        this.count = header.getInt(COUNT_POSITION);
+        if (format == COMPACTED) {
+            queueCount = header.getInt(QUEUE_COUNT_POSITION);
+            long size = (long) queueCount * INDEX_ENTRY_SIZE + (long) count * COMPACTED_RECORD_SIZE;
+            compacted = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, size);
+        } else {
+            for (int chunk = 0; chunk * (long) CHUNK_RECORDS < count; chunk++) {
+                chunks.add(mapChunk(chunk, mode));
+            }
+        }
+        loadNames();
+    }
+
+    /**
+     * Open a segment for appending, creating it if needed.
+     */
+    static DepthSegment openForAppend(Path path, long dayStart) throws IOException {
+        Files.createDirectories(path.getParent());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        DepthSegment segment = new DepthSegment(path, channel, true, dayStart);
+        if (segment.format != RAW) {
+            segment.close();
+            throw new IOException("Depth segment already compacted: " + path);
+        }
+        return segment;
+    }
+
+    static DepthSegment openForRead(Path path) throws IOException {
+        return new DepthSegment(path, FileChannel.open(path, StandardOpenOption.READ), false, 0);
+    }
+
+    static Path namesPath(Path segmentPath) {
+        return segmentPath.resolveSibling(segmentPath.getFileName() + ".names");
+    }
+
+    private MappedByteBuffer mapChunk(int chunk, FileChannel.MapMode mode) throws IOException {
+        long position = HEADER_SIZE + (long) chunk * CHUNK_RECORDS * RAW_RECORD_SIZE;
+        long size = (long) CHUNK_RECORDS * RAW_RECORD_SIZE;
+        if (mode == FileChannel.MapMode.READ_ONLY) {
+            // A read-only mapping cannot extend the file
+            size = Math.min(size, channel.size() - position);
+        }
+        return channel.map(mode, position, size);
+    }
+
+    private void loadNames() throws IOException {
+        if (Files.exists(namesPath)) {
+            for (String name : Files.readAllLines(namesPath, StandardCharsets.UTF_8)) {
+                ids.put(name, names.size());
+                names.add(name);
+            }
+        }
+    }
+
+    /**
+     * Write a sample straight into the mapped file.
+     */
+    synchronized void append(String queueName, long time, int depth) throws IOException {
+        Integer id = ids.get(queueName);
+        if (id == null) {
+            id = names.size();
+            Files.writeString(namesPath, queueName + '\n', StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            ids.put(queueName, id);
+            names.add(queueName);
+        }
+        int chunk = count / CHUNK_RECORDS;
+        if (chunk == chunks.size()) {
+            chunks.add(mapChunk(chunk, FileChannel.MapMode.READ_WRITE));
+        }
+        int position = (count % CHUNK_RECORDS) * RAW_RECORD_SIZE;
+        chunks.get(chunk)
+                .putInt(position, (int) (time - dayStart))
+                .putInt(position + 4, id)
+                .putInt(position + 8, depth);
+        // Published last, a crash leaves at most the record being written out
+        header.putInt(COUNT_POSITION, ++count);
+    }
+
+    /**
+     * Pass the samples of one queue with {@code from <= time < to} to a consumer, in time order.
+     */
+    synchronized void read(String queueName, long from, long to, String connectionId, DepthHistory.SampleListener consumer) {
+        Integer id = ids.get(queueName);
+        if (id == null) {
+            return;
+        }
+        if (format == COMPACTED) {
+            int entry = findIndexEntry(id);
+            if (entry >= 0) {
+                readSlice(entry, from, to, connectionId, consumer);
+            }
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            MappedByteBuffer chunk = chunks.get(i / CHUNK_RECORDS);
+            int position = (i % CHUNK_RECORDS) * RAW_RECORD_SIZE;
+            if (chunk.getInt(position + 4) == id) {
+                long time = dayStart + chunk.getInt(position);
+                if (time >= from && time < to) {
+                    consumer.onSample(connectionId, queueName, time, chunk.getInt(position + 8));
+                }
+            }
+        }
+    }
+
+    /**
+     * Pass every sample with {@code from <= time < to} to a consumer, in time order for each queue.
+     */
+    synchronized void readAll(long from, long to, String connectionId, DepthHistory.SampleListener consumer) {
+        if (format == COMPACTED) {
+            for (int entry = 0; entry < queueCount; entry++) {
+                readSlice(entry, from, to, connectionId, consumer);
+            }
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            MappedByteBuffer chunk = chunks.get(i / CHUNK_RECORDS);
+            int position = (i % CHUNK_RECORDS) * RAW_RECORD_SIZE;
+            long time = dayStart + chunk.getInt(position);
+            int id = chunk.getInt(position + 4);
+            if (time >= from && time < to && id < names.size()) {
+                consumer.onSample(connectionId, names.get(id), time, chunk.getInt(position + 8));
+            }
+        }
+    }
+
+    private int findIndexEntry(int id) {
+        int low = 0;
+        int high = queueCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = compacted.getInt(middle * INDEX_ENTRY_SIZE);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private void readSlice(int entry, long from, long to, String connectionId, DepthHistory.SampleListener consumer) {
+        String queueName = names.get(compacted.getInt(entry * INDEX_ENTRY_SIZE));
+        int first = compacted.getInt(entry * INDEX_ENTRY_SIZE + 4);
+        int end = first + compacted.getInt(entry * INDEX_ENTRY_SIZE + 8);
+        int recordsStart = queueCount * INDEX_ENTRY_SIZE;
+        // Samples of a queue are in time order, skip to the first one in range
+        int low = first;
+        int high = end;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (dayStart + compacted.getInt(recordsStart + middle * COMPACTED_RECORD_SIZE) < from) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int i = low; i < end; i++) {
+            int position = recordsStart + i * COMPACTED_RECORD_SIZE;
+            long time = dayStart + compacted.getInt(position);
+            if (time >= to) {
+                break;
+            }
+            consumer.onSample(connectionId, queueName, time, compacted.getInt(position + 4));
+        }
+    }
+
+    /**
+     * Rewrite a raw segment grouped by queue, replacing it atomically. Samples are moved
+     * with a counting sort in two passes over the mappings, without loading them in memory.
+     */
+    static void compact(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DepthSegment raw = openForRead(path)) {
+            if (raw.format != RAW) {
+                return;
+            }
+            int[] perQueue = new int[raw.names.size()];
+            int valid = 0;
+            for (int i = 0; i < raw.count; i++) {
+                int id = raw.chunks.get(i / CHUNK_RECORDS).getInt((i % CHUNK_RECORDS) * RAW_RECORD_SIZE + 4);
+                // Samples of a queue whose name was lost are dropped
+                if (id < perQueue.length) {
+                    perQueue[id]++;
+                    valid++;
+                }
+            }
+            int queues = 0;
+            for (int perQueueCount : perQueue) {
+                if (perQueueCount > 0) {
+                    queues++;
+                }
+            }
+            long size = HEADER_SIZE + (long) queues * INDEX_ENTRY_SIZE + (long) valid * COMPACTED_RECORD_SIZE;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer target = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                int recordsStart = HEADER_SIZE + queues * INDEX_ENTRY_SIZE;
+                int[] next = new int[perQueue.length];
+                int entry = 0;
+                int first = 0;
+                for (int id = 0; id < perQueue.length; id++) {
+                    if (perQueue[id] == 0) {
+                        continue;
+                    }
+                    target.putInt(HEADER_SIZE + entry * INDEX_ENTRY_SIZE, id)
+                            .putInt(HEADER_SIZE + entry * INDEX_ENTRY_SIZE + 4, first)
+                            .putInt(HEADER_SIZE + entry * INDEX_ENTRY_SIZE + 8, perQueue[id]);
+                    next[id] = first;
+                    first += perQueue[id];
+                    entry++;
+                }
+                for (int i = 0; i < raw.count; i++) {
+                    MappedByteBuffer chunk = raw.chunks.get(i / CHUNK_RECORDS);
+                    int position = (i % CHUNK_RECORDS) * RAW_RECORD_SIZE;
+                    int id = chunk.getInt(position + 4);
+                    if (id >= next.length) {
+                        continue;
+                    }
+                    int targetPosition = recordsStart + next[id]++ * COMPACTED_RECORD_SIZE;
+                    target.putInt(targetPosition, chunk.getInt(position))
+                            .putInt(targetPosition + 4, chunk.getInt(position + 8));
+                }
+                target.putInt(0, MAGIC).putInt(4, COMPACTED).putLong(8, raw.dayStart)
+                        .putInt(COUNT_POSITION, valid).putInt(QUEUE_COUNT_POSITION, queues);
+                target.force();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    boolean isCompacted() {
+        return format == COMPACTED;
+    }
+
+    long getDayStart() {
+        return dayStart;
+    }
+
+    synchronized int getCount() {
+        return count;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Close the file. The mappings are released when they are garbage collected.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
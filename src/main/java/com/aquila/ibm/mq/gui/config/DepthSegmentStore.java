@@ -0,0 +1,256 @@
+package com.aquila.ibm.mq.gui.config;
+
+import com.aquila.ibm.mq.gui.model.DepthHistory;
+import com.aquila.ibm.mq.gui.model.DepthSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Depth history on disk, one {@link DepthSegment} per queue manager per day under
+ * {@code <root>/<connection>/<yyyy-MM-dd>.seg}. Samples of the current day are appended
+ * to a raw segment. A background task compacts the segments of past days, so reading a
+ * queue over several days only touches its own samples, and deletes the ones older than
+ * the retention.
+ */
+public class DepthSegmentStore implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DepthSegmentStore.class);
+    static final String SEGMENT_SUFFIX = ".seg";
+    /** Delay of the first compaction, to keep it out of the way of the startup. */
+    private static final long COMPACTION_DELAY_MS = 60_000;
+    private static final long CLOSE_TIMEOUT_MS = 10_000;
+
+    private final Path root;
+    private final int retentionDays;
+    private final ZoneId zone;
+    // Segment being appended to, per connection
+    private final Map<String, Current> current = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService compactor;
+    private volatile boolean closed;
+
+    public DepthSegmentStore(Path root, int retentionDays) {
+        this(root, retentionDays, ZoneId.systemDefault());
+    }
+
+    DepthSegmentStore(Path root, int retentionDays, ZoneId zone) {
+        this.root = root;
+        this.retentionDays = retentionDays;
+        this.zone = zone;
+        this.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "DepthCompactor");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Compact past segments in the background, shortly after the start and then every day.
+     */
+    public void startCompaction() {
+        compactor.scheduleWithFixedDelay(this::compactQuietly, COMPACTION_DELAY_MS,
+                TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Append a sample, usable as a {@link DepthHistory.SampleListener}. Errors are logged.
+     */
+    public void append(String connectionId, String queueName, long time, int depth) {
+        if (closed) {
+            return;
+        }
+        try {
+            segmentFor(connectionId, time).append(queueName, time, depth);
+        } catch (IOException e) {
+            logger.error("Failed to persist depth of {} on {}", queueName, connectionId, e);
+        }
+    }
+
+    private record Current(DepthSegment segment, long dayStart, long nextDayStart) {
+    }
+
+    private DepthSegment segmentFor(String connectionId, long time) throws IOException {
+        Current live = current.get(connectionId);
+        if (live != null && time >= live.dayStart() && time < live.nextDayStart()) {
+            return live.segment();
+        }
+        synchronized (current) {
+            live = current.get(connectionId);
+            if (live != null && time < live.nextDayStart()) {
+                // Also when the clock stepped back over midnight, keep writing to the newer day
+                return live.segment();
+            }
+            LocalDate day = dayOf(time);
+            long dayStart = day.atStartOfDay(zone).toInstant().toEpochMilli();
+            DepthSegment segment = DepthSegment.openForAppend(segmentPath(connectionId, day), dayStart);
+            current.put(connectionId, new Current(segment, dayStart, day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli()));
+            if (live != null) {
+                live.segment().close();
+                compactor.execute(this::compactQuietly);
+            }
+            return segment;
+        }
+    }
+
+    private LocalDate dayOf(long time) {
+        return Instant.ofEpochMilli(time).atZone(zone).toLocalDate();
+    }
+
+    Path segmentPath(String connectionId, LocalDate day) {
+        return connectionDirectory(connectionId).resolve(day + SEGMENT_SUFFIX);
+    }
+
+    private Path connectionDirectory(String connectionId) {
+        return root.resolve(connectionId.replaceAll("[^A-Za-z0-9._@-]", "_"));
+    }
+
+    /**
+     * Samples of one queue with {@code from <= time < to}, oldest first.
+     */
+    public DepthSeries.Samples read(String connectionId, String queueName, long from, long to) {
+        SampleBuffer buffer = new SampleBuffer();
+        forEachSegment(connectionId, from, to, segment -> segment.read(queueName, from, to, connectionId, buffer));
+        return buffer.toSamples();
+    }
+
+    /**
+     * Pass the samples of every queue of a connection with {@code from <= time < to} to a
+     * consumer, day by day and in time order for each queue, e.g. to restore the history.
+     */
+    public void replay(String connectionId, long from, long to, DepthHistory.SampleListener consumer) {
+        forEachSegment(connectionId, from, to, segment -> segment.readAll(from, to, connectionId, consumer));
+    }
+
+    private void forEachSegment(String connectionId, long from, long to, Consumer<DepthSegment> action) {
+        if (from >= to) {
+            return;
+        }
+        for (LocalDate day = dayOf(from); !day.isAfter(dayOf(to - 1)); day = day.plusDays(1)) {
+            Path path = segmentPath(connectionId, day);
+            Current live = current.get(connectionId);
+            if (live != null && live.segment().getPath().equals(path)) {
+                action.accept(live.segment());
+                continue;
+            }
+            if (!Files.exists(path)) {
+                continue;
+            }
+            try (DepthSegment segment = DepthSegment.openForRead(path)) {
+                action.accept(segment);
+            } catch (IOException e) {
+                logger.error("Failed to read depth segment {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Compact the raw segments of past days and delete the expired ones.
+     */
+    void compact() throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        LocalDate today = LocalDate.now(zone);
+        LocalDate oldest = today.minusDays(retentionDays);
+        try (DirectoryStream<Path> connections = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path directory : connections) {
+                try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+                    for (Path path : segments) {
+                        try {
+                            compactSegment(path, today, oldest);
+                        } catch (IOException e) {
+                            logger.error("Failed to compact depth segment {}", path, e);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void compactSegment(Path path, LocalDate today, LocalDate oldest) throws IOException {
+        String fileName = path.getFileName().toString();
+        LocalDate day;
+        try {
+            day = LocalDate.parse(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (DateTimeParseException e) {
+            return;
+        }
+        if (day.isBefore(oldest)) {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(DepthSegment.namesPath(path));
+            logger.info("Deleted expired depth segment {}", path);
+        } else if (day.isBefore(today) && current.values().stream().noneMatch(live -> live.segment().getPath().equals(path))) {
+            long start = System.currentTimeMillis();
+            DepthSegment.compact(path);
+            logger.debug("Compacted depth segment {} in {} ms", path, System.currentTimeMillis() - start);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Depth history compaction failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        compactor.shutdown();
+        try {
+            // Let a running compaction finish rather than leave its temporary file behind
+            compactor.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (current) {
+            for (Current live : current.values()) {
+                try {
+                    live.segment().close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close depth segment {}", live.segment().getPath(), e);
+                }
+            }
+            current.clear();
+        }
+    }
+
+    /**
+     * Growable primitive arrays collecting the samples of a read.
+     */
+    private static class SampleBuffer implements DepthHistory.SampleListener {
+        private long[] times = new long[256];
+        private int[] depths = new int[256];
+        private int size;
+
+        @Override
+        public void onSample(String connectionId, String queueName, long time, int depth) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                depths = Arrays.copyOf(depths, size * 2);
+            }
+            times[size] = time;
+            depths[size++] = depth;
+        }
+
+        DepthSeries.Samples toSamples() {
+            return new DepthSeries.Samples(Arrays.copyOf(times, size), Arrays.copyOf(depths, size));
+        }
+    }
+}
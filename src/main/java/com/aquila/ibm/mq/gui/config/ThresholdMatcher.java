@@ -0,0 +1,238 @@
+package com.aquila.ibm.mq.gui.config;
+
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Resolves the threshold of a queue from rules keyed by:
+ * <ul>
+ *     <li>a queue name, which always wins;</li>
+ *     <li>a generic name ending with {@code *}, e.g. {@code APP.ORDERS.*};</li>
+ *     <li>a regular expression prefixed with {@code regex:}, matched against the whole name.</li>
+ * </ul>
+ * Among the matching patterns the highest {@link ThresholdConfig#getPriority() priority} wins,
+ * then the longest generic name, then generic names over expressions, then the first
+ * expression in file order. Generic names are held in a trie walked once along the queue
+ * name and the expressions are compiled into one alternation, so a lookup does not scan
+ * the rules. Expressions with backreferences or named groups would change meaning inside the
+ * alternation and are matched on their own. Results are memoised per queue name. Immutable
+ * apart from the memo.
+ */
+public class ThresholdMatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ThresholdMatcher.class);
+    public static final String REGEX_PREFIX = "regex:";
+    /** Memoised names before the memo is cleared, bounds memory when names are unbounded. */
+    static final int MAX_MEMO_SIZE = 100_000;
+
+    private final Map<String, ThresholdConfig> exact = new HashMap<>();
+    private final TrieNode root = new TrieNode();
+    private final Pattern combinedRegex;
+    // Capturing group of each expression in the alternation, and its rule
+    private final int[] regexGroups;
+    private final RegexRule[] regexRules;
+    // Expressions matched on their own, in precedence order
+    private final RegexRule[] separateRules;
+    private final ThresholdConfig defaultThreshold;
+    private final Map<String, ThresholdConfig> memo = new ConcurrentHashMap<>();
+
+    /**
+     * @param rules Thresholds keyed by queue name or pattern
+     * @param defaultThreshold Returned for queues no rule matches
+     */
+    public ThresholdMatcher(Map<String, ThresholdConfig> rules, ThresholdConfig defaultThreshold) {
+        this.defaultThreshold = defaultThreshold;
+        List<Map.Entry<String, ThresholdConfig>> regexes = new ArrayList<>();
+        for (Map.Entry<String, ThresholdConfig> rule : rules.entrySet()) {
+            String key = rule.getKey();
+            if (key.startsWith(REGEX_PREFIX)) {
+                regexes.add(rule);
+            } else if (key.endsWith("*")) {
+                root.insert(key.substring(0, key.length() - 1), rule.getValue());
+            } else {
+                exact.put(key, rule.getValue());
+            }
+        }
+
+        // Alternatives are tried in order, so the first one that matches has the highest priority
+        regexes.sort(Comparator.comparingInt((Map.Entry<String, ThresholdConfig> rule) -> rule.getValue().getPriority()).reversed());
+        StringBuilder alternation = new StringBuilder();
+        List<Integer> groups = new ArrayList<>();
+        List<RegexRule> combinedRules = new ArrayList<>();
+        List<RegexRule> separate = new ArrayList<>();
+        int group = 1;
+        for (int rank = 0; rank < regexes.size(); rank++) {
+            Map.Entry<String, ThresholdConfig> rule = regexes.get(rank);
+            String regex = rule.getKey().substring(REGEX_PREFIX.length());
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                logger.warn("Ignoring threshold rule with invalid expression {}: {}", rule.getKey(), e.getDescription());
+                continue;
+            }
+            RegexRule regexRule = new RegexRule(rank, pattern, rule.getValue());
+            if (needsOwnPattern(regex)) {
+                separate.add(regexRule);
+                continue;
+            }
+            if (alternation.length() > 0) {
+                alternation.append('|');
+            }
+            alternation.append('(').append(regex).append(')');
+            groups.add(group);
+            combinedRules.add(regexRule);
+            group += 1 + pattern.matcher("").groupCount();
+        }
+
+        Pattern combined = null;
+        if (!groups.isEmpty()) {
+            try {
+                combined = Pattern.compile(alternation.toString());
+            } catch (PatternSyntaxException e) {
+                logger.warn("Threshold expressions cannot be combined, matching them one by one: {}", e.getDescription());
+                separate.addAll(combinedRules);
+                separate.sort(Comparator.comparingInt(RegexRule::rank));
+                groups.clear();
+                combinedRules.clear();
+            }
+        }
+        this.combinedRegex = combined;
+        this.regexGroups = groups.stream().mapToInt(Integer::intValue).toArray();
+        this.regexRules = combinedRules.toArray(new RegexRule[0]);
+        this.separateRules = separate.toArray(new RegexRule[0]);
+    }
+
+    /**
+     * Whether an expression has a backreference or a named group. Group numbers shift inside
+     * the alternation and a group name may only be used once in a pattern.
+     */
+    static boolean needsOwnPattern(String regex) {
+        for (int i = 0; i < regex.length() - 1; i++) {
+            char c = regex.charAt(i);
+            char next = regex.charAt(i + 1);
+            if (c == '\\') {
+                if ((next >= '1' && next <= '9') || next == 'k') {
+                    return true;
+                }
+                // Skip the escaped character
+                i++;
+            } else if (c == '(' && regex.startsWith("?<", i + 1) && i + 3 < regex.length()
+                    && regex.charAt(i + 3) != '=' && regex.charAt(i + 3) != '!') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The threshold of the queue, or the default threshold when no rule matches
+     */
+    public ThresholdConfig resolve(String queueName) {
+        ThresholdConfig threshold = memo.get(queueName);
+        if (threshold == null) {
+            threshold = match(queueName);
+            if (memo.size() >= MAX_MEMO_SIZE) {
+                memo.clear();
+            }
+            memo.put(queueName, threshold);
+        }
+        return threshold;
+    }
+
+    private ThresholdConfig match(String queueName) {
+        ThresholdConfig threshold = exact.get(queueName);
+        if (threshold != null) {
+            return threshold;
+        }
+        ThresholdConfig best = root.longestBest(queueName);
+        ThresholdConfig regex = matchRegex(queueName);
+        if (regex != null && (best == null || regex.getPriority() > best.getPriority())) {
+            best = regex;
+        }
+        return best != null ? best : defaultThreshold;
+    }
+
+    private ThresholdConfig matchRegex(String queueName) {
+        RegexRule best = null;
+        if (combinedRegex != null) {
+            Matcher matcher = combinedRegex.matcher(queueName);
+            if (matcher.matches()) {
+                for (int i = 0; i < regexGroups.length; i++) {
+                    if (matcher.start(regexGroups[i]) >= 0) {
+                        best = regexRules[i];
+                        break;
+                    }
+                }
+            }
+        }
+        for (RegexRule rule : separateRules) {
+            if (best != null && rule.rank() > best.rank()) {
+                break;
+            }
+            if (rule.pattern().matcher(queueName).matches()) {
+                best = rule;
+                break;
+            }
+        }
+        return best != null ? best.threshold() : null;
+    }
+
+    /**
+     * Whether the queue has no rule and gets the default threshold.
+     */
+    public boolean isDefault(String queueName) {
+        return resolve(queueName) == defaultThreshold;
+    }
+
+    int memoSize() {
+        return memo.size();
+    }
+
+    /**
+     * An expression and its place in the precedence order.
+     */
+    private record RegexRule(int rank, Pattern pattern, ThresholdConfig threshold) {
+    }
+
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private ThresholdConfig rule;
+
+        private void insert(String prefix, ThresholdConfig threshold) {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new TrieNode());
+            }
+            node.rule = threshold;
+        }
+
+        /**
+         * The highest priority rule whose prefix starts the name, the longest one on a tie.
+         */
+        private ThresholdConfig longestBest(String name) {
+            ThresholdConfig best = rule;
+            TrieNode node = this;
+            for (int i = 0; i < name.length(); i++) {
+                node = node.children.get(name.charAt(i));
+                if (node == null) {
+                    break;
+                }
+                if (node.rule != null && (best == null || node.rule.getPriority() >= best.getPriority())) {
+                    best = node.rule;
+                }
+            }
+            return best;
+        }
+    }
+}
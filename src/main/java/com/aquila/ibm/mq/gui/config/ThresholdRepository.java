@@ -0,0 +1,235 @@
+package com.aquila.ibm.mq.gui.config;
+
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thresholds held in memory, keyed by queue name or pattern (see {@link ThresholdMatcher}).
+ * The file is parsed once at startup and
+ * again whenever it changes on disk; a reload replaces the whole map at once, so lookups
+ * see either the old or the new thresholds. Saves update the map immediately and are
+ * written to disk shortly after, several saves in a row being written once.
+ */
+public class ThresholdRepository implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ThresholdRepository.class);
+    /** Delay between a save and the file write, saves within that delay are coalesced. */
+    static final long WRITE_DELAY_MS = 500;
+    private static final Type MAP_TYPE = new TypeToken<Map<String, ThresholdConfig>>() {
+    }.getType();
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Path file;
+    // Never modified once published, saves copy it
+    private volatile Map<String, ThresholdConfig> thresholds = Map.of();
+    private volatile ThresholdMatcher matcher = new ThresholdMatcher(Map.of(), new ThresholdConfig());
+    private final ScheduledExecutorService writer;
+    private ScheduledFuture<?> pendingWrite;
+    private FileTime lastWritten;
+    private WatchService watchService;
+    private Thread watcher;
+
+    public ThresholdRepository(Path file) {
+        this.file = file;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ThresholdWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Read the file, keeping the current thresholds if it cannot be parsed.
+     * @return false if the file is missing or invalid
+     */
+    public boolean load() {
+        if (!Files.exists(file)) {
+            logger.info("No thresholds file found, using defaults");
+            return false;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, ThresholdConfig> loaded = gson.fromJson(reader, MAP_TYPE);
+            publish(loaded != null ? loaded : Map.of());
+            logger.info("Loaded {} threshold(s)", thresholds.size());
+            return true;
+        } catch (IOException | JsonParseException e) {
+            logger.error("Failed to load thresholds from {}, keeping the current ones", file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Reload the thresholds whenever the file is changed by someone else.
+     */
+    public synchronized void startWatching() {
+        if (watcher != null) {
+            return;
+        }
+        Path dir = file.toAbsolutePath().getParent();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.error("Cannot watch {}, thresholds will not be reloaded", dir, e);
+            return;
+        }
+        watcher = new Thread(this::watch, "ThresholdWatcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch() {
+        Path name = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= name.equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    onFileChanged();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Stopped watching {}", file);
+        }
+    }
+
+    private synchronized void onFileChanged() {
+        try {
+            if (pendingWrite != null || Files.getLastModifiedTime(file).equals(lastWritten)) {
+                // Our own write, or one is about to replace the file anyway
+                return;
+            }
+        } catch (IOException e) {
+            // Deleted or being replaced, the next event will tell
+            return;
+        }
+        logger.info("Thresholds file changed, reloading");
+        load();
+    }
+
+    private void publish(Map<String, ThresholdConfig> thresholds) {
+        ThresholdMatcher compiled = new ThresholdMatcher(thresholds, new ThresholdConfig());
+        this.thresholds = thresholds;
+        this.matcher = compiled;
+    }
+
+    /**
+     * The threshold that applies to a queue, from its own rule or the best matching pattern.
+     * The result is shared between lookups and must not be modified.
+     */
+    public ThresholdConfig get(String queueName) {
+        return matcher.resolve(queueName);
+    }
+
+    /**
+     * Whether no rule applies to the queue, which then gets the default thresholds.
+     */
+    public boolean isDefault(String queueName) {
+        return matcher.isDefault(queueName);
+    }
+
+    /**
+     * @return An unmodifiable view of all thresholds
+     */
+    public Map<String, ThresholdConfig> getAll() {
+        return Collections.unmodifiableMap(thresholds);
+    }
+
+    public synchronized void save(String queueName, ThresholdConfig threshold) {
+        Map<String, ThresholdConfig> copy = new LinkedHashMap<>(thresholds);
+        copy.put(queueName, threshold);
+        publish(copy);
+        scheduleWrite();
+    }
+
+    public synchronized void saveAll(Map<String, ThresholdConfig> thresholds) {
+        publish(new LinkedHashMap<>(thresholds));
+        scheduleWrite();
+    }
+
+    private void scheduleWrite() {
+        if (pendingWrite == null) {
+            pendingWrite = writer.schedule(this::flush, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write pending saves now.
+     */
+    public synchronized void flush() {
+        if (pendingWrite == null) {
+            return;
+        }
+        pendingWrite.cancel(false);
+        pendingWrite = null;
+        Map<String, ThresholdConfig> snapshot = thresholds;
+        // Written next to the file then moved, the watcher never reads a partial file
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                gson.toJson(snapshot, MAP_TYPE, out);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            lastWritten = Files.getLastModifiedTime(file);
+            logger.info("Saved {} threshold(s)", snapshot.size());
+        } catch (IOException e) {
+            logger.error("Failed to save thresholds", e);
+        }
+    }
+
+    /**
+     * Write pending saves and stop watching the file.
+     */
+    @Override
+    public void close() {
+        flush();
+        writer.shutdown();
+        synchronized (this) {
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close threshold watcher", e);
+                }
+                watchService = null;
+                watcher = null;
+            }
+        }
+    }
+}
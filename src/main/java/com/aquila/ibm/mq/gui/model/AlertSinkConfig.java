@@ -0,0 +1,67 @@
+package com.aquila.ibm.mq.gui.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * A destination alerts are forwarded to, read from alert-sinks.json.
+ */
+@Setter
+@Getter
+@ToString
+public class AlertSinkConfig {
+    public enum Type {
+        /** JSON lines appended to {@link #path}. */
+        FILE,
+        /** RFC 5424 messages sent over UDP to {@link #host}:{@link #port}. */
+        SYSLOG,
+        /** JSON arrays posted to {@link #url}. */
+        WEBHOOK,
+        /** {@link #command} run once per batch with JSON lines on its standard input. */
+        COMMAND
+    }
+
+    /** What happens to a new alert when the sink queue is full. */
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        DROP_NEWEST
+    }
+
+    private String name;
+    private Type type;
+    private boolean enabled;
+    private String path;
+    private String host;
+    private int port;
+    private String url;
+    private List<String> command;
+    private int queueCapacity;
+    private int batchSize;
+    private long lingerMillis;
+    private OverflowPolicy overflowPolicy;
+    private int maxRetries;
+    private long initialBackoffMillis;
+    private long maxBackoffMillis;
+
+    public AlertSinkConfig() {
+        this.enabled = true;
+        this.host = "localhost";
+        this.port = 514;
+        this.queueCapacity = 1000;
+        this.batchSize = 50;
+        this.lingerMillis = 200;
+        this.overflowPolicy = OverflowPolicy.DROP_OLDEST;
+        this.maxRetries = 5;
+        this.initialBackoffMillis = 500;
+        this.maxBackoffMillis = 30_000;
+    }
+
+    public AlertSinkConfig(String name, Type type) {
+        this();
+        this.name = name;
+        this.type = type;
+    }
+}
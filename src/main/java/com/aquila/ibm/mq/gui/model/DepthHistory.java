@@ -0,0 +1,109 @@
+package com.aquila.ibm.mq.gui.model;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Depth history of every monitored queue, one {@link DepthSeries} per queue of each connection.
+ * Written by the monitor threads and read by the UI. Listeners see every recorded sample,
+ * e.g. to persist it, but not the ones {@link #restore(String, String, long, int) restored}.
+ */
+public class DepthHistory {
+    private final DepthRetention retention;
+    private final Map<String, Map<String, DepthSeries>> connections = new ConcurrentHashMap<>();
+    private final List<SampleListener> listeners = new CopyOnWriteArrayList<>();
+
+    @FunctionalInterface
+    public interface SampleListener {
+        void onSample(String connectionId, String queueName, long time, int depth);
+    }
+
+    public DepthHistory() {
+        this(new DepthRetention());
+    }
+
+    public DepthHistory(DepthRetention retention) {
+        this.retention = retention;
+    }
+
+    public void record(String connectionId, QueueInfo queueInfo, long time) {
+        record(connectionId, queueInfo.getQueue(), time, queueInfo.getCurrentDepth());
+    }
+
+    public void record(String connectionId, String queueName, long time, int depth) {
+        if (series(connectionId, queueName).add(time, depth)) {
+            for (SampleListener listener : listeners) {
+                listener.onSample(connectionId, queueName, time, depth);
+            }
+        }
+    }
+
+    /**
+     * Add a sample read back from storage, without notifying the listeners.
+     */
+    public void restore(String connectionId, String queueName, long time, int depth) {
+        series(connectionId, queueName).add(time, depth);
+    }
+
+    private DepthSeries series(String connectionId, String queueName) {
+        return connections.computeIfAbsent(connectionId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(queueName, name -> new DepthSeries(retention));
+    }
+
+    public void addSampleListener(SampleListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeSampleListener(SampleListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void record(String connectionId, Collection<QueueInfo> queues, long time) {
+        for (QueueInfo queue : queues) {
+            record(connectionId, queue, time);
+        }
+    }
+
+    /**
+     * @return The history of a queue, null if nothing was recorded for it
+     */
+    public DepthSeries get(String connectionId, String queueName) {
+        Map<String, DepthSeries> queues = connections.get(connectionId);
+        return queues == null ? null : queues.get(queueName);
+    }
+
+    public void removeQueue(String connectionId, String queueName) {
+        Map<String, DepthSeries> queues = connections.get(connectionId);
+        if (queues != null) {
+            queues.remove(queueName);
+        }
+    }
+
+    public void removeConnection(String connectionId) {
+        connections.remove(connectionId);
+    }
+
+    public int getSeriesCount() {
+        return connections.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * @return Bytes held by the buffers of all series
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (Map<String, DepthSeries> queues : connections.values()) {
+            for (DepthSeries series : queues.values()) {
+                bytes += series.getMemoryBytes();
+            }
+        }
+        return bytes;
+    }
+
+    public DepthRetention getRetention() {
+        return retention;
+    }
+}
@@ -0,0 +1,43 @@
+package com.aquila.ibm.mq.gui.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * How long the depth history is kept, per resolution, read from depth-retention.json.
+ * Buffers grow with the samples actually recorded, so these are upper bounds.
+ */
+@Setter
+@Getter
+@ToString
+public class DepthRetention {
+    public static final long HOUR_MS = 3_600_000L;
+    public static final long DAY_MS = 24 * HOUR_MS;
+
+    private long rawMillis;
+    /** Upper bound on the raw samples of one queue, whatever the polling rate. */
+    private int maxRawSamples;
+    private long secondMillis;
+    private long minuteMillis;
+    private long hourMillis;
+    /** Days of history kept on disk. */
+    private int diskDays;
+
+    public DepthRetention() {
+        this.rawMillis = DAY_MS;
+        this.maxRawSamples = 1 << 17;
+        this.secondMillis = HOUR_MS;
+        this.minuteMillis = DAY_MS;
+        this.hourMillis = 30 * DAY_MS;
+        this.diskDays = 30;
+    }
+
+    public long getRetentionMillis(DepthSeries.Resolution resolution) {
+        return switch (resolution) {
+            case SECOND -> secondMillis;
+            case MINUTE -> minuteMillis;
+            case HOUR -> hourMillis;
+        };
+    }
+}
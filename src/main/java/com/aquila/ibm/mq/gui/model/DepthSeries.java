@@ -0,0 +1,321 @@
+package com.aquila.ibm.mq.gui.model;
+
+/**
+ * Depth history of one queue: raw samples in a ring of primitive arrays, 12 bytes per sample,
+ * and min/avg/max rollups per second, minute and hour updated as samples arrive. Each buffer
+ * starts small and grows towards the size its retention needs at the observed sample rate,
+ * so little capacity is left unused, then drops its oldest entries.
+ */
+public class DepthSeries {
+    static final int INITIAL_CAPACITY = 64;
+
+    public enum Resolution {
+        SECOND(1000),
+        MINUTE(60_000),
+        HOUR(3_600_000);
+
+        private final long millis;
+
+        Resolution(long millis) {
+            this.millis = millis;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+
+    /**
+     * Raw samples, oldest first.
+     */
+    public record Samples(long[] times, int[] depths) {
+        public int size() {
+            return times.length;
+        }
+    }
+
+    /**
+     * Rollup buckets, oldest first. Times are the start of each bucket.
+     */
+    public record Buckets(long[] times, int[] min, double[] avg, int[] max) {
+        public int size() {
+            return times.length;
+        }
+    }
+
+    @FunctionalInterface
+    public interface SampleVisitor {
+        void visit(long time, int depth);
+    }
+
+    private final DepthRetention retention;
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int[] depths = new int[INITIAL_CAPACITY];
+    private int head;
+    private int size;
+    private final Rollup[] rollups = new Rollup[Resolution.values().length];
+
+    public DepthSeries(DepthRetention retention) {
+        this.retention = retention;
+        for (Resolution resolution : Resolution.values()) {
+            rollups[resolution.ordinal()] = new Rollup(resolution, retention.getRetentionMillis(resolution));
+        }
+    }
+
+    /**
+     * Record a sample. Samples not newer than the latest one are ignored.
+     * @return Whether the sample was recorded
+     */
+    public synchronized boolean add(long time, int depth) {
+        if (size > 0 && time <= times[index(size - 1)]) {
+            return false;
+        }
+        while (size > 0 && times[index(0)] < time - retention.getRawMillis()) {
+            size--;
+        }
+        if (size == times.length) {
+            if (times.length < retention.getMaxRawSamples()) {
+                grow(grownCapacity(size, time - times[index(0)], retention.getRawMillis(), retention.getMaxRawSamples()));
+            } else {
+                size--;
+            }
+        }
+        times[head] = time;
+        depths[head] = depth;
+        head = (head + 1) % times.length;
+        size++;
+        for (Rollup rollup : rollups) {
+            rollup.add(time, depth);
+        }
+        return true;
+    }
+
+    private int index(int logical) {
+        return (head - size + logical + 2 * times.length) % times.length;
+    }
+
+    /**
+     * Capacity of a full buffer about to grow: the entries the retention needs at the rate
+     * seen so far, plus a small margin, but at least 1/8 more and at most twice as many.
+     */
+    static int grownCapacity(int size, long spanMillis, long retentionMillis, int maxCapacity) {
+        double needed = spanMillis > 0 ? size * (double) retentionMillis / spanMillis * 1.05 : 2.0 * size;
+        long capacity = Math.max(size + Math.max(1, size / 8), Math.min(2L * size, (long) needed + 1));
+        return (int) Math.min(capacity, maxCapacity);
+    }
+
+    private void grow(int capacity) {
+        long[] newTimes = new long[capacity];
+        int[] newDepths = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            newTimes[i] = times[index(i)];
+            newDepths[i] = depths[index(i)];
+        }
+        times = newTimes;
+        depths = newDepths;
+        head = size % capacity;
+    }
+
+    /**
+     * Raw samples with {@code from <= time < to}.
+     */
+    public synchronized Samples getSamples(long from, long to) {
+        int start = lowerBound(from);
+        return copy(start, Math.max(start, lowerBound(to)));
+    }
+
+    /**
+     * Visit the raw samples with {@code from <= time < to} in place, oldest first, without
+     * copying them. The series is locked meanwhile, so the visitor must be quick.
+     */
+    public synchronized void forEachSample(long from, long to, SampleVisitor visitor) {
+        for (int i = lowerBound(from); i < size; i++) {
+            int index = index(i);
+            if (times[index] >= to) {
+                break;
+            }
+            visitor.visit(times[index], depths[index]);
+        }
+    }
+
+    /**
+     * The latest raw samples, at most {@code count}.
+     */
+    public synchronized Samples getLatestSamples(int count) {
+        return copy(Math.max(0, size - count), size);
+    }
+
+    private Samples copy(int start, int end) {
+        long[] resultTimes = new long[end - start];
+        int[] resultDepths = new int[end - start];
+        for (int i = start; i < end; i++) {
+            resultTimes[i - start] = times[index(i)];
+            resultDepths[i - start] = depths[index(i)];
+        }
+        return new Samples(resultTimes, resultDepths);
+    }
+
+    private int lowerBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[index(middle)] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Rollup buckets starting in {@code from <= time < to}.
+     */
+    public synchronized Buckets getBuckets(Resolution resolution, long from, long to) {
+        return rollups[resolution.ordinal()].get(from, to);
+    }
+
+    /**
+     * @return Time of the oldest raw sample, or Long.MAX_VALUE if there is none
+     */
+    public synchronized long getOldestSampleTime() {
+        return size == 0 ? Long.MAX_VALUE : times[index(0)];
+    }
+
+    /**
+     * @return Time of the latest sample, or Long.MIN_VALUE if there is none
+     */
+    public synchronized long getLatestSampleTime() {
+        return size == 0 ? Long.MIN_VALUE : times[index(size - 1)];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return Bytes held by the buffers, including their unused capacity
+     */
+    public synchronized long getMemoryBytes() {
+        long bytes = times.length * (long) (Long.BYTES + Integer.BYTES);
+        for (Rollup rollup : rollups) {
+            bytes += rollup.getMemoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * One resolution of the rollups, a ring of buckets in primitive arrays.
+     * Guarded by the lock of the series.
+     */
+    private static class Rollup {
+        private final long bucketMillis;
+        private final long retentionMillis;
+        private long[] starts = new long[INITIAL_CAPACITY];
+        private int[] mins = new int[INITIAL_CAPACITY];
+        private int[] maxs = new int[INITIAL_CAPACITY];
+        private long[] sums = new long[INITIAL_CAPACITY];
+        private int[] counts = new int[INITIAL_CAPACITY];
+        private int head;
+        private int size;
+
+        Rollup(Resolution resolution, long retentionMillis) {
+            this.bucketMillis = resolution.getMillis();
+            this.retentionMillis = retentionMillis;
+        }
+
+        void add(long time, int depth) {
+            long start = time - Math.floorMod(time, bucketMillis);
+            if (size > 0) {
+                int last = index(size - 1);
+                if (starts[last] == start) {
+                    mins[last] = Math.min(mins[last], depth);
+                    maxs[last] = Math.max(maxs[last], depth);
+                    sums[last] += depth;
+                    counts[last]++;
+                    return;
+                }
+            }
+            while (size > 0 && starts[index(0)] < start - retentionMillis) {
+                size--;
+            }
+            if (size == starts.length) {
+                int maxCapacity = (int) Math.min(Integer.MAX_VALUE - 8, retentionMillis / bucketMillis + 1);
+                if (starts.length < maxCapacity) {
+                    grow(grownCapacity(size, start - starts[index(0)], retentionMillis, maxCapacity));
+                } else {
+                    size--;
+                }
+            }
+            starts[head] = start;
+            mins[head] = depth;
+            maxs[head] = depth;
+            sums[head] = depth;
+            counts[head] = 1;
+            head = (head + 1) % starts.length;
+            size++;
+        }
+
+        private int index(int logical) {
+            return (head - size + logical + 2 * starts.length) % starts.length;
+        }
+
+        private void grow(int capacity) {
+            long[] newStarts = new long[capacity];
+            int[] newMins = new int[capacity];
+            int[] newMaxs = new int[capacity];
+            long[] newSums = new long[capacity];
+            int[] newCounts = new int[capacity];
+            for (int i = 0; i < size; i++) {
+                int index = index(i);
+                newStarts[i] = starts[index];
+                newMins[i] = mins[index];
+                newMaxs[i] = maxs[index];
+                newSums[i] = sums[index];
+                newCounts[i] = counts[index];
+            }
+            starts = newStarts;
+            mins = newMins;
+            maxs = newMaxs;
+            sums = newSums;
+            counts = newCounts;
+            head = size % capacity;
+        }
+
+        Buckets get(long from, long to) {
+            int first = lowerBound(from);
+            int count = Math.max(0, lowerBound(to) - first);
+            long[] resultStarts = new long[count];
+            int[] resultMins = new int[count];
+            double[] resultAvgs = new double[count];
+            int[] resultMaxs = new int[count];
+            for (int i = 0; i < count; i++) {
+                int index = index(first + i);
+                resultStarts[i] = starts[index];
+                resultMins[i] = mins[index];
+                resultAvgs[i] = (double) sums[index] / counts[index];
+                resultMaxs[i] = maxs[index];
+            }
+            return new Buckets(resultStarts, resultMins, resultAvgs, resultMaxs);
+        }
+
+        private int lowerBound(long time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[index(middle)] < time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        long getMemoryBytes() {
+            return starts.length * (long) (2 * Long.BYTES + 3 * Integer.BYTES);
+        }
+    }
+}
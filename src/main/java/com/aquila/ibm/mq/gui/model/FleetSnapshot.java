@@ -0,0 +1,62 @@
+package com.aquila.ibm.mq.gui.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monitored queues of every connected queue manager, each with its own freshness.
+ * @param connections Per-connection state, keyed by connection ID
+ */
+public record FleetSnapshot(Map<String, ConnectionState> connections) {
+
+    /**
+     * What is known about one queue manager.
+     * @param connectionId The connection ID
+     * @param queues Monitored queues as of the last poll
+     * @param lastUpdated Time of the last successful poll, null if none yet
+     * @param lastError The error of the last poll, null if it succeeded
+     */
+    public record ConnectionState(String connectionId, List<QueueInfo> queues, Instant lastUpdated, Exception lastError) {
+        /**
+         * Whether the last successful poll is older than {@code maxAge}, or never happened.
+         */
+        public boolean isStale(Instant now, Duration maxAge) {
+            return lastUpdated == null || Duration.between(lastUpdated, now).compareTo(maxAge) > 0;
+        }
+
+        public boolean isHealthy() {
+            return lastError == null;
+        }
+    }
+
+    public ConnectionState get(String connectionId) {
+        return connections.get(connectionId);
+    }
+
+    /**
+     * Monitored queues of all queue managers.
+     */
+    public List<QueueInfo> allQueues() {
+        List<QueueInfo> queues = new ArrayList<>();
+        for (ConnectionState state : connections.values()) {
+            queues.addAll(state.queues());
+        }
+        return queues;
+    }
+
+    /**
+     * Connections whose last successful poll is older than {@code maxAge}.
+     */
+    public List<String> staleConnections(Instant now, Duration maxAge) {
+        List<String> stale = new ArrayList<>();
+        for (ConnectionState state : connections.values()) {
+            if (state.isStale(now, maxAge)) {
+                stale.add(state.connectionId());
+            }
+        }
+        return stale;
+    }
+}
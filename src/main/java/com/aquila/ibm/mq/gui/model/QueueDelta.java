@@ -0,0 +1,51 @@
+package com.aquila.ibm.mq.gui.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Difference between two snapshots of a set of queues.
+ * @param added Queues that were not known before
+ * @param removed Names of queues that no longer exist on the queue manager
+ * @param changed Known queues whose polled attributes changed, updated in place
+ */
+public record QueueDelta(List<QueueInfo> added, List<String> removed, List<Change> changed) {
+    public static final int CURRENT_DEPTH = 1;
+    public static final int MAX_DEPTH = 1 << 1;
+    public static final int OPEN_INPUT_COUNT = 1 << 2;
+    public static final int OPEN_OUTPUT_COUNT = 1 << 3;
+
+    public static final QueueDelta EMPTY = new QueueDelta(List.of(), List.of(), List.of());
+
+    /**
+     * A queue and the attributes that changed, as a mask of the constants above.
+     */
+    public record Change(QueueInfo queue, int fields) {
+        public boolean has(int field) {
+            return (fields & field) != 0;
+        }
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    /**
+     * Whether the set of queues changed, not just their attributes.
+     */
+    public boolean isStructural() {
+        return !added.isEmpty() || !removed.isEmpty();
+    }
+
+    /**
+     * Added and changed queues.
+     */
+    public List<QueueInfo> updatedQueues() {
+        List<QueueInfo> queues = new ArrayList<>(added.size() + changed.size());
+        queues.addAll(added);
+        for (Change change : changed) {
+            queues.add(change.queue());
+        }
+        return queues;
+    }
+}
@@ -0,0 +1,179 @@
+package com.aquila.ibm.mq.gui.model;
+
+/**
+ * Recent depth samples of one queue in a sliding time window, kept in primitive ring buffers.
+ * The least-squares slope of the depth is maintained from running sums, so adding a sample
+ * and reading the trend are O(1). Samples only leave the window by age: the ring doubles
+ * when it is full of samples still inside it, so a short refresh interval cannot shrink the
+ * window. The sums are rebuilt once per lap of the ring, which bounds the floating point drift
+ * of adding and removing terms.
+ */
+public class QueueTrend {
+    public static final int INITIAL_CAPACITY = 64;
+    /** Weight of the latest slope in the baseline, an exponential moving average. */
+    static final double BASELINE_WEIGHT = 0.02;
+
+    private final long windowMillis;
+    private long[] times;
+    private int[] depths;
+    private int head;
+    private int size;
+    private int addsSinceRebuild;
+
+    // Least-squares sums, with times in seconds from origin
+    private long origin;
+    private double sumT;
+    private double sumD;
+    private double sumTT;
+    private double sumTD;
+
+    private int lastDepth;
+    private int maxDepth;
+    private long consumerAbsentSince = -1;
+    private double baselineSlope = Double.NaN;
+
+    public QueueTrend(long windowMillis) {
+        this(INITIAL_CAPACITY, windowMillis);
+    }
+
+    /**
+     * @param capacity Initial number of samples, the ring grows beyond it as needed
+     */
+    public QueueTrend(int capacity, long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.times = new long[capacity];
+        this.depths = new int[capacity];
+    }
+
+    public synchronized void add(long time, QueueInfo queueInfo) {
+        add(time, queueInfo.getCurrentDepth(), queueInfo.getMaxDepth(), queueInfo.getOpenInputCount());
+    }
+
+    public synchronized void add(long time, int depth, int maxDepth, int openInputCount) {
+        if (size > 0 && time <= times[(head - 1 + times.length) % times.length]) {
+            // Same poll seen twice, or a clock step back
+            return;
+        }
+        while (size > 0 && time - times[tail()] > windowMillis) {
+            removeOldest();
+        }
+        if (size == times.length) {
+            grow();
+        }
+        if (size == 0) {
+            origin = time;
+            sumT = sumD = sumTT = sumTD = 0;
+        }
+        times[head] = time;
+        depths[head] = depth;
+        head = (head + 1) % times.length;
+        size++;
+        accumulate(time, depth, 1);
+
+        if (++addsSinceRebuild >= times.length) {
+            rebuild();
+        }
+
+        lastDepth = depth;
+        this.maxDepth = maxDepth;
+        if (openInputCount > 0) {
+            consumerAbsentSince = -1;
+        } else if (consumerAbsentSince < 0) {
+            consumerAbsentSince = time;
+        }
+        double slope = getSlope();
+        if (!Double.isNaN(slope)) {
+            baselineSlope = Double.isNaN(baselineSlope) ? slope : baselineSlope + BASELINE_WEIGHT * (slope - baselineSlope);
+        }
+    }
+
+    private int tail() {
+        return (head - size + times.length) % times.length;
+    }
+
+    private void grow() {
+        long[] newTimes = new long[times.length * 2];
+        int[] newDepths = new int[depths.length * 2];
+        for (int i = 0, index = tail(); i < size; i++, index = (index + 1) % times.length) {
+            newTimes[i] = times[index];
+            newDepths[i] = depths[index];
+        }
+        times = newTimes;
+        depths = newDepths;
+        head = size;
+    }
+
+    private void removeOldest() {
+        int tail = tail();
+        accumulate(times[tail], depths[tail], -1);
+        size--;
+    }
+
+    private void accumulate(long time, int depth, int sign) {
+        double t = (time - origin) / 1000.0;
+        sumT += sign * t;
+        sumD += sign * depth;
+        sumTT += sign * t * t;
+        sumTD += sign * t * depth;
+    }
+
+    private void rebuild() {
+        addsSinceRebuild = 0;
+        origin = times[tail()];
+        sumT = sumD = sumTT = sumTD = 0;
+        for (int i = 0, index = tail(); i < size; i++, index = (index + 1) % times.length) {
+            accumulate(times[index], depths[index], 1);
+        }
+    }
+
+    /**
+     * @return Depth growth in messages per second over the window, NaN with fewer than 2 samples
+     */
+    public synchronized double getSlope() {
+        if (size < 2) {
+            return Double.NaN;
+        }
+        double denominator = size * sumTT - sumT * sumT;
+        return denominator <= 0 ? Double.NaN : (size * sumTD - sumT * sumD) / denominator;
+    }
+
+    /**
+     * @return Slowly moving average of the slope, NaN until a slope is known
+     */
+    public synchronized double getBaselineSlope() {
+        return baselineSlope;
+    }
+
+    /**
+     * @return Time between the oldest and the latest sample
+     */
+    public synchronized long getSpanMillis() {
+        return size < 2 ? 0 : times[(head - 1 + times.length) % times.length] - times[tail()];
+    }
+
+    /**
+     * @return How long the queue has had no open input handle, 0 if it has one
+     */
+    public synchronized long getConsumerAbsentMillis(long now) {
+        return consumerAbsentSince < 0 ? 0 : now - consumerAbsentSince;
+    }
+
+    /**
+     * @return Seconds until the queue is full at the current slope, infinite if it is not growing
+     */
+    public synchronized double getTimeToFullSeconds() {
+        double slope = getSlope();
+        if (Double.isNaN(slope) || slope <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(0, maxDepth - lastDepth) / slope;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
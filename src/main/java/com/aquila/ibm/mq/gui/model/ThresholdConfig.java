@@ -1,12 +1,30 @@
 package com.aquila.ibm.mq.gui.model;
 
 public class ThresholdConfig {
+    public static final int DEFAULT_HYSTERESIS = 10;
+    public static final int DEFAULT_TREND_WINDOW_SECONDS = 120;
+    /** Growth rate below which the baseline condition never fires, so an idle baseline is not a trigger. */
+    static final double MIN_BASELINE_GROWTH_RATE = 1.0;
     private String queueName;
     private int warningThreshold;
     private int criticalThreshold;
     private boolean warningThresholdPercentage;
     private boolean criticalThresholdPercentage;
     private boolean enabled;
+    /** Precedence among pattern rules matching the same queue, higher wins. */
+    private int priority;
+    /** How far below a level's depth, in percent of it, the depth must fall to leave the level. */
+    private int hysteresis;
+    // Trend conditions, evaluated over the last trendWindowSeconds; 0 disables a condition
+    private int trendWindowSeconds;
+    /** WARNING when the depth grows by at least this many messages per second. */
+    private double minGrowthRate;
+    /** WARNING when the growth rate is at least this multiple of its usual value. */
+    private double growthBaselineFactor;
+    /** CRITICAL when the depth grows while the queue has had no consumer for this long. */
+    private int noConsumerSeconds;
+    /** CRITICAL when the queue will be full within this many seconds at the current rate. */
+    private int timeToFullSeconds;
 
     public ThresholdConfig() {
         this.enabled = true;
@@ -14,6 +32,8 @@ public class ThresholdConfig {
         this.criticalThresholdPercentage = true;
         this.warningThreshold = 70;
         this.criticalThreshold = 90;
+        this.hysteresis = DEFAULT_HYSTERESIS;
+        this.trendWindowSeconds = DEFAULT_TREND_WINDOW_SECONDS;
     }
 
     public ThresholdConfig(String queueName, int warningThreshold, int criticalThreshold) {
@@ -23,6 +43,24 @@ public class ThresholdConfig {
         this.enabled = true;
         this.warningThresholdPercentage = true;
         this.criticalThresholdPercentage = true;
+        this.hysteresis = DEFAULT_HYSTERESIS;
+        this.trendWindowSeconds = DEFAULT_TREND_WINDOW_SECONDS;
+    }
+
+    public ThresholdConfig(ThresholdConfig other) {
+        this.queueName = other.queueName;
+        this.warningThreshold = other.warningThreshold;
+        this.criticalThreshold = other.criticalThreshold;
+        this.warningThresholdPercentage = other.warningThresholdPercentage;
+        this.criticalThresholdPercentage = other.criticalThresholdPercentage;
+        this.enabled = other.enabled;
+        this.priority = other.priority;
+        this.hysteresis = other.hysteresis;
+        this.trendWindowSeconds = other.trendWindowSeconds;
+        this.minGrowthRate = other.minGrowthRate;
+        this.growthBaselineFactor = other.growthBaselineFactor;
+        this.noConsumerSeconds = other.noConsumerSeconds;
+        this.timeToFullSeconds = other.timeToFullSeconds;
     }
 
     public String getQueueName() {
@@ -73,6 +111,66 @@ public class ThresholdConfig {
         this.enabled = enabled;
     }
 
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public int getHysteresis() {
+        return hysteresis;
+    }
+
+    public void setHysteresis(int hysteresis) {
+        this.hysteresis = hysteresis;
+    }
+
+    public int getTrendWindowSeconds() {
+        return trendWindowSeconds;
+    }
+
+    public void setTrendWindowSeconds(int trendWindowSeconds) {
+        this.trendWindowSeconds = trendWindowSeconds;
+    }
+
+    public double getMinGrowthRate() {
+        return minGrowthRate;
+    }
+
+    public void setMinGrowthRate(double minGrowthRate) {
+        this.minGrowthRate = minGrowthRate;
+    }
+
+    public double getGrowthBaselineFactor() {
+        return growthBaselineFactor;
+    }
+
+    public void setGrowthBaselineFactor(double growthBaselineFactor) {
+        this.growthBaselineFactor = growthBaselineFactor;
+    }
+
+    public int getNoConsumerSeconds() {
+        return noConsumerSeconds;
+    }
+
+    public void setNoConsumerSeconds(int noConsumerSeconds) {
+        this.noConsumerSeconds = noConsumerSeconds;
+    }
+
+    public int getTimeToFullSeconds() {
+        return timeToFullSeconds;
+    }
+
+    public void setTimeToFullSeconds(int timeToFullSeconds) {
+        this.timeToFullSeconds = timeToFullSeconds;
+    }
+
+    public boolean hasTrendConditions() {
+        return minGrowthRate > 0 || growthBaselineFactor > 0 || noConsumerSeconds > 0 || timeToFullSeconds > 0;
+    }
+
     public enum AlertLevel {
         NONE,
         WARNING,
@@ -85,16 +183,81 @@ public class ThresholdConfig {
         int depth = queueInfo.getCurrentDepth();
         int maxDepth = queueInfo.getMaxDepth();
 
-        int criticalValue = criticalThresholdPercentage ?
-            (int)(maxDepth * criticalThreshold / 100.0) : criticalThreshold;
-        int warningValue = warningThresholdPercentage ?
-            (int)(maxDepth * warningThreshold / 100.0) : warningThreshold;
+        if (depth >= getCriticalDepth(maxDepth)) {
+            return AlertLevel.CRITICAL;
+        } else if (depth >= getWarningDepth(maxDepth)) {
+            return AlertLevel.WARNING;
+        }
+        return AlertLevel.NONE;
+    }
+
+    /**
+     * Alert level of a queue already at {@code currentLevel}: a level is entered at its depth
+     * but only left once the depth falls {@link #getHysteresis() hysteresis} percent below it,
+     * so a queue hovering around a threshold does not flip at every poll.
+     */
+    public AlertLevel getAlertLevel(QueueInfo queueInfo, AlertLevel currentLevel) {
+        if (!enabled) return AlertLevel.NONE;
 
-        if (depth >= criticalValue) {
+        int depth = queueInfo.getCurrentDepth();
+        int maxDepth = queueInfo.getMaxDepth();
+        double keep = 1 - hysteresis / 100.0;
+
+        int criticalDepth = getCriticalDepth(maxDepth);
+        if (depth >= criticalDepth || (currentLevel == AlertLevel.CRITICAL && depth >= criticalDepth * keep)) {
             return AlertLevel.CRITICAL;
-        } else if (depth >= warningValue) {
+        }
+        int warningDepth = getWarningDepth(maxDepth);
+        if (depth >= warningDepth || (currentLevel != AlertLevel.NONE && depth >= warningDepth * keep)) {
             return AlertLevel.WARNING;
         }
         return AlertLevel.NONE;
     }
+
+    /**
+     * Alert level from the trend conditions. Rate conditions only apply once the samples span
+     * three quarters of the trend window, so two close samples cannot raise an alert.
+     */
+    public AlertLevel getTrendLevel(QueueTrend trend, long now) {
+        if (!enabled || !hasTrendConditions()
+                || trend.getSpanMillis() < trendWindowSeconds * 1000L * 3 / 4) {
+            return AlertLevel.NONE;
+        }
+        double slope = trend.getSlope();
+        if (Double.isNaN(slope) || slope <= 0) {
+            return AlertLevel.NONE;
+        }
+        if (noConsumerSeconds > 0 && trend.getConsumerAbsentMillis(now) >= noConsumerSeconds * 1000L) {
+            return AlertLevel.CRITICAL;
+        }
+        if (timeToFullSeconds > 0 && trend.getTimeToFullSeconds() < timeToFullSeconds) {
+            return AlertLevel.CRITICAL;
+        }
+        if (minGrowthRate > 0 && slope >= minGrowthRate) {
+            return AlertLevel.WARNING;
+        }
+        double baseline = trend.getBaselineSlope();
+        if (growthBaselineFactor > 0 && slope >= MIN_BASELINE_GROWTH_RATE
+                && slope >= growthBaselineFactor * Math.max(0, baseline)) {
+            return AlertLevel.WARNING;
+        }
+        return AlertLevel.NONE;
+    }
+
+    public int getCriticalDepth(int maxDepth) {
+        return criticalThresholdPercentage ?
+            (int)(maxDepth * criticalThreshold / 100.0) : criticalThreshold;
+    }
+
+    public int getWarningDepth(int maxDepth) {
+        return warningThresholdPercentage ?
+            (int)(maxDepth * warningThreshold / 100.0) : warningThreshold;
+    }
+
+    /**
+     * Whether the queue depth is at least {@code ratio} of the warning depth.
+     */
+    public boolean isNearWarning(QueueInfo queueInfo, double ratio) {
+        return enabled && queueInfo.getCurrentDepth() >= getWarningDepth(queueInfo.getMaxDepth()) * ratio;
+    }
 }
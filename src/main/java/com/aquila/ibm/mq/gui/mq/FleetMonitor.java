@@ -0,0 +1,170 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+import com.aquila.ibm.mq.gui.model.DepthHistory;
+import com.aquila.ibm.mq.gui.model.FleetSnapshot;
+import com.aquila.ibm.mq.gui.model.QueueDelta;
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Monitors several queue managers in parallel. Every connection gets its own
+ * {@link QueueMonitor} lane with its own thread, so a slow or hung queue manager only
+ * delays its own polls. Lanes report to a single listener, tagged with their connection ID.
+ */
+public class FleetMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(FleetMonitor.class);
+
+    private final QueueService queueService;
+    private final AlertManager alertManager;
+    private final Map<String, QueueMonitor> lanes = new ConcurrentHashMap<>();
+    private volatile FleetMonitorListener listener;
+    private volatile DepthHistory depthHistory;
+    private volatile int refreshInterval = 5000;
+    private volatile boolean running;
+    private volatile boolean paused;
+
+    public FleetMonitor(QueueService queueService, AlertManager alertManager) {
+        this.queueService = queueService;
+        this.alertManager = alertManager;
+    }
+
+    public synchronized void start() {
+        running = true;
+        lanes.values().forEach(QueueMonitor::start);
+        logger.info("Fleet monitor started with {} connection(s)", lanes.size());
+    }
+
+    public synchronized void stopMonitoring() {
+        running = false;
+        lanes.values().forEach(QueueMonitor::stopMonitoring);
+        lanes.clear();
+        logger.info("Fleet monitor stopped");
+    }
+
+    /**
+     * Replace the monitored queues of a connection, creating its lane if needed.
+     */
+    public synchronized void setMonitoredQueues(String connectionId, List<QueueInfo> queues) {
+        QueueMonitor lane = lanes.computeIfAbsent(connectionId, this::createLane);
+        lane.setMonitoredQueues(queues);
+        if (running && !lane.isRunning()) {
+            lane.start();
+        }
+    }
+
+    /**
+     * Stop monitoring a connection, e.g. when it is closed.
+     */
+    public synchronized void removeConnection(String connectionId) {
+        QueueMonitor lane = lanes.remove(connectionId);
+        if (lane != null) {
+            lane.stopMonitoring();
+        }
+    }
+
+    private QueueMonitor createLane(String connectionId) {
+        QueueMonitor lane = new QueueMonitor(queueService, alertManager, connectionId);
+        lane.setRefreshInterval(refreshInterval);
+        lane.setDepthHistory(depthHistory);
+        if (paused) {
+            lane.pauseMonitoring();
+        }
+        lane.setListener(new QueueMonitor.QueueMonitorListener() {
+            @Override
+            public void onQueuesUpdated(QueueDelta delta) {
+                FleetMonitorListener current = listener;
+                if (current != null) {
+                    current.onQueuesUpdated(connectionId, delta);
+                }
+            }
+
+            @Override
+            public void onMonitorError(Exception e) {
+                FleetMonitorListener current = listener;
+                if (current != null) {
+                    current.onMonitorError(connectionId, e);
+                }
+            }
+        });
+        return lane;
+    }
+
+    public Set<String> getConnectionIds() {
+        return Set.copyOf(lanes.keySet());
+    }
+
+    public QueueMonitor getLane(String connectionId) {
+        return lanes.get(connectionId);
+    }
+
+    /**
+     * Queues and freshness of every lane, as of their last poll.
+     */
+    public FleetSnapshot getSnapshot() {
+        Map<String, FleetSnapshot.ConnectionState> connections = new LinkedHashMap<>();
+        lanes.forEach((connectionId, lane) -> {
+            long updatedAt = lane.getLastUpdatedAt();
+            connections.put(connectionId, new FleetSnapshot.ConnectionState(connectionId,
+                    lane.getMonitoredQueues(),
+                    updatedAt == 0 ? null : Instant.ofEpochMilli(updatedAt),
+                    lane.getLastError()));
+        });
+        return new FleetSnapshot(connections);
+    }
+
+    public void pauseMonitoring() {
+        paused = true;
+        lanes.values().forEach(QueueMonitor::pauseMonitoring);
+    }
+
+    public void resumeMonitoring() {
+        paused = false;
+        lanes.values().forEach(QueueMonitor::resumeMonitoring);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public int getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(int refreshInterval) {
+        this.refreshInterval = refreshInterval;
+        lanes.values().forEach(lane -> lane.setRefreshInterval(refreshInterval));
+    }
+
+    /**
+     * Record the depth of every polled queue of every lane.
+     */
+    public synchronized void setDepthHistory(DepthHistory depthHistory) {
+        this.depthHistory = depthHistory;
+        lanes.values().forEach(lane -> lane.setDepthHistory(depthHistory));
+    }
+
+    public void setListener(FleetMonitorListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Called on the lane thread of the connection.
+     */
+    public interface FleetMonitorListener {
+        void onQueuesUpdated(String connectionId, QueueDelta delta);
+        void onMonitorError(String connectionId, Exception e);
+    }
+}
@@ -0,0 +1,161 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Works out which MQCMD_INQUIRE_Q requests cover a set of queue names at the lowest cost.
+ * Candidates are one request per name, generic names built from shared prefixes
+ * (e.g. {@code APP.ORDERS.*}), or a single {@code *} request. Every request costs a round
+ * trip to the command server and every returned row has to be parsed, so the planner
+ * weighs both and picks the cheapest. Row counts come from a {@link Catalog} of the names
+ * last listed on the queue manager when one is known, and from estimates otherwise.
+ * Results are always filtered against the wanted names.
+ */
+public class InquiryPlanner {
+    /** Cost of one round trip, expressed in parsed response rows. */
+    static final int ROUND_TRIP_COST = 100;
+    /** Expected number of rows returned per wanted name by a generic prefix, without a catalog. */
+    static final int GENERIC_OVERFETCH = 2;
+    /** Shortest prefix used for a generic name, to avoid pulling in half the queue manager. */
+    static final int MIN_GENERIC_PREFIX = 3;
+    /** Queue count assumed when the size of the queue manager is not known yet. */
+    static final int DEFAULT_QUEUE_COUNT = 2000;
+    private static final int[] GROUP_PREFIX_LENGTHS = {3, 4, 6, 8, 12, 16, 24};
+    private static final int MAX_NAME_LENGTH = 48;
+
+    /**
+     * Requests to send for one inquiry.
+     * @param patterns Exact or generic (trailing {@code *}) queue names, one request each
+     * @param estimatedCost Cost estimate in parsed-row units
+     */
+    public record InquiryPlan(List<String> patterns, long estimatedCost) {
+        public int roundTrips() {
+            return patterns.size();
+        }
+
+        public boolean isWildcard() {
+            return patterns.size() == 1 && patterns.get(0).equals("*");
+        }
+
+        /**
+         * One exact request per name, in the given order.
+         */
+        public static InquiryPlan perName(Collection<String> names) {
+            List<String> patterns = List.copyOf(new LinkedHashSet<>(names));
+            return new InquiryPlan(patterns, (long) patterns.size() * (ROUND_TRIP_COST + 1));
+        }
+
+        public static InquiryPlan wildcard(int estimatedQueueCount) {
+            return new InquiryPlan(List.of("*"), ROUND_TRIP_COST + estimatedQueueCount);
+        }
+    }
+
+    /**
+     * Sorted queue names last listed on a queue manager.
+     */
+    public static final class Catalog {
+        private final String[] sortedNames;
+
+        public Catalog(Collection<String> names) {
+            this.sortedNames = names.toArray(new String[0]);
+            Arrays.sort(sortedNames);
+        }
+
+        public int size() {
+            return sortedNames.length;
+        }
+
+        /**
+         * Number of known queues a generic name with this prefix would return.
+         */
+        public int countWithPrefix(String prefix) {
+            return lowerBound(prefix + Character.MAX_VALUE) - lowerBound(prefix);
+        }
+
+        private int lowerBound(String key) {
+            int index = Arrays.binarySearch(sortedNames, key);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    /**
+     * Plan the cheapest set of requests covering the given names.
+     * @param names Wanted queue names
+     * @param catalog Names last listed on the queue manager, or null if unknown
+     */
+    public InquiryPlan plan(Collection<String> names, Catalog catalog) {
+        TreeSet<String> sorted = new TreeSet<>(names);
+        if (sorted.size() <= 1) {
+            return InquiryPlan.perName(sorted);
+        }
+
+        int queueCount = catalog != null ? Math.max(catalog.size(), sorted.size())
+                : Math.max(DEFAULT_QUEUE_COUNT, sorted.size());
+        InquiryPlan best = InquiryPlan.perName(names);
+        InquiryPlan wildcard = InquiryPlan.wildcard(queueCount);
+        if (wildcard.estimatedCost() < best.estimatedCost()) {
+            best = wildcard;
+        }
+        for (int prefixLength : GROUP_PREFIX_LENGTHS) {
+            InquiryPlan grouped = groupByPrefix(sorted, prefixLength, catalog, queueCount);
+            if (grouped.estimatedCost() < best.estimatedCost()) {
+                best = grouped;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Group names sharing their first {@code prefixLength} characters. A group of several
+     * names becomes one generic request on the group's longest common prefix.
+     */
+    private InquiryPlan groupByPrefix(TreeSet<String> sorted, int prefixLength, Catalog catalog, int queueCount) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String name : sorted) {
+            String key = name.length() < prefixLength ? name : name.substring(0, prefixLength);
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(name);
+        }
+
+        List<String> patterns = new ArrayList<>(groups.size());
+        long cost = 0;
+        for (List<String> group : groups.values()) {
+            if (group.size() == 1) {
+                patterns.add(group.get(0));
+                cost += ROUND_TRIP_COST + 1;
+                continue;
+            }
+            // Sorted group: the common prefix of the first and last name is the group's prefix
+            String prefix = commonPrefix(group.get(0), group.get(group.size() - 1));
+            prefix = prefix.substring(0, Math.min(prefix.length(), MAX_NAME_LENGTH - 1));
+            if (prefix.length() < MIN_GENERIC_PREFIX) {
+                for (String name : group) {
+                    patterns.add(name);
+                    cost += ROUND_TRIP_COST + 1;
+                }
+                continue;
+            }
+            patterns.add(prefix + "*");
+            long rows = catalog != null
+                    ? Math.max(group.size(), catalog.countWithPrefix(prefix))
+                    : Math.min(queueCount, (long) group.size() * GENERIC_OVERFETCH);
+            cost += ROUND_TRIP_COST + rows;
+        }
+        return new InquiryPlan(patterns, cost);
+    }
+
+    private static String commonPrefix(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return a.substring(0, i);
+    }
+}
@@ -4,21 +4,36 @@ import com.aquila.ibm.mq.gui.model.QueueManagerConfig;
 import com.ibm.mq.MQException;
 import com.ibm.mq.MQQueueManager;
 import com.ibm.mq.constants.MQConstants;
+import com.ibm.mq.pcf.PCFMessageAgent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class MQConnectionManager {
     private static final Logger logger = LoggerFactory.getLogger(MQConnectionManager.class);
-
-    // Multi-connection support
-    private Map<String, MQQueueManager> activeConnections;
-    private Map<String, QueueManagerConfig> connectionConfigs;
-    private String activeConnectionId;
+    private static final long POOL_EVICTION_INTERVAL_MS = 30_000;
+    private static final ScheduledExecutorService poolReaper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "PCFAgentPool-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Multi-connection support, read concurrently by the monitoring lanes
+    private final Map<String, MQQueueManager> activeConnections = new ConcurrentHashMap<>();
+    private final Map<String, QueueManagerConfig> connectionConfigs = new ConcurrentHashMap<>();
+    private volatile String activeConnectionId;
+
+    // One PCF agent pool per connection, so inquiries reuse their reply queues
+    private final Map<String, PCFAgentPool> agentPools = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> poolEviction;
 
     // Legacy fields (deprecated but maintained for backward compatibility)
     private MQQueueManager queueManager;
@@ -26,8 +41,6 @@ public class MQConnectionManager {
     private boolean connected = false;
 
     public MQConnectionManager() {
-        this.activeConnections = new HashMap<>();
-        this.connectionConfigs = new HashMap<>();
     }
 
     /**
@@ -80,6 +93,8 @@ public class MQConnectionManager {
             MQQueueManager qm = new MQQueueManager(config.getQueueManager(), properties);
             activeConnections.put(connectionId, qm);
             connectionConfigs.put(connectionId, config);
+            agentPools.put(connectionId, new PCFAgentPool(connectionId, () -> new PCFMessageAgent(qm)));
+            schedulePoolEviction();
 
             // Update legacy fields for backward compatibility
             if (activeConnectionId == null || connectionId.equals(activeConnectionId)) {
@@ -102,7 +117,7 @@ public class MQConnectionManager {
     /**
      * Get a stable connection ID from a ConnectionConfig.
      */
-    private String getConnectionId(QueueManagerConfig config) {
+    public String getConnectionId(QueueManagerConfig config) {
         return config.getName() != null && !config.getName().isEmpty()
             ? config.getName()
             : config.getQueueManager() + "@" + config.getHost();
@@ -210,6 +225,12 @@ public class MQConnectionManager {
             return;
         }
 
+        PCFAgentPool pool = agentPools.remove(connectionId);
+        if (pool != null) {
+            pool.close();
+            cancelPoolEvictionIfUnused();
+        }
+
         MQQueueManager qm = activeConnections.get(connectionId);
         if (qm != null) {
             try {
@@ -343,6 +364,59 @@ public class MQConnectionManager {
         return activeConnections.get(activeConnectionId);
     }
 
+    /**
+     * Lease a PCF agent for the active connection.
+     * The lease must be closed (try-with-resources) to return the agent to the pool.
+     */
+    public PCFAgentPool.Lease leaseAgent() throws MQException {
+        if (activeConnectionId == null) {
+            throw new IllegalStateException("Not connected to queue manager");
+        }
+        return leaseAgent(activeConnectionId);
+    }
+
+    /**
+     * Lease a PCF agent for a specific connection.
+     * @param connectionId The connection ID
+     * @return A lease on an agent bound to that connection's queue manager
+     */
+    public PCFAgentPool.Lease leaseAgent(String connectionId) throws MQException {
+        PCFAgentPool pool = agentPools.get(connectionId);
+        if (pool == null || !isConnected(connectionId)) {
+            throw new IllegalStateException("Not connected to queue manager: " + connectionId);
+        }
+        return pool.lease();
+    }
+
+    /**
+     * Get the agent pool counters for a connection.
+     * @param connectionId The connection ID
+     * @return The pool statistics, or null if the connection has no pool
+     */
+    public PCFAgentPool.Stats getAgentPoolStats(String connectionId) {
+        PCFAgentPool pool = agentPools.get(connectionId);
+        return pool != null ? pool.getStats() : null;
+    }
+
+    private void schedulePoolEviction() {
+        synchronized (agentPools) {
+            if (poolEviction == null) {
+                poolEviction = poolReaper.scheduleWithFixedDelay(
+                        () -> agentPools.values().forEach(PCFAgentPool::evictIdle),
+                        POOL_EVICTION_INTERVAL_MS, POOL_EVICTION_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void cancelPoolEvictionIfUnused() {
+        synchronized (agentPools) {
+            if (poolEviction != null && agentPools.isEmpty()) {
+                poolEviction.cancel(false);
+                poolEviction = null;
+            }
+        }
+    }
+
     /**
      * Get all connected connection IDs.
      * @return Set of connection IDs
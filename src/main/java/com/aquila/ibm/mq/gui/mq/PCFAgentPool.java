@@ -0,0 +1,271 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.ibm.mq.MQException;
+import com.ibm.mq.constants.MQConstants;
+import com.ibm.mq.pcf.PCFMessage;
+import com.ibm.mq.pcf.PCFMessageAgent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of PCF message agents for a single queue manager connection.
+ * Every agent owns a temporary dynamic reply queue on the queue manager, so reusing
+ * agents saves the command server from creating and deleting one queue per inquiry.
+ * Agents are leased exclusively, pinged before reuse when they have been idle for a
+ * while, and closed by {@link #evictIdle()} once they stay unused for too long.
+ */
+public class PCFAgentPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(PCFAgentPool.class);
+
+    public static final int DEFAULT_MAX_IDLE = 4;
+    public static final long DEFAULT_VALIDATE_AFTER_MS = 30_000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 120_000;
+
+    /**
+     * Creates a new agent bound to the pool's queue manager.
+     */
+    @FunctionalInterface
+    public interface AgentFactory {
+        PCFMessageAgent create() throws MQException;
+    }
+
+    private final String connectionId;
+    private final AgentFactory factory;
+    private final Deque<PooledAgent> idleAgents = new ArrayDeque<>();
+    private final int maxIdle;
+    private final long validateAfterMillis;
+    private final long idleTimeoutMillis;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicInteger leased = new AtomicInteger();
+    private volatile boolean closed;
+
+    public PCFAgentPool(String connectionId, AgentFactory factory) {
+        this(connectionId, factory, DEFAULT_MAX_IDLE, DEFAULT_VALIDATE_AFTER_MS, DEFAULT_IDLE_TIMEOUT_MS);
+    }
+
+    /**
+     * @param connectionId Connection the agents belong to (used for logging)
+     * @param factory Creates new agents when the pool has none idle
+     * @param maxIdle Maximum number of idle agents kept open
+     * @param validateAfterMillis Idle time after which an agent is pinged before reuse
+     * @param idleTimeoutMillis Idle time after which {@link #evictIdle()} closes an agent
+     */
+    public PCFAgentPool(String connectionId, AgentFactory factory, int maxIdle,
+                        long validateAfterMillis, long idleTimeoutMillis) {
+        this.connectionId = connectionId;
+        this.factory = factory;
+        this.maxIdle = Math.max(1, maxIdle);
+        this.validateAfterMillis = validateAfterMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Lease an agent for exclusive use. The lease must be closed to give the agent back.
+     * @return A lease wrapping a connected agent
+     * @throws MQException if a new agent cannot be created
+     */
+    public Lease lease() throws MQException {
+        while (true) {
+            PooledAgent pooled;
+            synchronized (idleAgents) {
+                if (closed) {
+                    throw new IllegalStateException("PCF agent pool closed for connection: " + connectionId);
+                }
+                // Most recently returned first: it is the least likely to need validation
+                pooled = idleAgents.pollFirst();
+            }
+            if (pooled == null) {
+                break;
+            }
+            if (System.currentTimeMillis() - pooled.lastReturned >= validateAfterMillis && !isHealthy(pooled.agent)) {
+                validationFailures.incrementAndGet();
+                destroy(pooled);
+                continue;
+            }
+            reused.incrementAndGet();
+            leased.incrementAndGet();
+            return new Lease(pooled);
+        }
+
+        PooledAgent pooled = new PooledAgent(factory.create());
+        created.incrementAndGet();
+        leased.incrementAndGet();
+        logger.debug("Created PCF agent for connection {} ({} created so far)", connectionId, created.get());
+        return new Lease(pooled);
+    }
+
+    private void release(PooledAgent pooled, boolean broken) {
+        leased.decrementAndGet();
+        if (!broken) {
+            pooled.lastReturned = System.currentTimeMillis();
+            synchronized (idleAgents) {
+                if (!closed && idleAgents.size() < maxIdle) {
+                    idleAgents.offerFirst(pooled);
+                    return;
+                }
+            }
+        }
+        destroy(pooled);
+    }
+
+    private boolean isHealthy(PCFMessageAgent agent) {
+        try {
+            agent.send(new PCFMessage(MQConstants.MQCMD_PING_Q_MGR));
+            return true;
+        } catch (Exception e) {
+            logger.warn("Pooled PCF agent for connection {} failed health check: {}", connectionId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void destroy(PooledAgent pooled) {
+        destroyed.incrementAndGet();
+        try {
+            pooled.agent.disconnect();
+        } catch (Exception e) {
+            logger.debug("Error disconnecting PCF agent for connection {}: {}", connectionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Close agents that have been idle longer than the idle timeout.
+     * @return Number of agents closed
+     */
+    public int evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        List<PooledAgent> expired = new ArrayList<>();
+        synchronized (idleAgents) {
+            Iterator<PooledAgent> it = idleAgents.iterator();
+            while (it.hasNext()) {
+                PooledAgent pooled = it.next();
+                if (pooled.lastReturned <= cutoff) {
+                    it.remove();
+                    expired.add(pooled);
+                }
+            }
+        }
+        expired.forEach(this::destroy);
+        if (!expired.isEmpty()) {
+            logger.debug("Evicted {} idle PCF agent(s) for connection {}: {}", expired.size(), connectionId, getStats());
+        }
+        return expired.size();
+    }
+
+    /**
+     * Close all idle agents. Agents currently leased are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        List<PooledAgent> remaining;
+        synchronized (idleAgents) {
+            closed = true;
+            remaining = new ArrayList<>(idleAgents);
+            idleAgents.clear();
+        }
+        remaining.forEach(this::destroy);
+        logger.info("Closed PCF agent pool for connection {}: {}", connectionId, getStats());
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public String getConnectionId() {
+        return connectionId;
+    }
+
+    public Stats getStats() {
+        int idle;
+        synchronized (idleAgents) {
+            idle = idleAgents.size();
+        }
+        return new Stats(created.get(), reused.get(), destroyed.get(), validationFailures.get(), leased.get(), idle);
+    }
+
+    /**
+     * Usage counters of a pool.
+     * @param created Agents opened (each one created a reply queue)
+     * @param reused Leases served by an already open agent
+     * @param destroyed Agents closed
+     * @param validationFailures Idle agents discarded because their health check failed
+     * @param leased Agents currently checked out
+     * @param idle Agents currently waiting in the pool
+     */
+    public record Stats(long created, long reused, long destroyed, long validationFailures, int leased, int idle) {
+        public double reuseRatio() {
+            long total = created + reused;
+            return total == 0 ? 0 : (double) reused / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("created=%d, reused=%d (%.0f%%), destroyed=%d, validationFailures=%d, leased=%d, idle=%d",
+                    created, reused, reuseRatio() * 100, destroyed, validationFailures, leased, idle);
+        }
+    }
+
+    private static final class PooledAgent {
+        private final PCFMessageAgent agent;
+        private volatile long lastReturned;
+
+        private PooledAgent(PCFMessageAgent agent) {
+            this.agent = agent;
+            this.lastReturned = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Exclusive hold on a pooled agent. Closing the lease returns the agent to the pool,
+     * unless {@link #invalidate()} was called, in which case the agent is disconnected.
+     */
+    public final class Lease implements AutoCloseable {
+        private final PooledAgent pooled;
+        private boolean broken;
+        private boolean released;
+
+        private Lease(PooledAgent pooled) {
+            this.pooled = pooled;
+        }
+
+        public PCFMessageAgent getAgent() {
+            if (released) {
+                throw new IllegalStateException("Lease already released");
+            }
+            return pooled.agent;
+        }
+
+        /**
+         * Mark the agent as unusable, e.g. after a connection error.
+         */
+        public void invalidate() {
+            broken = true;
+        }
+
+        /**
+         * Whether the agent was invalidated, further requests on it would fail as well.
+         */
+        public boolean isBroken() {
+            return broken;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(pooled, broken);
+            }
+        }
+    }
+}
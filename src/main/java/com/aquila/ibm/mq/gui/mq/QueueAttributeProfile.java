@@ -0,0 +1,64 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.ibm.mq.constants.MQConstants;
+
+/**
+ * Named attribute selections sent as MQIACF_Q_ATTRS with MQCMD_INQUIRE_Q, so the queue
+ * manager only returns what the caller renders instead of every queue attribute.
+ */
+public enum QueueAttributeProfile {
+    /** Queue lists: name, type and depths. */
+    LIST(false,
+            MQConstants.MQCA_Q_NAME,
+            MQConstants.MQIA_Q_TYPE,
+            MQConstants.MQIA_CURRENT_Q_DEPTH,
+            MQConstants.MQIA_MAX_Q_DEPTH),
+    /** Polling: depths and open handle counts. */
+    MONITOR(false,
+            MQConstants.MQCA_Q_NAME,
+            MQConstants.MQIA_CURRENT_Q_DEPTH,
+            MQConstants.MQIA_MAX_Q_DEPTH,
+            MQConstants.MQIA_OPEN_INPUT_COUNT,
+            MQConstants.MQIA_OPEN_OUTPUT_COUNT),
+    /** Properties panel: everything {@link QueueService} knows how to show. */
+    PROPERTIES(true,
+            MQConstants.MQCA_Q_NAME,
+            MQConstants.MQIA_Q_TYPE,
+            MQConstants.MQIA_CURRENT_Q_DEPTH,
+            MQConstants.MQIA_MAX_Q_DEPTH,
+            MQConstants.MQIA_OPEN_INPUT_COUNT,
+            MQConstants.MQIA_OPEN_OUTPUT_COUNT,
+            MQConstants.MQCA_Q_DESC,
+            MQConstants.MQCA_CREATION_DATE,
+            MQConstants.MQCA_CREATION_TIME,
+            MQConstants.MQIA_INHIBIT_PUT,
+            MQConstants.MQIA_INHIBIT_GET,
+            MQConstants.MQIA_SHAREABILITY,
+            MQConstants.MQIA_DEF_PRIORITY,
+            MQConstants.MQIA_DEF_PERSISTENCE,
+            MQConstants.MQIA_TRIGGER_CONTROL,
+            MQConstants.MQIA_MAX_MSG_LENGTH);
+
+    private final boolean includesProperties;
+    private final int[] attributes;
+
+    QueueAttributeProfile(boolean includesProperties, int... attributes) {
+        this.includesProperties = includesProperties;
+        this.attributes = attributes;
+    }
+
+    /**
+     * Attribute selectors for MQIACF_Q_ATTRS.
+     */
+    public int[] getAttributes() {
+        return attributes.clone();
+    }
+
+    /**
+     * Whether the profile returns the description and additional attributes, in which case
+     * they replace the ones already held by a refreshed QueueInfo.
+     */
+    public boolean includesProperties() {
+        return includesProperties;
+    }
+}
@@ -1,90 +1,263 @@
 package com.aquila.ibm.mq.gui.mq;
 
 import com.aquila.ibm.mq.gui.config.AlertManager;
+import com.aquila.ibm.mq.gui.model.DepthHistory;
+import com.aquila.ibm.mq.gui.model.QueueDelta;
 import com.aquila.ibm.mq.gui.model.QueueInfo;
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
-public class QueueMonitor extends Thread {
+/**
+ * Polls the depth of monitored queues on a scheduler, each queue at its own pace.
+ * A queue is polled every {@link #getRefreshInterval() refresh interval} while its depth
+ * changes or it is close to its warning threshold, and the interval doubles after every
+ * quiet poll up to {@link #MAX_BACKOFF_FACTOR} times the refresh interval. Queues that are
+ * due on the same tick are polled with one batched inquiry.
+ * <p>
+ * A monitor polls one connection on its own thread, see {@link FleetMonitor} to monitor
+ * several queue managers side by side.
+ */
+public class QueueMonitor {
     private static final Logger logger = LoggerFactory.getLogger(QueueMonitor.class);
+    /** Scheduler resolution, queues due within the same tick are polled together. */
+    static final long TICK_MS = 250;
+    /** Longest interval of an idle queue, as a multiple of the refresh interval. */
+    static final int MAX_BACKOFF_FACTOR = 16;
+    /** Longest interval of an idle queue, whatever the refresh interval. */
+    static final long MAX_INTERVAL_MS = 300_000;
+    /** Fraction of the warning depth from which a queue is polled at full rate. */
+    static final double NEAR_THRESHOLD_RATIO = 0.8;
+
     private final QueueService queueService;
     private final AlertManager alertManager;
-    private final List<QueueInfo> monitoredQueues;
+    private final String connectionId;
+    // Only touched on the scheduler thread, other threads queue their edits
+    private final QueueSnapshotIndex monitoredQueues = new QueueSnapshotIndex();
+    private final Map<String, PollState> states = new HashMap<>();
+    private final PriorityQueue<PollState> schedule = new PriorityQueue<>(Comparator.comparingLong(s -> s.nextPollAt));
+    private final Queue<LongConsumer> pendingEdits = new ConcurrentLinkedQueue<>();
     private final AtomicBoolean running;
     private final AtomicBoolean paused;
-    private int refreshInterval = 5000;
+    private volatile int refreshInterval = 5000;
     private QueueMonitorListener listener;
+    private volatile DepthHistory depthHistory;
+    private ScheduledExecutorService scheduler;
+    private long lastTickAt;
+
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong queuesPolled = new AtomicLong();
+    private final AtomicLong skippedTicks = new AtomicLong();
+    private volatile long lastPollLagMillis;
+    private volatile long maxPollLagMillis;
+    private volatile int fastQueues;
+    // Published after every poll for readers on other threads
+    private volatile List<QueueInfo> publishedQueues = List.of();
+    private volatile long lastUpdatedAt;
+    private volatile Exception lastError;
 
     public QueueMonitor(QueueService queueService, AlertManager alertManager) {
-        super("QueueMonitor");
+        this(queueService, alertManager, null);
+    }
+
+    /**
+     * @param connectionId The connection to poll, or null to follow the active connection
+     */
+    public QueueMonitor(QueueService queueService, AlertManager alertManager, String connectionId) {
         this.queueService = queueService;
         this.alertManager = alertManager;
-        this.monitoredQueues = new CopyOnWriteArrayList<>();
+        this.connectionId = connectionId;
         this.running = new AtomicBoolean(false);
         this.paused = new AtomicBoolean(false);
-        setDaemon(true);
     }
 
-    @Override
-    public void run() {
-        running.set(true);
-        logger.info("Queue monitor started");
-
-        while (running.get()) {
-            try {
-                if (!paused.get() && !monitoredQueues.isEmpty()) {
-                    updateQueues();
-                }
-                Thread.sleep(refreshInterval);
-            } catch (InterruptedException e) {
-                logger.info("Queue monitor interrupted");
-                break;
-            } catch (Exception e) {
-                logger.error("Error in queue monitor", e);
-            }
+    public synchronized void start() {
+        if (running.get()) {
+            return;
         }
-
-        logger.info("Queue monitor stopped");
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, connectionId == null ? "QueueMonitor" : "QueueMonitor-" + connectionId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        running.set(true);
+        lastTickAt = System.currentTimeMillis();
+        scheduler.scheduleAtFixedRate(() -> tick(System.currentTimeMillis()), 0, TICK_MS, TimeUnit.MILLISECONDS);
+        logger.info("Queue monitor started{}", connectionId == null ? "" : " for " + connectionId);
     }
 
-    private void updateQueues() {
+    /**
+     * Poll the queues due at {@code now}. Runs on the scheduler thread.
+     */
+    void tick(long now) {
         try {
-            queueService.refreshAllQueues(monitoredQueues);
-
-            for (QueueInfo queue : monitoredQueues) {
-                alertManager.checkQueue(queue);
+            // Fixed-rate executions that overran are collapsed into this one
+            long elapsedTicks = (now - lastTickAt) / TICK_MS;
+            if (lastTickAt > 0 && elapsedTicks > 1) {
+                skippedTicks.addAndGet(elapsedTicks - 1);
             }
+            lastTickAt = now;
 
-            if (listener != null) {
-                listener.onQueuesUpdated(monitoredQueues);
+            applyPendingEdits(now);
+            if (paused.get() || schedule.isEmpty() || schedule.peek().nextPollAt > now) {
+                return;
+            }
+            List<PollState> due = new ArrayList<>();
+            while (!schedule.isEmpty() && schedule.peek().nextPollAt <= now) {
+                due.add(schedule.poll());
             }
+            lastPollLagMillis = now - due.get(0).nextPollAt;
+            maxPollLagMillis = Math.max(maxPollLagMillis, lastPollLagMillis);
+            poll(due, now);
+        } catch (Exception e) {
+            // An exception would cancel the periodic task
+            logger.error("Error in queue monitor", e);
+        }
+    }
+
+    private void applyPendingEdits(long now) {
+        LongConsumer edit;
+        while ((edit = pendingEdits.poll()) != null) {
+            edit.accept(now);
+        }
+    }
+
+    private void poll(List<PollState> due, long now) {
+        List<String> names = new ArrayList<>(due.size());
+        for (PollState state : due) {
+            names.add(state.queueName);
+        }
+
+        QueueDelta delta;
+        try {
+            delta = queueService.refreshQueues(connectionId, monitoredQueues, names);
         } catch (Exception e) {
             logger.error("Error updating queues", e);
+            lastError = e;
+            // Try again at the same pace
+            for (PollState state : due) {
+                state.nextPollAt = now + state.intervalMillis;
+                schedule.add(state);
+            }
             if (listener != null) {
                 listener.onMonitorError(e);
             }
+            return;
+        }
+        polls.incrementAndGet();
+        queuesPolled.addAndGet(names.size());
+        lastError = null;
+        lastUpdatedAt = System.currentTimeMillis();
+        if (!delta.isEmpty() || publishedQueues.size() != monitoredQueues.size()) {
+            publishedQueues = monitoredQueues.queues();
+        }
+
+        Set<String> depthChanged = new HashSet<>();
+        for (QueueDelta.Change change : delta.changed()) {
+            if (change.has(QueueDelta.CURRENT_DEPTH)) {
+                depthChanged.add(change.queue().getQueue());
+            }
+        }
+
+        DepthHistory history = connectionId != null ? depthHistory : null;
+        int baseInterval = refreshInterval;
+        long maxInterval = maxInterval(baseInterval);
+        for (PollState state : due) {
+            QueueInfo queue = monitoredQueues.get(state.queueName);
+            if (queue == null) {
+                // Deleted on the queue manager
+                states.remove(state.queueName);
+                continue;
+            }
+            if (history != null) {
+                history.record(connectionId, queue, lastUpdatedAt);
+            }
+            ThresholdConfig threshold = alertManager.getThreshold(state.queueName);
+            ThresholdConfig.AlertLevel level = alertManager.checkQueue(connectionId, queue, threshold);
+            boolean active = depthChanged.contains(state.queueName)
+                    || level != ThresholdConfig.AlertLevel.NONE
+                    || threshold.isNearWarning(queue, NEAR_THRESHOLD_RATIO);
+            state.intervalMillis = active ? baseInterval : Math.min(state.intervalMillis * 2, maxInterval);
+            state.nextPollAt = now + state.intervalMillis;
+            schedule.add(state);
+        }
+        updateFastQueues(baseInterval);
+
+        if (listener != null) {
+            listener.onQueuesUpdated(delta);
+        }
+    }
+
+    private void updateFastQueues(int baseInterval) {
+        int count = 0;
+        for (PollState state : states.values()) {
+            if (state.intervalMillis <= baseInterval) {
+                count++;
+            }
+        }
+        fastQueues = count;
+    }
+
+    private static long maxInterval(int baseInterval) {
+        return Math.max(baseInterval, Math.min((long) baseInterval * MAX_BACKOFF_FACTOR, MAX_INTERVAL_MS));
+    }
+
+    private void track(QueueInfo queue, long now) {
+        if (monitoredQueues.add(queue)) {
+            PollState state = new PollState(queue.getQueue(), refreshInterval, now);
+            states.put(state.queueName, state);
+            schedule.add(state);
         }
     }
 
     public void setMonitoredQueues(List<QueueInfo> queues) {
-        monitoredQueues.clear();
-        monitoredQueues.addAll(queues);
-        logger.info("Monitoring {} queues", queues.size());
+        List<QueueInfo> copy = new ArrayList<>(queues);
+        pendingEdits.add(now -> {
+            monitoredQueues.reset(List.of());
+            states.clear();
+            schedule.clear();
+            for (QueueInfo queue : copy) {
+                track(queue, now);
+            }
+            publishedQueues = monitoredQueues.queues();
+        });
+        logger.info("Monitoring {} queues", copy.size());
     }
 
     public void addQueue(QueueInfo queue) {
-        if (!monitoredQueues.contains(queue)) {
-            monitoredQueues.add(queue);
-            logger.info("Added queue to monitoring: {}", queue.getQueue());
-        }
+        pendingEdits.add(now -> {
+            if (!states.containsKey(queue.getQueue())) {
+                track(queue, now);
+                logger.info("Added queue to monitoring: {}", queue.getQueue());
+            }
+        });
     }
 
     public void removeQueue(QueueInfo queue) {
-        monitoredQueues.remove(queue);
+        pendingEdits.add(now -> {
+            monitoredQueues.remove(queue.getQueue());
+            PollState state = states.remove(queue.getQueue());
+            if (state != null) {
+                schedule.remove(state);
+            }
+        });
         logger.info("Removed queue from monitoring: {}", queue.getQueue());
     }
 
@@ -98,9 +271,48 @@ public class QueueMonitor extends Thread {
         logger.info("Queue monitoring resumed");
     }
 
-    public void stopMonitoring() {
+    public synchronized void stopMonitoring() {
         running.set(false);
-        interrupt();
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        logger.info("Queue monitor stopped: {}", getStats());
+    }
+
+    /**
+     * Record the depth of every polled queue, only for monitors bound to a connection.
+     */
+    public void setDepthHistory(DepthHistory depthHistory) {
+        this.depthHistory = depthHistory;
+    }
+
+    /**
+     * @return The connection polled by this monitor, null when it follows the active connection
+     */
+    public String getConnectionId() {
+        return connectionId;
+    }
+
+    /**
+     * Monitored queues as of the last poll, safe to read from any thread.
+     */
+    public List<QueueInfo> getMonitoredQueues() {
+        return publishedQueues;
+    }
+
+    /**
+     * @return Time of the last successful poll in epoch milliseconds, 0 if none yet
+     */
+    public long getLastUpdatedAt() {
+        return lastUpdatedAt;
+    }
+
+    /**
+     * @return The error of the last poll, null if it succeeded
+     */
+    public Exception getLastError() {
+        return lastError;
     }
 
     public boolean isRunning() {
@@ -115,17 +327,65 @@ public class QueueMonitor extends Thread {
         return refreshInterval;
     }
 
+    /**
+     * Set the interval of queues whose depth is moving. Every queue goes back to that pace.
+     */
     public void setRefreshInterval(int refreshInterval) {
-        this.refreshInterval = Math.max(1000, Math.min(60000, refreshInterval));
-        logger.info("Refresh interval set to {} ms", this.refreshInterval);
+        int interval = Math.max(1000, Math.min(60000, refreshInterval));
+        this.refreshInterval = interval;
+        pendingEdits.add(now -> {
+            for (PollState state : states.values()) {
+                state.intervalMillis = interval;
+                state.nextPollAt = Math.min(state.nextPollAt, now + interval);
+            }
+            List<PollState> all = new ArrayList<>(schedule);
+            schedule.clear();
+            schedule.addAll(all);
+        });
+        logger.info("Refresh interval set to {} ms", interval);
     }
 
     public void setListener(QueueMonitorListener listener) {
         this.listener = listener;
     }
 
+    public Stats getStats() {
+        return new Stats(polls.get(), queuesPolled.get(), skippedTicks.get(),
+                lastPollLagMillis, maxPollLagMillis, monitoredQueues.size(), fastQueues);
+    }
+
+    /**
+     * Monitor counters.
+     * @param polls Batched inquiries sent
+     * @param queuesPolled Queue polls, summed over all batches
+     * @param skippedTicks Scheduler ticks lost because a poll took longer than a tick
+     * @param lastPollLagMillis Delay between the oldest due time and the start of the last batch
+     * @param maxPollLagMillis Largest lag seen since the monitor started
+     * @param monitoredQueues Queues being monitored
+     * @param fastQueues Queues currently polled at the refresh interval
+     */
+    public record Stats(long polls, long queuesPolled, long skippedTicks, long lastPollLagMillis,
+                        long maxPollLagMillis, int monitoredQueues, int fastQueues) {
+    }
+
+    private static final class PollState {
+        private final String queueName;
+        private long intervalMillis;
+        private long nextPollAt;
+
+        private PollState(String queueName, long intervalMillis, long nextPollAt) {
+            this.queueName = queueName;
+            this.intervalMillis = intervalMillis;
+            this.nextPollAt = nextPollAt;
+        }
+    }
+
     public interface QueueMonitorListener {
-        void onQueuesUpdated(List<QueueInfo> queues);
+        /**
+         * Called after every batch of polls, with an empty delta when nothing changed.
+         * Changed queues are the monitored QueueInfo objects, already updated.
+         */
+        void onQueuesUpdated(QueueDelta delta);
         void onMonitorError(Exception e);
     }
 }
@@ -0,0 +1,72 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Queue names of every connected queue manager, one {@link QueueNameIndex} per connection,
+ * for searching a queue without knowing where it lives.
+ */
+public class QueueNameDirectory {
+    private final Map<String, QueueNameIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * A queue found on a connection.
+     */
+    public record Hit(String connectionId, QueueNameIndex.Match match) {
+        private static final Comparator<Hit> RANKING = Comparator.comparing(Hit::match, QueueNameIndex.Match.RANKING)
+                .thenComparing(Hit::connectionId);
+
+        public String queueName() {
+            return match.name();
+        }
+    }
+
+    /**
+     * Bring the names of a connection up to date with a complete listing.
+     */
+    public void update(String connectionId, Collection<String> queueNames) {
+        index(connectionId).update(queueNames);
+    }
+
+    public void add(String connectionId, String queueName) {
+        index(connectionId).add(queueName);
+    }
+
+    public void remove(String connectionId, String queueName) {
+        QueueNameIndex index = indexes.get(connectionId);
+        if (index != null) {
+            index.remove(queueName);
+        }
+    }
+
+    public void removeConnection(String connectionId) {
+        indexes.remove(connectionId);
+    }
+
+    private QueueNameIndex index(String connectionId) {
+        return indexes.computeIfAbsent(connectionId, id -> new QueueNameIndex());
+    }
+
+    /**
+     * @return The best matches over all connections, at most {@code limit}, best first
+     */
+    public List<Hit> search(String query, int limit) {
+        List<Hit> hits = new ArrayList<>();
+        for (Map.Entry<String, QueueNameIndex> entry : indexes.entrySet()) {
+            for (QueueNameIndex.Match match : entry.getValue().search(query, limit)) {
+                hits.add(new Hit(entry.getKey(), match));
+            }
+        }
+        hits.sort(Hit.RANKING);
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    public int size() {
+        return indexes.values().stream().mapToInt(QueueNameIndex::size).sum();
+    }
+}
@@ -0,0 +1,496 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Queue names of one queue manager, searchable by prefix, substring and approximate match.
+ * Prefixes are looked up in a radix trie whose edges hold whole runs of characters. Each
+ * name is also posted under its trigrams: a substring is searched among the names holding
+ * its rarest trigram only, and a name sharing enough trigrams with a mistyped query is an
+ * approximate match. Names are added and removed one by one. Matching ignores case.
+ */
+public class QueueNameIndex {
+    /** Share of the trigrams of the query an approximate match must have. */
+    private static final double FUZZY_MIN_SHARE = 0.5;
+    /** A trigram held by more than one name in this many is common. */
+    private static final int COMMON_TRIGRAM_SHARE = 4;
+
+    public enum MatchKind {
+        EXACT, PREFIX, SUBSTRING, FUZZY
+    }
+
+    /**
+     * A matching name, ranked by kind, then score (higher is better), then length.
+     */
+    public record Match(String name, MatchKind kind, int score) {
+        public static final Comparator<Match> RANKING = Comparator.comparing(Match::kind)
+                .thenComparing(Comparator.comparingInt(Match::score).reversed())
+                .thenComparingInt(match -> match.name().length())
+                .thenComparing(Match::name);
+    }
+
+    // Names by id, null for free ids
+    private String[] names = new String[64];
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int nextId;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Node root = new Node("");
+    private final Map<Long, Postings> trigrams = new HashMap<>();
+
+    /**
+     * Radix trie node. The edge from its parent is labelled with {@link #label}.
+     */
+    private static final class Node {
+        String label;
+        Node[] children = NO_CHILDREN;
+        // Id of the name ending here, -1 if none
+        int id = -1;
+        // Length of the shortest name ending here or below
+        int shortest = Integer.MAX_VALUE;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int childIndex(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char c = children[middle].label.charAt(0);
+                if (c < first) {
+                    low = middle + 1;
+                } else if (c > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int index, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        void removeChild(int index) {
+            Node[] shrunk = children.length == 1 ? NO_CHILDREN : new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+    }
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    /**
+     * Ids of the names holding a trigram, unordered.
+     */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public synchronized boolean add(String name) {
+        String key = key(name);
+        if (ids.containsKey(key)) {
+            return false;
+        }
+        int id = allocateId(name);
+        ids.put(key, id);
+        insert(key, id);
+        for (long trigram : trigramsOf(key)) {
+            trigrams.computeIfAbsent(trigram, t -> new Postings()).add(id);
+        }
+        return true;
+    }
+
+    public synchronized boolean remove(String name) {
+        String key = key(name);
+        Integer id = ids.remove(key);
+        if (id == null) {
+            return false;
+        }
+        delete(key);
+        for (long trigram : trigramsOf(key)) {
+            Postings postings = trigrams.get(trigram);
+            if (postings != null && postings.remove(id) && postings.size == 0) {
+                trigrams.remove(trigram);
+            }
+        }
+        names[id] = null;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+        return true;
+    }
+
+    /**
+     * Make the index hold exactly these names, adding and removing the differences only.
+     */
+    public synchronized void update(Collection<String> current) {
+        Set<String> wanted = new HashSet<>(current.size() * 2);
+        for (String name : current) {
+            wanted.add(key(name));
+        }
+        for (String key : new ArrayList<>(ids.keySet())) {
+            if (!wanted.contains(key)) {
+                remove(key);
+            }
+        }
+        for (String name : current) {
+            add(name);
+        }
+    }
+
+    public synchronized boolean contains(String name) {
+        return ids.containsKey(key(name));
+    }
+
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    /**
+     * @return The best matches, at most {@code limit}, best first
+     */
+    public synchronized List<Match> search(String query, int limit) {
+        String key = key(query.trim());
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Map<Integer, Match> matches = new HashMap<>();
+        collectPrefix(key, limit, matches);
+        if (matches.size() < limit) {
+            collectSubstrings(key, limit, matches);
+        }
+        if (matches.size() < limit) {
+            collectFuzzy(key, limit, matches);
+        }
+        List<Match> ranked = new ArrayList<>(matches.values());
+        ranked.sort(Match.RANKING);
+        return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+    }
+
+    private void collectPrefix(String key, int limit, Map<Integer, Match> matches) {
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            int index = node.childIndex(key.charAt(matched));
+            if (index < 0) {
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, matched);
+            if (matched + common < key.length() && common < child.label.length()) {
+                return;
+            }
+            matched += common;
+            node = child;
+        }
+        // Shortest names first, following the nodes holding the shortest names below them, so
+        // only the branches leading to the returned names are walked
+        PriorityQueue<Node> pending = new PriorityQueue<>(Comparator.comparingInt((Node n) -> n.shortest));
+        pending.add(node);
+        while (!pending.isEmpty() && matches.size() < limit) {
+            Node current = pending.poll();
+            if (current.id >= 0) {
+                String name = names[current.id];
+                matches.put(current.id, new Match(name, name.length() == key.length() ? MatchKind.EXACT : MatchKind.PREFIX, 0));
+            }
+            pending.addAll(Arrays.asList(current.children));
+        }
+    }
+
+    private void collectSubstrings(String key, int limit, Map<Integer, Match> matches) {
+        if (key.length() < 3) {
+            // Too short for a trigram: scan the names
+            for (int id = 0; id < nextId && matches.size() < limit; id++) {
+                if (names[id] != null && !matches.containsKey(id) && key(names[id]).contains(key)) {
+                    matches.put(id, new Match(names[id], MatchKind.SUBSTRING, 0));
+                }
+            }
+            return;
+        }
+        Postings rarest = null;
+        for (long trigram : trigramsOf(key)) {
+            Postings postings = trigrams.get(trigram);
+            if (postings == null) {
+                return;
+            }
+            if (rarest == null || postings.size < rarest.size) {
+                rarest = postings;
+            }
+        }
+        for (int i = 0; i < rarest.size && matches.size() < limit; i++) {
+            int id = rarest.ids[i];
+            if (!matches.containsKey(id) && key(names[id]).contains(key)) {
+                matches.put(id, new Match(names[id], MatchKind.SUBSTRING, 0));
+            }
+        }
+    }
+
+    /**
+     * Score the names by the trigrams they share with the query, each weighted by its rarity,
+     * since sharing a trigram most names hold says little. The postings of such common
+     * trigrams are not walked: they are only checked on the names sharing a rarer one.
+     */
+    private void collectFuzzy(String key, int limit, Map<Integer, Match> matches) {
+        long[] queryTrigrams = trigramsOf(key);
+        int count = ids.size();
+        List<Postings> rare = new ArrayList<>();
+        List<Double> rareWeights = new ArrayList<>();
+        List<String> common = new ArrayList<>();
+        List<Double> commonWeights = new ArrayList<>();
+        double total = 0;
+        for (long trigram : queryTrigrams) {
+            Postings postings = trigrams.get(trigram);
+            if (postings == null) {
+                // Typed wrong, no name can share it
+                continue;
+            }
+            double weight = Math.log(1 + (double) count / postings.size);
+            total += weight;
+            if (postings.size * COMMON_TRIGRAM_SHARE <= count) {
+                rare.add(postings);
+                rareWeights.add(weight);
+            } else {
+                common.add(trigramString(trigram));
+                commonWeights.add(weight);
+            }
+        }
+        if (total == 0) {
+            return;
+        }
+        if (rare.isEmpty()) {
+            // Only common trigrams: walk them all
+            for (int i = 0; i < common.size(); i++) {
+                rare.add(trigrams.get(trigramOf(common.get(i))));
+                rareWeights.add(commonWeights.get(i));
+            }
+            common.clear();
+            commonWeights.clear();
+        }
+
+        double[] scores = new double[nextId];
+        int[] shared = new int[nextId];
+        int[] touched = new int[16];
+        int touchedCount = 0;
+        for (int t = 0; t < rare.size(); t++) {
+            Postings postings = rare.get(t);
+            double weight = rareWeights.get(t);
+            for (int i = 0; i < postings.size; i++) {
+                int id = postings.ids[i];
+                if (shared[id]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = id;
+                }
+                scores[id] += weight;
+            }
+        }
+
+        int minShared = Math.max(1, (int) Math.ceil(queryTrigrams.length * FUZZY_MIN_SHARE));
+        double minScore = total * FUZZY_MIN_SHARE;
+        double commonTotal = 0;
+        for (double weight : commonWeights) {
+            commonTotal += weight;
+        }
+        List<Match> fuzzy = new ArrayList<>();
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            // Not even with every common trigram
+            if (shared[id] + common.size() < minShared || scores[id] + commonTotal < minScore
+                    || matches.containsKey(id)) {
+                continue;
+            }
+            String nameKey = key(names[id]);
+            for (int t = 0; t < common.size(); t++) {
+                if (nameKey.contains(common.get(t))) {
+                    shared[id]++;
+                    scores[id] += commonWeights.get(t);
+                }
+            }
+            if (shared[id] >= minShared && scores[id] >= minScore) {
+                fuzzy.add(new Match(names[id], MatchKind.FUZZY, (int) Math.round(1000 * scores[id] / total)));
+            }
+        }
+        fuzzy.sort(Match.RANKING);
+        for (Match match : fuzzy) {
+            if (matches.size() >= limit) {
+                break;
+            }
+            matches.put(ids.get(key(match.name())), match);
+        }
+    }
+
+    private int allocateId(String name) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            id = nextId++;
+            if (id == names.length) {
+                names = Arrays.copyOf(names, id * 2);
+            }
+        }
+        names[id] = name;
+        return id;
+    }
+
+    private void insert(String key, int id) {
+        Node node = root;
+        int matched = 0;
+        while (true) {
+            node.shortest = Math.min(node.shortest, key.length());
+            if (matched == key.length()) {
+                node.id = id;
+                return;
+            }
+            int index = node.childIndex(key.charAt(matched));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(matched));
+                leaf.id = id;
+                leaf.shortest = key.length();
+                node.insertChild(-index - 1, leaf);
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, matched);
+            if (common < child.label.length()) {
+                // Split the edge where the key leaves it
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children = new Node[]{child};
+                split.shortest = child.shortest;
+                node.children[index] = split;
+                child = split;
+            }
+            matched += common;
+            node = child;
+        }
+    }
+
+    private void delete(String key) {
+        List<Node> path = new ArrayList<>();
+        Node parent = null;
+        int parentIndex = -1;
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            path.add(node);
+            int index = node.childIndex(key.charAt(matched));
+            Node child = node.children[index];
+            matched += child.label.length();
+            parent = node;
+            parentIndex = index;
+            node = child;
+        }
+        node.id = -1;
+        if (parent != null) {
+            if (node.children.length == 0) {
+                parent.removeChild(parentIndex);
+                // The parent may be left as a pass-through node
+                if (parent != root && parent.id < 0 && parent.children.length == 1) {
+                    mergeWithChild(parent);
+                }
+            } else if (node.children.length == 1) {
+                mergeWithChild(node);
+            }
+        }
+        path.add(node);
+        for (int i = path.size() - 1; i >= 0; i--) {
+            updateShortest(path.get(i));
+        }
+    }
+
+    private void updateShortest(Node node) {
+        int shortest = node.id >= 0 ? key(names[node.id]).length() : Integer.MAX_VALUE;
+        for (Node child : node.children) {
+            shortest = Math.min(shortest, child.shortest);
+        }
+        node.shortest = shortest;
+    }
+
+    private static void mergeWithChild(Node node) {
+        Node child = node.children[0];
+        node.label = node.label + child.label;
+        node.id = child.id;
+        node.children = child.children;
+        node.shortest = child.shortest;
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static long[] trigramsOf(String key) {
+        if (key.length() < 3) {
+            return new long[0];
+        }
+        long[] result = new long[key.length() - 2];
+        int count = 0;
+        for (int i = 0; i + 3 <= key.length(); i++) {
+            long trigram = trigramOf(key.substring(i, i + 3));
+            boolean seen = false;
+            for (int j = 0; j < count && !seen; j++) {
+                seen = result[j] == trigram;
+            }
+            if (!seen) {
+                result[count++] = trigram;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static long trigramOf(String trigram) {
+        return ((long) trigram.charAt(0) << 32) | ((long) trigram.charAt(1) << 16) | trigram.charAt(2);
+    }
+
+    private static String trigramString(long trigram) {
+        return new String(new char[]{(char) (trigram >>> 32), (char) (trigram >>> 16), (char) trigram});
+    }
+
+    private static String key(String name) {
+        return name.toUpperCase(Locale.ROOT);
+    }
+}
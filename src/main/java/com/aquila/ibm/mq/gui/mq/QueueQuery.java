@@ -0,0 +1,111 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import com.ibm.mq.constants.MQConstants;
+import com.ibm.mq.pcf.PCFMessage;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.regex.Pattern;
+
+/**
+ * Queue selection evaluated by the queue manager instead of the client.
+ * A name prefix becomes a generic queue name ({@code PREFIX*}) and a depth floor becomes
+ * an integer filter (MQCFIF) on MQIA_CURRENT_Q_DEPTH, so only matching rows are sent back.
+ * Generic names are case-sensitive, the prefix is matched as given.
+ */
+@Getter
+@Builder
+@EqualsAndHashCode
+@ToString
+public class QueueQuery {
+    /** Every local queue. */
+    public static final QueueQuery ALL = QueueQuery.builder().build();
+
+    private static final int MAX_NAME_LENGTH = 48;
+    // A leading ^, optionally with case-sensitive matching turned on by (?-i), followed by
+    // characters allowed in queue names, nothing else; a dot must be escaped, since an
+    // unescaped one matches any character
+    private static final Pattern LITERAL_PREFIX =
+            Pattern.compile("(\\(\\?-i\\)\\^|\\^\\(\\?-i\\)|\\^)((?:[A-Za-z0-9_/%]|\\\\\\.)+)");
+    private static final Pattern LETTER = Pattern.compile("[A-Za-z]");
+    private static final Pattern LOWER_CASE = Pattern.compile("[a-z]");
+
+    private final String namePrefix;
+    private final int minDepth;
+    @Builder.Default
+    private final int queueType = MQConstants.MQQT_LOCAL;
+    @Builder.Default
+    private final QueueAttributeProfile profile = QueueAttributeProfile.LIST;
+
+    /**
+     * Build the part of a viewer filter the queue manager can evaluate, which must select
+     * exactly the queues the filter matches.
+     * Only an anchored literal regex ({@code ^APP\.ORDERS}) is pushed down as a name prefix,
+     * anything else is left to the client. Generic names are case-sensitive while the viewer
+     * ignores case unless the filter starts with {@code (?-i)}, so a prefix with letters is
+     * only pushed down from a case-sensitive filter, and never with lower-case letters.
+     * A depth floor is not pushed down: depths change after the listing, and the listed
+     * queues are the ones monitored.
+     * @param regex Name filter as typed in the viewer, may be empty
+     */
+    public static QueueQuery fromFilter(String regex) {
+        String prefix = null;
+        if (regex != null) {
+            var matcher = LITERAL_PREFIX.matcher(regex.trim());
+            if (matcher.matches()) {
+                boolean caseExact = !matcher.group(1).equals("^");
+                String literal = matcher.group(2).replace("\\.", ".");
+                if (!LOWER_CASE.matcher(literal).find() && (caseExact || !LETTER.matcher(literal).find())) {
+                    prefix = literal;
+                }
+            }
+        }
+        return QueueQuery.builder().namePrefix(prefix).build();
+    }
+
+    public boolean hasNamePrefix() {
+        return namePrefix != null && !namePrefix.isEmpty();
+    }
+
+    public boolean isUnfiltered() {
+        return !hasNamePrefix() && minDepth <= 0;
+    }
+
+    /**
+     * Generic name sent as MQCA_Q_NAME.
+     */
+    public String getGenericName() {
+        if (!hasNamePrefix()) {
+            return "*";
+        }
+        if (namePrefix.length() >= MAX_NAME_LENGTH) {
+            return namePrefix.substring(0, MAX_NAME_LENGTH - 1) + "*";
+        }
+        return namePrefix + "*";
+    }
+
+    /**
+     * Create the MQCMD_INQUIRE_Q request for this query.
+     */
+    PCFMessage toRequest() {
+        PCFMessage request = new PCFMessage(MQConstants.MQCMD_INQUIRE_Q);
+        request.addParameter(MQConstants.MQCA_Q_NAME, getGenericName());
+        request.addParameter(MQConstants.MQIA_Q_TYPE, queueType);
+        request.addParameter(MQConstants.MQIACF_Q_ATTRS, profile.getAttributes());
+        if (minDepth > 0) {
+            request.addFilterParameter(MQConstants.MQIA_CURRENT_Q_DEPTH, MQConstants.MQCFOP_NOT_LESS, minDepth);
+        }
+        return request;
+    }
+
+    /**
+     * Same test on the client, for queues that were not fetched with this query.
+     */
+    public boolean matches(QueueInfo queue) {
+        return (!hasNamePrefix() || queue.getQueue().startsWith(namePrefix))
+                && queue.getCurrentDepth() >= minDepth;
+    }
+}
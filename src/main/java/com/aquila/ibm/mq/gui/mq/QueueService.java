@@ -1,5 +1,6 @@
 package com.aquila.ibm.mq.gui.mq;
 
+import com.aquila.ibm.mq.gui.model.QueueDelta;
 import com.aquila.ibm.mq.gui.model.QueueInfo;
 import com.ibm.mq.MQException;
 import com.ibm.mq.MQQueue;
@@ -7,23 +8,42 @@ import com.ibm.mq.MQQueueManager;
 import com.ibm.mq.constants.CMQC;
 import com.ibm.mq.constants.CMQCFC;
 import com.ibm.mq.constants.MQConstants;
+import com.ibm.mq.pcf.PCFException;
 import com.ibm.mq.pcf.PCFMessage;
-import com.ibm.mq.pcf.PCFMessageAgent;
+import com.ibm.mq.pcf.PCFParameter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class QueueService {
     private static final Logger logger = LoggerFactory.getLogger(QueueService.class);
     private final MQConnectionManager connectionManager;
+    private final InquiryPlanner inquiryPlanner = new InquiryPlanner();
+    // Queue names last listed per connection, used to price generic and wildcard inquiries
+    private final Map<String, InquiryPlanner.Catalog> catalogs = new ConcurrentHashMap<>();
+    // Kept up to date with the queues listed and polled, may be null
+    private volatile QueueNameDirectory nameDirectory;
 
     public QueueService(MQConnectionManager connectionManager) {
         this.connectionManager = connectionManager;
     }
 
+    /**
+     * Keep a directory of the queue names up to date with what the queue managers report.
+     */
+    public void setNameDirectory(QueueNameDirectory nameDirectory) {
+        this.nameDirectory = nameDirectory;
+    }
+
     /**
      * Get all queues for the active connection.
      */
@@ -35,8 +55,7 @@ public class QueueService {
      * Get all queues for the active connection.
      */
     public List<QueueInfo> getAllQueues(boolean includeSystemQueues) throws MQException, IOException {
-        MQQueueManager qm = connectionManager.getQueueManager();
-        return getAllQueuesForManager(qm, includeSystemQueues);
+        return getAllQueuesForConnection(null, includeSystemQueues);
     }
 
     /**
@@ -45,65 +64,104 @@ public class QueueService {
      * @param includeSystemQueues Whether to include system queues
      */
     public List<QueueInfo> getAllQueues(String connectionId, boolean includeSystemQueues) throws MQException, IOException {
-        MQQueueManager qm = connectionManager.getQueueManager(connectionId);
-        return getAllQueuesForManager(qm, includeSystemQueues);
+        if (connectionId == null) {
+            throw new IllegalArgumentException("Connection ID cannot be null");
+        }
+        return getAllQueuesForConnection(connectionId, includeSystemQueues);
     }
 
     /**
-     * Internal method to get all queues for a given queue manager.
+     * Internal method to get all queues for a given connection.
+     * @param connectionId The connection ID, or null for the active connection
      */
-    private List<QueueInfo> getAllQueuesForManager(MQQueueManager qm, boolean includeSystemQueues) throws MQException, IOException {
-        List<QueueInfo> queues = new ArrayList<>();
+    private List<QueueInfo> getAllQueuesForConnection(String connectionId, boolean includeSystemQueues) throws MQException, IOException {
+        return getQueuesForConnection(connectionId, QueueQuery.ALL);
+    }
 
-        // Create PCF Message Agent
-        PCFMessageAgent agent = new PCFMessageAgent(qm);
+    /**
+     * Get the queues matching a query on the active connection. Filtering happens on the
+     * queue manager, only matching queues are returned.
+     */
+    public List<QueueInfo> getQueues(QueueQuery query) throws MQException, IOException {
+        return getQueuesForConnection(null, query);
+    }
 
-        // Create PCF request to inquire queues
-        PCFMessage request = new PCFMessage(CMQCFC.MQCMD_INQUIRE_Q);
+    /**
+     * Get the queues matching a query on a specific connection.
+     * @param connectionId The connection ID
+     * @param query The query evaluated by the queue manager
+     */
+    public List<QueueInfo> getQueues(String connectionId, QueueQuery query) throws MQException, IOException {
+        if (connectionId == null) {
+            throw new IllegalArgumentException("Connection ID cannot be null");
+        }
+        return getQueuesForConnection(connectionId, query);
+    }
 
-        // Request all queues (use wildcard)
-        request.addParameter(CMQC.MQCA_Q_NAME, "*");
-        request.addParameter(MQConstants.MQIA_Q_TYPE, MQConstants.MQQT_LOCAL);
+    private List<QueueInfo> getQueuesForConnection(String connectionId, QueueQuery query) throws MQException, IOException {
+        List<QueueInfo> queues = new ArrayList<>();
 
-        // Specify which attributes to retrieve
-        request.addParameter(CMQCFC.MQIACF_Q_ATTRS, new int[]{
-                CMQC.MQCA_Q_NAME,
-                CMQC.MQIA_Q_TYPE,
-                CMQC.MQIA_CURRENT_Q_DEPTH,
-                CMQC.MQIA_MAX_Q_DEPTH
-        });
+        // Name and depth filters are evaluated by the command server
+        PCFMessage request = query.toRequest();
         // Send request and get responses
-        PCFMessage[] responses = agent.send(request);
-        logger.info("\nFound  {} queues.", responses.length);
+        PCFMessage[] responses;
+        try (PCFAgentPool.Lease lease = leaseAgent(connectionId)) {
+            responses = send(lease, request);
+        } catch (PCFException e) {
+            if (e.getReason() == MQConstants.MQRC_UNKNOWN_OBJECT_NAME) {
+                // Nothing matches the generic name
+                logger.info("No queue matches {}", query);
+                return queues;
+            }
+            throw e;
+        }
+        logger.info("Found {} queues for {}", responses.length, query);
         for (PCFMessage response : responses) {
             try {
                 String queueName = response.getStringParameterValue(CMQC.MQCA_Q_NAME).trim();
-                int queueType = response.getIntParameterValue(CMQC.MQIA_Q_TYPE);
-                int currentDepth = response.getIntParameterValue(CMQC.MQIA_CURRENT_Q_DEPTH);
-                int maxDepth = response.getIntParameterValue(CMQC.MQIA_MAX_Q_DEPTH);
-
                 QueueInfo queueInfo = new QueueInfo(queueName);
-                queueInfo.setQueueType(queueType);
-                queueInfo.setCurrentDepth(currentDepth);
-                queueInfo.setMaxDepth(maxDepth);
-                queueInfo.setQueueType(queueType);
+                populateQueueInfo(queueInfo, response);
                 queues.add(queueInfo);
             } catch (Exception e) {
                 logger.error("Error", e);
             }
         }
+        if (query.isUnfiltered()) {
+            rememberCatalog(connectionId, queues.stream().map(QueueInfo::getQueue).toList());
+        } else {
+            QueueNameDirectory directory = nameDirectory;
+            String key = connectionKey(connectionId);
+            if (directory != null && key != null) {
+                queues.forEach(queue -> directory.add(key, queue.getQueue()));
+            }
+        }
         return queues;
     }
 
+    /**
+     * Get every attribute shown in the properties panel for one queue.
+     */
     public QueueInfo getQueueInfo(String queueName) throws MQException, IOException {
-        MQQueueManager qm = connectionManager.getQueueManager();
+        return getQueueInfo(queueName, QueueAttributeProfile.PROPERTIES);
+    }
 
-        PCFMessageAgent agent = new PCFMessageAgent(qm);
-        try {
-            PCFMessage request = new PCFMessage(MQConstants.MQCMD_INQUIRE_Q);
-            request.addParameter(MQConstants.MQCA_Q_NAME, queueName);
+    /**
+     * Get the attributes of a profile for one queue.
+     */
+    public QueueInfo getQueueInfo(String queueName, QueueAttributeProfile profile) throws MQException, IOException {
+        return getQueueInfo(null, queueName, profile);
+    }
 
-            PCFMessage[] responses = agent.send(request);
+    /**
+     * Get the attributes of a profile for one queue of a specific connection.
+     * @param connectionId The connection ID, or null for the active connection
+     * @return The queue, or null if it does not exist
+     */
+    public QueueInfo getQueueInfo(String connectionId, String queueName, QueueAttributeProfile profile) throws MQException, IOException {
+        try (PCFAgentPool.Lease lease = leaseAgent(connectionId)) {
+            PCFMessage request = createInquiry(queueName, profile);
+
+            PCFMessage[] responses = send(lease, request);
 
             if (responses.length > 0) {
                 QueueInfo queueInfo = new QueueInfo(queueName);
@@ -113,73 +171,270 @@ public class QueueService {
 
             logger.warn("Queue not found: {}", queueName);
             return null;
-        } finally {
-            agent.disconnect();
         }
     }
 
     /**
-     * Get queue information for a list of queue names.
+     * Get queue information for a list of queue names, with the attributes of the MONITOR profile.
      * @param queueNames List of queue names to retrieve information for
      * @return List of QueueInfo objects for the specified queues
      */
     public List<QueueInfo> getQueuesInfo(List<String> queueNames) throws MQException {
+        return getQueuesInfo(queueNames, QueueAttributeProfile.MONITOR);
+    }
+
+    /**
+     * Get queue information for a list of queue names.
+     * The names are covered by as few inquiries as possible (generic prefixes or a single
+     * wildcard, see {@link InquiryPlanner}) and the responses are filtered on the client.
+     * @param queueNames List of queue names to retrieve information for
+     * @param profile Attributes to retrieve
+     * @return List of QueueInfo objects for the specified queues
+     */
+    public List<QueueInfo> getQueuesInfo(List<String> queueNames, QueueAttributeProfile profile) throws MQException {
+        return getQueuesInfo(null, queueNames, profile);
+    }
+
+    /**
+     * Get queue information for a list of queue names on a given connection.
+     * @param connectionId The connection ID, or null for the active connection
+     */
+    public List<QueueInfo> getQueuesInfo(String connectionId, List<String> queueNames, QueueAttributeProfile profile) throws MQException {
         if (queueNames == null || queueNames.isEmpty()) {
             return new ArrayList<>();
         }
+        InquiryPlanner.InquiryPlan plan = inquiryPlanner.plan(queueNames, getCatalog(connectionId));
+        return getQueuesInfo(connectionId, queueNames, plan, profile);
+    }
 
-        List<QueueInfo> queueInfoList = new ArrayList<>();
-        MQQueueManager qm = connectionManager.getQueueManager();
-        PCFMessageAgent agent = new PCFMessageAgent(qm);
+    /**
+     * Run an inquiry plan and keep only the wanted queues, in the order they were requested.
+     * @param connectionId The connection ID, or null for the active connection
+     */
+    List<QueueInfo> getQueuesInfo(String connectionId, List<String> queueNames,
+                                  InquiryPlanner.InquiryPlan plan, QueueAttributeProfile profile) throws MQException {
+        Inquiry inquiry = inquire(connectionId, queueNames, plan, profile);
+
+        List<QueueInfo> queueInfoList = new ArrayList<>(inquiry.found().size());
+        for (String queueName : queueNames) {
+            QueueInfo queueInfo = inquiry.found().remove(queueName);
+            if (queueInfo != null) {
+                queueInfoList.add(queueInfo);
+            }
+        }
+        return queueInfoList;
+    }
 
-        try {
-            for (String queueName : queueNames) {
-                try {
-                    PCFMessage request = new PCFMessage(MQConstants.MQCMD_INQUIRE_Q);
-                    request.addParameter(MQConstants.MQCA_Q_NAME, queueName);
+    /**
+     * Poll the depths and open counts of the indexed queues on the active connection and
+     * merge them into the index. Queues the queue manager no longer knows are removed.
+     * @return What changed since the previous merge
+     */
+    public QueueDelta refreshQueues(QueueSnapshotIndex index) throws MQException {
+        return refreshQueues(index, index.names());
+    }
 
-                    PCFMessage[] responses = agent.send(request);
+    /**
+     * Poll some of the indexed queues in one batched inquiry and merge them into the index.
+     * @param queueNames Indexed queues to poll
+     * @return What changed among the polled queues
+     */
+    public QueueDelta refreshQueues(QueueSnapshotIndex index, List<String> queueNames) throws MQException {
+        return refreshQueues(null, index, queueNames);
+    }
+
+    /**
+     * Poll some of the indexed queues of a specific connection in one batched inquiry.
+     * @param connectionId The connection ID, or null for the active connection
+     * @param queueNames Indexed queues to poll
+     * @return What changed among the polled queues
+     */
+    public QueueDelta refreshQueues(String connectionId, QueueSnapshotIndex index, List<String> queueNames) throws MQException {
+        if (queueNames.isEmpty()) {
+            return QueueDelta.EMPTY;
+        }
+        InquiryPlanner.InquiryPlan plan = inquiryPlanner.plan(queueNames, getCatalog(connectionId));
+        Inquiry inquiry = inquire(connectionId, queueNames, plan, QueueAttributeProfile.MONITOR);
+        QueueDelta delta = index.merge(inquiry.found().values(), inquiry.missing());
+        QueueNameDirectory directory = nameDirectory;
+        String key = connectionKey(connectionId);
+        if (directory != null && key != null && delta.isStructural()) {
+            delta.added().forEach(queue -> directory.add(key, queue.getQueue()));
+            delta.removed().forEach(queueName -> directory.remove(key, queueName));
+        }
+        return delta;
+    }
 
-                    if (responses.length > 0) {
-                        QueueInfo queueInfo = new QueueInfo(queueName);
-                        populateQueueInfo(queueInfo, responses[0]);
-                        queueInfoList.add(queueInfo);
+    /**
+     * Queues found by an inquiry, and wanted names a request answered without them.
+     * Names covered by a failed request are in neither.
+     */
+    private record Inquiry(Map<String, QueueInfo> found, Set<String> missing) {
+    }
+
+    private Inquiry inquire(String connectionId, List<String> queueNames,
+                            InquiryPlanner.InquiryPlan plan, QueueAttributeProfile profile) throws MQException {
+        Set<String> wanted = new HashSet<>(queueNames);
+        Map<String, QueueInfo> found = new HashMap<>(wanted.size() * 2);
+        // Patterns the queue manager answered, every wanted name they cover but did not return is gone
+        Set<String> answeredNames = new HashSet<>();
+        List<String> answeredPrefixes = new ArrayList<>();
+        int rows = 0;
+
+        try (PCFAgentPool.Lease lease = leaseAgent(connectionId)) {
+            List<String> patterns = plan.patterns();
+            for (int i = 0; i < patterns.size(); i++) {
+                String pattern = patterns.get(i);
+                if (lease.isBroken()) {
+                    // The agent lost its connection, the remaining requests would only fail in turn
+                    logger.warn("Skipping {} request(s) after a connection error", patterns.size() - i);
+                    break;
+                }
+                try {
+                    PCFMessage request = createInquiry(pattern, profile);
+
+                    PCFMessage[] responses = send(lease, request);
+                    rows += responses.length;
+                    List<String> listed = plan.isWildcard() ? new ArrayList<>(responses.length) : null;
+
+                    for (PCFMessage response : responses) {
+                        String queueName = response.getStringParameterValue(MQConstants.MQCA_Q_NAME).trim();
+                        if (listed != null) {
+                            listed.add(queueName);
+                        }
+                        if (wanted.contains(queueName) && !found.containsKey(queueName)) {
+                            QueueInfo queueInfo = new QueueInfo(queueName);
+                            populateQueueInfo(queueInfo, response);
+                            found.put(queueName, queueInfo);
+                        }
+                    }
+                    if (listed != null) {
+                        rememberCatalog(connectionId, listed);
+                    }
+                    answered(pattern, answeredNames, answeredPrefixes);
+                } catch (PCFException e) {
+                    if (e.getReason() == MQConstants.MQRC_UNKNOWN_OBJECT_NAME) {
+                        logger.warn("Queue not found: {}", pattern);
+                        answered(pattern, answeredNames, answeredPrefixes);
                     } else {
-                        logger.warn("Queue not found: {}", queueName);
+                        logger.error("Error retrieving info for queue: {}", pattern, e);
                     }
                 } catch (Exception e) {
-                    logger.error("Error retrieving info for queue: {}", queueName, e);
+                    logger.error("Error retrieving info for queue: {}", pattern, e);
                 }
             }
-        } finally {
-            agent.disconnect();
         }
 
-        logger.info("Retrieved information for {} out of {} queues", queueInfoList.size(), queueNames.size());
-        return queueInfoList;
+        Set<String> missing = new HashSet<>();
+        if (found.size() < wanted.size()) {
+            for (String queueName : wanted) {
+                if (!found.containsKey(queueName) && isCovered(queueName, answeredNames, answeredPrefixes)) {
+                    missing.add(queueName);
+                }
+            }
+        }
+
+        logger.info("Retrieved information for {} out of {} queues ({} request(s), {} row(s))",
+                found.size(), wanted.size(), plan.roundTrips(), rows);
+        return new Inquiry(found, missing);
     }
 
-    private void populateQueueInfo(QueueInfo queueInfo, PCFMessage response) {
+    private static void answered(String pattern, Set<String> names, List<String> prefixes) {
+        if (pattern.endsWith("*")) {
+            prefixes.add(pattern.substring(0, pattern.length() - 1));
+        } else {
+            names.add(pattern);
+        }
+    }
+
+    private static boolean isCovered(String queueName, Set<String> names, List<String> prefixes) {
+        if (names.contains(queueName)) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (queueName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private InquiryPlanner.Catalog getCatalog(String connectionId) {
+        String key = connectionKey(connectionId);
+        return key != null ? catalogs.get(key) : null;
+    }
+
+    private void rememberCatalog(String connectionId, List<String> queueNames) {
+        String key = connectionKey(connectionId);
+        if (key != null) {
+            catalogs.put(key, new InquiryPlanner.Catalog(queueNames));
+            QueueNameDirectory directory = nameDirectory;
+            if (directory != null) {
+                directory.update(key, queueNames);
+            }
+        }
+    }
+
+    private String connectionKey(String connectionId) {
+        return connectionId != null ? connectionId : connectionManager.getActiveConnectionId();
+    }
+
+    private PCFAgentPool.Lease leaseAgent(String connectionId) throws MQException {
+        return connectionId != null ? connectionManager.leaseAgent(connectionId) : connectionManager.leaseAgent();
+    }
+
+    /**
+     * Send a PCF request on a leased agent. Command errors leave the agent reusable,
+     * transport errors invalidate it so the pool does not hand it out again.
+     */
+    private PCFMessage[] send(PCFAgentPool.Lease lease, PCFMessage request) throws MQException, IOException {
         try {
-            queueInfo.setCurrentDepth(response.getIntParameterValue(MQConstants.MQIA_CURRENT_Q_DEPTH));
-            queueInfo.setMaxDepth(response.getIntParameterValue(MQConstants.MQIA_MAX_Q_DEPTH));
-            queueInfo.setQueueType(response.getIntParameterValue(MQConstants.MQIA_Q_TYPE));
-            queueInfo.setOpenInputCount(response.getIntParameterValue(MQConstants.MQIA_OPEN_INPUT_COUNT));
-            queueInfo.setOpenOutputCount(response.getIntParameterValue(MQConstants.MQIA_OPEN_OUTPUT_COUNT));
-
-            String desc = response.getStringParameterValue(MQConstants.MQCA_Q_DESC);
-            queueInfo.setDescription(desc != null ? desc.trim() : "");
-
-            queueInfo.setAttribute("CreationDate", response.getStringParameterValue(MQConstants.MQCA_CREATION_DATE));
-            queueInfo.setAttribute("CreationTime", response.getStringParameterValue(MQConstants.MQCA_CREATION_TIME));
-            queueInfo.setAttribute("InhibitPut", response.getIntParameterValue(MQConstants.MQIA_INHIBIT_PUT));
-            queueInfo.setAttribute("InhibitGet", response.getIntParameterValue(MQConstants.MQIA_INHIBIT_GET));
-            queueInfo.setAttribute("Shareability", response.getIntParameterValue(MQConstants.MQIA_SHAREABILITY));
-            queueInfo.setAttribute("DefPriority", response.getIntParameterValue(MQConstants.MQIA_DEF_PRIORITY));
-            queueInfo.setAttribute("DefPersistence", response.getIntParameterValue(MQConstants.MQIA_DEF_PERSISTENCE));
-            queueInfo.setAttribute("TriggerControl", response.getIntParameterValue(MQConstants.MQIA_TRIGGER_CONTROL));
-            queueInfo.setAttribute("MaxMsgLength", response.getIntParameterValue(MQConstants.MQIA_MAX_MSG_LENGTH));
+            return lease.getAgent().send(request);
+        } catch (PCFException e) {
+            throw e;
+        } catch (MQException | IOException e) {
+            lease.invalidate();
+            throw e;
+        }
+    }
 
+    private static PCFMessage createInquiry(String queueName, QueueAttributeProfile profile) {
+        PCFMessage request = new PCFMessage(MQConstants.MQCMD_INQUIRE_Q);
+        request.addParameter(MQConstants.MQCA_Q_NAME, queueName);
+        request.addParameter(MQConstants.MQIACF_Q_ATTRS, profile.getAttributes());
+        return request;
+    }
+
+    /**
+     * Copy the attributes present in a response, whichever profile was requested.
+     */
+    private void populateQueueInfo(QueueInfo queueInfo, PCFMessage response) {
+        try {
+            Enumeration<?> parameters = response.getParameters();
+            while (parameters.hasMoreElements()) {
+                PCFParameter parameter = (PCFParameter) parameters.nextElement();
+                Object value = parameter.getValue();
+                switch (parameter.getParameter()) {
+                    case MQConstants.MQIA_CURRENT_Q_DEPTH -> queueInfo.setCurrentDepth((Integer) value);
+                    case MQConstants.MQIA_MAX_Q_DEPTH -> queueInfo.setMaxDepth((Integer) value);
+                    case MQConstants.MQIA_Q_TYPE -> queueInfo.setQueueType((Integer) value);
+                    case MQConstants.MQIA_OPEN_INPUT_COUNT -> queueInfo.setOpenInputCount((Integer) value);
+                    case MQConstants.MQIA_OPEN_OUTPUT_COUNT -> queueInfo.setOpenOutputCount((Integer) value);
+                    case MQConstants.MQCA_Q_DESC -> queueInfo.setDescription(value != null ? ((String) value).trim() : "");
+                    case MQConstants.MQCA_CREATION_DATE -> queueInfo.setAttribute("CreationDate", value);
+                    case MQConstants.MQCA_CREATION_TIME -> queueInfo.setAttribute("CreationTime", value);
+                    case MQConstants.MQIA_INHIBIT_PUT -> queueInfo.setAttribute("InhibitPut", value);
+                    case MQConstants.MQIA_INHIBIT_GET -> queueInfo.setAttribute("InhibitGet", value);
+                    case MQConstants.MQIA_SHAREABILITY -> queueInfo.setAttribute("Shareability", value);
+                    case MQConstants.MQIA_DEF_PRIORITY -> queueInfo.setAttribute("DefPriority", value);
+                    case MQConstants.MQIA_DEF_PERSISTENCE -> queueInfo.setAttribute("DefPersistence", value);
+                    case MQConstants.MQIA_TRIGGER_CONTROL -> queueInfo.setAttribute("TriggerControl", value);
+                    case MQConstants.MQIA_MAX_MSG_LENGTH -> queueInfo.setAttribute("MaxMsgLength", value);
+                    default -> {
+                        // Not shown
+                    }
+                }
+            }
         } catch (Exception e) {
             logger.warn("Error populating queue info for {}", queueInfo.getQueue(), e);
         }
@@ -206,34 +461,49 @@ public class QueueService {
     }
 
     public void refreshQueueInfo(QueueInfo queueInfo) throws MQException, IOException {
-        QueueInfo updated = getQueueInfo(queueInfo.getQueue());
+        refreshQueueInfo(queueInfo, QueueAttributeProfile.PROPERTIES);
+    }
+
+    /**
+     * Refresh a queue with the attributes of a profile. Attributes outside the profile keep their value.
+     */
+    public void refreshQueueInfo(QueueInfo queueInfo, QueueAttributeProfile profile) throws MQException, IOException {
+        refreshQueueInfo(null, queueInfo, profile);
+    }
+
+    /**
+     * Refresh a queue on the given connection, or on the active one when connectionId is null.
+     */
+    public void refreshQueueInfo(String connectionId, QueueInfo queueInfo, QueueAttributeProfile profile) throws MQException, IOException {
+        QueueInfo updated = getQueueInfo(connectionId, queueInfo.getQueue(), profile);
         if (updated != null) {
-            queueInfo.setCurrentDepth(updated.getCurrentDepth());
-            queueInfo.setMaxDepth(updated.getMaxDepth());
-            queueInfo.setOpenInputCount(updated.getOpenInputCount());
-            queueInfo.setOpenOutputCount(updated.getOpenOutputCount());
-            queueInfo.setAttributes(updated.getAttributes());
+            copyAttributes(updated, queueInfo, profile);
         }
     }
 
+    /**
+     * Refresh the depths and open counts of the given queues in place.
+     */
     public List<QueueInfo> refreshAllQueues(List<QueueInfo> queues) throws MQException, IOException {
-        List<QueueInfo> refreshed = getAllQueues();
-
-        for (QueueInfo queueInfo : queues) {
-            for (QueueInfo updated : refreshed) {
-                if (queueInfo.getQueue().equals(updated.getQueue())) {
-                    queueInfo.setCurrentDepth(updated.getCurrentDepth());
-                    queueInfo.setMaxDepth(updated.getMaxDepth());
-                    queueInfo.setOpenInputCount(updated.getOpenInputCount());
-                    queueInfo.setOpenOutputCount(updated.getOpenOutputCount());
-                    break;
-                }
-            }
-        }
-
+        refreshQueues(new QueueSnapshotIndex(queues));
         return queues;
     }
 
+    /**
+     * Copy the attributes of a profile read into one QueueInfo to another one.
+     */
+    public static void copyAttributes(QueueInfo from, QueueInfo to, QueueAttributeProfile profile) {
+        to.setCurrentDepth(from.getCurrentDepth());
+        to.setMaxDepth(from.getMaxDepth());
+        to.setOpenInputCount(from.getOpenInputCount());
+        to.setOpenOutputCount(from.getOpenOutputCount());
+        if (profile.includesProperties()) {
+            to.setQueueType(from.getQueueType());
+            to.setDescription(from.getDescription());
+            to.setAttributes(from.getAttributes());
+        }
+    }
+
     private static String getQueueTypeString(int queueType) {
         switch (queueType) {
             case CMQC.MQQT_LOCAL:
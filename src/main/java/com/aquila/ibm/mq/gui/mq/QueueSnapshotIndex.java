@@ -0,0 +1,122 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.aquila.ibm.mq.gui.model.QueueDelta;
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set of queues indexed by name. Fresh snapshots are merged in with one hash lookup per
+ * queue: the indexed QueueInfo objects are updated in place and the differences are
+ * returned as a {@link QueueDelta}. Not thread-safe, callers synchronize if needed.
+ */
+public class QueueSnapshotIndex {
+    private final Map<String, QueueInfo> queues = new LinkedHashMap<>();
+
+    public QueueSnapshotIndex() {
+    }
+
+    public QueueSnapshotIndex(Collection<QueueInfo> queues) {
+        reset(queues);
+    }
+
+    public void reset(Collection<QueueInfo> queues) {
+        this.queues.clear();
+        for (QueueInfo queue : queues) {
+            this.queues.put(queue.getQueue(), queue);
+        }
+    }
+
+    /**
+     * @return false if a queue with that name is already indexed
+     */
+    public boolean add(QueueInfo queue) {
+        return queues.putIfAbsent(queue.getQueue(), queue) == null;
+    }
+
+    public QueueInfo remove(String queueName) {
+        return queues.remove(queueName);
+    }
+
+    public QueueInfo get(String queueName) {
+        return queues.get(queueName);
+    }
+
+    public List<String> names() {
+        return new ArrayList<>(queues.keySet());
+    }
+
+    public List<QueueInfo> queues() {
+        return new ArrayList<>(queues.values());
+    }
+
+    public int size() {
+        return queues.size();
+    }
+
+    public boolean isEmpty() {
+        return queues.isEmpty();
+    }
+
+    /**
+     * Merge a snapshot of polled attributes (depths and open counts).
+     * @param fresh Queues just read from the queue manager; unknown names are added
+     * @param missing Names the queue manager reported as not existing; they are removed.
+     *                Indexed queues absent from both collections are left untouched, e.g.
+     *                when their inquiry failed.
+     */
+    public QueueDelta merge(Collection<QueueInfo> fresh, Set<String> missing) {
+        List<QueueInfo> added = new ArrayList<>();
+        List<QueueDelta.Change> changed = new ArrayList<>();
+        for (QueueInfo update : fresh) {
+            QueueInfo current = queues.get(update.getQueue());
+            if (current == null) {
+                queues.put(update.getQueue(), update);
+                added.add(update);
+                continue;
+            }
+            int fields = diff(current, update);
+            if (fields != 0) {
+                current.setCurrentDepth(update.getCurrentDepth());
+                current.setMaxDepth(update.getMaxDepth());
+                current.setOpenInputCount(update.getOpenInputCount());
+                current.setOpenOutputCount(update.getOpenOutputCount());
+                changed.add(new QueueDelta.Change(current, fields));
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String queueName : missing) {
+            if (queues.remove(queueName) != null) {
+                removed.add(queueName);
+            }
+        }
+
+        if (added.isEmpty() && removed.isEmpty() && changed.isEmpty()) {
+            return QueueDelta.EMPTY;
+        }
+        return new QueueDelta(added, removed, changed);
+    }
+
+    private static int diff(QueueInfo current, QueueInfo update) {
+        int fields = 0;
+        if (current.getCurrentDepth() != update.getCurrentDepth()) {
+            fields |= QueueDelta.CURRENT_DEPTH;
+        }
+        if (current.getMaxDepth() != update.getMaxDepth()) {
+            fields |= QueueDelta.MAX_DEPTH;
+        }
+        if (current.getOpenInputCount() != update.getOpenInputCount()) {
+            fields |= QueueDelta.OPEN_INPUT_COUNT;
+        }
+        if (current.getOpenOutputCount() != update.getOpenOutputCount()) {
+            fields |= QueueDelta.OPEN_OUTPUT_COUNT;
+        }
+        return fields;
+    }
+}
@@ -1,147 +1,400 @@
 package com.aquila.ibm.mq.gui.ui;
 
+import com.aquila.ibm.mq.gui.model.DepthHistory;
+import com.aquila.ibm.mq.gui.model.DepthSeries;
 import com.aquila.ibm.mq.gui.model.QueueInfo;
+import com.aquila.ibm.mq.gui.util.Lttb;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.StackLayout;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.RGB;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swtchart.Chart;
+import org.eclipse.swtchart.IAxis;
 import org.eclipse.swtchart.ILineSeries;
 import org.eclipse.swtchart.ISeries;
 import org.eclipse.swtchart.Range;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.*;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Chart of the recent depth of the selected queue, read from the {@link DepthHistory}
+ * the monitor records into. Time is a numeric axis. Only the samples recorded since the last
+ * frame are read from the history, the line is reduced to about one point per pixel with
+ * {@link Lttb}, and updates are drawn at most {@link #FRAMES_PER_SECOND} times per second.
+ * <p>
+ * Several queues can also be compared, overlaid on one {@link DepthStripChart} or as a grid
+ * of small charts, one per queue. These draw straight from the series of the history and
+ * only draw the newest pixels on each {@link #LIVE_TICK_MS} tick.
+ */
 public class DepthChartPanel extends Composite {
+    static final int FRAMES_PER_SECOND = 10;
+    private static final int FRAME_INTERVAL_MS = 1000 / FRAMES_PER_SECOND;
+    /** Below this many points each sample is marked with a symbol. */
+    private static final int SYMBOL_THRESHOLD = 120;
+    private static final long[] WINDOWS_MS = {5 * 60_000L, 60 * 60_000L, 6 * 3_600_000L, 24 * 3_600_000L};
+    private static final String[] WINDOW_LABELS = {"5 minutes", "1 hour", "6 hours", "24 hours"};
+    static final int MAX_COMPARED = 50;
+    static final int LIVE_TICK_MS = 1000;
+    private static final float GOLDEN_ANGLE = 137.508f;
+
+    enum Mode {
+        SINGLE("Selected queue"), OVERLAY("Overlay"), GRID("Small multiples");
+
+        private final String label;
+
+        Mode(String label) {
+            this.label = label;
+        }
+    }
+
     private Chart chart;
     private QueueInfo selectedQueue;
-    private List<QueueInfo> allQueues;
-    private final Map<String, LinkedList<DataPoint>> queueDataHistory;
-    private static final int MAX_DATA_POINTS = 60;
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private final DepthHistory depthHistory;
+    private String connectionId;
+    private long windowMillis = WINDOWS_MS[1];
+    private final SampleWindow samples = new SampleWindow();
+    private ILineSeries lineSeries;
+    private boolean renderScheduled;
+    private long lastRenderAt;
+
+    private Mode mode = Mode.SINGLE;
+    private final Combo modeCombo;
+    private final Composite content;
+    private final StackLayout stack = new StackLayout();
+    private final DepthStripChart overlayChart;
+    private final Composite gridPanel;
+    private final List<DepthStripChart> gridCharts = new ArrayList<>();
+    private List<String> comparedQueues = List.of();
+    private final List<Color> palette = new ArrayList<>();
+    private boolean liveTicking;
 
-    public DepthChartPanel(Composite parent, int style) {
+    public DepthChartPanel(Composite parent, int style, DepthHistory depthHistory) {
         super(parent, style);
-        this.allQueues = new ArrayList<>();
-        this.queueDataHistory = new HashMap<>();
+        this.depthHistory = depthHistory;
 
-        setLayout(new GridLayout());
+        setLayout(new GridLayout(5, false));
 
         Label label = new Label(this, SWT.NONE);
         label.setText("Queue Depth Over Time:");
+        label.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+
+        new Label(this, SWT.NONE).setText("View:");
+        modeCombo = new Combo(this, SWT.READ_ONLY);
+        for (Mode value : Mode.values()) {
+            modeCombo.add(value.label);
+        }
+        modeCombo.select(0);
+        modeCombo.addListener(SWT.Selection, e -> setMode(Mode.values()[modeCombo.getSelectionIndex()]));
 
-        chart = new Chart(this, SWT.NONE);
-        chart.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+        new Label(this, SWT.NONE).setText("Show last:");
+        Combo windowCombo = new Combo(this, SWT.READ_ONLY);
+        windowCombo.setItems(WINDOW_LABELS);
+        windowCombo.select(1);
+        windowCombo.addListener(SWT.Selection, e -> setWindowMillis(WINDOWS_MS[windowCombo.getSelectionIndex()]));
+
+        content = new Composite(this, SWT.NONE);
+        content.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 5, 1));
+        content.setLayout(stack);
+
+        chart = new Chart(content, SWT.NONE);
 
         chart.getTitle().setText("Queue Depth Monitoring");
-        chart.getAxisSet().getXAxis(0).getTitle().setText("Time");
+        IAxis xAxis = chart.getAxisSet().getXAxis(0);
+        xAxis.getTitle().setText("Time");
+        xAxis.enableCategory(false);
+        xAxis.getTick().setFormat(new SimpleDateFormat("HH:mm:ss"));
         chart.getAxisSet().getYAxis(0).getTitle().setText("Depth");
-        chart.getAxisSet().getXAxis(0).enableCategory(true);
 
         chart.getLegend().setPosition(SWT.RIGHT);
-    }
+        // A wider chart can show more points
+        chart.addListener(SWT.Resize, e -> requestRender());
+
+        overlayChart = new DepthStripChart(content, SWT.NONE);
+        overlayChart.setLegendVisible(true);
+        overlayChart.setWindowMillis(windowMillis);
+        gridPanel = new Composite(content, SWT.NONE);
 
-    public void setQueues(List<QueueInfo> queues) {
-        this.allQueues = new ArrayList<>(queues);
-        initializeDataHistory();
+        stack.topControl = chart;
+        addDisposeListener(e -> palette.forEach(Color::dispose));
     }
 
-    public void setSelectedQueue(QueueInfo queue) {
-        this.selectedQueue = queue;
-        updateChart();
+    private void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+        samples.clear();
+        requestRender();
+        overlayChart.setWindowMillis(windowMillis);
+        gridCharts.forEach(strip -> strip.setWindowMillis(windowMillis));
+        tickLive();
     }
 
-    public void updateData(QueueInfo updatedQueue) {
-        if (updatedQueue == null) {
-            return;
+    /**
+     * Compare the depth of several queues, at most {@link #MAX_COMPARED}. Switches from the
+     * single queue chart to the overlay.
+     */
+    public void setComparedQueues(List<QueueInfo> queues) {
+        List<String> names = new ArrayList<>();
+        for (QueueInfo queue : queues) {
+            if (names.size() == MAX_COMPARED) {
+                break;
+            }
+            names.add(queue.getQueue());
         }
+        comparedQueues = List.copyOf(names);
+        ensurePalette(comparedQueues.size());
+        rebuildGrid();
+        refreshLines();
+        if (mode == Mode.SINGLE) {
+            setMode(comparedQueues.size() > 1 ? Mode.OVERLAY : Mode.SINGLE);
+        }
+        tickLive();
+    }
 
-        LinkedList<DataPoint> history = queueDataHistory.computeIfAbsent(
-            updatedQueue.getQueue(), k -> new LinkedList<>());
-
-        history.add(new DataPoint(LocalDateTime.now(), updatedQueue.getCurrentDepth()));
+    private void setMode(Mode mode) {
+        this.mode = mode;
+        modeCombo.select(mode.ordinal());
+        Control top = switch (mode) {
+            case SINGLE -> chart;
+            case OVERLAY -> overlayChart;
+            case GRID -> gridPanel;
+        };
+        stack.topControl = top;
+        content.layout(true, true);
+        if (mode == Mode.SINGLE) {
+            requestRender();
+        } else {
+            tickLive();
+            scheduleLiveTick();
+        }
+    }
 
-        if (history.size() > MAX_DATA_POINTS) {
-            history.removeFirst();
+    /**
+     * Distinct colours, one hue per queue a golden angle apart.
+     */
+    private void ensurePalette(int count) {
+        while (palette.size() < count) {
+            float hue = (palette.size() * GOLDEN_ANGLE) % 360;
+            palette.add(new Color(getDisplay(), new RGB(hue, 0.85f, 0.75f)));
         }
+    }
 
-        if (selectedQueue != null && selectedQueue.getQueue().equals(updatedQueue.getQueue())) {
-            updateChart();
+    private void rebuildGrid() {
+        for (Control child : gridPanel.getChildren()) {
+            child.dispose();
+        }
+        gridCharts.clear();
+        int columns = Math.max(1, (int) Math.ceil(Math.sqrt(comparedQueues.size())));
+        gridPanel.setLayout(new GridLayout(columns, true));
+        for (String queueName : comparedQueues) {
+            DepthStripChart strip = new DepthStripChart(gridPanel, SWT.BORDER);
+            strip.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+            strip.setTitle(queueName);
+            strip.setWindowMillis(windowMillis);
+            gridCharts.add(strip);
         }
+        gridPanel.layout(true, true);
     }
 
-    private void initializeDataHistory() {
-        queueDataHistory.clear();
-        for (QueueInfo queue : allQueues) {
-            LinkedList<DataPoint> history = new LinkedList<>();
-            history.add(new DataPoint(LocalDateTime.now(), queue.getCurrentDepth()));
-            queueDataHistory.put(queue.getQueue(), history);
+    /**
+     * Look up the series of the compared queues, which appear once the first sample of a
+     * queue is recorded.
+     * @return Whether a series was found since the last call
+     */
+    private boolean refreshLines() {
+        boolean changed = false;
+        List<DepthStripChart.Line> lines = new ArrayList<>();
+        List<DepthStripChart.Line> previous = overlayChart.getLines();
+        for (int i = 0; i < comparedQueues.size(); i++) {
+            String queueName = comparedQueues.get(i);
+            DepthSeries series = connectionId == null ? null : depthHistory.get(connectionId, queueName);
+            DepthStripChart.Line line = new DepthStripChart.Line(queueName, series, palette.get(i));
+            changed |= i >= previous.size() || !line.equals(previous.get(i));
+            lines.add(line);
+        }
+        if (changed || previous.size() != lines.size()) {
+            overlayChart.setLines(lines);
+            for (int i = 0; i < gridCharts.size(); i++) {
+                gridCharts.get(i).setLines(List.of(lines.get(i)));
+            }
+            return true;
         }
+        return false;
     }
 
-    private void updateChart() {
-        if (selectedQueue == null) {
+    private void tickLive() {
+        if (mode == Mode.SINGLE || isDisposed()) {
             return;
         }
+        refreshLines();
+        long now = System.currentTimeMillis();
+        if (mode == Mode.OVERLAY) {
+            overlayChart.tick(now);
+        } else {
+            gridCharts.forEach(strip -> strip.tick(now));
+        }
+    }
 
-        LinkedList<DataPoint> history = queueDataHistory.get(selectedQueue.getQueue());
-        if (history == null || history.isEmpty()) {
+    private void scheduleLiveTick() {
+        if (liveTicking) {
             return;
         }
+        liveTicking = true;
+        getDisplay().timerExec(LIVE_TICK_MS, new Runnable() {
+            @Override
+            public void run() {
+                if (isDisposed() || mode == Mode.SINGLE) {
+                    liveTicking = false;
+                    return;
+                }
+                tickLive();
+                getDisplay().timerExec(LIVE_TICK_MS, this);
+            }
+        });
+    }
 
-        for (ISeries series : chart.getSeriesSet().getSeries()) {
-            chart.getSeriesSet().deleteSeries(series.getId());
+    /**
+     * Show the history of the queues of a connection.
+     */
+    public void setConnection(String connectionId) {
+        if (connectionId == null || !connectionId.equals(this.connectionId)) {
+            samples.clear();
         }
+        this.connectionId = connectionId;
+        refreshLines();
+    }
 
-        String[] xLabels = new String[history.size()];
-        double[] yValues = new double[history.size()];
+    public void setSelectedQueue(QueueInfo queue) {
+        if (queue == null || selectedQueue == null || !selectedQueue.getQueue().equals(queue.getQueue())) {
+            samples.clear();
+            deleteSeries();
+        }
+        this.selectedQueue = queue;
+        requestRender();
+    }
 
-        int i = 0;
-        for (DataPoint point : history) {
-            xLabels[i] = point.timestamp.format(TIME_FORMATTER);
-            yValues[i] = point.depth;
-            i++;
+    /**
+     * Redraw if the history of this queue is the one shown.
+     */
+    public void updateData(QueueInfo updatedQueue) {
+        if (updatedQueue == null) {
+            return;
         }
 
-        chart.getAxisSet().getXAxis(0).setCategorySeries(xLabels);
-        ILineSeries lineSeries = (ILineSeries) chart.getSeriesSet().createSeries(
-            ISeries.SeriesType.LINE, selectedQueue.getQueue());
-        lineSeries.setYSeries(yValues);
-        lineSeries.setLineColor(getDisplay().getSystemColor(SWT.COLOR_BLUE));
-        lineSeries.setSymbolType(ILineSeries.PlotSymbolType.CIRCLE);
-        lineSeries.setSymbolSize(4);
+        if (selectedQueue != null && selectedQueue.getQueue().equals(updatedQueue.getQueue())) {
+            requestRender();
+        }
+    }
 
-        if (yValues.length > 0) {
-            double maxDepth = selectedQueue.getMaxDepth();
-            if (maxDepth > 0) {
-                chart.getAxisSet().getYAxis(0).setRange(new Range(0, maxDepth * 1.1));
-            } else {
-                chart.getAxisSet().adjustRange();
+    /**
+     * Draw on the next frame, coalescing the requests made until then.
+     */
+    private void requestRender() {
+        if (renderScheduled || isDisposed()) {
+            return;
+        }
+        renderScheduled = true;
+        long wait = Math.max(0, lastRenderAt + FRAME_INTERVAL_MS - System.currentTimeMillis());
+        getDisplay().timerExec((int) wait, () -> {
+            renderScheduled = false;
+            if (!isDisposed()) {
+                lastRenderAt = System.currentTimeMillis();
+                render();
             }
+        });
+    }
+
+    private void render() {
+        if (selectedQueue == null || connectionId == null) {
+            return;
+        }
+
+        DepthSeries series = depthHistory.get(connectionId, selectedQueue.getQueue());
+        if (series == null || series.size() == 0) {
+            return;
         }
+        long to = series.getLatestSampleTime();
+        long from = to - windowMillis;
+        samples.update(series, from);
 
-        chart.getAxisSet().getXAxis(0).adjustRange();
+        int width = Math.max(3, chart.getClientArea().width);
+        Lttb.Points points = Lttb.downsample(samples.times, samples.depths, samples.start, samples.size, width);
+
+        if (lineSeries == null) {
+            lineSeries = (ILineSeries) chart.getSeriesSet().createSeries(ISeries.SeriesType.LINE, selectedQueue.getQueue());
+            lineSeries.setLineColor(getDisplay().getSystemColor(SWT.COLOR_BLUE));
+            lineSeries.setSymbolSize(4);
+        }
+        lineSeries.setSymbolType(points.size() <= SYMBOL_THRESHOLD
+                ? ILineSeries.PlotSymbolType.CIRCLE : ILineSeries.PlotSymbolType.NONE);
+        lineSeries.setXSeries(points.x());
+        lineSeries.setYSeries(points.y());
+
+        chart.getAxisSet().getXAxis(0).setRange(new Range(from, Math.max(to, from + 1)));
+        double maxDepth = selectedQueue.getMaxDepth();
+        if (maxDepth > 0) {
+            chart.getAxisSet().getYAxis(0).setRange(new Range(0, maxDepth * 1.1));
+        } else {
+            chart.getAxisSet().getYAxis(0).adjustRange();
+        }
         chart.redraw();
     }
 
-    public void clearData() {
-        queueDataHistory.clear();
+    private void deleteSeries() {
         for (ISeries series : chart.getSeriesSet().getSeries()) {
             chart.getSeriesSet().deleteSeries(series.getId());
         }
+        lineSeries = null;
+    }
+
+    public void clearData() {
+        samples.clear();
+        deleteSeries();
         chart.redraw();
     }
 
-    private static class DataPoint {
-        LocalDateTime timestamp;
-        int depth;
+    /**
+     * The samples of the visible window, in primitive arrays. New samples are appended and
+     * samples that scrolled out are skipped, so a frame only reads what changed.
+     */
+    private static class SampleWindow {
+        private long[] times = new long[256];
+        private int[] depths = new int[256];
+        private int start;
+        private int size;
+
+        void update(DepthSeries series, long from) {
+            long after = size > 0 ? times[start + size - 1] + 1 : from;
+            DepthSeries.Samples added = series.getSamples(Math.max(after, from), Long.MAX_VALUE);
+            while (size > 0 && times[start] < from) {
+                start++;
+                size--;
+            }
+            if (start + size + added.size() > times.length) {
+                // Move the window to the front of the arrays, growing them if it does not fit
+                int capacity = Math.max(times.length, Integer.highestOneBit(Math.max(1, size + added.size())) * 2);
+                long[] newTimes = capacity == times.length ? times : new long[capacity];
+                int[] newDepths = capacity == depths.length ? depths : new int[capacity];
+                System.arraycopy(times, start, newTimes, 0, size);
+                System.arraycopy(depths, start, newDepths, 0, size);
+                times = newTimes;
+                depths = newDepths;
+                start = 0;
+            }
+            System.arraycopy(added.times(), 0, times, start + size, added.size());
+            System.arraycopy(added.depths(), 0, depths, start + size, added.size());
+            size += added.size();
+        }
 
-        DataPoint(LocalDateTime timestamp, int depth) {
-            this.timestamp = timestamp;
-            this.depth = depth;
+        void clear() {
+            start = 0;
+            size = 0;
         }
     }
 }
@@ -0,0 +1,277 @@
+package com.aquila.ibm.mq.gui.ui;
+
+import com.aquila.ibm.mq.gui.model.DepthSeries;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.PaintEvent;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.widgets.Canvas;
+import org.eclipse.swt.widgets.Composite;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Live depth chart of one or more queues, drawn into a cached image. Each {@link #tick(long)}
+ * scrolls the image by the time elapsed and draws only the newest pixel columns, visiting the
+ * samples in place in their {@link DepthSeries}. A column shows the range of its samples, so
+ * short spikes stay visible however long the window is. The whole image is only drawn again
+ * when the size, window, lines or scale change.
+ */
+public class DepthStripChart extends Canvas {
+    /** Room above the plot for the labels. */
+    private static final int LABEL_HEIGHT = 16;
+    /** Scale above the largest depth, so a growing queue does not rescale on every tick. */
+    private static final double HEADROOM = 1.25;
+    private static final int MIN_SCALE = 10;
+
+    /**
+     * A queue drawn by the chart, its series null until something was recorded for it.
+     */
+    public record Line(String queueName, DepthSeries series, Color color) {
+    }
+
+    private List<Line> lines = List.of();
+    private long windowMillis = 3_600_000;
+    private String title;
+    private boolean legendVisible;
+    private Image cache;
+    private double millisPerPixel;
+    // Absolute pixel column at the right edge of the cache: time / millisPerPixel
+    private long rightColumn;
+    private int scale = MIN_SCALE;
+    private boolean invalid = true;
+
+    public DepthStripChart(Composite parent, int style) {
+        super(parent, style | SWT.DOUBLE_BUFFERED | SWT.NO_BACKGROUND);
+        addPaintListener(this::paint);
+        addListener(SWT.Resize, e -> invalidate());
+        addDisposeListener(e -> {
+            if (cache != null) {
+                cache.dispose();
+            }
+        });
+    }
+
+    public void setLines(List<Line> lines) {
+        this.lines = List.copyOf(lines);
+        invalidate();
+    }
+
+    public void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+        invalidate();
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+        redraw();
+    }
+
+    public void setLegendVisible(boolean legendVisible) {
+        this.legendVisible = legendVisible;
+        redraw();
+    }
+
+    /**
+     * Draw everything again on the next tick.
+     */
+    public void invalidate() {
+        invalid = true;
+    }
+
+    /**
+     * Bring the cached image up to {@code now} and repaint.
+     */
+    public void tick(long now) {
+        if (isDisposed()) {
+            return;
+        }
+        Rectangle area = getClientArea();
+        if (area.width > 0 && area.height > LABEL_HEIGHT) {
+            update(now, area.width, area.height);
+        }
+        redraw();
+    }
+
+    private void update(long now, int width, int height) {
+        double perPixel = (double) windowMillis / width;
+        long newRightColumn = (long) Math.floor(now / perPixel);
+        Rectangle bounds = cache != null ? cache.getBounds() : null;
+        if (invalid || bounds == null || bounds.width != width || bounds.height != height
+                || perPixel != millisPerPixel || newRightColumn - rightColumn >= width
+                || newRightColumn < rightColumn) {
+            redrawAll(width, height, perPixel, newRightColumn);
+            return;
+        }
+        GC gc = new GC(cache);
+        boolean scaleExceeded;
+        try {
+            int shift = (int) (newRightColumn - rightColumn);
+            if (shift > 0) {
+                gc.copyArea(shift, 0, width - shift, height, 0, 0);
+            }
+            // The former last column may have received samples since it was drawn
+            long firstColumn = rightColumn;
+            rightColumn = newRightColumn;
+            scaleExceeded = drawColumns(gc, firstColumn, width, height);
+        } finally {
+            gc.dispose();
+        }
+        if (scaleExceeded) {
+            redrawAll(width, height, perPixel, newRightColumn);
+        }
+    }
+
+    private void redrawAll(int width, int height, double perPixel, long newRightColumn) {
+        if (cache == null || cache.getBounds().width != width || cache.getBounds().height != height) {
+            if (cache != null) {
+                cache.dispose();
+            }
+            cache = new Image(getDisplay(), width, height);
+        }
+        millisPerPixel = perPixel;
+        rightColumn = newRightColumn;
+        invalid = false;
+
+        long from = (long) ((rightColumn - width + 1) * millisPerPixel);
+        int[] max = {0};
+        for (Line line : lines) {
+            if (line.series() != null) {
+                line.series().forEachSample(from, Long.MAX_VALUE, (time, depth) -> max[0] = Math.max(max[0], depth));
+            }
+        }
+        scale = Math.max(MIN_SCALE, (int) Math.ceil(max[0] * HEADROOM));
+
+        GC gc = new GC(cache);
+        try {
+            drawColumns(gc, rightColumn - width + 1, width, height);
+        } finally {
+            gc.dispose();
+        }
+    }
+
+    /**
+     * Clear and draw the columns from {@code firstColumn} to the right edge.
+     * @return Whether a depth went over the scale, in which case everything must be redrawn
+     */
+    private boolean drawColumns(GC gc, long firstColumn, int width, int height) {
+        int firstX = x(firstColumn, width);
+        gc.setBackground(getDisplay().getSystemColor(SWT.COLOR_WHITE));
+        gc.fillRectangle(firstX, 0, width - firstX, height);
+        gc.setForeground(getDisplay().getSystemColor(SWT.COLOR_WIDGET_LIGHT_SHADOW));
+        gc.drawLine(firstX, height - 1, width - 1, height - 1);
+
+        boolean exceeded = false;
+        // From the column before, to connect with the line already drawn
+        long from = (long) Math.ceil((firstColumn - 1) * millisPerPixel);
+        for (Line line : lines) {
+            if (line.series() == null) {
+                continue;
+            }
+            gc.setForeground(line.color());
+            ColumnPainter painter = new ColumnPainter(gc, width, height);
+            line.series().forEachSample(from, Long.MAX_VALUE, painter);
+            painter.finish();
+            exceeded |= painter.max > scale;
+        }
+        return exceeded;
+    }
+
+    private int x(long column, int width) {
+        return (int) (width - 1 - (rightColumn - column));
+    }
+
+    private int y(int depth, int height) {
+        return height - 1 - (int) ((long) Math.min(depth, scale) * (height - LABEL_HEIGHT - 1) / scale);
+    }
+
+    /**
+     * Reduces the visited samples to one vertical stroke per pixel column, joined to the
+     * previous column.
+     */
+    private class ColumnPainter implements DepthSeries.SampleVisitor {
+        private final GC gc;
+        private final int width;
+        private final int height;
+        private long column = Long.MIN_VALUE;
+        private int first;
+        private int last;
+        private int min;
+        private int columnMax;
+        private long previousColumn = Long.MIN_VALUE;
+        private int previousLast;
+        int max;
+
+        ColumnPainter(GC gc, int width, int height) {
+            this.gc = gc;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void visit(long time, int depth) {
+            max = Math.max(max, depth);
+            long sampleColumn = (long) Math.floor(time / millisPerPixel);
+            if (sampleColumn != column) {
+                finish();
+                column = sampleColumn;
+                first = depth;
+                min = depth;
+                columnMax = depth;
+            }
+            min = Math.min(min, depth);
+            columnMax = Math.max(columnMax, depth);
+            last = depth;
+        }
+
+        void finish() {
+            if (column == Long.MIN_VALUE || column > rightColumn) {
+                return;
+            }
+            int x = x(column, width);
+            if (previousColumn != Long.MIN_VALUE) {
+                gc.drawLine(x(previousColumn, width), y(previousLast, height), x, y(first, height));
+            }
+            gc.drawLine(x, y(min, height), x, y(columnMax, height));
+            previousColumn = column;
+            previousLast = last;
+            column = Long.MIN_VALUE;
+        }
+    }
+
+    private void paint(PaintEvent e) {
+        GC gc = e.gc;
+        Rectangle area = getClientArea();
+        if (cache != null && !cache.isDisposed()) {
+            gc.drawImage(cache, 0, 0);
+        } else {
+            gc.setBackground(getDisplay().getSystemColor(SWT.COLOR_WHITE));
+            gc.fillRectangle(area);
+        }
+        gc.setForeground(getDisplay().getSystemColor(SWT.COLOR_DARK_GRAY));
+        String scaleText = String.valueOf(scale);
+        gc.drawString(scaleText, area.width - gc.textExtent(scaleText).x - 2, 1, true);
+        int x = 2;
+        if (title != null) {
+            gc.drawString(title, x, 1, true);
+            x += gc.textExtent(title).x + 8;
+        }
+        if (legendVisible) {
+            for (Line line : lines) {
+                gc.setForeground(line.color());
+                gc.drawString(line.queueName(), x, 1, true);
+                x += gc.textExtent(line.queueName()).x + 8;
+            }
+        }
+    }
+
+    /**
+     * @return Lines of the chart, for tests and tooltips
+     */
+    public List<Line> getLines() {
+        return new ArrayList<>(lines);
+    }
+}
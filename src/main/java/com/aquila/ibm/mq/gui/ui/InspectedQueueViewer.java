@@ -1,8 +1,11 @@
 package com.aquila.ibm.mq.gui.ui;
 
 import com.aquila.ibm.mq.gui.config.AlertManager;
+import com.aquila.ibm.mq.gui.model.QueueDelta;
 import com.aquila.ibm.mq.gui.model.QueueInfo;
 import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import com.aquila.ibm.mq.gui.mq.QueueQuery;
+import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.swt.SWT;
@@ -12,14 +15,18 @@ import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.*;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
 @Slf4j
 public class InspectedQueueViewer extends Composite {
+    // Delay before a filter change is sent to the queue manager, so typing does not query on every key
+    private static final int SERVER_QUERY_DELAY_MS = 500;
+    // Pause in typing before the queues are filtered again
+    static final int FILTER_DELAY_MS = 150;
 
     public interface ContextMenuActionListener {
         void onSendMessage(QueueInfo queue);
@@ -28,7 +35,13 @@ public class InspectedQueueViewer extends Composite {
     }
     private final Table table;
     private final List<QueueInfo> queues;
-    private final List<QueueInfo> filteredQueues;
+    private final QueueRowModel rows = new QueueRowModel();
+    private final List<QueueInfo> filteredQueues = rows.getRows();
+    private final QueueFilterEngine filterEngine;
+    // Incremented when the queues are replaced, see QueueFilterEngine#submit
+    private long queuesVersion;
+    // Names of the selected queues, to select them again when the rows change
+    private final Set<String> selectedNames = new LinkedHashSet<>();
     private final AlertManager alertManager;
     private Consumer<QueueInfo> selectionListener;
     @Setter
@@ -49,11 +62,28 @@ public class InspectedQueueViewer extends Composite {
     private Spinner depthFilterSpinner;
     private Label filterStatusLabel;
 
+    /**
+     * Part of the filters the queue manager can evaluate, see {@link QueueQuery#fromFilter}.
+     */
+    @Getter
+    private QueueQuery serverQuery = QueueQuery.ALL;
+    /**
+     * Connection of the listed queues, to look up their alert levels.
+     */
+    @Setter
+    private String connectionId;
+    /**
+     * Notified when {@link #getServerQuery()} changes and the queues should be fetched again.
+     */
+    @Setter
+    private Consumer<QueueQuery> serverQueryListener;
+    private final Runnable serverQueryNotifier = this::notifyServerQuery;
+
     public InspectedQueueViewer(Composite parent, int style, AlertManager alertManager) {
         super(parent, style);
         this.queues = new ArrayList<>();
-        this.filteredQueues = new ArrayList<>();
         this.alertManager = alertManager;
+        this.filterEngine = new QueueFilterEngine(getDisplay()::asyncExec);
 
         setLayout(new GridLayout());
 
@@ -84,7 +114,8 @@ public class InspectedQueueViewer extends Composite {
         progressLabel = new Label(progressPanel, SWT.NONE);
         progressLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
 
-        table = new Table(this, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI);
+        // Virtual: rows are only filled in when shown, see refresh()
+        table = new Table(this, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI | SWT.VIRTUAL);
         table.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
         table.setHeaderVisible(true);
         table.setLinesVisible(true);
@@ -109,7 +140,13 @@ public class InspectedQueueViewer extends Composite {
         percentColumn.setWidth(70);
         percentColumn.addListener(SWT.Selection, e -> sortBy(3));
 
+        table.addListener(SWT.SetData, e -> {
+            if (e.index < filteredQueues.size()) {
+                updateTableItem((TableItem) e.item, filteredQueues.get(e.index));
+            }
+        });
         table.addListener(SWT.Selection, e -> {
+            rememberSelection();
             int index = table.getSelectionIndex();
             if (index >= 0 && index < filteredQueues.size() && selectionListener != null) {
                 selectionListener.accept(filteredQueues.get(index));
@@ -119,6 +156,7 @@ public class InspectedQueueViewer extends Composite {
         createContextMenu();
 
         addDisposeListener(e -> {
+            filterEngine.close();
             greenColor.dispose();
             yellowColor.dispose();
             redColor.dispose();
@@ -139,10 +177,11 @@ public class InspectedQueueViewer extends Composite {
 
         regexFilterText = new Text(panel, SWT.BORDER | SWT.SEARCH);
         regexFilterText.setMessage("Filter pattern...");
+        regexFilterText.setToolTipText("Regular expression, ignoring case. Start with (?-i)^PREFIX to have\nthe queue manager list only the queues whose name starts with PREFIX.");
         GridData textData = new GridData(SWT.FILL, SWT.CENTER, true, false);
         textData.widthHint = 150;
         regexFilterText.setLayoutData(textData);
-        regexFilterText.addListener(SWT.Modify, e -> applyFilters());
+        regexFilterText.addListener(SWT.Modify, e -> applyFilters(FILTER_DELAY_MS));
 
         // Depth filter
         Label depthLabel = new Label(panel, SWT.NONE);
@@ -155,7 +194,7 @@ public class InspectedQueueViewer extends Composite {
         depthFilterSpinner.setPageIncrement(10);
         depthFilterSpinner.setSelection(0);
         depthFilterSpinner.setLayoutData(new GridData(50, SWT.DEFAULT));
-        depthFilterSpinner.addListener(SWT.Selection, e -> applyFilters());
+        depthFilterSpinner.addListener(SWT.Selection, e -> applyFilters(FILTER_DELAY_MS));
 
         // Status label
         filterStatusLabel = new Label(panel, SWT.NONE);
@@ -167,34 +206,63 @@ public class InspectedQueueViewer extends Composite {
     public void setQueues(List<QueueInfo> queues) {
         this.queues.clear();
         this.queues.addAll(queues);
-        applyFilters();
+        queuesVersion++;
+        applyFilters(0);
     }
 
+    /**
+     * Show {@link #filteredQueues}. The table is virtual, so this only sets the row count and
+     * the visible rows are filled in by the {@code SWT.SetData} listener. The selected queues
+     * stay selected wherever they moved.
+     */
     public void refresh() {
-        table.removeAll();
-
-        for (QueueInfo queue : filteredQueues) {
-            TableItem item = new TableItem(table, SWT.NONE);
-            updateTableItem(item, queue);
-        }
+        table.setItemCount(filteredQueues.size());
+        table.clearAll();
+        restoreSelection();
 
         updateFilterStatus();
 
         if (!filteredQueues.isEmpty() && table.getSelectionIndex() < 0) {
             table.select(0);
+            rememberSelection();
             if (selectionListener != null) {
                 selectionListener.accept(filteredQueues.get(0));
             }
         }
     }
 
+    private void rememberSelection() {
+        selectedNames.clear();
+        for (int index : table.getSelectionIndices()) {
+            if (index < filteredQueues.size()) {
+                selectedNames.add(filteredQueues.get(index).getQueue());
+            }
+        }
+    }
+
+    private void restoreSelection() {
+        table.deselectAll();
+        if (selectedNames.isEmpty()) {
+            return;
+        }
+        int[] indices = new int[selectedNames.size()];
+        int count = 0;
+        for (String queueName : selectedNames) {
+            Integer row = rows.rowOf(queueName);
+            if (row != null) {
+                indices[count++] = row;
+            }
+        }
+        table.select(Arrays.copyOf(indices, count));
+    }
+
     private void updateTableItem(TableItem item, QueueInfo queue) {
         item.setText(0, queue.getQueue());
         item.setText(1, String.valueOf(queue.getCurrentDepth()));
         item.setText(2, String.valueOf(queue.getMaxDepth()));
         item.setText(3, String.format("%.1f%%", queue.getDepthPercentage()));
 
-        ThresholdConfig.AlertLevel alertLevel = alertManager.getCurrentAlertLevel(queue.getQueue());
+        ThresholdConfig.AlertLevel alertLevel = alertManager.getCurrentAlertLevel(connectionId, queue.getQueue());
 
         switch (alertLevel) {
             case CRITICAL:
@@ -214,20 +282,51 @@ public class InspectedQueueViewer extends Composite {
     }
 
     public void clearQueues() {
+        filterEngine.cancel();
         queues.clear();
-        filteredQueues.clear();
+        queuesVersion++;
+        rows.clear();
+        selectedNames.clear();
         table.removeAll();
         updateFilterStatus();
     }
 
+    /**
+     * Show the refreshed attributes of a queue, moving only its own row if its place changed.
+     */
+    public void refreshQueue(QueueInfo queue) {
+        for (int i = 0; i < queues.size(); i++) {
+            if (queues.get(i).getQueue().equals(queue.getQueue())) {
+                queues.set(i, queue);
+                break;
+            }
+        }
+        queuesVersion++;
+
+        QueueRowModel.Changes changes = new QueueRowModel.Changes();
+        rows.update(queue, QueueDelta.CURRENT_DEPTH | QueueDelta.MAX_DEPTH, changes);
+        if (changes.isCountChanged()) {
+            table.setItemCount(rows.size());
+            updateFilterStatus();
+        }
+        if (changes.getMovedFrom() >= 0) {
+            table.clear(changes.getMovedFrom(), Math.min(changes.getMovedTo(), rows.size() - 1));
+            restoreSelection();
+        }
+        Integer row = rows.rowOf(queue.getQueue());
+        if (row != null) {
+            table.clear(row);
+        }
+    }
+
     public List<QueueInfo> getQueues() {
         return new ArrayList<>(queues);
     }
 
     public QueueInfo getSelectedQueue() {
         int index = table.getSelectionIndex();
-        if (index >= 0 && index < queues.size()) {
-            return queues.get(index);
+        if (index >= 0 && index < filteredQueues.size()) {
+            return filteredQueues.get(index);
         }
         return null;
     }
@@ -304,39 +403,54 @@ public class InspectedQueueViewer extends Composite {
         progressLabel.setText(message);
     }
 
-    private void applyFilters() {
-        filteredQueues.clear();
-
+    /**
+     * Filter the queues on the filter thread and show the result when done, unless the
+     * filters change again within the delay.
+     */
+    private void applyFilters(long delayMillis) {
         String regexPattern = regexFilterText.getText().trim();
         int minDepth = depthFilterSpinner.getSelection();
+        filterEngine.submit(new ArrayList<>(queues), queuesVersion, new QueueFilterEngine.Criteria(regexPattern, minDepth),
+            sortOrder(), delayMillis, this::showFilterResult);
+    }
 
-        // Compile regex pattern
-        Pattern pattern = null;
-        if (!regexPattern.isEmpty()) {
-            try {
-                pattern = Pattern.compile(regexPattern, Pattern.CASE_INSENSITIVE);
-                regexFilterText.setBackground(null);  // Clear error indicator
-            } catch (PatternSyntaxException e) {
-                // Invalid regex - show error and display all queues
-                regexFilterText.setBackground(getDisplay().getSystemColor(SWT.COLOR_RED));
-                filteredQueues.addAll(queues);
-                sortQueues();
-                refresh();
-                return;
-            }
+    private void showFilterResult(QueueFilterEngine.Result result) {
+        if (isDisposed()) {
+            return;
+        }
+        if (result.sourceVersion() != queuesVersion) {
+            // The queues were replaced meanwhile
+            applyFilters(0);
+            return;
+        }
+        if (result.invalidPattern()) {
+            // Invalid regex - show error and display all queues
+            regexFilterText.setBackground(getDisplay().getSystemColor(SWT.COLOR_RED));
+        } else {
+            regexFilterText.setBackground(null);  // Clear error indicator
+            updateServerQuery(QueueQuery.fromFilter(result.criteria().pattern()));
         }
+        rows.set(result.queues(), result.filter(), result.order());
+        // Sorted as requested, unless the sort column changed since
+        if (!result.order().equals(sortOrder())) {
+            rows.sort(sortOrder());
+        }
+        refresh();
+    }
 
-        // Apply filters using streams
-        final Pattern finalPattern = pattern;
-        filteredQueues.addAll(
-            queues.stream()
-                .filter(q -> finalPattern == null || finalPattern.matcher(q.getQueue()).find())
-                .filter(q -> minDepth == 0 || q.getCurrentDepth() >= minDepth)
-                .toList()
-        );
+    private void updateServerQuery(QueueQuery query) {
+        if (query.equals(serverQuery)) {
+            return;
+        }
+        serverQuery = query;
+        // Rescheduling the same runnable restarts the delay
+        getDisplay().timerExec(SERVER_QUERY_DELAY_MS, serverQueryNotifier);
+    }
 
-        sortQueues();
-        refresh();
+    private void notifyServerQuery() {
+        if (!isDisposed() && serverQueryListener != null) {
+            serverQueryListener.accept(serverQuery);
+        }
     }
 
     private void updateFilterStatus() {
@@ -351,7 +465,7 @@ public class InspectedQueueViewer extends Composite {
     public void clearFilters() {
         regexFilterText.setText("");
         depthFilterSpinner.setSelection(0);
-        // applyFilters() will be called automatically via listeners
+        // applyFilters(long) will be called automatically via listeners
     }
 
     private void sortBy(int columnIndex) {
@@ -369,23 +483,17 @@ public class InspectedQueueViewer extends Composite {
         table.setSortDirection(sortAscending ? SWT.UP : SWT.DOWN);
 
         // Apply sorting
-        sortQueues();
+        rows.sort(sortOrder());
         refresh();
     }
 
-    private void sortQueues() {
-        Comparator<QueueInfo> comparator = switch (sortColumn) {
-            case 0 -> Comparator.comparing(QueueInfo::getQueue);
-            case 1 -> Comparator.comparingInt(QueueInfo::getCurrentDepth);
-            case 2 -> Comparator.comparingInt(QueueInfo::getMaxDepth);
-            case 3 -> Comparator.comparingDouble(QueueInfo::getDepthPercentage);
-            default -> Comparator.comparing(QueueInfo::getQueue);
+    private QueueSortOrder sortOrder() {
+        QueueSortOrder.Column column = switch (sortColumn) {
+            case 1 -> QueueSortOrder.Column.DEPTH;
+            case 2 -> QueueSortOrder.Column.MAX_DEPTH;
+            case 3 -> QueueSortOrder.Column.PERCENTAGE;
+            default -> QueueSortOrder.Column.NAME;
         };
-
-        if (!sortAscending) {
-            comparator = comparator.reversed();
-        }
-
-        filteredQueues.sort(comparator);
+        return new QueueSortOrder(column, sortAscending);
     }
 }
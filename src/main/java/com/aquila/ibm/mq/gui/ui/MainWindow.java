@@ -1,13 +1,18 @@
 package com.aquila.ibm.mq.gui.ui;
 
+import com.aquila.ibm.mq.gui.alert.AlertDispatcher;
 import com.aquila.ibm.mq.gui.config.AlertManager;
 import com.aquila.ibm.mq.gui.config.ConfigManager;
+import com.aquila.ibm.mq.gui.config.DepthSegmentStore;
 import com.aquila.ibm.mq.gui.model.*;
 import com.aquila.ibm.mq.gui.mq.MQConnectionManager;
 import com.aquila.ibm.mq.gui.mq.MessageService;
-import com.aquila.ibm.mq.gui.mq.QueueMonitor;
+import com.aquila.ibm.mq.gui.mq.QueueAttributeProfile;
+import com.aquila.ibm.mq.gui.mq.FleetMonitor;
+import com.aquila.ibm.mq.gui.mq.QueueQuery;
+import com.aquila.ibm.mq.gui.mq.QueueNameDirectory;
 import com.aquila.ibm.mq.gui.mq.QueueService;
-import com.ibm.mq.MQException;
+import com.aquila.ibm.mq.gui.util.TaskService;
 import lombok.Getter;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.SashForm;
@@ -20,12 +25,21 @@ import org.eclipse.swt.widgets.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class MainWindow {
     private static final Logger logger = LoggerFactory.getLogger(MainWindow.class);
+    private static final String DEPTH_HISTORY_DIR = "depth-history";
+    private static final int FLEET_STATUS_INTERVAL_MS = 5000;
 
     private final Display display;
     @Getter
@@ -35,7 +49,21 @@ public class MainWindow {
     private final QueueService queueService;
     private final MessageService messageService;
     private final AlertManager alertManager;
-    private QueueMonitor queueMonitor;
+    private final AlertDispatcher alertDispatcher;
+    private final DepthHistory depthHistory;
+    private final DepthSegmentStore depthStore;
+    // Connections whose depth history was read back from disk
+    private final Set<String> restoredConnections = ConcurrentHashMap.newKeySet();
+    // Names of the queues of every connection, for the quick open
+    private final QueueNameDirectory nameDirectory = new QueueNameDirectory();
+    // Reads the properties of the selected queue off the UI thread
+    private final QueueSelectionLoader selectionLoader;
+    private final TaskService taskService = new TaskService();
+    // Latest load of the queue list, replaced by the next one (UI thread only)
+    private TaskService.Task<?> listTask;
+    private FleetMonitor fleetMonitor;
+    // Connection of the queues shown in the list, null when none
+    private String displayedConnectionId;
 
     private HierarchyTreeViewer hierarchyTreeViewer;
     private QueueListViewer queueListViewer;
@@ -46,16 +74,32 @@ public class MainWindow {
     private DepthChartPanel depthChartPanel;
     private Label statusLabel;
     private Label alertLabel;
+    private Label fleetLabel;
+    private Label tasksLabel;
+    private TaskListDialog taskListDialog;
 
     private QueueInfo selectedQueue;
+    // True when the queue list shows every queue of the queue manager rather than a queue browser
+    private boolean listingAllQueues;
 
     public MainWindow(Display display) {
         this.display = display;
         this.configManager = new ConfigManager();
         this.connectionManager = new MQConnectionManager();
         this.queueService = new QueueService(connectionManager);
+        queueService.setNameDirectory(nameDirectory);
+        this.selectionLoader = new QueueSelectionLoader(
+                (connectionId, queueName) -> queueService.getQueueInfo(connectionId, queueName, QueueAttributeProfile.PROPERTIES),
+                display::asyncExec);
         this.messageService = new MessageService(connectionManager);
         this.alertManager = new AlertManager(configManager);
+        this.alertDispatcher = AlertDispatcher.fromConfig(configManager.loadAlertSinks());
+        alertManager.addAlertListener(alertDispatcher::publish);
+        this.depthHistory = new DepthHistory(configManager.loadDepthRetention());
+        this.depthStore = new DepthSegmentStore(Paths.get(ConfigManager.CONFIG_DIR, DEPTH_HISTORY_DIR),
+                depthHistory.getRetention().getDiskDays());
+        depthHistory.addSampleListener(depthStore::append);
+        depthStore.startCompaction();
 
         shell = new Shell(display);
         shell.setText("IBM MQ Queue Manager GUI");
@@ -123,6 +167,17 @@ public class MainWindow {
         MenuItem autoRefreshItem = new MenuItem(viewMenu, SWT.CHECK);
         autoRefreshItem.setText("&Auto-refresh");
         autoRefreshItem.addListener(SWT.Selection, e -> toggleAutoRefresh(autoRefreshItem.getSelection()));
+
+        new MenuItem(viewMenu, SWT.SEPARATOR);
+
+        MenuItem quickOpenItem = new MenuItem(viewMenu, SWT.PUSH);
+        quickOpenItem.setText("&Open Queue...\tCtrl+Shift+O");
+        quickOpenItem.setAccelerator(SWT.MOD1 | SWT.MOD2 | 'O');
+        quickOpenItem.addListener(SWT.Selection, e -> showQuickOpenDialog());
+
+        MenuItem tasksItem = new MenuItem(viewMenu, SWT.PUSH);
+        tasksItem.setText("&Tasks...");
+        tasksItem.addListener(SWT.Selection, e -> showTaskList());
     }
 
     private void createToolsMenu(Menu menuBar) {
@@ -168,6 +223,11 @@ public class MainWindow {
         // EXISTING: Queue List (30%)
         queueListViewer = new QueueListViewer(sashForm, SWT.BORDER, alertManager);
         queueListViewer.addSelectionListener(this::onQueueSelected);
+        queueListViewer.setServerQueryListener(query -> {
+            if (listingAllQueues) {
+                refreshQueues();
+            }
+        });
         queueListViewer.setContextMenuActionListener(new QueueListViewer.ContextMenuActionListener() {
             @Override
             public void onSendMessage(QueueInfo queue) {
@@ -188,6 +248,11 @@ public class MainWindow {
             public void onCopyQueueName(QueueInfo queue) {
                 handleCopyQueueName(queue);
             }
+
+            @Override
+            public void onCompareQueues(List<QueueInfo> queues) {
+                handleCompareQueues(queues);
+            }
         });
 
         // EXISTING: Tab Folder (50%)
@@ -218,14 +283,14 @@ public class MainWindow {
     private void createChartTab() {
         TabItem chartTab = new TabItem(tabFolder, SWT.NONE);
         chartTab.setText("Depth Chart");
-        depthChartPanel = new DepthChartPanel(tabFolder, SWT.NONE);
+        depthChartPanel = new DepthChartPanel(tabFolder, SWT.NONE, depthHistory);
         chartTab.setControl(depthChartPanel);
     }
 
     private void createStatusBar() {
         Composite statusBar = new Composite(shell, SWT.NONE);
         statusBar.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
-        GridLayout layout = new GridLayout(2, false);
+        GridLayout layout = new GridLayout(4, false);
         layout.marginHeight = 2;
         statusBar.setLayout(layout);
 
@@ -236,6 +301,51 @@ public class MainWindow {
         alertLabel = new Label(statusBar, SWT.NONE);
         alertLabel.setLayoutData(new GridData(SWT.END, SWT.CENTER, false, false));
         alertLabel.setText("");
+
+        fleetLabel = new Label(statusBar, SWT.NONE);
+        fleetLabel.setLayoutData(new GridData(SWT.END, SWT.CENTER, false, false));
+        fleetLabel.setText("");
+
+        tasksLabel = new Label(statusBar, SWT.NONE);
+        tasksLabel.setLayoutData(new GridData(SWT.END, SWT.CENTER, false, false));
+        tasksLabel.setText("");
+        tasksLabel.addListener(SWT.MouseDoubleClick, e -> showTaskList());
+        taskService.addChangeListener(() -> {
+            if (!display.isDisposed()) {
+                display.asyncExec(this::updateTasksStatus);
+            }
+        });
+    }
+
+    private void updateTasksStatus() {
+        if (tasksLabel.isDisposed()) {
+            return;
+        }
+        int count = taskService.getActiveCount();
+        tasksLabel.setText(count == 0 ? "" : count + (count == 1 ? " task" : " tasks") + " running");
+        tasksLabel.getParent().layout();
+    }
+
+    private void showTaskList() {
+        if (taskListDialog == null || taskListDialog.isDisposed()) {
+            taskListDialog = new TaskListDialog(shell, taskService);
+        }
+        taskListDialog.open();
+    }
+
+    /**
+     * Load the queue list in the background. Only the latest load fills the list: the
+     * previous one is cancelled, unless it is the same load still in flight.
+     */
+    private void submitListTask(String name, String connectionId, String key, Consumer<TaskService.CancellationToken> work) {
+        TaskService.Task<?> task = taskService.submit(name, connectionId, key, token -> {
+            work.accept(token);
+            return null;
+        });
+        if (listTask != null && listTask != task) {
+            listTask.cancel();
+        }
+        listTask = task;
     }
 
     private void showConnectionDialog() {
@@ -249,23 +359,26 @@ public class MainWindow {
 
     private void connect(QueueManagerConfig config) {
         queueListViewer.showProgress("Connecting to " + config.getQueueManager() + "...");
+        QueueQuery serverQuery = queueListViewer.getServerQuery();
+        String connectionId = connectionManager.getConnectionId(config);
 
-        new Thread(() -> {
+        submitListTask("Connect to " + config.getQueueManager(), connectionId, "connect:" + connectionId, token -> {
             try {
                 connectionManager.connect(config);
+                restoreDepthHistory(connectionId);
 
                 display.asyncExec(() -> {
                     updateStatus("Connected to " + config.getQueueManager());
                     queueListViewer.updateProgress("Loading queues...");
                 });
 
-                List<QueueInfo> queues = queueService.getAllQueues();
+                List<QueueInfo> queues = queueService.getQueues(connectionId, serverQuery);
 
                 display.asyncExec(() -> {
-                    queueListViewer.setQueues(queues);
-                    queueListViewer.hideProgress();
-                    if (depthChartPanel != null) {
-                        depthChartPanel.setQueues(queues);
+                    if (!token.isCancelled()) {
+                        listingAllQueues = true;
+                        showQueues(connectionId, queues);
+                        queueListViewer.hideProgress();
                     }
                 });
             } catch (Exception e) {
@@ -275,12 +388,32 @@ public class MainWindow {
                     showError("Connection Failed", "Failed to connect to queue manager: " + e.getMessage());
                 });
             }
-        }).start();
+        });
+    }
+
+    /**
+     * Read the recent depth history of a connection back from disk, once per session and
+     * before it is monitored, since samples older than the latest one are ignored.
+     */
+    private void restoreDepthHistory(String connectionId) {
+        if (restoredConnections.add(connectionId)) {
+            long now = System.currentTimeMillis();
+            depthStore.replay(connectionId, now - depthHistory.getRetention().getRawMillis(), now, depthHistory::restore);
+        }
     }
 
     private void disconnect() {
-        stopMonitoring();
+        if (fleetMonitor != null && connectionManager.getActiveConnectionId() != null) {
+            fleetMonitor.removeConnection(connectionManager.getActiveConnectionId());
+        }
+        if (connectionManager.getActiveConnectionId() != null) {
+            nameDirectory.removeConnection(connectionManager.getActiveConnectionId());
+            selectionLoader.forgetConnection(connectionManager.getActiveConnectionId());
+            taskService.cancelConnection(connectionManager.getActiveConnectionId());
+        }
         connectionManager.disconnect();
+        displayedConnectionId = null;
+        listingAllQueues = false;
         queueListViewer.clearQueues();
         updateStatus("Disconnected");
     }
@@ -291,16 +424,18 @@ public class MainWindow {
         }
 
         queueListViewer.showProgress("Refreshing queues...");
+        QueueQuery serverQuery = queueListViewer.getServerQuery();
+        String connectionId = connectionManager.getActiveConnectionId();
 
-        new Thread(() -> {
+        submitListTask("List queues of " + connectionId, connectionId, "queues:" + connectionId + ":" + serverQuery, token -> {
             try {
-                List<QueueInfo> queues = queueService.getAllQueues();
+                List<QueueInfo> queues = queueService.getQueues(connectionId, serverQuery);
 
                 display.asyncExec(() -> {
-                    queueListViewer.setQueues(queues);
-                    queueListViewer.hideProgress();
-                    if (depthChartPanel != null) {
-                        depthChartPanel.setQueues(queues);
+                    if (!token.isCancelled()) {
+                        listingAllQueues = true;
+                        showQueues(connectionId, queues);
+                        queueListViewer.hideProgress();
                     }
                 });
             } catch (Exception e) {
@@ -310,7 +445,27 @@ public class MainWindow {
                     showError("Error", "Failed to refresh queues: " + e.getMessage());
                 });
             }
-        }).start();
+        });
+    }
+
+    /**
+     * Display a new set of queues and poll the same QueueInfo objects when monitoring.
+     * Queues of other connections keep being monitored in their own lane.
+     */
+    private void showQueues(String connectionId, List<QueueInfo> queues) {
+        displayedConnectionId = connectionId;
+        queueListViewer.setConnectionId(connectionId);
+        queueListViewer.setQueues(queues);
+        if (connectionId != null) {
+            depthHistory.record(connectionId, queues, System.currentTimeMillis());
+            queues.forEach(queue -> nameDirectory.add(connectionId, queue.getQueue()));
+        }
+        if (depthChartPanel != null) {
+            depthChartPanel.setConnection(connectionId);
+        }
+        if (fleetMonitor != null && connectionId != null) {
+            fleetMonitor.setMonitoredQueues(connectionId, queues);
+        }
     }
 
     private void toggleAutoRefresh(boolean enabled) {
@@ -322,46 +477,129 @@ public class MainWindow {
     }
 
     private void startMonitoring() {
-        if (queueMonitor == null || !queueMonitor.isRunning()) {
-            queueMonitor = new QueueMonitor(queueService, alertManager);
-            queueMonitor.setMonitoredQueues(queueListViewer.getQueues());
-            queueMonitor.setListener(new QueueMonitor.QueueMonitorListener() {
+        if (fleetMonitor == null || !fleetMonitor.isRunning()) {
+            fleetMonitor = new FleetMonitor(queueService, alertManager);
+            fleetMonitor.setDepthHistory(depthHistory);
+            fleetMonitor.setListener(new FleetMonitor.FleetMonitorListener() {
                 @Override
-                public void onQueuesUpdated(List<QueueInfo> queues) {
+                public void onQueuesUpdated(String connectionId, QueueDelta delta) {
                     display.asyncExec(() -> {
-                        queueListViewer.refresh();
-                        if (depthChartPanel != null && selectedQueue != null) {
-                            depthChartPanel.updateData(selectedQueue);
+                        if (connectionId.equals(displayedConnectionId)) {
+                            queueListViewer.applyDelta(delta);
+                            if (depthChartPanel != null && selectedQueue != null) {
+                                depthChartPanel.updateData(selectedQueue);
+                            }
                         }
                         updateAlertStatus();
+                        updateFleetStatus();
                     });
                 }
 
                 @Override
-                public void onMonitorError(Exception e) {
-                    display.asyncExec(() -> showError("Monitor Error", e.getMessage()));
+                public void onMonitorError(String connectionId, Exception e) {
+                    display.asyncExec(() -> {
+                        if (connectionId.equals(displayedConnectionId)) {
+                            showError("Monitor Error", e.getMessage());
+                        } else {
+                            updateStatus("Monitor error on " + connectionId + ": " + e.getMessage());
+                        }
+                        updateFleetStatus();
+                    });
                 }
             });
-            queueMonitor.start();
+            if (displayedConnectionId != null) {
+                fleetMonitor.setMonitoredQueues(displayedConnectionId, queueListViewer.getQueues());
+            }
+            fleetMonitor.start();
+            scheduleFleetStatus();
         }
     }
 
     private void stopMonitoring() {
-        if (queueMonitor != null) {
-            queueMonitor.stopMonitoring();
-            queueMonitor = null;
+        if (fleetMonitor != null) {
+            fleetMonitor.stopMonitoring();
+            fleetMonitor = null;
+        }
+        updateFleetStatus();
+    }
+
+    /**
+     * Refresh the fleet status while monitoring, a lane that stops answering sends no update.
+     */
+    private void scheduleFleetStatus() {
+        display.timerExec(FLEET_STATUS_INTERVAL_MS, () -> {
+            if (fleetMonitor != null && !fleetLabel.isDisposed()) {
+                updateFleetStatus();
+                scheduleFleetStatus();
+            }
+        });
+    }
+
+    /**
+     * Show how many queue managers are monitored and which ones failed or fell behind,
+     * with the last poll of each in the tooltip.
+     */
+    private void updateFleetStatus() {
+        if (fleetLabel.isDisposed()) {
+            return;
+        }
+        if (fleetMonitor == null) {
+            fleetLabel.setText("");
+            fleetLabel.setToolTipText(null);
+            fleetLabel.getParent().layout();
+            return;
         }
+        FleetSnapshot snapshot = fleetMonitor.getSnapshot();
+        Instant now = Instant.now();
+        Duration maxAge = Duration.ofMillis(fleetMonitor.getRefreshInterval() * 3L);
+        List<String> failing = new ArrayList<>();
+        StringBuilder tooltip = new StringBuilder();
+        for (FleetSnapshot.ConnectionState state : snapshot.connections().values()) {
+            if (!state.isHealthy()) {
+                failing.add(state.connectionId());
+            }
+            if (tooltip.length() > 0) {
+                tooltip.append('\n');
+            }
+            tooltip.append(state.connectionId()).append(": ")
+                    .append(state.lastUpdated() == null ? "not polled yet"
+                            : "polled " + Duration.between(state.lastUpdated(), now).toSeconds() + "s ago");
+            if (!state.isHealthy()) {
+                tooltip.append(", ").append(state.lastError().getMessage());
+            }
+        }
+        List<String> stale = snapshot.staleConnections(now, maxAge);
+        stale.removeAll(failing);
+
+        int count = snapshot.connections().size();
+        if (!failing.isEmpty() || !stale.isEmpty()) {
+            StringBuilder text = new StringBuilder("Monitor:");
+            if (!failing.isEmpty()) {
+                text.append(" failing ").append(String.join(", ", failing));
+            }
+            if (!stale.isEmpty()) {
+                text.append(failing.isEmpty() ? " " : "; ").append("stale ").append(String.join(", ", stale));
+            }
+            fleetLabel.setText(text.toString());
+            fleetLabel.setForeground(display.getSystemColor(failing.isEmpty() ? SWT.COLOR_DARK_YELLOW : SWT.COLOR_RED));
+        } else {
+            fleetLabel.setText(count == 0 ? "" : "Monitoring " + count + (count == 1 ? " queue manager" : " queue managers"));
+            fleetLabel.setForeground(null);
+        }
+        fleetLabel.setToolTipText(tooltip.length() == 0 ? null : tooltip.toString());
+        fleetLabel.getParent().layout();
     }
 
     private void onQueueSelected(QueueInfo queue) {
+        onQueueSelected(displayedConnectionId != null ? displayedConnectionId : connectionManager.getActiveConnectionId(), queue);
+    }
+
+    private void onQueueSelected(String connectionId, QueueInfo queue) {
         this.selectedQueue = queue;
         if (propertiesPanel != null) {
-            try {
-                queueService.refreshQueueInfo(queue);
-            } catch (MQException | IOException e) {
-                throw new RuntimeException(e);
-            }
+            // Shown at once with what the list knows, completed when the properties are read
             propertiesPanel.setQueue(queue);
+            loadProperties(connectionId, queue);
         }
         if (messageBrowserPanel != null) {
             messageBrowserPanel.setQueue(queue);
@@ -371,10 +609,39 @@ public class MainWindow {
         }
     }
 
+    /**
+     * Read the properties of the selected queue in the background. Selecting another queue
+     * meanwhile drops the result.
+     */
+    private void loadProperties(String connectionId, QueueInfo queue) {
+        if (queue == null || connectionId == null) {
+            selectionLoader.cancel();
+            return;
+        }
+        selectionLoader.select(connectionId, queue.getQueue(), loaded -> {
+            if (loaded == null || selectedQueue != queue || propertiesPanel.isDisposed()) {
+                return;
+            }
+            QueueService.copyAttributes(loaded, queue, QueueAttributeProfile.PROPERTIES);
+            propertiesPanel.setQueue(queue);
+        }, e -> {
+            logger.warn("Failed to read the properties of {}", queue.getQueue(), e);
+            updateStatus("Failed to read " + queue.getQueue() + ": " + e.getMessage());
+        });
+    }
+
     private void onTreeSelection(HierarchyTreeViewer.SelectionEvent event) {
         if (event.type == HierarchyTreeViewer.SelectionType.FOLDER) {
             // Clear queue list and disable detail panels
+            listingAllQueues = false;
             queueListViewer.clearQueues();
+            displayedConnectionId = null;
+            selectionLoader.cancel();
+            if (listTask != null) {
+                listTask.cancel();
+                listTask = null;
+                queueListViewer.hideProgress();
+            }
             if (propertiesPanel != null) {
                 propertiesPanel.setQueue(null);
             }
@@ -387,6 +654,7 @@ public class MainWindow {
             updateStatus("Folder selected: " + event.node.getName());
 
         } else if (event.type == HierarchyTreeViewer.SelectionType.QUEUE_BROWSER) {
+            listingAllQueues = false;
             final QueueBrowserConfig queueBrowserConfig =event.node.getQueueBrowserConfig();
             final String connectionId = queueBrowserConfig.getQueueManager();
             final List<String> queuesName = queueBrowserConfig.getDescriptions().keySet().stream().toList();
@@ -405,10 +673,11 @@ public class MainWindow {
                 // Run connection in background thread
                 String qmName = event.node.getName();
                 String nodeId = event.node.getId();
-                new Thread(() -> {
+                submitListTask("Open " + qmName, connectionId, "browser:" + nodeId, token -> {
                     try {
                         // BLOCKING CALL - but on background thread
                         connectionManager.connect(connectionId, config);
+                        restoreDepthHistory(connectionId);
 
                         // Update icon on UI thread
                         display.asyncExec(() -> {
@@ -416,22 +685,24 @@ public class MainWindow {
                             queueListViewer.updateProgress("Loading queues...");
                         });
 
-                        // Set active and load queues (BLOCKING)
-                        connectionManager.setActiveConnection(connectionId);
-                        List<QueueInfo> queues = queueService.getQueuesInfo(queuesName);
+                        // Load queues (BLOCKING)
+                        token.throwIfCancelled();
+                        List<QueueInfo> queues = queueService.getQueuesInfo(connectionId, queuesName, QueueAttributeProfile.LIST);
 
                         // Update UI on UI thread
                         display.asyncExec(() -> {
-                            queueListViewer.setQueues(queues);
-                            queueListViewer.hideProgress();
-                            updateStatus("Connected to " + qmName);
-
-                            // Update panels
-                            if (depthChartPanel != null) {
-                                depthChartPanel.setQueues(queues);
+                            hierarchyTreeViewer.updateNodeIcon(nodeId);
+                            if (!token.isCancelled()) {
+                                connectionManager.setActiveConnection(connectionId);
+                                showQueues(connectionId, queues);
+                                queueListViewer.hideProgress();
+                                updateStatus("Connected to " + qmName);
                             }
                         });
 
+                    } catch (CancellationException e) {
+                        // Replaced by a later load, which owns the progress
+                        display.asyncExec(() -> hierarchyTreeViewer.updateNodeIcon(nodeId));
                     } catch (Exception e) {
                         logger.error("Connection failed", e);
                         display.asyncExec(() -> {
@@ -440,29 +711,28 @@ public class MainWindow {
                             hierarchyTreeViewer.updateNodeIcon(nodeId);
                         });
                     }
-                }).start();
+                });
                 return; // Don't continue with synchronous flow
             }
 
             // If already connected, just set active and load queues
             connectionManager.setActiveConnection(connectionId);
-            loadQueuesAsync(event.node.getName(), queuesName);
+            loadQueuesAsync(connectionId, event.node.getId(), event.node.getName(), queuesName);
         }
     }
 
-    private void loadQueuesAsync(String queueManagerName, List<String> queuesName) {
+    private void loadQueuesAsync(String connectionId, String nodeId, String queueManagerName, List<String> queuesName) {
         queueListViewer.showProgress("Loading queues from " + queueManagerName + "...");
 
-        new Thread(() -> {
+        submitListTask("Load queues of " + queueManagerName, connectionId, "browser:" + nodeId, token -> {
             try {
-                List<QueueInfo> queues = queueService.getQueuesInfo(queuesName);
+                List<QueueInfo> queues = queueService.getQueuesInfo(connectionId, queuesName, QueueAttributeProfile.LIST);
 
                 display.asyncExec(() -> {
-                    queueListViewer.setQueues(queues);
-                    queueListViewer.hideProgress();
-                    updateStatus("Loaded queues from " + queueManagerName);
-                    if (depthChartPanel != null) {
-                        depthChartPanel.setQueues(queues);
+                    if (!token.isCancelled()) {
+                        showQueues(connectionId, queues);
+                        queueListViewer.hideProgress();
+                        updateStatus("Loaded queues from " + queueManagerName);
                     }
                 });
             } catch (Exception e) {
@@ -472,7 +742,7 @@ public class MainWindow {
                     showError("Error", "Failed to load queues: " + e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
     private QueueManagerConfig findConnectionConfig(String name) {
@@ -523,13 +793,60 @@ public class MainWindow {
         }
     }
 
+    private void showQuickOpenDialog() {
+        if (nameDirectory.size() == 0) {
+            updateStatus("No queues known yet, connect to a queue manager first");
+            return;
+        }
+        QueueNameDirectory.Hit hit = new QuickOpenDialog(shell, nameDirectory).open();
+        if (hit == null) {
+            return;
+        }
+
+        updateStatus("Opening " + hit.queueName() + " on " + hit.connectionId() + "...");
+        taskService.submit("Open " + hit.queueName(), hit.connectionId(), "open:" + hit.connectionId() + ":" + hit.queueName(), () -> {
+            try {
+                QueueInfo queue = queueService.getQueueInfo(hit.connectionId(), hit.queueName(), QueueAttributeProfile.PROPERTIES);
+                if (queue == null) {
+                    display.asyncExec(() -> updateStatus("Queue " + hit.queueName() + " no longer exists on " + hit.connectionId()));
+                    return;
+                }
+                // Already read with every property, selecting it does not read it again
+                selectionLoader.remember(hit.connectionId(), queue);
+                display.asyncExec(() -> {
+                    onQueueSelected(hit.connectionId(), queue);
+                    updateStatus("Opened " + hit.queueName() + " on " + hit.connectionId());
+                });
+            } catch (Exception e) {
+                logger.error("Failed to open queue {}", hit.queueName(), e);
+                display.asyncExec(() -> showError("Error", "Failed to open queue " + hit.queueName() + ": " + e.getMessage()));
+            }
+        });
+    }
+
+    private void handleCompareQueues(List<QueueInfo> queues) {
+        if (depthChartPanel != null) {
+            depthChartPanel.setComparedQueues(queues);
+        }
+
+        // Switch to Depth Chart tab (index 2)
+        if (tabFolder != null) {
+            tabFolder.setSelection(2);
+        }
+    }
+
     private void handleRefreshQueue(QueueInfo queue) {
         queueListViewer.showProgress("Refreshing " + queue.getQueue() + "...");
+        String connectionId = displayedConnectionId;
 
-        new Thread(() -> {
+        taskService.submit("Refresh " + queue.getQueue(), connectionId, "refresh:" + connectionId + ":" + queue.getQueue(), () -> {
             try {
                 // Refresh the queue info from the queue manager
-                queueService.refreshQueueInfo(queue);
+                queueService.refreshQueueInfo(connectionId, queue, QueueAttributeProfile.PROPERTIES);
+                if (connectionId != null) {
+                    depthHistory.record(connectionId, queue, System.currentTimeMillis());
+                    selectionLoader.invalidate(connectionId, queue.getQueue());
+                }
 
                 display.asyncExec(() -> {
                     // Update the display
@@ -556,7 +873,7 @@ public class MainWindow {
                     showError("Refresh Failed", "Failed to refresh queue: " + e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
     private void handleCopyQueueName(QueueInfo queue) {
@@ -583,8 +900,7 @@ public class MainWindow {
         int criticalCount = 0;
         int warningCount = 0;
 
-        for (String queueName : alertManager.getAllCurrentAlerts().keySet()) {
-            ThresholdConfig.AlertLevel level = alertManager.getCurrentAlertLevel(queueName);
+        for (ThresholdConfig.AlertLevel level : alertManager.getAllCurrentAlerts().values()) {
             if (level == ThresholdConfig.AlertLevel.CRITICAL) {
                 criticalCount++;
             } else if (level == ThresholdConfig.AlertLevel.WARNING) {
@@ -592,7 +908,10 @@ public class MainWindow {
             }
         }
 
-        if (criticalCount > 0) {
+        if (alertManager.isStorm()) {
+            alertLabel.setText(String.format("Alert storm: %d critical, %d warning", criticalCount, warningCount));
+            alertLabel.setForeground(display.getSystemColor(SWT.COLOR_RED));
+        } else if (criticalCount > 0) {
             alertLabel.setText(String.format("Alerts: %d critical, %d warning", criticalCount, warningCount));
             alertLabel.setForeground(display.getSystemColor(SWT.COLOR_RED));
         } else if (warningCount > 0) {
@@ -628,7 +947,13 @@ public class MainWindow {
         }
 
         stopMonitoring();
+        selectionLoader.close();
+        taskService.close();
         connectionManager.disconnectAll();  // Disconnect all connections
+        alertManager.close();
+        alertDispatcher.close();
+        configManager.close();
+        depthStore.close();
     }
 
     public void open() {
@@ -106,6 +106,7 @@ public class QueueBrowserDialog {
 
         this.availableQueuesViewer = new InspectedQueueViewer(leftQueueComposite, SWT.BORDER | SWT.H_SCROLL | SWT.V_SCROLL | SWT.MULTI, alertManager);
         availableQueuesViewer.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+        availableQueuesViewer.setServerQueryListener(query -> fill(null));
         availableQueuesViewer.addListener(SWT.Selection, e -> {
             log.info("available queue selected: {}", e);
         });
@@ -206,8 +207,9 @@ public class QueueBrowserDialog {
             connectionManager.connect(queueManagerConfig);
             availableQueuesViewer.updateProgress("Retrieving queues...");
             QueueService queueService = new QueueService(connectionManager);
-            java.util.List<QueueInfo> queues = queueService.getAllQueues();
+            java.util.List<QueueInfo> queues = queueService.getQueues(availableQueuesViewer.getServerQuery());
             log.info("queues:\n{}", queues);
+            this.availableQueuesViewer.setConnectionId(connectionManager.getActiveConnectionId());
             this.availableQueuesViewer.setQueues(queues);
             availableQueuesViewer.hideProgress();
             connectionManager.disconnect();
@@ -0,0 +1,208 @@
+package com.aquila.ibm.mq.gui.ui;
+
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Filters and sorts a queue list on a background thread. A request replaces the pending one,
+ * a running filter stops as soon as a newer request comes in, and only the result of the
+ * latest request is published. When a plain-text filter is extended, only the queues of the
+ * previous result are searched again.
+ */
+class QueueFilterEngine implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(QueueFilterEngine.class);
+    // Queues filtered between two checks for a newer request
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+    /**
+     * Filter typed by the user: a case-insensitive regular expression found in the queue
+     * name, and a minimum depth.
+     */
+    record Criteria(String pattern, int minDepth) {
+        boolean isPlainText() {
+            for (int i = 0; i < pattern.length(); i++) {
+                if ("\\^$.|?*+()[]{}".indexOf(pattern.charAt(i)) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Whether every queue passing this filter passes the other one as well. Not with a
+         * depth floor, as depths change in place between two requests.
+         */
+        boolean narrows(Criteria other) {
+            return minDepth == 0 && other.minDepth == 0 && isPlainText() && other.isPlainText()
+                    && pattern.toLowerCase(Locale.ROOT).contains(other.pattern.toLowerCase(Locale.ROOT));
+        }
+
+        /**
+         * @throws PatternSyntaxException If the pattern is not a valid regular expression
+         */
+        Predicate<QueueInfo> toPredicate() {
+            Pattern compiled = pattern.isEmpty() ? null : Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
+            return queue -> (compiled == null || compiled.matcher(queue.getQueue()).find())
+                    && (minDepth == 0 || queue.getCurrentDepth() >= minDepth);
+        }
+    }
+
+    /**
+     * Outcome of a request.
+     * @param queues Queues passing the filter, sorted; all of them if the pattern is invalid
+     * @param filter Predicate of the criteria, to place queues updated later
+     * @param invalidPattern Whether the pattern did not compile
+     * @param scanned Number of queues tested
+     * @param order Order of the queues
+     */
+    record Result(Criteria criteria, long sourceVersion, List<QueueInfo> queues, Predicate<QueueInfo> filter,
+                  boolean invalidPattern, int scanned, QueueSortOrder order) {
+    }
+
+    private final Consumer<Runnable> publisher;
+    private final ScheduledExecutorService executor;
+    private final AtomicLong generation = new AtomicLong();
+    private ScheduledFuture<?> pending;
+    // Last completed result, only touched by the filter thread
+    private Result previous;
+
+    /**
+     * @param publisher Runs the result callback on the thread owning the table, e.g.
+     *                  {@code display::asyncExec}
+     */
+    QueueFilterEngine(Consumer<Runnable> publisher) {
+        this.publisher = publisher;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "QueueFilter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Filter after a delay, replacing the pending request.
+     * @param source Snapshot of the queues, not modified afterwards by the caller
+     * @param sourceVersion Changes whenever the set of queues changes; narrowing only reuses a
+     *                      previous result of the same version
+     * @param onResult Called through the publisher, unless a newer request was made meanwhile
+     */
+    synchronized void submit(List<QueueInfo> source, long sourceVersion, Criteria criteria,
+                             QueueSortOrder order, long delayMillis, Consumer<Result> onResult) {
+        long id = generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        if (executor.isShutdown()) {
+            return;
+        }
+        pending = executor.schedule(() -> run(id, source, sourceVersion, criteria, order, onResult),
+                delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(long id, List<QueueInfo> source, long sourceVersion, Criteria criteria,
+                     QueueSortOrder order, Consumer<Result> onResult) {
+        if (id != generation.get()) {
+            return;
+        }
+        Result result;
+        try {
+            result = filter(id, source, sourceVersion, criteria, order);
+        } catch (RuntimeException e) {
+            logger.error("Failed to filter queues with {}", criteria, e);
+            return;
+        }
+        if (result == null) {
+            // A newer request is on its way
+            return;
+        }
+        previous = result;
+        try {
+            publisher.accept(() -> {
+                if (id == generation.get()) {
+                    onResult.accept(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            // The display is gone
+            logger.debug("Dropped the queue filter result", e);
+        }
+    }
+
+    private Result filter(long id, List<QueueInfo> source, long sourceVersion, Criteria criteria,
+                          QueueSortOrder order) {
+        Predicate<QueueInfo> predicate;
+        boolean invalid = false;
+        try {
+            predicate = criteria.toPredicate();
+        } catch (PatternSyntaxException e) {
+            predicate = queue -> true;
+            invalid = true;
+        }
+
+        List<QueueInfo> candidates = source;
+        if (!invalid && previous != null && !previous.invalidPattern() && previous.sourceVersion() == sourceVersion
+                && criteria.narrows(previous.criteria())) {
+            candidates = previous.queues();
+        }
+        List<QueueInfo> matches = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (i % CANCEL_CHECK_INTERVAL == 0 && id != generation.get()) {
+                return null;
+            }
+            QueueInfo queue = candidates.get(i);
+            if (predicate.test(queue)) {
+                matches.add(queue);
+            }
+        }
+        // A previous result is already in order, unless sorted another way since
+        if (candidates == source || !isSorted(matches, order)) {
+            order.sort(matches);
+        }
+        return new Result(criteria, sourceVersion, List.copyOf(matches), predicate, invalid, candidates.size(), order);
+    }
+
+    private static boolean isSorted(List<QueueInfo> queues, QueueSortOrder order) {
+        if (queues.isEmpty()) {
+            return true;
+        }
+        QueueInfo previous = queues.get(0);
+        long previousKey = order.key(previous);
+        for (int i = 1; i < queues.size(); i++) {
+            QueueInfo queue = queues.get(i);
+            long key = order.key(queue);
+            if (order.compare(previousKey, previous, key, queue) > 0) {
+                return false;
+            }
+            previous = queue;
+            previousKey = key;
+        }
+        return true;
+    }
+
+    /**
+     * Drop the pending request and any result not published yet.
+     */
+    void cancel() {
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
@@ -1,8 +1,11 @@
 package com.aquila.ibm.mq.gui.ui;
 
 import com.aquila.ibm.mq.gui.config.AlertManager;
+import com.aquila.ibm.mq.gui.model.QueueDelta;
 import com.aquila.ibm.mq.gui.model.QueueInfo;
 import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import com.aquila.ibm.mq.gui.mq.QueueQuery;
+import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.swt.SWT;
@@ -12,14 +15,21 @@ import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.*;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
 @Slf4j
 public class QueueListViewer extends Composite {
+    // Delay before a filter change is sent to the queue manager, so typing does not query on every key
+    private static final int SERVER_QUERY_DELAY_MS = 500;
+    private static final int ALL_FIELDS = -1;
+    // Pause in typing before the queues are filtered again
+    static final int FILTER_DELAY_MS = 150;
 
     public interface ContextMenuActionListener {
         void onSendMessage(QueueInfo queue);
@@ -29,11 +39,20 @@ public class QueueListViewer extends Composite {
         void onRefreshQueue(QueueInfo queue);
 
         void onCopyQueueName(QueueInfo queue);
+
+        void onCompareQueues(List<QueueInfo> queues);
     }
 
     private final Table table;
     private final List<QueueInfo> queues;
-    private final List<QueueInfo> filteredQueues;
+    // Displayed queues, the rows of the table
+    private final QueueRowModel rows = new QueueRowModel();
+    private final List<QueueInfo> filteredQueues = rows.getRows();
+    private final QueueFilterEngine filterEngine;
+    // Incremented when queues are added, removed or replaced, see QueueFilterEngine#submit
+    private long queuesVersion;
+    // Names of the selected queues, to select them again when the rows change
+    private final Set<String> selectedNames = new LinkedHashSet<>();
     private final AlertManager alertManager;
     private Consumer<QueueInfo> selectionListener;
     @Setter
@@ -54,11 +73,28 @@ public class QueueListViewer extends Composite {
     private Spinner depthFilterSpinner;
     private Label filterStatusLabel;
 
+    /**
+     * Part of the filters the queue manager can evaluate, see {@link QueueQuery#fromFilter}.
+     */
+    @Getter
+    private QueueQuery serverQuery = QueueQuery.ALL;
+    /**
+     * Connection of the listed queues, to look up their alert levels.
+     */
+    @Setter
+    private String connectionId;
+    /**
+     * Notified when {@link #getServerQuery()} changes and the queues should be fetched again.
+     */
+    @Setter
+    private Consumer<QueueQuery> serverQueryListener;
+    private final Runnable serverQueryNotifier = this::notifyServerQuery;
+
     public QueueListViewer(Composite parent, int style, AlertManager alertManager) {
         super(parent, style);
         this.queues = new ArrayList<>();
-        this.filteredQueues = new ArrayList<>();
         this.alertManager = alertManager;
+        this.filterEngine = new QueueFilterEngine(getDisplay()::asyncExec);
 
         setLayout(new GridLayout());
 
@@ -89,7 +125,8 @@ public class QueueListViewer extends Composite {
         progressLabel = new Label(progressPanel, SWT.NONE);
         progressLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
 
-        table = new Table(this, SWT.BORDER | SWT.FULL_SELECTION);
+        // Virtual: rows are only filled in when shown, see refresh()
+        table = new Table(this, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI | SWT.VIRTUAL);
         table.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
         table.setHeaderVisible(true);
         table.setLinesVisible(true);
@@ -114,7 +151,13 @@ public class QueueListViewer extends Composite {
         percentColumn.setWidth(70);
         percentColumn.addListener(SWT.Selection, e -> sortBy(3));
 
+        table.addListener(SWT.SetData, e -> {
+            if (e.index < filteredQueues.size()) {
+                updateTableItem((TableItem) e.item, filteredQueues.get(e.index));
+            }
+        });
         table.addListener(SWT.Selection, e -> {
+            rememberSelection();
             int index = table.getSelectionIndex();
             if (index >= 0 && index < filteredQueues.size() && selectionListener != null) {
                 selectionListener.accept(filteredQueues.get(index));
@@ -124,6 +167,7 @@ public class QueueListViewer extends Composite {
         createContextMenu();
 
         addDisposeListener(e -> {
+            filterEngine.close();
             greenColor.dispose();
             yellowColor.dispose();
             redColor.dispose();
@@ -144,10 +188,11 @@ public class QueueListViewer extends Composite {
 
         regexFilterText = new Text(panel, SWT.BORDER | SWT.SEARCH);
         regexFilterText.setMessage("Filter pattern...");
+        regexFilterText.setToolTipText("Regular expression, ignoring case. Start with (?-i)^PREFIX to have\nthe queue manager list only the queues whose name starts with PREFIX.");
         GridData textData = new GridData(SWT.FILL, SWT.CENTER, true, false);
         textData.widthHint = 150;
         regexFilterText.setLayoutData(textData);
-        regexFilterText.addListener(SWT.Modify, e -> applyFilters());
+        regexFilterText.addListener(SWT.Modify, e -> applyFilters(FILTER_DELAY_MS));
 
         // Depth filter
         Label depthLabel = new Label(panel, SWT.NONE);
@@ -160,7 +205,7 @@ public class QueueListViewer extends Composite {
         depthFilterSpinner.setPageIncrement(10);
         depthFilterSpinner.setSelection(0);
         depthFilterSpinner.setLayoutData(new GridData(50, SWT.DEFAULT));
-        depthFilterSpinner.addListener(SWT.Selection, e -> applyFilters());
+        depthFilterSpinner.addListener(SWT.Selection, e -> applyFilters(FILTER_DELAY_MS));
 
         // Status label
         filterStatusLabel = new Label(panel, SWT.NONE);
@@ -172,22 +217,26 @@ public class QueueListViewer extends Composite {
     public void setQueues(List<QueueInfo> queues) {
         this.queues.clear();
         this.queues.addAll(queues);
-        applyFilters();
+        queuesVersion++;
+        applyFilters(0);
     }
 
+    /**
+     * Show {@link #filteredQueues}. The table is virtual, so this only sets the row count and
+     * the visible rows are filled in by the {@code SWT.SetData} listener. The selected queues
+     * stay selected wherever they moved.
+     */
     public void refresh() {
-        table.removeAll();
-
-        for (QueueInfo queue : filteredQueues) {
-            TableItem item = new TableItem(table, SWT.NONE);
-            updateTableItem(item, queue);
-        }
+        table.setItemCount(filteredQueues.size());
+        table.clearAll();
+        restoreSelection();
         updateFilterStatus();
 
         if (!filteredQueues.isEmpty() && table.getSelectionIndex() < 0) {
             if (table.getSelectionIndex() == -1) {
                 log.info("Table Selection");
                 table.select(0);
+                rememberSelection();
             }
             if (selectionListener != null) {
                 selectionListener.accept(filteredQueues.get(0));
@@ -195,34 +244,133 @@ public class QueueListViewer extends Composite {
         }
     }
 
+    private void rememberSelection() {
+        selectedNames.clear();
+        for (int index : table.getSelectionIndices()) {
+            if (index < filteredQueues.size()) {
+                selectedNames.add(filteredQueues.get(index).getQueue());
+            }
+        }
+    }
+
+    private void restoreSelection() {
+        int[] indices = new int[selectedNames.size()];
+        int count = 0;
+        for (String queueName : selectedNames) {
+            Integer row = rows.rowOf(queueName);
+            if (row != null) {
+                indices[count++] = row;
+            }
+        }
+        table.deselectAll();
+        table.select(Arrays.copyOf(indices, count));
+    }
+
+    /**
+     * Show the result of a monitor poll. Queues keep their row unless the filters or the sort
+     * order move them, and only the changed cells of the visible rows are written.
+     */
+    public void applyDelta(QueueDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        if (delta.isStructural()) {
+            queuesVersion++;
+        }
+        QueueRowModel.Changes changes = new QueueRowModel.Changes();
+        if (!delta.removed().isEmpty()) {
+            Set<String> removed = new HashSet<>(delta.removed());
+            queues.removeIf(queue -> removed.contains(queue.getQueue()));
+            for (String queueName : delta.removed()) {
+                rows.remove(queueName, changes);
+            }
+        }
+        queues.addAll(delta.added());
+        for (QueueInfo queue : delta.added()) {
+            rows.update(queue, ALL_FIELDS, changes);
+        }
+        for (QueueDelta.Change change : delta.changed()) {
+            rows.update(change.queue(), change.fields(), changes);
+        }
+        showChanges(changes);
+    }
+
+    private void showChanges(QueueRowModel.Changes changes) {
+        if (changes.isCountChanged()) {
+            table.setItemCount(rows.size());
+            updateFilterStatus();
+        }
+        int movedFrom = changes.getMovedFrom();
+        int movedTo = Math.min(changes.getMovedTo(), rows.size() - 1);
+        if (movedFrom >= 0 && movedFrom <= movedTo) {
+            // Filled in again by SWT.SetData when shown
+            table.clear(movedFrom, movedTo);
+        }
+        if (movedFrom >= 0) {
+            restoreSelection();
+        }
+
+        int top = table.getTopIndex();
+        int bottom = top + table.getClientArea().height / Math.max(1, table.getItemHeight());
+        for (Map.Entry<String, Integer> entry : changes.getUpdated().entrySet()) {
+            Integer row = rows.rowOf(entry.getKey());
+            if (row == null || (row >= movedFrom && row <= movedTo)) {
+                continue;
+            }
+            if (row >= top && row <= bottom) {
+                updateCells(table.getItem(row), rows.get(row), entry.getValue());
+            } else {
+                table.clear(row);
+            }
+        }
+    }
+
+    /**
+     * Write the cells of the changed attributes and the alert colour, if it changed.
+     */
+    private void updateCells(TableItem item, QueueInfo queue, int fields) {
+        if ((fields & QueueDelta.CURRENT_DEPTH) != 0) {
+            item.setText(1, String.valueOf(queue.getCurrentDepth()));
+        }
+        if ((fields & QueueDelta.MAX_DEPTH) != 0) {
+            item.setText(2, String.valueOf(queue.getMaxDepth()));
+        }
+        if ((fields & (QueueDelta.CURRENT_DEPTH | QueueDelta.MAX_DEPTH)) != 0) {
+            item.setText(3, String.format("%.1f%%", queue.getDepthPercentage()));
+        }
+        Color background = backgroundOf(queue);
+        if (!item.getBackground().equals(background == null ? table.getBackground() : background)) {
+            item.setBackground(background);
+        }
+    }
+
     private void updateTableItem(TableItem item, QueueInfo queue) {
         item.setText(0, queue.getQueue());
         item.setText(1, String.valueOf(queue.getCurrentDepth()));
         item.setText(2, String.valueOf(queue.getMaxDepth()));
         item.setText(3, String.format("%.1f%%", queue.getDepthPercentage()));
+        item.setBackground(backgroundOf(queue));
+    }
 
-        ThresholdConfig.AlertLevel alertLevel = alertManager.getCurrentAlertLevel(queue.getQueue());
+    private Color backgroundOf(QueueInfo queue) {
+        ThresholdConfig.AlertLevel alertLevel = alertManager.getCurrentAlertLevel(connectionId, queue.getQueue());
 
         switch (alertLevel) {
             case CRITICAL:
-                item.setBackground(redColor);
-                break;
+                return redColor;
             case WARNING:
-                item.setBackground(yellowColor);
-                break;
+                return yellowColor;
             default:
-                if (queue.getCurrentDepth() == 0) {
-                    item.setBackground(null);
-                } else {
-                    item.setBackground(greenColor);
-                }
-                break;
+                return queue.getCurrentDepth() == 0 ? null : greenColor;
         }
     }
 
     public void clearQueues() {
+        filterEngine.cancel();
         queues.clear();
-        filteredQueues.clear();
+        queuesVersion++;
+        rows.clear();
+        selectedNames.clear();
         table.removeAll();
         updateFilterStatus();
     }
@@ -237,12 +385,25 @@ public class QueueListViewer extends Composite {
 
     public QueueInfo getSelectedQueue() {
         int index = table.getSelectionIndex();
-        if (index >= 0 && index < queues.size()) {
-            return queues.get(index);
+        if (index >= 0 && index < filteredQueues.size()) {
+            return filteredQueues.get(index);
         }
         return null;
     }
 
+    /**
+     * @return The selected queues, in display order
+     */
+    public List<QueueInfo> getSelectedQueues() {
+        List<QueueInfo> selected = new ArrayList<>();
+        for (int index : table.getSelectionIndices()) {
+            if (index >= 0 && index < filteredQueues.size()) {
+                selected.add(filteredQueues.get(index));
+            }
+        }
+        return selected;
+    }
+
     private void createContextMenu() {
         Menu menu = new Menu(table);
         table.setMenu(menu);
@@ -286,6 +447,15 @@ public class QueueListViewer extends Composite {
                 copyNameItem.setText("Copy Queue Name");
                 copyNameItem.addListener(SWT.Selection, ev ->
                         contextMenuActionListener.onCopyQueueName(selectedQueue));
+
+                // Compare the depth of the selected queues
+                List<QueueInfo> selectedQueues = getSelectedQueues();
+                new MenuItem(menu, SWT.SEPARATOR);
+                MenuItem compareItem = new MenuItem(menu, SWT.PUSH);
+                compareItem.setText(selectedQueues.size() > 1
+                        ? "Compare Depth (" + selectedQueues.size() + " queues)" : "Compare Depth");
+                compareItem.addListener(SWT.Selection, ev ->
+                        contextMenuActionListener.onCompareQueues(selectedQueues));
             }
         });
     }
@@ -298,9 +468,11 @@ public class QueueListViewer extends Composite {
                 break;
             }
         }
+        queuesVersion++;
 
-        // Reapply filters to update display
-        applyFilters();
+        QueueRowModel.Changes changes = new QueueRowModel.Changes();
+        rows.update(queue, ALL_FIELDS, changes);
+        showChanges(changes);
     }
 
     public void showProgress(String message) {
@@ -323,39 +495,54 @@ public class QueueListViewer extends Composite {
         progressLabel.setText(message);
     }
 
-    private void applyFilters() {
-        filteredQueues.clear();
-
+    /**
+     * Filter the queues on the filter thread and show the result when done, unless the
+     * filters change again within the delay.
+     */
+    private void applyFilters(long delayMillis) {
         String regexPattern = regexFilterText.getText().trim();
         int minDepth = depthFilterSpinner.getSelection();
+        filterEngine.submit(new ArrayList<>(queues), queuesVersion, new QueueFilterEngine.Criteria(regexPattern, minDepth),
+                sortOrder(), delayMillis, this::showFilterResult);
+    }
 
-        // Compile regex pattern
-        Pattern pattern = null;
-        if (!regexPattern.isEmpty()) {
-            try {
-                pattern = Pattern.compile(regexPattern, Pattern.CASE_INSENSITIVE);
-                regexFilterText.setBackground(null);  // Clear error indicator
-            } catch (PatternSyntaxException e) {
-                // Invalid regex - show error and display all queues
-                regexFilterText.setBackground(getDisplay().getSystemColor(SWT.COLOR_RED));
-                filteredQueues.addAll(queues);
-                sortQueues();
-                refresh();
-                return;
-            }
+    private void showFilterResult(QueueFilterEngine.Result result) {
+        if (isDisposed()) {
+            return;
+        }
+        if (result.sourceVersion() != queuesVersion) {
+            // Queues came or went meanwhile
+            applyFilters(0);
+            return;
         }
+        if (result.invalidPattern()) {
+            // Invalid regex - show error and display all queues
+            regexFilterText.setBackground(getDisplay().getSystemColor(SWT.COLOR_RED));
+        } else {
+            regexFilterText.setBackground(null);  // Clear error indicator
+            updateServerQuery(QueueQuery.fromFilter(result.criteria().pattern()));
+        }
+        rows.set(result.queues(), result.filter(), result.order());
+        // Sorted as requested, unless the sort column changed since
+        if (!result.order().equals(sortOrder())) {
+            rows.sort(sortOrder());
+        }
+        refresh();
+    }
 
-        // Apply filters using streams
-        final Pattern finalPattern = pattern;
-        filteredQueues.addAll(
-                queues.stream()
-                        .filter(q -> finalPattern == null || finalPattern.matcher(q.getQueue()).find())
-                        .filter(q -> minDepth == 0 || q.getCurrentDepth() >= minDepth)
-                        .toList()
-        );
+    private void updateServerQuery(QueueQuery query) {
+        if (query.equals(serverQuery)) {
+            return;
+        }
+        serverQuery = query;
+        // Rescheduling the same runnable restarts the delay
+        getDisplay().timerExec(SERVER_QUERY_DELAY_MS, serverQueryNotifier);
+    }
 
-        sortQueues();
-        refresh();
+    private void notifyServerQuery() {
+        if (!isDisposed() && serverQueryListener != null) {
+            serverQueryListener.accept(serverQuery);
+        }
     }
 
     private void updateFilterStatus() {
@@ -370,7 +557,7 @@ public class QueueListViewer extends Composite {
     public void clearFilters() {
         regexFilterText.setText("");
         depthFilterSpinner.setSelection(0);
-        // applyFilters() will be called automatically via listeners
+        // applyFilters(long) will be called automatically via listeners
     }
 
     private void sortBy(int columnIndex) {
@@ -388,22 +575,17 @@ public class QueueListViewer extends Composite {
         table.setSortDirection(sortAscending ? SWT.UP : SWT.DOWN);
 
         // Apply sorting
-        sortQueues();
+        rows.sort(sortOrder());
         refresh();
     }
 
-    private void sortQueues() {
-        Comparator<QueueInfo> comparator = switch (sortColumn) {
-            case 1 -> Comparator.comparingInt(QueueInfo::getCurrentDepth);
-            case 2 -> Comparator.comparingInt(QueueInfo::getMaxDepth);
-            case 3 -> Comparator.comparingDouble(QueueInfo::getDepthPercentage);
-            default -> Comparator.comparing(QueueInfo::getQueue);
+    private QueueSortOrder sortOrder() {
+        QueueSortOrder.Column column = switch (sortColumn) {
+            case 1 -> QueueSortOrder.Column.DEPTH;
+            case 2 -> QueueSortOrder.Column.MAX_DEPTH;
+            case 3 -> QueueSortOrder.Column.PERCENTAGE;
+            default -> QueueSortOrder.Column.NAME;
         };
-
-        if (!sortAscending) {
-            comparator = comparator.reversed();
-        }
-
-        filteredQueues.sort(comparator);
+        return new QueueSortOrder(column, sortAscending);
     }
 }
@@ -0,0 +1,258 @@
+package com.aquila.ibm.mq.gui.ui;
+
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Rows of a queue table: the queues passing the filter, in sort order, and the row of each
+ * queue by name. Updating a queue keeps its row unless the filter or the sort order says
+ * otherwise, and the {@link Changes} tell which rows must be drawn again. The sort key of
+ * each row is kept next to it, so placing a queue computes only its own key.
+ */
+class QueueRowModel {
+    private final List<QueueInfo> rows = new ArrayList<>();
+    // Sort key of each row, see QueueSortOrder#key
+    private long[] keys = new long[16];
+    private final Map<String, Integer> rowIndex = new HashMap<>();
+    private Predicate<QueueInfo> filter = queue -> true;
+    private QueueSortOrder order = new QueueSortOrder(QueueSortOrder.Column.NAME, true);
+
+    /**
+     * What an update did to the rows.
+     */
+    static class Changes {
+        // Changed attributes of the queues that kept their row, by name
+        private final Map<String, Integer> updated = new LinkedHashMap<>();
+        private int movedFrom = Integer.MAX_VALUE;
+        private int movedTo = -1;
+        private boolean countChanged;
+
+        private void moved(int from, int to) {
+            movedFrom = Math.min(movedFrom, from);
+            movedTo = Math.max(movedTo, to);
+        }
+
+        /**
+         * @return First row whose queue changed place, or {@code -1}
+         */
+        int getMovedFrom() {
+            return movedTo < 0 ? -1 : movedFrom;
+        }
+
+        /**
+         * @return Last row whose queue changed place, or {@code -1}, up to the former last row
+         */
+        int getMovedTo() {
+            return movedTo;
+        }
+
+        boolean isCountChanged() {
+            return countChanged;
+        }
+
+        /**
+         * @return Changed attributes of the queues updated in their row, by name
+         */
+        Map<String, Integer> getUpdated() {
+            return updated;
+        }
+
+        boolean isEmpty() {
+            return updated.isEmpty() && movedTo < 0;
+        }
+    }
+
+    /**
+     * Filter and sort all the queues again.
+     */
+    void reset(Collection<QueueInfo> queues, Predicate<QueueInfo> filter, QueueSortOrder order) {
+        this.filter = filter;
+        this.order = order;
+        rows.clear();
+        rowIndex.clear();
+        for (QueueInfo queue : queues) {
+            if (filter.test(queue)) {
+                rows.add(queue);
+            }
+        }
+        order.sort(rows);
+        rekey();
+    }
+
+    /**
+     * Show queues already filtered and sorted, e.g. by a {@link QueueFilterEngine}.
+     */
+    void set(List<QueueInfo> sorted, Predicate<QueueInfo> filter, QueueSortOrder order) {
+        this.filter = filter;
+        this.order = order;
+        rows.clear();
+        rowIndex.clear();
+        rows.addAll(sorted);
+        rekey();
+    }
+
+    /**
+     * Sort the same rows in another order.
+     */
+    void sort(QueueSortOrder order) {
+        this.order = order;
+        order.sort(rows);
+        rekey();
+    }
+
+    QueueSortOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Place a queue whose attributes changed, or a new queue.
+     * @param fields Changed attributes, as a mask of the {@code QueueDelta} constants
+     */
+    void update(QueueInfo queue, int fields, Changes changes) {
+        Integer current = rowIndex.get(queue.getQueue());
+        if (!filter.test(queue)) {
+            if (current != null) {
+                remove(current, changes);
+            }
+            return;
+        }
+        long key = order.key(queue);
+        if (current == null) {
+            int row = insertionPoint(key, queue);
+            rows.add(row, queue);
+            insertKey(row, key);
+            reindex(row, rows.size() - 1);
+            changes.moved(row, rows.size() - 1);
+            changes.countChanged = true;
+            return;
+        }
+        int row = current;
+        rows.set(row, queue);
+        keys[row] = key;
+        if (inOrder(row)) {
+            changes.updated.merge(queue.getQueue(), fields, (a, b) -> a | b);
+            return;
+        }
+        rows.remove(row);
+        removeKey(row);
+        int target = insertionPoint(key, queue);
+        rows.add(target, queue);
+        insertKey(target, key);
+        reindex(Math.min(row, target), Math.max(row, target));
+        changes.updated.remove(queue.getQueue());
+        changes.moved(Math.min(row, target), Math.max(row, target));
+    }
+
+    void remove(String queueName, Changes changes) {
+        Integer row = rowIndex.get(queueName);
+        if (row != null) {
+            remove(row, changes);
+        }
+    }
+
+    private void remove(int row, Changes changes) {
+        QueueInfo removed = rows.remove(row);
+        removeKey(row);
+        rowIndex.remove(removed.getQueue());
+        changes.updated.remove(removed.getQueue());
+        reindex(row, rows.size() - 1);
+        changes.moved(row, rows.size());
+        changes.countChanged = true;
+    }
+
+    private boolean inOrder(int row) {
+        return (row == 0 || compareRows(row - 1, row) <= 0)
+                && (row == rows.size() - 1 || compareRows(row, row + 1) <= 0);
+    }
+
+    private int compareRows(int row1, int row2) {
+        return order.compare(keys[row1], rows.get(row1), keys[row2], rows.get(row2));
+    }
+
+    /**
+     * @return Row after the last one sorting before or with the queue
+     */
+    private int insertionPoint(long key, QueueInfo queue) {
+        int low = 0;
+        int high = rows.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (order.compare(keys[middle], rows.get(middle), key, queue) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Make room for the key of a row just inserted in {@link #rows}.
+     */
+    private void insertKey(int row, long key) {
+        int count = rows.size() - 1;
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+        }
+        System.arraycopy(keys, row, keys, row + 1, count - row);
+        keys[row] = key;
+    }
+
+    /**
+     * Drop the key of a row just removed from {@link #rows}.
+     */
+    private void removeKey(int row) {
+        System.arraycopy(keys, row + 1, keys, row, rows.size() - row);
+    }
+
+    /**
+     * Compute the key of every row and index them all.
+     */
+    private void rekey() {
+        if (keys.length < rows.size()) {
+            keys = new long[Math.max(16, rows.size() + rows.size() / 2)];
+        }
+        for (int row = 0; row < rows.size(); row++) {
+            keys[row] = order.key(rows.get(row));
+        }
+        reindex(0, rows.size() - 1);
+    }
+
+    private void reindex(int from, int to) {
+        for (int row = from; row <= to; row++) {
+            rowIndex.put(rows.get(row).getQueue(), row);
+        }
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    QueueInfo get(int row) {
+        return rows.get(row);
+    }
+
+    /**
+     * @return Row of a queue, null if it is not shown
+     */
+    Integer rowOf(String queueName) {
+        return rowIndex.get(queueName);
+    }
+
+    List<QueueInfo> getRows() {
+        return rows;
+    }
+
+    void clear() {
+        rows.clear();
+        rowIndex.clear();
+    }
+}
@@ -0,0 +1,274 @@
+package com.aquila.ibm.mq.gui.ui;
+
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Loads the details of the selected queue on background workers. Each selection replaces the
+ * previous one: a load not started yet is cancelled, and the result of a load already waiting
+ * for the queue manager is dropped, so only the latest selection reaches the panels. Loaded
+ * queues are kept for a short time, so selecting a queue again shows it at once, and selecting
+ * a queue whose load is in flight joins that load.
+ */
+class QueueSelectionLoader implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(QueueSelectionLoader.class);
+    static final long CACHE_TTL_MS = 5_000;
+    private static final int MAX_CACHED = 256;
+    private static final int WORKERS = 2;
+    // Time close() gives a fetch in progress to finish
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    /**
+     * Reads a queue from its queue manager.
+     */
+    @FunctionalInterface
+    interface Fetcher {
+        /**
+         * @return The queue, or null if it does not exist
+         */
+        QueueInfo fetch(String connectionId, String queueName) throws Exception;
+    }
+
+    private record Key(String connectionId, String queueName) {
+    }
+
+    private record Cached(QueueInfo queue, long loadedAt) {
+    }
+
+    /**
+     * Read of one queue, which can be cancelled until a worker picks it up.
+     */
+    private static class Load {
+        final Key key;
+        final CompletableFuture<QueueInfo> future = new CompletableFuture<>();
+        // Set by the first of the worker starting it and a cancellation
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Load(Key key) {
+            this.key = key;
+        }
+
+        boolean start() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * @return Whether the load was cancelled, false if it already started
+         */
+        boolean cancel() {
+            if (claimed.compareAndSet(false, true)) {
+                future.cancel(false);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private final Fetcher fetcher;
+    private final Consumer<Runnable> publisher;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final ExecutorService executor;
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<Key, Cached> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+    private final Map<Key, Load> inFlight = new HashMap<>();
+    // Load of the latest selection, null when it was served from the cache
+    private Load current;
+
+    /**
+     * @param publisher Runs the result callbacks on the thread owning the panels, e.g.
+     *                  {@code display::asyncExec}
+     */
+    QueueSelectionLoader(Fetcher fetcher, Consumer<Runnable> publisher) {
+        this(fetcher, publisher, CACHE_TTL_MS, System::currentTimeMillis);
+    }
+
+    QueueSelectionLoader(Fetcher fetcher, Consumer<Runnable> publisher, long ttlMillis, LongSupplier clock) {
+        this.fetcher = fetcher;
+        this.publisher = publisher;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(WORKERS, r -> {
+            Thread thread = new Thread(r, "QueueSelection-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Load a queue for the latest selection.
+     * @param onLoaded Called with the loaded queue, or null if it no longer exists, unless
+     *                 another queue was selected meanwhile. Called at once from the cache,
+     *                 through the publisher otherwise.
+     * @param onFailed Called through the publisher when the load failed, unless another queue
+     *                 was selected meanwhile
+     */
+    void select(String connectionId, String queueName, Consumer<QueueInfo> onLoaded, Consumer<Exception> onFailed) {
+        Key key = new Key(connectionId, queueName);
+        long id;
+        Load load;
+        QueueInfo cachedQueue = null;
+        synchronized (this) {
+            id = generation.incrementAndGet();
+            Cached cached = cache.get(key);
+            if (cached != null && clock.getAsLong() - cached.loadedAt() < ttlMillis) {
+                cachedQueue = cached.queue();
+                load = null;
+            } else {
+                load = inFlight.get(key);
+                if (load == null) {
+                    load = start(key);
+                    if (load == null) {
+                        // Closed
+                        return;
+                    }
+                }
+            }
+            if (current != null && current != load) {
+                // Only stops a load still waiting for a worker, a running one is left to finish
+                // and fills the cache
+                cancelCurrent();
+            }
+            current = load;
+        }
+        if (load == null) {
+            onLoaded.accept(cachedQueue);
+            return;
+        }
+        load.future.whenComplete((queue, error) -> publish(id, queue, error, onLoaded, onFailed));
+    }
+
+    private Load start(Key key) {
+        Load load = new Load(key);
+        try {
+            executor.execute(() -> run(load));
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+        inFlight.put(key, load);
+        return load;
+    }
+
+    private void run(Load load) {
+        if (!load.start()) {
+            return;
+        }
+        QueueInfo queue;
+        try {
+            queue = fetcher.fetch(load.key.connectionId(), load.key.queueName());
+        } catch (Exception e) {
+            finished(load, null);
+            load.future.completeExceptionally(e);
+            return;
+        }
+        // Cached before anyone is told, so a selection right after the result finds it
+        finished(load, queue);
+        load.future.complete(queue);
+    }
+
+    private synchronized void finished(Load load, QueueInfo queue) {
+        inFlight.remove(load.key, load);
+        if (queue != null) {
+            cache.put(load.key, new Cached(queue, clock.getAsLong()));
+        }
+    }
+
+    private void cancelCurrent() {
+        if (current.cancel()) {
+            inFlight.remove(current.key, current);
+        }
+    }
+
+    private void publish(long id, QueueInfo queue, Throwable error,
+                         Consumer<QueueInfo> onLoaded, Consumer<Exception> onFailed) {
+        if (id != generation.get() || error instanceof CancellationException) {
+            return;
+        }
+        try {
+            publisher.accept(() -> {
+                if (id != generation.get()) {
+                    return;
+                }
+                if (error == null) {
+                    onLoaded.accept(queue);
+                } else {
+                    onFailed.accept(error instanceof Exception e ? e : new RuntimeException(error));
+                }
+            });
+        } catch (RuntimeException e) {
+            // The display is gone
+            logger.debug("Dropped the loaded queue {}", queue, e);
+        }
+    }
+
+    /**
+     * Keep a queue read elsewhere, so selecting it does not read it again.
+     */
+    synchronized void remember(String connectionId, QueueInfo queue) {
+        cache.put(new Key(connectionId, queue.getQueue()), new Cached(queue, clock.getAsLong()));
+    }
+
+    /**
+     * Read a queue again the next time it is selected, e.g. after it changed.
+     */
+    synchronized void invalidate(String connectionId, String queueName) {
+        cache.remove(new Key(connectionId, queueName));
+    }
+
+    /**
+     * Drop every queue of a connection.
+     */
+    synchronized void forgetConnection(String connectionId) {
+        cache.keySet().removeIf(key -> key.connectionId().equals(connectionId));
+    }
+
+    /**
+     * Drop the result of the latest selection, e.g. when nothing is selected anymore.
+     */
+    synchronized void cancel() {
+        generation.incrementAndGet();
+        if (current != null) {
+            cancelCurrent();
+            current = null;
+        }
+    }
+
+    /**
+     * Drop the pending results and wait a bounded time for the fetches in progress. Workers
+     * are not interrupted, since an interrupted fetch breaks its leased agent.
+     */
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Queue fetches still running after {}s", CLOSE_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
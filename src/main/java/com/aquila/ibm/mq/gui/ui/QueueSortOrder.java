@@ -0,0 +1,76 @@
+package com.aquila.ibm.mq.gui.ui;
+
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Order of a queue table: a column and a direction, ties broken by queue name. Numeric columns
+ * compare a primitive {@link #key(QueueInfo) key}, computed once per queue by the callers that
+ * sort or place many queues, rather than reading the attributes again in every comparison.
+ */
+record QueueSortOrder(Column column, boolean ascending) implements Comparator<QueueInfo> {
+
+    enum Column {
+        NAME, LABEL, DEPTH, MAX_DEPTH, PERCENTAGE
+    }
+
+    /**
+     * @return Sort key of the queue for a numeric column, 0 for the text columns
+     */
+    long key(QueueInfo queue) {
+        return switch (column) {
+            case DEPTH -> queue.getCurrentDepth();
+            case MAX_DEPTH -> queue.getMaxDepth();
+            // The bits of a positive double are in the same order as the double
+            case PERCENTAGE -> Double.doubleToLongBits(Math.max(0, queue.getDepthPercentage()));
+            default -> 0;
+        };
+    }
+
+    /**
+     * Compare two queues by their precomputed keys.
+     */
+    int compare(long key1, QueueInfo queue1, long key2, QueueInfo queue2) {
+        int result = switch (column) {
+            case NAME -> 0;
+            case LABEL -> String.CASE_INSENSITIVE_ORDER.compare(labelOf(queue1), labelOf(queue2));
+            default -> Long.compare(key1, key2);
+        };
+        if (result != 0) {
+            return ascending ? result : -result;
+        }
+        // Ties by name, so an update only moves a row when the order really changes
+        result = queue1.getQueue().compareTo(queue2.getQueue());
+        return column == Column.NAME && !ascending ? -result : result;
+    }
+
+    @Override
+    public int compare(QueueInfo queue1, QueueInfo queue2) {
+        return compare(key(queue1), queue1, key(queue2), queue2);
+    }
+
+    /**
+     * Sort the queues, computing the key of each one once.
+     */
+    void sort(List<QueueInfo> queues) {
+        Keyed[] keyed = new Keyed[queues.size()];
+        for (int i = 0; i < keyed.length; i++) {
+            QueueInfo queue = queues.get(i);
+            keyed[i] = new Keyed(key(queue), queue);
+        }
+        Arrays.sort(keyed, (a, b) -> compare(a.key, a.queue, b.key, b.queue));
+        for (int i = 0; i < keyed.length; i++) {
+            queues.set(i, keyed[i].queue);
+        }
+    }
+
+    private record Keyed(long key, QueueInfo queue) {
+    }
+
+    private static String labelOf(QueueInfo queue) {
+        return queue.getLabel() != null ? queue.getLabel() : "";
+    }
+}
@@ -0,0 +1,126 @@
+package com.aquila.ibm.mq.gui.ui;
+
+import com.aquila.ibm.mq.gui.mq.QueueNameDirectory;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.*;
+
+import java.util.List;
+
+/**
+ * Dialog finding a queue by name on every connected queue manager, searching the
+ * {@link QueueNameDirectory} on each keystroke.
+ */
+public class QuickOpenDialog {
+    private static final int MAX_RESULTS = 50;
+
+    private final Shell parentShell;
+    private final QueueNameDirectory directory;
+    private Shell shell;
+    private Text queryText;
+    private Table resultTable;
+    private Label statusLabel;
+    private List<QueueNameDirectory.Hit> hits = List.of();
+    private QueueNameDirectory.Hit selectedHit;
+
+    public QuickOpenDialog(Shell parent, QueueNameDirectory directory) {
+        this.parentShell = parent;
+        this.directory = directory;
+    }
+
+    /**
+     * Open the dialog and return the chosen queue, or null if cancelled.
+     */
+    public QueueNameDirectory.Hit open() {
+        shell = new Shell(parentShell, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL | SWT.RESIZE);
+        shell.setText("Open Queue");
+        shell.setLayout(new GridLayout());
+        createContents();
+
+        shell.setSize(600, 400);
+        shell.setLocation(
+                parentShell.getLocation().x + (parentShell.getSize().x - shell.getSize().x) / 2,
+                parentShell.getLocation().y + (parentShell.getSize().y - shell.getSize().y) / 2
+        );
+        shell.open();
+
+        Display display = parentShell.getDisplay();
+        while (!shell.isDisposed()) {
+            if (!display.readAndDispatch()) {
+                display.sleep();
+            }
+        }
+        return selectedHit;
+    }
+
+    private void createContents() {
+        queryText = new Text(shell, SWT.BORDER | SWT.SEARCH);
+        queryText.setMessage("Queue name, part of it, or close to it...");
+        queryText.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        queryText.addListener(SWT.Modify, e -> search());
+        queryText.addListener(SWT.KeyDown, e -> {
+            // Arrows move through the results without leaving the text
+            if ((e.keyCode == SWT.ARROW_DOWN || e.keyCode == SWT.ARROW_UP) && resultTable.getItemCount() > 0) {
+                int index = resultTable.getSelectionIndex() + (e.keyCode == SWT.ARROW_DOWN ? 1 : -1);
+                resultTable.setSelection(Math.max(0, Math.min(resultTable.getItemCount() - 1, index)));
+                e.doit = false;
+            }
+        });
+        queryText.addListener(SWT.DefaultSelection, e -> onSelect());
+
+        resultTable = new Table(shell, SWT.BORDER | SWT.SINGLE | SWT.FULL_SELECTION);
+        resultTable.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+        resultTable.setHeaderVisible(true);
+        TableColumn nameColumn = new TableColumn(resultTable, SWT.LEFT);
+        nameColumn.setText("Queue Name");
+        nameColumn.setWidth(330);
+        TableColumn connectionColumn = new TableColumn(resultTable, SWT.LEFT);
+        connectionColumn.setText("Queue Manager");
+        connectionColumn.setWidth(160);
+        TableColumn kindColumn = new TableColumn(resultTable, SWT.LEFT);
+        kindColumn.setText("Match");
+        kindColumn.setWidth(80);
+        resultTable.addListener(SWT.DefaultSelection, e -> onSelect());
+
+        statusLabel = new Label(shell, SWT.NONE);
+        statusLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        statusLabel.setText(String.format("%d queues indexed", directory.size()));
+
+        shell.addListener(SWT.Traverse, e -> {
+            if (e.detail == SWT.TRAVERSE_ESCAPE) {
+                selectedHit = null;
+                shell.dispose();
+            }
+        });
+    }
+
+    private void search() {
+        long start = System.nanoTime();
+        hits = directory.search(queryText.getText(), MAX_RESULTS);
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        resultTable.setRedraw(false);
+        resultTable.removeAll();
+        for (QueueNameDirectory.Hit hit : hits) {
+            TableItem item = new TableItem(resultTable, SWT.NONE);
+            item.setText(0, hit.queueName());
+            item.setText(1, hit.connectionId());
+            item.setText(2, hit.match().kind().name().toLowerCase());
+        }
+        resultTable.setRedraw(true);
+        if (!hits.isEmpty()) {
+            resultTable.setSelection(0);
+        }
+        statusLabel.setText(String.format("%d matches of %d queues (%.1f ms)", hits.size(), directory.size(), millis));
+    }
+
+    private void onSelect() {
+        int index = resultTable.getSelectionIndex();
+        if (index < 0 || index >= hits.size()) {
+            return;
+        }
+        selectedHit = hits.get(index);
+        shell.dispose();
+    }
+}
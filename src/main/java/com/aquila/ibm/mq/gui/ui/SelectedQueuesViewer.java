@@ -8,7 +8,6 @@ import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.*;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -181,19 +180,13 @@ public class SelectedQueuesViewer extends Composite {
     }
 
     private void sortQueues() {
-        Comparator<QueueInfo> comparator = switch (sortColumn) {
-            case 0 -> Comparator.comparing(q -> q.getLabel() != null ? q.getLabel() : "", String.CASE_INSENSITIVE_ORDER);
-            case 1 -> Comparator.comparing(QueueInfo::getQueue);
-            case 2 -> Comparator.comparingInt(QueueInfo::getCurrentDepth);
-            case 3 -> Comparator.comparingInt(QueueInfo::getMaxDepth);
-            case 4 -> Comparator.comparingDouble(QueueInfo::getDepthPercentage);
-            default -> Comparator.comparing(QueueInfo::getQueue);
+        QueueSortOrder.Column column = switch (sortColumn) {
+            case 0 -> QueueSortOrder.Column.LABEL;
+            case 2 -> QueueSortOrder.Column.DEPTH;
+            case 3 -> QueueSortOrder.Column.MAX_DEPTH;
+            case 4 -> QueueSortOrder.Column.PERCENTAGE;
+            default -> QueueSortOrder.Column.NAME;
         };
-
-        if (!sortAscending) {
-            comparator = comparator.reversed();
-        }
-
-        queues.sort(comparator);
+        new QueueSortOrder(column, sortAscending).sort(queues);
     }
 }
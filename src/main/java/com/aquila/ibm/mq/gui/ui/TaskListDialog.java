@@ -0,0 +1,171 @@
+package com.aquila.ibm.mq.gui.ui;
+
+import com.aquila.ibm.mq.gui.util.TaskService;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.*;
+
+import java.util.List;
+
+/**
+ * Window listing the running, queued and recent background tasks with how long they waited
+ * and ran. The selected task can be cancelled. It does not block the main window.
+ */
+public class TaskListDialog {
+    // Refresh of the running times while a task is active
+    private static final int TICK_MS = 500;
+
+    private final Shell parentShell;
+    private final TaskService taskService;
+    private final Runnable changeListener = this::scheduleRefresh;
+    private Shell shell;
+    private Table taskTable;
+    private Button cancelButton;
+    private List<TaskService.Task<?>> tasks = List.of();
+    private boolean refreshPending;
+    private boolean ticking;
+
+    public TaskListDialog(Shell parent, TaskService taskService) {
+        this.parentShell = parent;
+        this.taskService = taskService;
+    }
+
+    /**
+     * Show the window, or bring it to the front if already open.
+     */
+    public void open() {
+        if (shell != null && !shell.isDisposed()) {
+            shell.setActive();
+            return;
+        }
+        shell = new Shell(parentShell, SWT.DIALOG_TRIM | SWT.RESIZE | SWT.MODELESS);
+        shell.setText("Tasks");
+        shell.setLayout(new GridLayout());
+        createContents();
+
+        shell.setSize(760, 360);
+        shell.setLocation(
+                parentShell.getLocation().x + (parentShell.getSize().x - shell.getSize().x) / 2,
+                parentShell.getLocation().y + (parentShell.getSize().y - shell.getSize().y) / 2
+        );
+        taskService.addChangeListener(changeListener);
+        shell.addDisposeListener(e -> taskService.removeChangeListener(changeListener));
+        refresh();
+        shell.open();
+    }
+
+    public boolean isDisposed() {
+        return shell == null || shell.isDisposed();
+    }
+
+    private void createContents() {
+        taskTable = new Table(shell, SWT.BORDER | SWT.SINGLE | SWT.FULL_SELECTION);
+        taskTable.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+        taskTable.setHeaderVisible(true);
+        taskTable.setLinesVisible(true);
+        addColumn("Task", 230, SWT.LEFT);
+        addColumn("Queue Manager", 140, SWT.LEFT);
+        addColumn("State", 80, SWT.LEFT);
+        addColumn("Waited", 70, SWT.RIGHT);
+        addColumn("Ran", 70, SWT.RIGHT);
+        addColumn("Error", 150, SWT.LEFT);
+        taskTable.addListener(SWT.Selection, e -> updateButtons());
+
+        Composite buttons = new Composite(shell, SWT.NONE);
+        buttons.setLayoutData(new GridData(SWT.END, SWT.CENTER, false, false));
+        buttons.setLayout(new GridLayout(2, true));
+
+        cancelButton = new Button(buttons, SWT.PUSH);
+        cancelButton.setText("Cancel Task");
+        cancelButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        cancelButton.addListener(SWT.Selection, e -> cancelSelected());
+
+        Button closeButton = new Button(buttons, SWT.PUSH);
+        closeButton.setText("Close");
+        closeButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        closeButton.addListener(SWT.Selection, e -> shell.dispose());
+    }
+
+    private void addColumn(String text, int width, int style) {
+        TableColumn column = new TableColumn(taskTable, style);
+        column.setText(text);
+        column.setWidth(width);
+    }
+
+    /**
+     * Called on any thread by the task service, coalesced into one refresh on the UI thread.
+     */
+    private void scheduleRefresh() {
+        Display display = parentShell.getDisplay();
+        synchronized (this) {
+            if (refreshPending || display.isDisposed()) {
+                return;
+            }
+            refreshPending = true;
+        }
+        display.asyncExec(() -> {
+            synchronized (this) {
+                refreshPending = false;
+            }
+            refresh();
+        });
+    }
+
+    private void refresh() {
+        if (isDisposed()) {
+            return;
+        }
+        TaskService.Task<?> selected = getSelectedTask();
+        tasks = taskService.getTasks();
+
+        taskTable.setRedraw(false);
+        taskTable.removeAll();
+        boolean active = false;
+        for (TaskService.Task<?> task : tasks) {
+            TableItem item = new TableItem(taskTable, SWT.NONE);
+            item.setText(0, task.getName());
+            item.setText(1, task.getConnectionId() != null ? task.getConnectionId() : "");
+            item.setText(2, task.getState().name().toLowerCase());
+            item.setText(3, formatMillis(task.getWaitMillis()));
+            item.setText(4, task.getState() == TaskService.State.QUEUED ? "" : formatMillis(task.getRunMillis()));
+            item.setText(5, task.getError() != null ? task.getError() : "");
+            if (task == selected) {
+                taskTable.setSelection(item);
+            }
+            active |= !task.getState().isDone();
+        }
+        taskTable.setRedraw(true);
+        updateButtons();
+
+        // The times of active tasks move on without any change to be told about
+        if (active && !ticking) {
+            ticking = true;
+            shell.getDisplay().timerExec(TICK_MS, () -> {
+                ticking = false;
+                refresh();
+            });
+        }
+    }
+
+    private TaskService.Task<?> getSelectedTask() {
+        int index = taskTable.getSelectionIndex();
+        return index >= 0 && index < tasks.size() ? tasks.get(index) : null;
+    }
+
+    private void updateButtons() {
+        TaskService.Task<?> task = getSelectedTask();
+        cancelButton.setEnabled(task != null && !task.getState().isDone() && !task.isCancelled());
+    }
+
+    private void cancelSelected() {
+        TaskService.Task<?> task = getSelectedTask();
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    private static String formatMillis(long millis) {
+        return millis < 1000 ? millis + " ms" : String.format("%.1f s", millis / 1000.0);
+    }
+}
@@ -0,0 +1,122 @@
+package com.aquila.ibm.mq.gui.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Plays alert sounds on its own thread. Requesting a sound never waits: it only flags the
+ * sound as pending, and a burst of requests plays the sound once. Requests arriving within
+ * the coalescing window after a sound was played are dropped.
+ */
+public class AlertSoundEngine {
+    private static final Logger logger = LoggerFactory.getLogger(AlertSoundEngine.class);
+    public static final long DEFAULT_COALESCE_WINDOW_MS = 2000;
+
+    private final Consumer<SoundPlayer.Sound> output;
+    private final Map<SoundPlayer.Sound, AtomicBoolean> pending = new EnumMap<>(SoundPlayer.Sound.class);
+    // Only touched on the engine thread
+    private final Map<SoundPlayer.Sound, Long> lastPlayedAt = new EnumMap<>(SoundPlayer.Sound.class);
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong played = new AtomicLong();
+    private volatile long coalesceWindowMillis = DEFAULT_COALESCE_WINDOW_MS;
+    private ExecutorService executor;
+    private boolean shutdown;
+
+    public AlertSoundEngine(SoundPlayer soundPlayer) {
+        this(soundPlayer::play);
+    }
+
+    /**
+     * @param output Plays a sound, called on the engine thread only
+     */
+    public AlertSoundEngine(Consumer<SoundPlayer.Sound> output) {
+        this.output = output;
+        for (SoundPlayer.Sound sound : SoundPlayer.Sound.values()) {
+            pending.put(sound, new AtomicBoolean());
+        }
+    }
+
+    /**
+     * Ask for a sound to be played, returning immediately.
+     */
+    public void request(SoundPlayer.Sound sound) {
+        requested.incrementAndGet();
+        if (pending.get(sound).compareAndSet(false, true)) {
+            try {
+                getExecutor().execute(() -> play(sound));
+            } catch (RejectedExecutionException e) {
+                pending.get(sound).set(false);
+            }
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (shutdown) {
+            throw new RejectedExecutionException("Alert sound engine is shut down");
+        }
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "AlertSound");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    private void play(SoundPlayer.Sound sound) {
+        // Requests made while this one waited are merged into it
+        pending.get(sound).set(false);
+        long now = System.nanoTime();
+        Long last = lastPlayedAt.get(sound);
+        if (last != null && now - last < coalesceWindowMillis * 1_000_000) {
+            return;
+        }
+        lastPlayedAt.put(sound, now);
+        try {
+            output.accept(sound);
+            played.incrementAndGet();
+        } catch (Exception e) {
+            logger.error("Failed to play alert sound", e);
+        }
+    }
+
+    public long getCoalesceWindowMillis() {
+        return coalesceWindowMillis;
+    }
+
+    public void setCoalesceWindowMillis(long coalesceWindowMillis) {
+        this.coalesceWindowMillis = Math.max(0, coalesceWindowMillis);
+    }
+
+    /**
+     * @return Sounds requested since the engine was created
+     */
+    public long getRequestedCount() {
+        return requested.get();
+    }
+
+    /**
+     * @return Sounds actually played, the others were coalesced
+     */
+    public long getPlayedCount() {
+        return played.get();
+    }
+
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.aquila.ibm.mq.gui.util;
+
+/**
+ * Largest-triangle-three-buckets downsampling of a line. The first and last points are kept
+ * and every bucket in between keeps the point forming the largest triangle with the point
+ * kept before it and the average of the next bucket, so spikes survive the reduction.
+ */
+public final class Lttb {
+
+    public record Points(double[] x, double[] y) {
+        public int size() {
+            return x.length;
+        }
+    }
+
+    private Lttb() {
+    }
+
+    /**
+     * @param x Times, in ascending order
+     * @param y Values
+     * @param offset First point to use
+     * @param length Number of points to use
+     * @param threshold Largest number of points returned, at least 3 to downsample
+     * @return The points, all of them when there are no more than {@code threshold}
+     */
+    public static Points downsample(long[] x, int[] y, int offset, int length, int threshold) {
+        if (length <= threshold || threshold < 3) {
+            double[] outX = new double[length];
+            double[] outY = new double[length];
+            for (int i = 0; i < length; i++) {
+                outX[i] = x[offset + i];
+                outY[i] = y[offset + i];
+            }
+            return new Points(outX, outY);
+        }
+
+        double[] outX = new double[threshold];
+        double[] outY = new double[threshold];
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        int kept = offset;
+        outX[0] = x[kept];
+        outY[0] = y[kept];
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket, the last point for the last bucket
+            int nextStart = offset + (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min(offset + (int) ((bucket + 2) * bucketSize) + 1, offset + length);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            if (nextCount > 0) {
+                averageX /= nextCount;
+                averageY /= nextCount;
+            } else {
+                averageX = x[offset + length - 1];
+                averageY = y[offset + length - 1];
+            }
+
+            int start = offset + (int) (bucket * bucketSize) + 1;
+            int end = offset + (int) ((bucket + 1) * bucketSize) + 1;
+            double keptX = x[kept];
+            double keptY = y[kept];
+            double maxArea = -1;
+            int selected = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((keptX - averageX) * (y[i] - keptY) - (keptX - x[i]) * (averageY - keptY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = i;
+                }
+            }
+            outX[bucket + 1] = x[selected];
+            outY[bucket + 1] = y[selected];
+            kept = selected;
+        }
+
+        outX[threshold - 1] = x[offset + length - 1];
+        outY[threshold - 1] = y[offset + length - 1];
+        return new Points(outX, outY);
+    }
+}
@@ -4,53 +4,93 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sound.sampled.*;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
 
+/**
+ * Plays the alert sounds. Tones are rendered once and each sound keeps its opened Clip,
+ * so playing only rewinds and starts it. Playback is asynchronous.
+ */
 public class SoundPlayer {
     private static final Logger logger = LoggerFactory.getLogger(SoundPlayer.class);
     private static final int SAMPLE_RATE = 8000;
+    private static final AudioFormat AUDIO_FORMAT = new AudioFormat(SAMPLE_RATE, 8, 1, true, false);
+
+    public enum Sound {
+        /** Two short high beeps. */
+        ALERT,
+        /** One longer low beep. */
+        WARNING
+    }
+
+    private final Map<Sound, byte[]> buffers = new EnumMap<>(Sound.class);
+    private final Map<Sound, Clip> clips = new EnumMap<>(Sound.class);
+    private boolean lineUnsupported;
+
+    public SoundPlayer() {
+        buffers.put(Sound.ALERT, concat(generateTone(800, 200), new byte[samples(50)], generateTone(800, 200)));
+        buffers.put(Sound.WARNING, generateTone(600, 300));
+    }
 
     public void playAlert() {
-        playTone(800, 200);
-        sleep(50);
-        playTone(800, 200);
+        play(Sound.ALERT);
     }
 
     public void playWarning() {
-        playTone(600, 300);
+        play(Sound.WARNING);
     }
 
-    private void playTone(int frequency, int duration) {
-        try {
-            byte[] buffer = generateTone(frequency, duration);
-            AudioFormat audioFormat = new AudioFormat(SAMPLE_RATE, 8, 1, true, false);
-
-            try (ByteArrayInputStream bais = new ByteArrayInputStream(buffer);
-                 AudioInputStream audioInputStream = new AudioInputStream(bais, audioFormat, buffer.length)) {
-
-                DataLine.Info info = new DataLine.Info(Clip.class, audioFormat);
-                if (!AudioSystem.isLineSupported(info)) {
-                    logger.warn("Audio line not supported, using system beep");
-                    java.awt.Toolkit.getDefaultToolkit().beep();
-                    return;
-                }
-
-                Clip clip = (Clip) AudioSystem.getLine(info);
-                clip.open(audioInputStream);
-                clip.start();
-
-                Thread.sleep(duration);
-                clip.close();
-            }
-        } catch (LineUnavailableException | IOException | InterruptedException e) {
-            logger.error("Failed to play tone, falling back to system beep", e);
+    /**
+     * Start a sound and return without waiting for it, restarting it if still playing.
+     */
+    public synchronized void play(Sound sound) {
+        Clip clip = getClip(sound);
+        if (clip == null) {
             java.awt.Toolkit.getDefaultToolkit().beep();
+            return;
         }
+        clip.stop();
+        clip.setFramePosition(0);
+        clip.start();
     }
 
-    private byte[] generateTone(int frequency, int duration) {
-        int samples = (int) ((duration / 1000.0) * SAMPLE_RATE);
+    private Clip getClip(Sound sound) {
+        Clip clip = clips.get(sound);
+        if (clip != null || lineUnsupported) {
+            return clip;
+        }
+        DataLine.Info info = new DataLine.Info(Clip.class, AUDIO_FORMAT);
+        if (!AudioSystem.isLineSupported(info)) {
+            logger.warn("Audio line not supported, using system beep");
+            lineUnsupported = true;
+            return null;
+        }
+        try {
+            byte[] buffer = buffers.get(sound);
+            clip = (Clip) AudioSystem.getLine(info);
+            clip.open(AUDIO_FORMAT, buffer, 0, buffer.length);
+            clips.put(sound, clip);
+            return clip;
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            logger.error("Failed to open audio clip, falling back to system beep", e);
+            return null;
+        }
+    }
+
+    /**
+     * Release the cached clips.
+     */
+    public synchronized void close() {
+        clips.values().forEach(Clip::close);
+        clips.clear();
+    }
+
+    private static int samples(int duration) {
+        return (int) ((duration / 1000.0) * SAMPLE_RATE);
+    }
+
+    private static byte[] generateTone(int frequency, int duration) {
+        int samples = samples(duration);
         byte[] buffer = new byte[samples];
 
         for (int i = 0; i < samples; i++) {
@@ -61,6 +101,20 @@ public class SoundPlayer {
         return buffer;
     }
 
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] buffer = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, buffer, offset, part.length);
+            offset += part.length;
+        }
+        return buffer;
+    }
+
     private void sleep(long millis) {
         try {
             Thread.sleep(millis);
@@ -72,7 +126,7 @@ public class SoundPlayer {
     public void test() {
         logger.info("Testing alert sound...");
         playAlert();
-        sleep(500);
+        sleep(1000);
         logger.info("Testing warning sound...");
         playWarning();
     }
@@ -0,0 +1,431 @@
+package com.aquila.ibm.mq.gui.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs the background work of the application on named virtual threads. At most
+ * {@code perConnection} tasks of the same queue manager run at once, the others wait their
+ * turn, so a burst of clicks does not open a burst of PCF conversations. A task submitted
+ * with the key of a task still queued or running joins it instead of running twice. Tasks are
+ * cancelled through their {@link CancellationToken}, and the running and recent tasks can be
+ * listed with their timings.
+ */
+public class TaskService implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(TaskService.class);
+    public static final int DEFAULT_PER_CONNECTION = 2;
+    // Finished tasks kept for the task list
+    private static final int HISTORY_SIZE = 50;
+    // Connection of the tasks not tied to a queue manager
+    private static final String NO_CONNECTION = "";
+    // Time close() gives the running tasks to reach their next check
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isDone() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    /**
+     * Work of a task. Long work checks the token between its steps.
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(CancellationToken token) throws Exception;
+    }
+
+    /**
+     * Tells a task it was cancelled. The thread running it is not interrupted, since an
+     * interrupted PCF conversation leaves its agent unusable: the task stops at its next check,
+     * and whatever it returns afterwards is dropped.
+     */
+    public static final class CancellationToken {
+        private volatile boolean cancelled;
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @throws CancellationException If the task was cancelled
+         */
+        public void throwIfCancelled() {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * A submitted task. Its result is given by {@link #getFuture()}, which completes
+     * exceptionally with a {@link CancellationException} if the task was cancelled.
+     */
+    public final class Task<T> {
+        private final long id;
+        private final String name;
+        private final String connectionId;
+        private final String key;
+        private final Work<T> work;
+        private final CancellationToken token = new CancellationToken();
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long submittedAt;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile State state = State.QUEUED;
+        private volatile String error;
+
+        private Task(long id, String name, String connectionId, String key, Work<T> work) {
+            this.id = id;
+            this.name = name;
+            this.connectionId = connectionId;
+            this.key = key;
+            this.work = work;
+            this.submittedAt = clock.getAsLong();
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Connection the task works on, null if none
+         */
+        public String getConnectionId() {
+            return NO_CONNECTION.equals(connectionId) ? null : connectionId;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * @return Message of the failure, null unless {@link State#FAILED}
+         */
+        public String getError() {
+            return error;
+        }
+
+        public CompletableFuture<T> getFuture() {
+            return future;
+        }
+
+        public boolean isCancelled() {
+            return token.isCancelled();
+        }
+
+        /**
+         * @return Time spent waiting for a free slot, up to now if still queued
+         */
+        public long getWaitMillis() {
+            long started = startedAt;
+            return (started != 0 ? started : finishedAt != 0 ? finishedAt : clock.getAsLong()) - submittedAt;
+        }
+
+        /**
+         * @return Time spent running, up to now if still running, 0 if never started
+         */
+        public long getRunMillis() {
+            long started = startedAt;
+            if (started == 0) {
+                return 0;
+            }
+            long finished = finishedAt;
+            return (finished != 0 ? finished : clock.getAsLong()) - started;
+        }
+
+        /**
+         * Cancel the task: a queued task never runs, a running task is told through its token.
+         */
+        public void cancel() {
+            TaskService.this.cancel(this);
+        }
+
+        @Override
+        public String toString() {
+            return name + " [" + state + "]";
+        }
+    }
+
+    private final int perConnection;
+    private final LongSupplier clock;
+    private final ExecutorService executor;
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<String, Task<?>> inFlight = new HashMap<>();
+    private final Map<String, Integer> running = new HashMap<>();
+    private final Map<String, Deque<Task<?>>> waiting = new HashMap<>();
+    private final Map<Long, Task<?>> active = new LinkedHashMap<>();
+    private final Deque<Task<?>> history = new ArrayDeque<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private boolean closed;
+
+    public TaskService() {
+        this(DEFAULT_PER_CONNECTION, System::currentTimeMillis);
+    }
+
+    public TaskService(int perConnection, LongSupplier clock) {
+        this.perConnection = perConnection;
+        this.clock = clock;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Task-", 1).factory());
+    }
+
+    /**
+     * Run a task on a connection, after the tasks of that connection already running if it
+     * has no free slot.
+     * @param connectionId Connection the task works on, null if none
+     * @param key Identifies the work, e.g. the queues being loaded: while a task of the same key
+     *            is queued or running, it is returned instead of a new one. Null to always run.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Task<T> submit(String name, String connectionId, String key, Work<T> work) {
+        Task<T> task;
+        synchronized (this) {
+            if (key != null) {
+                Task<?> existing = inFlight.get(key);
+                if (existing != null) {
+                    logger.debug("Joined the running task {}", existing);
+                    return (Task<T>) existing;
+                }
+            }
+            task = new Task<>(ids.incrementAndGet(), name, connectionId != null ? connectionId : NO_CONNECTION, key, work);
+            if (closed) {
+                task.token.cancelled = true;
+                task.state = State.CANCELLED;
+                task.future.cancel(false);
+                return task;
+            }
+            if (key != null) {
+                inFlight.put(key, task);
+            }
+            active.put(task.id, task);
+            if (running.getOrDefault(task.connectionId, 0) < perConnection) {
+                start(task);
+            } else {
+                waiting.computeIfAbsent(task.connectionId, c -> new ArrayDeque<>()).add(task);
+            }
+        }
+        fireChanged();
+        return task;
+    }
+
+    /**
+     * Shorthand for a task without a result.
+     */
+    public Task<Void> submit(String name, String connectionId, String key, Runnable work) {
+        return submit(name, connectionId, key, token -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void start(Task<?> task) {
+        running.merge(task.connectionId, 1, Integer::sum);
+        task.state = State.RUNNING;
+        task.startedAt = clock.getAsLong();
+        try {
+            executor.execute(() -> run(task));
+        } catch (RejectedExecutionException e) {
+            // Closed meanwhile
+            running.merge(task.connectionId, -1, Integer::sum);
+            finish(task, State.CANCELLED, null, null);
+            task.future.cancel(false);
+        }
+    }
+
+    private <T> void run(Task<T> task) {
+        T result = null;
+        Throwable failure = null;
+        try {
+            if (!task.token.isCancelled()) {
+                result = task.work.run(task.token);
+            }
+        } catch (Throwable t) {
+            failure = t;
+        }
+        State state;
+        if (task.token.isCancelled()) {
+            state = State.CANCELLED;
+        } else if (failure != null) {
+            state = State.FAILED;
+            logger.error("Task {} failed", task.name, failure);
+        } else {
+            state = State.SUCCEEDED;
+        }
+        synchronized (this) {
+            finish(task, state, result, failure);
+            running.merge(task.connectionId, -1, Integer::sum);
+            startNext(task.connectionId);
+        }
+        complete(task, state, result, failure);
+        fireChanged();
+    }
+
+    private void startNext(String connectionId) {
+        Deque<Task<?>> queue = waiting.get(connectionId);
+        while (queue != null && !queue.isEmpty() && running.getOrDefault(connectionId, 0) < perConnection) {
+            Task<?> next = queue.poll();
+            if (next.state == State.QUEUED) {
+                start(next);
+            }
+        }
+        if (queue != null && queue.isEmpty()) {
+            waiting.remove(connectionId);
+        }
+    }
+
+    /**
+     * Record the end of a task. Must hold the lock.
+     */
+    private void finish(Task<?> task, State state, Object result, Throwable failure) {
+        task.state = state;
+        task.finishedAt = clock.getAsLong();
+        if (state == State.FAILED && failure != null) {
+            task.error = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+        }
+        if (task.key != null) {
+            inFlight.remove(task.key, task);
+        }
+        active.remove(task.id);
+        history.addFirst(task);
+        while (history.size() > HISTORY_SIZE) {
+            history.removeLast();
+        }
+    }
+
+    /**
+     * Complete the future outside the lock, as its callbacks may submit other tasks.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> void complete(Task<T> task, State state, Object result, Throwable failure) {
+        switch (state) {
+            case SUCCEEDED -> task.future.complete((T) result);
+            case FAILED -> task.future.completeExceptionally(failure);
+            default -> task.future.cancel(false);
+        }
+    }
+
+    private void cancel(Task<?> task) {
+        boolean dequeued = false;
+        synchronized (this) {
+            if (task.state.isDone()) {
+                return;
+            }
+            task.token.cancel();
+            // Submitting the same work again runs it afresh rather than joining a cancelled task
+            if (task.key != null) {
+                inFlight.remove(task.key, task);
+            }
+            if (task.state == State.QUEUED) {
+                Deque<Task<?>> queue = waiting.get(task.connectionId);
+                if (queue != null) {
+                    queue.remove(task);
+                }
+                finish(task, State.CANCELLED, null, null);
+                dequeued = true;
+            }
+        }
+        if (dequeued) {
+            complete(task, State.CANCELLED, null, null);
+        }
+        fireChanged();
+    }
+
+    /**
+     * Cancel every queued and running task of a connection, e.g. when it is closed.
+     */
+    public void cancelConnection(String connectionId) {
+        for (Task<?> task : getTasks()) {
+            if (!task.getState().isDone() && connectionId.equals(task.getConnectionId())) {
+                task.cancel();
+            }
+        }
+    }
+
+    /**
+     * @return Running and queued tasks in submission order, then the recently finished ones,
+     *         latest first
+     */
+    public synchronized List<Task<?>> getTasks() {
+        List<Task<?>> tasks = new ArrayList<>(active.size() + history.size());
+        tasks.addAll(active.values());
+        tasks.addAll(history);
+        return tasks;
+    }
+
+    /**
+     * @return Number of tasks queued or running
+     */
+    public synchronized int getActiveCount() {
+        return active.size();
+    }
+
+    /**
+     * Be told when a task is submitted, starts or ends. Called on any thread.
+     */
+    public void addChangeListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                logger.warn("Task listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Cancel every task and wait a bounded time for the running ones to stop. Threads are
+     * not interrupted, a task still running after the wait is left to finish on its own.
+     */
+    @Override
+    public void close() {
+        List<Task<?>> tasks;
+        synchronized (this) {
+            closed = true;
+            tasks = new ArrayList<>(active.values());
+        }
+        tasks.forEach(Task::cancel);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Background tasks still running after {}s", CLOSE_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.aquila.ibm.mq.gui.alert;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+import com.aquila.ibm.mq.gui.model.AlertSinkConfig;
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertDispatcherTest {
+
+    private static AlertManager.AlertEvent event(int i) {
+        return new AlertManager.AlertEvent("QM1", "APP.Q" + i, i, 100,
+                ThresholdConfig.AlertLevel.NONE, ThresholdConfig.AlertLevel.WARNING, i);
+    }
+
+    private static AlertSinkConfig config(int capacity, int batchSize) {
+        AlertSinkConfig config = new AlertSinkConfig("test", AlertSinkConfig.Type.FILE);
+        config.setQueueCapacity(capacity);
+        config.setBatchSize(batchSize);
+        config.setLingerMillis(50);
+        config.setInitialBackoffMillis(10);
+        return config;
+    }
+
+    private static void awaitDelivered(AlertDispatcher dispatcher, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dispatcher.getMetrics().get(0).delivered() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testAlertsAreSentInBatches() throws Exception {
+        List<List<AlertManager.AlertEvent>> batches = new CopyOnWriteArrayList<>();
+        AlertDispatcher dispatcher = new AlertDispatcher();
+        dispatcher.addSink(new RecordingSink(batches::add), config(1000, 50));
+
+        for (int i = 0; i < 200; i++) {
+            dispatcher.publish(event(i));
+        }
+        awaitDelivered(dispatcher, 200);
+        AlertDispatcher.SinkMetrics metrics = dispatcher.getMetrics().get(0);
+        dispatcher.close();
+
+        assertEquals(200, metrics.delivered());
+        assertEquals(0, metrics.queued());
+        int total = 0;
+        for (List<AlertManager.AlertEvent> batch : batches) {
+            assertTrue(batch.size() <= 50);
+            total += batch.size();
+        }
+        assertEquals(200, total);
+        assertTrue(batches.size() <= 8, batches.size() + " batches");
+        assertEquals(0, batches.get(0).get(0).depth());
+    }
+
+    @Test
+    void testFailedBatchIsRetried() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        List<List<AlertManager.AlertEvent>> batches = new CopyOnWriteArrayList<>();
+        AlertDispatcher dispatcher = new AlertDispatcher();
+        dispatcher.addSink(new RecordingSink(batch -> {
+            if (calls.incrementAndGet() <= 2) {
+                throw new IllegalStateException("unavailable");
+            }
+            batches.add(batch);
+        }), config(10, 10));
+
+        dispatcher.publish(event(1));
+        awaitDelivered(dispatcher, 1);
+
+        AlertDispatcher.SinkMetrics metrics = dispatcher.getMetrics().get(0);
+        dispatcher.close();
+        assertEquals(1, metrics.delivered());
+        assertEquals(2, metrics.failedAttempts());
+        assertEquals(0, metrics.dropped());
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void testFullQueueDropsOldestWithoutBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<AlertManager.AlertEvent> received = new CopyOnWriteArrayList<>();
+        AlertDispatcher dispatcher = new AlertDispatcher();
+        dispatcher.addSink(new RecordingSink(batch -> {
+            release.await();
+            received.addAll(batch);
+        }), config(10, 1));
+
+        dispatcher.publish(event(0));
+        // Let the sink take the first alert and block on it
+        Thread.sleep(200);
+        long start = System.nanoTime();
+        for (int i = 1; i <= 100; i++) {
+            dispatcher.publish(event(i));
+        }
+        long publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(10, dispatcher.getMetrics().get(0).queued());
+        release.countDown();
+        awaitDelivered(dispatcher, 11);
+
+        AlertDispatcher.SinkMetrics metrics = dispatcher.getMetrics().get(0);
+        dispatcher.close();
+        assertTrue(publishMillis < 100, "publishing took " + publishMillis + " ms");
+        assertEquals(90, metrics.dropped());
+        List<Integer> depths = new ArrayList<>();
+        received.forEach(e -> depths.add(e.depth()));
+        assertEquals(List.of(0, 91, 92, 93, 94, 95, 96, 97, 98, 99, 100), depths);
+    }
+
+    interface Sender {
+        void send(List<AlertManager.AlertEvent> batch) throws Exception;
+    }
+
+    private static final class RecordingSink implements AlertSink {
+        private final Sender sender;
+
+        private RecordingSink(Sender sender) {
+            this.sender = sender;
+        }
+
+        @Override
+        public String getName() {
+            return "recording";
+        }
+
+        @Override
+        public void send(List<AlertManager.AlertEvent> batch) throws Exception {
+            sender.send(batch);
+        }
+    }
+}
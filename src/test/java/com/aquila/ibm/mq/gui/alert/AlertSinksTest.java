@@ -0,0 +1,85 @@
+package com.aquila.ibm.mq.gui.alert;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertSinksTest {
+    private static final AlertManager.AlertEvent CRITICAL = new AlertManager.AlertEvent("QM1", "APP.ORDERS", 95, 100,
+            ThresholdConfig.AlertLevel.WARNING, ThresholdConfig.AlertLevel.CRITICAL, 0);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testFileSinkAppendsJsonLines() throws Exception {
+        Path file = dir.resolve("alerts.log");
+        FileAlertSink sink = new FileAlertSink("file", file);
+        sink.send(List.of(CRITICAL));
+        sink.send(List.of(CRITICAL));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"queue\":\"APP.ORDERS\""));
+        assertTrue(lines.get(0).contains("\"connection\":\"QM1\""));
+        assertTrue(lines.get(0).contains("\"newLevel\":\"CRITICAL\""));
+    }
+
+    @Test
+    void testSyslogSinkSendsOneDatagramPerAlert() throws Exception {
+        try (DatagramSocket server = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(5000);
+            SyslogAlertSink sink = new SyslogAlertSink("syslog", "127.0.0.1", server.getLocalPort());
+            sink.send(List.of(CRITICAL));
+            sink.close();
+
+            DatagramPacket packet = new DatagramPacket(new byte[1024], 1024);
+            server.receive(packet);
+            String message = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8);
+            // user facility (1), critical severity (2)
+            assertTrue(message.startsWith("<10>1 1970-01-01T00:00:00Z "), message);
+            assertTrue(message.endsWith("Queue APP.ORDERS on QM1: WARNING -> CRITICAL (depth: 95/100)"), message);
+        }
+    }
+
+    @Test
+    void testWebhookSinkPostsJsonArray() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        AtomicReference<String> body = new AtomicReference<>();
+        server.createContext("/alerts", exchange -> {
+            body.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            int status = body.get().contains("FAIL") ? 500 : 204;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/alerts");
+            WebhookAlertSink sink = new WebhookAlertSink("webhook", uri);
+            sink.send(List.of(CRITICAL, CRITICAL));
+            assertTrue(body.get().startsWith("[{"));
+
+            AlertManager.AlertEvent failing = new AlertManager.AlertEvent("QM1", "FAIL", 0, 0,
+                    ThresholdConfig.AlertLevel.NONE, ThresholdConfig.AlertLevel.WARNING, 0);
+            assertThrows(IOException.class, () -> sink.send(List.of(failing)));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.aquila.ibm.mq.gui.config;
+
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertHistoryTest {
+    @TempDir
+    Path dir;
+
+    private static AlertManager.AlertEvent event(String queueName, long timestamp) {
+        return event("QM1", queueName, timestamp);
+    }
+
+    private static AlertManager.AlertEvent event(String connectionId, String queueName, long timestamp) {
+        return new AlertManager.AlertEvent(connectionId, queueName, 10, 100,
+                ThresholdConfig.AlertLevel.NONE, ThresholdConfig.AlertLevel.WARNING, timestamp);
+    }
+
+    @Test
+    void testRingKeepsLatestEventsAndIndexesThemByQueue() {
+        AlertHistory history = new AlertHistory(4, null);
+        for (int i = 0; i < 10; i++) {
+            history.add(event(i % 2 == 0 ? "APP.EVEN" : "APP.ODD", i));
+        }
+
+        List<Long> timestamps = new ArrayList<>();
+        history.getEvents().forEach(e -> timestamps.add(e.timestamp()));
+        assertEquals(List.of(6L, 7L, 8L, 9L), timestamps);
+        assertEquals(2, history.getEvents("QM1", "APP.ODD").size());
+        assertEquals(9, history.getEvents("QM1", "APP.ODD").get(1).timestamp());
+        assertTrue(history.getEvents("QM1", "APP.NONE").isEmpty());
+    }
+
+    @Test
+    void testEvictedEventsAreQueriedFromTheFile() throws Exception {
+        Path file = dir.resolve("alert-history.bin");
+        AlertHistory history = new AlertHistory(3, file);
+        for (int i = 0; i < 10; i++) {
+            history.add(event(i % 2 == 0 ? "APP.EVEN" : "APP.ODD", 1000 + i));
+        }
+        history.close();
+
+        // Reopened, as after a restart: everything is in the file
+        AlertHistory reopened = new AlertHistory(3, file);
+        List<AlertManager.AlertEvent> odd = reopened.query("QM1", "APP.ODD", 1000, 1007);
+        assertEquals(3, odd.size());
+        assertEquals(1005, odd.get(2).timestamp());
+        assertEquals(ThresholdConfig.AlertLevel.WARNING, odd.get(0).newLevel());
+        assertEquals(10, reopened.query(null, null, 0, Long.MAX_VALUE).size());
+        reopened.close();
+    }
+
+    @Test
+    void testSameQueueNameOnTwoConnectionsIsKeptApart() throws Exception {
+        Path file = dir.resolve("alert-history.bin");
+        AlertHistory history = new AlertHistory(2, file);
+        history.add(event("QM1", "DEV.QUEUE.1", 1));
+        history.add(event("QM2", "DEV.QUEUE.1", 2));
+        history.add(event("QM2", "DEV.QUEUE.1", 3));
+
+        assertEquals(List.of(2L, 3L), history.getEvents("QM2", "DEV.QUEUE.1").stream().map(AlertManager.AlertEvent::timestamp).toList());
+        assertTrue(history.getEvents("QM1", "DEV.QUEUE.1").isEmpty());
+        // The first one was evicted to the file
+        List<AlertManager.AlertEvent> qm1 = history.query("QM1", "DEV.QUEUE.1", 0, 10);
+        assertEquals(1, qm1.size());
+        assertEquals("QM1", qm1.get(0).connectionId());
+        assertEquals(3, history.query(null, "DEV.QUEUE.1", 0, 10).size());
+        assertEquals(2, history.query("QM2", null, 0, 10).size());
+        history.close();
+    }
+
+    @Test
+    void testTruncatedRecordIsDropped() throws Exception {
+        Path file = dir.resolve("alert-history.bin");
+        AlertHistory history = new AlertHistory(1, file);
+        history.add(event("APP.A", 1));
+        history.add(event("APP.B", 2));
+        history.close();
+        long complete = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 1, 2}));
+        }
+
+        AlertHistory reopened = new AlertHistory(1, file);
+        assertEquals(complete, Files.size(file));
+        reopened.add(event("APP.C", 3));
+        reopened.add(event("APP.D", 4));
+        reopened.close();
+        AlertHistory read = new AlertHistory(1, file);
+        assertEquals(List.of("APP.A", "APP.B", "APP.C", "APP.D"),
+                read.query(null, null, 0, Long.MAX_VALUE).stream().map(AlertManager.AlertEvent::queueName).toList());
+        read.close();
+    }
+
+    @Test
+    void testConcurrentWritersLoseNothing() throws Exception {
+        Path file = dir.resolve("alert-history.bin");
+        AlertHistory history = new AlertHistory(64, file);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String queueName = "APP." + t;
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    history.add(event(queueName, i));
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(64, history.getEvents().size());
+        assertEquals(4000, history.query(null, null, 0, Long.MAX_VALUE).size());
+        history.close();
+    }
+}
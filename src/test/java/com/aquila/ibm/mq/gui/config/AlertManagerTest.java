@@ -0,0 +1,173 @@
+package com.aquila.ibm.mq.gui.config;
+
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertManagerTest {
+    private static final ThresholdConfig.AlertLevel NONE = ThresholdConfig.AlertLevel.NONE;
+    private static final ThresholdConfig.AlertLevel WARNING = ThresholdConfig.AlertLevel.WARNING;
+
+    private final ThresholdConfig threshold = new ThresholdConfig("APP", 70, 90);
+    private AlertManager alertManager;
+    private long now = 1_000_000;
+
+    @BeforeEach
+    void setUp() {
+        alertManager = new AlertManager(null);
+        alertManager.setSoundEnabled(false);
+        alertManager.setClock(() -> now);
+    }
+
+    @AfterEach
+    void tearDown() {
+        alertManager.close();
+    }
+
+    private ThresholdConfig.AlertLevel check(String queueName, int depth) {
+        QueueInfo queue = new QueueInfo(queueName);
+        queue.setMaxDepth(100);
+        queue.setCurrentDepth(depth);
+        return alertManager.checkQueue(queue, threshold);
+    }
+
+    @Test
+    void testHoveringQueueDoesNotFlip() {
+        assertEquals(WARNING, check("APP.Q", 71));
+        for (int i = 0; i < 20; i++) {
+            now += 5000;
+            assertEquals(WARNING, check("APP.Q", i % 2 == 0 ? 69 : 71));
+        }
+        assertEquals(1, alertManager.getAlertHistory().size());
+    }
+
+    @Test
+    void testLowerLevelMustHoldForTheDwellTime() {
+        check("APP.Q", 75);
+        now += 1000;
+        assertEquals(WARNING, check("APP.Q", 10));
+        now += AlertManager.DEFAULT_CLEAR_DWELL_MS - 1000;
+        // Back up before the dwell time elapsed, then down again: the dwell restarts
+        assertEquals(WARNING, check("APP.Q", 75));
+        now += 1000;
+        assertEquals(WARNING, check("APP.Q", 10));
+        now += AlertManager.DEFAULT_CLEAR_DWELL_MS;
+        assertEquals(NONE, check("APP.Q", 10));
+        assertEquals(2, alertManager.getAlertHistory().size());
+    }
+
+    @Test
+    void testSameQueueNameOnTwoConnectionsIsTrackedApart() {
+        QueueInfo full = new QueueInfo("DEV.QUEUE.1");
+        full.setMaxDepth(100);
+        full.setCurrentDepth(95);
+        QueueInfo empty = new QueueInfo("DEV.QUEUE.1");
+        empty.setMaxDepth(100);
+        for (int i = 0; i < 5; i++) {
+            alertManager.checkQueue("QM1", full, threshold);
+            alertManager.checkQueue("QM2", empty, threshold);
+            now += AlertManager.DEFAULT_CLEAR_DWELL_MS;
+        }
+
+        assertEquals(ThresholdConfig.AlertLevel.CRITICAL, alertManager.getCurrentAlertLevel("QM1", "DEV.QUEUE.1"));
+        assertEquals(NONE, alertManager.getCurrentAlertLevel("QM2", "DEV.QUEUE.1"));
+        // One transition, not one per poll of the other queue manager
+        List<AlertManager.AlertEvent> history = alertManager.getAlertHistory();
+        assertEquals(1, history.size());
+        assertEquals("QM1", history.get(0).connectionId());
+        assertEquals(1, alertManager.getAlertHistory("QM1", "DEV.QUEUE.1").size());
+    }
+
+    @Test
+    void testStormIsSummarised() {
+        alertManager.setStormDetection(10, 10_000);
+        for (int i = 0; i < 300; i++) {
+            check("APP.Q" + i, 95);
+        }
+        assertTrue(alertManager.isStorm());
+        assertEquals(11, alertManager.getAlertHistory().size());
+
+        now += 10_000;
+        check("APP.Q0", 95);
+        List<AlertManager.AlertEvent> history = alertManager.getAlertHistory();
+        AlertManager.AlertEvent summary = history.get(history.size() - 1);
+        assertTrue(AlertManager.isStormSummary(summary));
+        assertEquals(289, summary.depth());
+        assertEquals(ThresholdConfig.AlertLevel.CRITICAL, summary.newLevel());
+
+        // A quiet window ends the storm
+        assertTrue(alertManager.isStorm());
+        now += 10_000;
+        check("APP.Q0", 95);
+        assertFalse(alertManager.isStorm());
+        assertEquals(12, alertManager.getAlertHistory().size());
+    }
+
+    @Test
+    void testGrowingQueueWithoutConsumerIsCritical() {
+        ThresholdConfig trendThreshold = new ThresholdConfig("APP", 70, 90);
+        trendThreshold.setTrendWindowSeconds(60);
+        trendThreshold.setNoConsumerSeconds(30);
+        QueueInfo queue = new QueueInfo("APP.Q");
+        queue.setMaxDepth(10_000);
+        ThresholdConfig.AlertLevel level = NONE;
+        for (int i = 0; i <= 12; i++) {
+            queue.setCurrentDepth(10 + i * 10);
+            level = alertManager.checkQueue(queue, trendThreshold);
+            if (i < 9) {
+                // Window not covered yet
+                assertEquals(NONE, level);
+            }
+            now += 5000;
+        }
+        assertEquals(ThresholdConfig.AlertLevel.CRITICAL, level);
+        assertEquals(2.0, alertManager.getTrend(null, "APP.Q").getSlope(), 1e-9);
+        assertNull(alertManager.getTrend(null, "OTHER"));
+    }
+
+    @Test
+    void testTrendFiresAtOneSecondRefresh() {
+        ThresholdConfig trendThreshold = new ThresholdConfig("APP", 70, 90);
+        trendThreshold.setTrendWindowSeconds(120);
+        trendThreshold.setMinGrowthRate(1.5);
+        QueueInfo queue = new QueueInfo("APP.Q");
+        queue.setMaxDepth(100_000);
+        queue.setOpenInputCount(1);
+        for (int i = 0; i <= 100; i++) {
+            queue.setCurrentDepth(i * 2);
+            alertManager.checkQueue(queue, trendThreshold);
+            now += 1000;
+        }
+        // 3/4 of the window needs 90 s of samples, more than the initial ring holds
+        assertEquals(WARNING, alertManager.getCurrentAlertLevel(null, "APP.Q"));
+        assertEquals(100_000, alertManager.getTrend(null, "APP.Q").getSpanMillis());
+    }
+
+    @Test
+    void testGrowthRateRaisesWarning() {
+        ThresholdConfig trendThreshold = new ThresholdConfig("APP", 70, 90);
+        trendThreshold.setTrendWindowSeconds(20);
+        trendThreshold.setMinGrowthRate(1.5);
+        QueueInfo queue = new QueueInfo("APP.Q");
+        queue.setMaxDepth(10_000);
+        queue.setOpenInputCount(1);
+        for (int i = 0; i <= 5; i++) {
+            queue.setCurrentDepth(i * 5);
+            alertManager.checkQueue(queue, trendThreshold);
+            now += 5000;
+        }
+        assertEquals(NONE, alertManager.getCurrentAlertLevel(null, "APP.Q"));
+        for (int i = 6; i <= 12; i++) {
+            queue.setCurrentDepth(25 + (i - 5) * 10);
+            alertManager.checkQueue(queue, trendThreshold);
+            now += 5000;
+        }
+        assertEquals(WARNING, alertManager.getCurrentAlertLevel(null, "APP.Q"));
+    }
+}
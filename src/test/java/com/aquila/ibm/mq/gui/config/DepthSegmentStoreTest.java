@@ -0,0 +1,137 @@
+package com.aquila.ibm.mq.gui.config;
+
+import com.aquila.ibm.mq.gui.model.DepthHistory;
+import com.aquila.ibm.mq.gui.model.DepthSeries;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DepthSegmentStoreTest {
+    private static final long DAY = 86_400_000L;
+
+    @TempDir
+    Path directory;
+
+    private long startOfDay(int daysAgo) {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(daysAgo).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    private DepthSegmentStore open() {
+        return new DepthSegmentStore(directory, 30, ZoneOffset.UTC);
+    }
+
+    @Test
+    void testSamplesSurviveARestart() {
+        long start = startOfDay(1) + DAY - 60_000;
+        try (DepthSegmentStore store = open()) {
+            // Across midnight: two segments
+            for (int i = 0; i < 24; i++) {
+                store.append("QM1", "APP.A", start + i * 5000L, i);
+                store.append("QM1", "APP.B", start + i * 5000L, 100 + i);
+                store.append("QM 2", "APP.A", start + i * 5000L, -i);
+            }
+        }
+        assertTrue(Files.exists(directory.resolve("QM1").resolve(LocalDate.now(ZoneOffset.UTC) + ".seg")));
+        assertTrue(Files.exists(directory.resolve("QM_2")));
+
+        try (DepthSegmentStore store = open()) {
+            DepthSeries.Samples samples = store.read("QM1", "APP.B", start, start + DAY);
+            assertEquals(24, samples.size());
+            assertEquals(start, samples.times()[0]);
+            assertEquals(123, samples.depths()[23]);
+            assertEquals(12, store.read("QM1", "APP.A", start + 60_000, start + DAY).size());
+
+            DepthHistory history = new DepthHistory();
+            store.replay("QM1", start, start + DAY, history::restore);
+            assertEquals(24, history.get("QM1", "APP.A").size());
+            assertNull(history.get("QM 2", "APP.A"));
+
+            // Appending after a restart continues the segment
+            store.append("QM1", "APP.A", start + 200_000, 7);
+            assertEquals(13, store.read("QM1", "APP.A", start + 60_000, start + DAY).size());
+        }
+    }
+
+    @Test
+    void testCompactionKeepsSamples() throws IOException {
+        long start = startOfDay(2);
+        try (DepthSegmentStore store = open()) {
+            for (int i = 0; i < 1000; i++) {
+                for (int queue = 0; queue < 10; queue++) {
+                    store.append("QM1", "Q" + queue, start + i * 1000L, queue * 1000 + i);
+                }
+            }
+            // Moving to the next day compacts the previous one in the background, today's segment stays raw
+            store.append("QM1", "Q0", startOfDay(0), 1);
+        }
+        Path segment = directory.resolve("QM1").resolve(LocalDate.now(ZoneOffset.UTC).minusDays(2) + ".seg");
+
+        try (DepthSegmentStore store = open()) {
+            store.compact();
+            assertEquals(DepthSegment.HEADER_SIZE + 10 * DepthSegment.INDEX_ENTRY_SIZE
+                    + 10_000 * DepthSegment.COMPACTED_RECORD_SIZE, Files.size(segment));
+            try (DepthSegment compacted = DepthSegment.openForRead(segment)) {
+                assertTrue(compacted.isCompacted());
+                assertEquals(10_000, compacted.getCount());
+            }
+            DepthSeries.Samples samples = store.read("QM1", "Q7", start + 100_000, start + 200_000);
+            assertEquals(100, samples.size());
+            assertEquals(start + 100_000, samples.times()[0]);
+            assertEquals(7100, samples.depths()[0]);
+            assertEquals(7199, samples.depths()[99]);
+            assertEquals(1, store.read("QM1", "Q0", startOfDay(0), startOfDay(0) + DAY).size());
+
+            // Compacting again changes nothing
+            store.compact();
+            assertEquals(100, store.read("QM1", "Q7", start + 100_000, start + 200_000).size());
+        }
+    }
+
+    @Test
+    void testExpiredSegmentsAreDeleted() throws IOException {
+        try (DepthSegmentStore store = open()) {
+            store.append("QM1", "APP.A", startOfDay(40), 1);
+            store.append("QM1", "APP.A", startOfDay(3), 2);
+        }
+        try (DepthSegmentStore store = open()) {
+            store.compact();
+            assertEquals(0, store.read("QM1", "APP.A", startOfDay(40), startOfDay(39)).size());
+            assertEquals(1, store.read("QM1", "APP.A", startOfDay(3), startOfDay(2)).size());
+        }
+        assertFalse(Files.exists(directory.resolve("QM1").resolve(LocalDate.now(ZoneOffset.UTC).minusDays(40) + ".seg.names")));
+    }
+
+    @Test
+    void testSevenDayRead() throws IOException {
+        int queues = 20;
+        long start = startOfDay(7);
+        long appendStart = System.nanoTime();
+        try (DepthSegmentStore store = open()) {
+            for (long time = start; time < startOfDay(0); time += 5000) {
+                for (int queue = 0; queue < queues; queue++) {
+                    store.append("QM1", "APP.Q" + queue, time, (int) (time / 5000 % 1000));
+                }
+            }
+        }
+        long appendMillis = (System.nanoTime() - appendStart) / 1_000_000;
+
+        try (DepthSegmentStore store = open()) {
+            store.compact();
+            long readStart = System.nanoTime();
+            DepthSeries.Samples samples = store.read("QM1", "APP.Q5", start, startOfDay(0));
+            long readMillis = (System.nanoTime() - readStart) / 1_000_000;
+            log.info("7 days of {} queues: appended in {} ms, one queue read in {} ms",
+                    queues, appendMillis, readMillis);
+            assertEquals(7 * 17_280, samples.size());
+        }
+    }
+}
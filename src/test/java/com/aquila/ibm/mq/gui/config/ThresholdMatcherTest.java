@@ -0,0 +1,101 @@
+package com.aquila.ibm.mq.gui.config;
+
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThresholdMatcherTest {
+
+    private static ThresholdConfig rule(int warning, int priority) {
+        ThresholdConfig threshold = new ThresholdConfig(null, warning, 95);
+        threshold.setPriority(priority);
+        return threshold;
+    }
+
+    @Test
+    void testRulePrecedence() {
+        Map<String, ThresholdConfig> rules = new LinkedHashMap<>();
+        rules.put("APP.*", rule(10, 0));
+        rules.put("APP.ORDERS.*", rule(20, 0));
+        rules.put("APP.ORDERS.IN", rule(30, 0));
+        rules.put("regex:APP\\.(ORDERS|PAYMENTS)\\.DLQ", rule(40, 5));
+        rules.put("regex:.*\\.BACKOUT", rule(50, 0));
+        rules.put("regex:(APP)\\..*\\.BACKOUT", rule(60, 0));
+        ThresholdConfig defaults = new ThresholdConfig();
+        ThresholdMatcher matcher = new ThresholdMatcher(rules, defaults);
+
+        // Exact name, whatever the priorities
+        assertEquals(30, matcher.resolve("APP.ORDERS.IN").getWarningThreshold());
+        // Longest generic name
+        assertEquals(20, matcher.resolve("APP.ORDERS.OUT").getWarningThreshold());
+        assertEquals(10, matcher.resolve("APP.STOCK").getWarningThreshold());
+        // Higher priority expression over a longer generic name
+        assertEquals(40, matcher.resolve("APP.ORDERS.DLQ").getWarningThreshold());
+        // Generic name over an expression of the same priority
+        assertEquals(10, matcher.resolve("APP.X.BACKOUT").getWarningThreshold());
+        // First expression in file order, with groups before the matching one
+        assertEquals(50, matcher.resolve("SYS.BACKOUT").getWarningThreshold());
+        assertSame(defaults, matcher.resolve("SYSTEM.DEFAULT.LOCAL.QUEUE"));
+        assertTrue(matcher.isDefault("OTHER"));
+    }
+
+    @Test
+    void testInvalidExpressionIsIgnored() {
+        Map<String, ThresholdConfig> rules = new LinkedHashMap<>();
+        rules.put("regex:APP.(", rule(10, 0));
+        rules.put("regex:APP\\..*", rule(20, 0));
+        ThresholdMatcher matcher = new ThresholdMatcher(rules, new ThresholdConfig());
+
+        assertEquals(20, matcher.resolve("APP.A").getWarningThreshold());
+    }
+
+    @Test
+    void testBackreferencesAndNamedGroupsKeepTheirMeaning() {
+        Map<String, ThresholdConfig> rules = new LinkedHashMap<>();
+        rules.put("regex:(X)\\.IN", rule(10, 2));
+        // Group 1 is the own group of the rule, not the one of the rule above
+        rules.put("regex:([A-Z]+)\\.\\1", rule(20, 1));
+        rules.put("regex:(?<app>[A-Z]+)\\.DLQ", rule(30, 0));
+        rules.put("regex:APP\\..*", rule(50, 0));
+        rules.put("regex:(?<app>[A-Z]+)\\.\\k<app>\\.BACKOUT", rule(40, 0));
+        ThresholdMatcher matcher = new ThresholdMatcher(rules, new ThresholdConfig());
+
+        assertEquals(10, matcher.resolve("X.IN").getWarningThreshold());
+        assertEquals(20, matcher.resolve("APP.APP").getWarningThreshold());
+        assertEquals(30, matcher.resolve("APP.DLQ").getWarningThreshold());
+        assertEquals(40, matcher.resolve("OPS.OPS.BACKOUT").getWarningThreshold());
+        // Combined expression of the same priority, earlier in file order
+        assertEquals(50, matcher.resolve("APP.APP.BACKOUT").getWarningThreshold());
+        assertTrue(matcher.isDefault("OPS.APP.BACKOUT"));
+    }
+
+    @Test
+    void testOwnPatternDetection() {
+        assertTrue(ThresholdMatcher.needsOwnPattern("(A)\\1"));
+        assertTrue(ThresholdMatcher.needsOwnPattern("(?<name>A)"));
+        assertFalse(ThresholdMatcher.needsOwnPattern("(?<=A)B"));
+        assertFalse(ThresholdMatcher.needsOwnPattern("(?<!A)B"));
+        assertFalse(ThresholdMatcher.needsOwnPattern("A\\\\1"));
+        assertFalse(ThresholdMatcher.needsOwnPattern("APP\\.\\d+"));
+    }
+
+    @Test
+    void testResolutionsAreMemoised() {
+        Map<String, ThresholdConfig> rules = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            rules.put("APP." + i + ".*", rule(i % 100, 0));
+            rules.put("regex:APP\\." + i + "\\.DLQ\\d+", rule(99, 1));
+        }
+        ThresholdMatcher matcher = new ThresholdMatcher(rules, new ThresholdConfig());
+
+        ThresholdConfig first = matcher.resolve("APP.500.IN");
+        assertEquals(0, first.getWarningThreshold());
+        assertSame(first, matcher.resolve("APP.500.IN"));
+        assertEquals(99, matcher.resolve("APP.999.DLQ7").getWarningThreshold());
+        assertEquals(2, matcher.memoSize());
+    }
+}
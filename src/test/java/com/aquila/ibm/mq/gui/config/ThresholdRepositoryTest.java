@@ -0,0 +1,157 @@
+package com.aquila.ibm.mq.gui.config;
+
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class ThresholdRepositoryTest {
+    private static final int QUEUES = 5_000;
+
+    @TempDir
+    Path dir;
+    private ThresholdRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void testSavesAreWrittenBehind() throws Exception {
+        Path file = dir.resolve("thresholds.json");
+        repository = new ThresholdRepository(file);
+        repository.save("APP.A", new ThresholdConfig("APP.A", 50, 60));
+        repository.save("APP.B", new ThresholdConfig("APP.B", 10, 20));
+
+        // Visible at once, on disk only after the flush
+        assertEquals(50, repository.get("APP.A").getWarningThreshold());
+        assertFalse(Files.exists(file));
+        repository.flush();
+
+        ThresholdRepository reloaded = new ThresholdRepository(file);
+        assertTrue(reloaded.load());
+        assertEquals(20, reloaded.get("APP.B").getCriticalThreshold());
+        assertEquals(90, reloaded.get("APP.C").getCriticalThreshold());
+        reloaded.close();
+    }
+
+    @Test
+    void testExternalChangeIsReloaded() throws Exception {
+        Path file = dir.resolve("thresholds.json");
+        write(file, Map.of("APP.A", new ThresholdConfig("APP.A", 50, 60)));
+        repository = new ThresholdRepository(file);
+        repository.load();
+        repository.startWatching();
+
+        write(file, Map.of("APP.A", new ThresholdConfig("APP.A", 30, 40)));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (repository.get("APP.A").getWarningThreshold() != 30 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(30, repository.get("APP.A").getWarningThreshold());
+    }
+
+    @Test
+    void testInvalidFileKeepsCurrentThresholds() throws Exception {
+        Path file = dir.resolve("thresholds.json");
+        write(file, Map.of("APP.A", new ThresholdConfig("APP.A", 50, 60)));
+        repository = new ThresholdRepository(file);
+        repository.load();
+
+        Files.writeString(file, "{ \"APP.A\": { \"warningThreshold\": ");
+        assertFalse(repository.load());
+        assertEquals(50, repository.get("APP.A").getWarningThreshold());
+    }
+
+    /**
+     * Throughput of checkQueue over 5k queues, looking up thresholds by parsing the file
+     * for every queue as ConfigManager used to, then from memory.
+     */
+    @Test
+    void testCheckQueueThroughput() throws Exception {
+        Path file = dir.resolve("thresholds.json");
+        Map<String, ThresholdConfig> thresholds = new HashMap<>();
+        QueueInfo[] queues = new QueueInfo[QUEUES];
+        for (int i = 0; i < QUEUES; i++) {
+            String name = "APP.QUEUE." + i;
+            thresholds.put(name, new ThresholdConfig(name, 70, 90));
+            queues[i] = new QueueInfo(name);
+            queues[i].setMaxDepth(5000);
+            queues[i].setCurrentDepth(i % 100);
+        }
+        write(file, thresholds);
+        repository = new ThresholdRepository(file);
+        repository.load();
+
+        AlertManager fromFile = new AlertManager(null) {
+            @Override
+            public ThresholdConfig getThreshold(String queueName) {
+                Map<String, ThresholdConfig> parsed = read(file);
+                return parsed.getOrDefault(queueName, new ThresholdConfig());
+            }
+        };
+        AlertManager fromMemory = new AlertManager(null) {
+            @Override
+            public ThresholdConfig getThreshold(String queueName) {
+                return repository.get(queueName);
+            }
+        };
+
+        // Parsing 5k thresholds 5k times would take minutes, the file path is sampled
+        int sampled = 100;
+        long fileNanos = time(fromFile, queues, sampled);
+        long memoryNanos = time(fromMemory, queues, QUEUES);
+        double filePerSecond = sampled * 1e9 / fileNanos;
+        double memoryPerSecond = QUEUES * 1e9 / memoryNanos;
+        log.info("checkQueue: file {}/s, memory {}/s", Math.round(filePerSecond), Math.round(memoryPerSecond));
+
+        // Both paths resolve the same thresholds
+        for (int i = 0; i < sampled; i++) {
+            String name = queues[i].getQueue();
+            assertEquals(name, fromMemory.getThreshold(name).getQueueName());
+            assertEquals(fromFile.getThreshold(name).getWarningThreshold(), fromMemory.getThreshold(name).getWarningThreshold());
+        }
+    }
+
+    private static long time(AlertManager alertManager, QueueInfo[] queues, int count) {
+        // Warm-up
+        for (int i = 0; i < Math.min(count, 20); i++) {
+            alertManager.checkQueue(queues[i]);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            alertManager.checkQueue(queues[i]);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void write(Path file, Map<String, ThresholdConfig> thresholds) throws Exception {
+        Files.writeString(file, new Gson().toJson(thresholds), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, ThresholdConfig> read(Path file) {
+        try (Reader reader = Files.newBufferedReader(file)) {
+            return new Gson().fromJson(reader, new TypeToken<Map<String, ThresholdConfig>>() {
+            }.getType());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.aquila.ibm.mq.gui.model;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class DepthSeriesTest {
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void testSamplesInRange() {
+        DepthSeries series = new DepthSeries(new DepthRetention());
+        for (int i = 0; i < 200; i++) {
+            series.add(START + i * 1000L, i);
+        }
+        series.add(START + 100, 999);
+
+        DepthSeries.Samples samples = series.getSamples(START + 10_000, START + 20_000);
+        assertEquals(10, samples.size());
+        assertEquals(START + 10_000, samples.times()[0]);
+        assertEquals(19, samples.depths()[9]);
+        assertEquals(0, series.getSamples(START + 500_000, START + 600_000).size());
+
+        DepthSeries.Samples latest = series.getLatestSamples(3);
+        assertArrayEquals(new int[]{197, 198, 199}, latest.depths());
+    }
+
+    @Test
+    void testForEachSampleAfterWrap() {
+        DepthRetention retention = new DepthRetention();
+        retention.setRawMillis(60_000);
+        DepthSeries series = new DepthSeries(retention);
+        for (int i = 0; i < 1000; i++) {
+            series.add(START + i * 1000L, i);
+        }
+        long[] sum = new long[2];
+        series.forEachSample(START + 990_000, START + 995_000, (time, depth) -> {
+            assertEquals(START + depth * 1000L, time);
+            sum[0] += depth;
+            sum[1]++;
+        });
+        assertEquals(5, sum[1]);
+        assertEquals(990 + 991 + 992 + 993 + 994, sum[0]);
+    }
+
+    @Test
+    void testRawRetention() {
+        DepthRetention retention = new DepthRetention();
+        retention.setRawMillis(60_000);
+        DepthSeries series = new DepthSeries(retention);
+        for (int i = 0; i < 1000; i++) {
+            series.add(START + i * 1000L, i);
+        }
+        assertEquals(61, series.size());
+        assertEquals(START + 939_000, series.getOldestSampleTime());
+        assertEquals(START + 999_000, series.getLatestSampleTime());
+    }
+
+    @Test
+    void testMaxRawSamples() {
+        DepthRetention retention = new DepthRetention();
+        retention.setMaxRawSamples(100);
+        DepthSeries series = new DepthSeries(retention);
+        for (int i = 0; i < 1000; i++) {
+            series.add(START + i * 10L, i);
+        }
+        assertEquals(100, series.size());
+        assertEquals(900, series.getLatestSamples(100).depths()[0]);
+    }
+
+    @Test
+    void testRollups() {
+        DepthSeries series = new DepthSeries(new DepthRetention());
+        // Every 250 ms for two minutes: depth 0..239
+        for (int i = 0; i < 480; i++) {
+            series.add(START - START % 60_000 + i * 250L, i / 2);
+        }
+        long minute = START - START % 60_000;
+
+        DepthSeries.Buckets seconds = series.getBuckets(DepthSeries.Resolution.SECOND, minute, minute + 2000);
+        assertEquals(2, seconds.size());
+        assertEquals(0, seconds.min()[0]);
+        assertEquals(1, seconds.max()[0]);
+        assertEquals(0.5, seconds.avg()[0], 1e-9);
+        assertEquals(minute + 1000, seconds.times()[1]);
+
+        DepthSeries.Buckets minutes = series.getBuckets(DepthSeries.Resolution.MINUTE, 0, Long.MAX_VALUE);
+        assertEquals(2, minutes.size());
+        assertEquals(120, minutes.min()[1]);
+        assertEquals(239, minutes.max()[1]);
+        assertEquals(179.5, minutes.avg()[1], 1e-9);
+
+        DepthSeries.Buckets hours = series.getBuckets(DepthSeries.Resolution.HOUR, 0, Long.MAX_VALUE);
+        assertEquals(1, hours.size());
+        assertEquals(239, hours.max()[0]);
+    }
+
+    @Test
+    void testDayOfHistoryMemory() {
+        DepthSeries series = new DepthSeries(new DepthRetention());
+        int samples = (int) (DepthRetention.DAY_MS / 5000);
+        for (int i = 0; i < samples; i++) {
+            series.add(START + i * 5000L, i % 1000);
+        }
+        assertEquals(samples, series.size());
+        double bytesPerSample = (double) series.getMemoryBytes() / samples;
+        log.info("24 h at 5 s: {} samples, {} bytes per sample with rollups", samples, String.format("%.1f", bytesPerSample));
+        assertTrue(bytesPerSample < 18, "bytes per sample: " + bytesPerSample);
+        assertEquals(24, series.getBuckets(DepthSeries.Resolution.HOUR, 0, Long.MAX_VALUE).size(), 1);
+    }
+
+    @Test
+    void testGrownCapacity() {
+        // Half the retention seen: about twice the entries
+        assertEquals(2000, DepthSeries.grownCapacity(1000, 30_000, 60_000, 1 << 20));
+        // Retention almost covered: grow by an eighth only
+        assertEquals(1125, DepthSeries.grownCapacity(1000, 59_000, 60_000, 1 << 20));
+        assertEquals(1500, DepthSeries.grownCapacity(1000, 1000, 60_000, 1500));
+    }
+}
@@ -0,0 +1,86 @@
+package com.aquila.ibm.mq.gui.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueTrendTest {
+
+    @Test
+    void testSlopeOfSteadyGrowth() {
+        QueueTrend trend = new QueueTrend(60_000);
+        assertTrue(Double.isNaN(trend.getSlope()));
+        for (int i = 0; i <= 10; i++) {
+            trend.add(i * 5000L, 100 + i * 25, 1000, 1);
+        }
+        // 25 messages every 5 seconds
+        assertEquals(5.0, trend.getSlope(), 1e-9);
+        assertEquals(50_000, trend.getSpanMillis());
+        // 1000 - 350 messages left at 5 per second
+        assertEquals(130.0, trend.getTimeToFullSeconds(), 1e-6);
+    }
+
+    @Test
+    void testOldSamplesLeaveTheWindow() {
+        QueueTrend trend = new QueueTrend(30_000);
+        // Growing fast, then flat for longer than the window
+        for (int i = 0; i < 10; i++) {
+            trend.add(i * 1000L, i * 100, 10_000, 1);
+        }
+        for (int i = 10; i < 60; i++) {
+            trend.add(i * 1000L, 1000, 10_000, 1);
+        }
+        assertEquals(0.0, trend.getSlope(), 1e-9);
+        assertEquals(30_000, trend.getSpanMillis());
+        assertEquals(Double.POSITIVE_INFINITY, trend.getTimeToFullSeconds());
+    }
+
+    @Test
+    void testRingGrowsToCoverTheWindow() {
+        // 1 s samples over a 120 s window, well past the initial capacity
+        QueueTrend trend = new QueueTrend(120_000);
+        for (int i = 0; i <= 300; i++) {
+            trend.add(i * 1000L, i * 3, 100_000, 1);
+        }
+        assertEquals(121, trend.size());
+        assertEquals(120_000, trend.getSpanMillis());
+        assertEquals(3.0, trend.getSlope(), 1e-9);
+    }
+
+    @Test
+    void testSlopeStaysExactOverManyLaps() {
+        // The window holds 16 samples, so the ring laps without growing
+        QueueTrend trend = new QueueTrend(16, 15_000);
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < 100_000; i++) {
+            time += 1000;
+            trend.add(time, (i % 7) * 1000 + i * 2, 1_000_000, 1);
+        }
+        QueueTrend fresh = new QueueTrend(16, 15_000);
+        for (int i = 100_000 - 16; i < 100_000; i++) {
+            fresh.add(1_700_000_000_000L + (i + 1) * 1000L, (i % 7) * 1000 + i * 2, 1_000_000, 1);
+        }
+        assertEquals(16, trend.size());
+        assertEquals(fresh.getSlope(), trend.getSlope(), 1e-6);
+    }
+
+    @Test
+    void testConsumerAbsence() {
+        QueueTrend trend = new QueueTrend(60_000);
+        trend.add(0, 10, 100, 1);
+        trend.add(1000, 11, 100, 0);
+        trend.add(2000, 12, 100, 0);
+        assertEquals(9000, trend.getConsumerAbsentMillis(10_000));
+        trend.add(3000, 12, 100, 2);
+        assertEquals(0, trend.getConsumerAbsentMillis(10_000));
+    }
+
+    @Test
+    void testRepeatedSampleIsIgnored() {
+        QueueTrend trend = new QueueTrend(60_000);
+        trend.add(1000, 10, 100, 1);
+        trend.add(1000, 50, 100, 1);
+        trend.add(500, 50, 100, 1);
+        assertEquals(1, trend.size());
+    }
+}
@@ -0,0 +1,75 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+import com.aquila.ibm.mq.gui.model.FleetSnapshot;
+import com.aquila.ibm.mq.gui.model.QueueDelta;
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import com.ibm.mq.MQException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetMonitorTest {
+
+    @Test
+    void testHungQueueManagerDoesNotDelayOthers() throws Exception {
+        StubPCFResponder fast = new StubPCFResponder(0);
+        fast.putQueue("APP.IN", 5, 5000, 1, 0);
+        // Every inquiry of this queue manager blocks until its lane is stopped
+        StubPCFResponder hung = new StubPCFResponder(TimeUnit.SECONDS.toNanos(60));
+        hung.putQueue("APP.IN", 7, 5000, 1, 0);
+        Map<String, PCFAgentPool> pools = Map.of(
+                "QM.FAST", new PCFAgentPool("QM.FAST", fast::newAgent),
+                "QM.HUNG", new PCFAgentPool("QM.HUNG", hung::newAgent));
+        MQConnectionManager connectionManager = new MQConnectionManager() {
+            @Override
+            public PCFAgentPool.Lease leaseAgent(String connectionId) throws MQException {
+                return pools.get(connectionId).lease();
+            }
+        };
+        AlertManager alertManager = new AlertManager(null) {
+            @Override
+            public ThresholdConfig getThreshold(String queueName) {
+                return new ThresholdConfig(queueName, 70, 90);
+            }
+        };
+
+        FleetMonitor fleet = new FleetMonitor(new QueueService(connectionManager), alertManager);
+        CountDownLatch fastUpdated = new CountDownLatch(1);
+        fleet.setListener(new FleetMonitor.FleetMonitorListener() {
+            @Override
+            public void onQueuesUpdated(String connectionId, QueueDelta delta) {
+                assertEquals("QM.FAST", connectionId);
+                fastUpdated.countDown();
+            }
+
+            @Override
+            public void onMonitorError(String connectionId, Exception e) {
+            }
+        });
+        fleet.setMonitoredQueues("QM.HUNG", List.of(new QueueInfo("APP.IN")));
+        fleet.setMonitoredQueues("QM.FAST", List.of(new QueueInfo("APP.IN")));
+        fleet.start();
+        try {
+            assertTrue(fastUpdated.await(5, TimeUnit.SECONDS));
+
+            FleetSnapshot snapshot = fleet.getSnapshot();
+            Instant now = Instant.now();
+            assertEquals(5, snapshot.get("QM.FAST").queues().get(0).getCurrentDepth());
+            assertFalse(snapshot.get("QM.FAST").isStale(now, Duration.ofSeconds(5)));
+            assertNull(snapshot.get("QM.HUNG").lastUpdated());
+            assertEquals(List.of("QM.HUNG"), snapshot.staleConnections(now, Duration.ofSeconds(5)));
+        } finally {
+            fleet.stopMonitoring();
+        }
+        assertEquals(1, hung.roundTrips.get());
+    }
+}
@@ -0,0 +1,130 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.ibm.mq.MQException;
+import com.ibm.mq.constants.MQConstants;
+import com.ibm.mq.pcf.PCFMessage;
+import com.ibm.mq.pcf.PCFMessageAgent;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PCFAgentPoolTest {
+
+    /**
+     * Agent that answers pings without a queue manager and records disconnects.
+     */
+    static class FakeAgent extends PCFMessageAgent {
+        boolean healthy = true;
+        boolean disconnected;
+
+        @Override
+        public synchronized PCFMessage[] send(PCFMessage request) throws MQException {
+            if (!healthy) {
+                throw new MQException(MQConstants.MQCC_FAILED, MQConstants.MQRC_CONNECTION_BROKEN, this);
+            }
+            return new PCFMessage[0];
+        }
+
+        @Override
+        public synchronized void disconnect() {
+            disconnected = true;
+        }
+    }
+
+    @Test
+    void testAgentIsReusedAfterRelease() throws MQException {
+        AtomicInteger factoryCalls = new AtomicInteger();
+        PCFAgentPool pool = new PCFAgentPool("QM1", () -> {
+            factoryCalls.incrementAndGet();
+            return new FakeAgent();
+        });
+
+        PCFMessageAgent first;
+        try (PCFAgentPool.Lease lease = pool.lease()) {
+            first = lease.getAgent();
+        }
+        try (PCFAgentPool.Lease lease = pool.lease()) {
+            assertSame(first, lease.getAgent());
+        }
+
+        assertEquals(1, factoryCalls.get());
+        assertEquals(1, pool.getStats().created());
+        assertEquals(1, pool.getStats().reused());
+        assertEquals(1, pool.getStats().idle());
+    }
+
+    @Test
+    void testLeasesAreExclusive() throws MQException {
+        PCFAgentPool pool = new PCFAgentPool("QM1", FakeAgent::new);
+
+        try (PCFAgentPool.Lease a = pool.lease(); PCFAgentPool.Lease b = pool.lease()) {
+            assertNotSame(a.getAgent(), b.getAgent());
+            assertEquals(2, pool.getStats().leased());
+        }
+        assertEquals(0, pool.getStats().leased());
+        assertEquals(2, pool.getStats().idle());
+    }
+
+    @Test
+    void testInvalidatedAgentIsDisconnected() throws MQException {
+        PCFAgentPool pool = new PCFAgentPool("QM1", FakeAgent::new);
+
+        FakeAgent agent;
+        try (PCFAgentPool.Lease lease = pool.lease()) {
+            agent = (FakeAgent) lease.getAgent();
+            lease.invalidate();
+        }
+
+        assertTrue(agent.disconnected);
+        assertEquals(0, pool.getStats().idle());
+        assertEquals(1, pool.getStats().destroyed());
+    }
+
+    @Test
+    void testUnhealthyIdleAgentIsReplaced() throws MQException {
+        // Validate on every reuse
+        PCFAgentPool pool = new PCFAgentPool("QM1", FakeAgent::new, 4, 0, 60_000);
+
+        FakeAgent first;
+        try (PCFAgentPool.Lease lease = pool.lease()) {
+            first = (FakeAgent) lease.getAgent();
+        }
+        first.healthy = false;
+
+        try (PCFAgentPool.Lease lease = pool.lease()) {
+            assertNotSame(first, lease.getAgent());
+        }
+        assertTrue(first.disconnected);
+        assertEquals(1, pool.getStats().validationFailures());
+        assertEquals(2, pool.getStats().created());
+    }
+
+    @Test
+    void testIdleAgentsAreEvicted() throws MQException {
+        PCFAgentPool pool = new PCFAgentPool("QM1", FakeAgent::new, 4, 60_000, 0);
+
+        FakeAgent agent;
+        try (PCFAgentPool.Lease lease = pool.lease()) {
+            agent = (FakeAgent) lease.getAgent();
+        }
+
+        assertEquals(1, pool.evictIdle());
+        assertTrue(agent.disconnected);
+        assertEquals(0, pool.getStats().idle());
+    }
+
+    @Test
+    void testCloseDisconnectsAgentReturnedLater() throws MQException {
+        PCFAgentPool pool = new PCFAgentPool("QM1", FakeAgent::new);
+
+        PCFAgentPool.Lease lease = pool.lease();
+        FakeAgent agent = (FakeAgent) lease.getAgent();
+        pool.close();
+        lease.close();
+
+        assertTrue(agent.disconnected);
+        assertThrows(IllegalStateException.class, pool::lease);
+    }
+}
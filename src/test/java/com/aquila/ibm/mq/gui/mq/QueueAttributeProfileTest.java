@@ -0,0 +1,60 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueAttributeProfileTest {
+    private StubPCFResponder responder;
+    private QueueService queueService;
+
+    @BeforeEach
+    void setUp() {
+        responder = new StubPCFResponder(0);
+        for (int i = 0; i < 100; i++) {
+            responder.putQueue(String.format("APP.Q%03d", i), i, 5000, 1, 2);
+        }
+        queueService = new QueueService(responder.newConnectionManager());
+    }
+
+    @Test
+    void testMonitorProfileReturnsOnlyPolledAttributes() throws Exception {
+        List<String> names = List.of("APP.Q001", "APP.Q002");
+        responder.resetCounters();
+        List<QueueInfo> queues = queueService.getQueuesInfo(names, QueueAttributeProfile.MONITOR);
+
+        assertEquals(2, queues.size());
+        assertEquals(2, queues.get(1).getCurrentDepth());
+        assertEquals(1, queues.get(1).getOpenInputCount());
+        assertTrue(queues.get(1).getAttributes().isEmpty());
+        assertEquals(responder.rows.get() * QueueAttributeProfile.MONITOR.getAttributes().length, responder.parameters.get());
+    }
+
+    @Test
+    void testPropertiesProfileReturnsAllAttributes() throws Exception {
+        QueueInfo queue = queueService.getQueueInfo("APP.Q010", QueueAttributeProfile.PROPERTIES);
+
+        assertEquals("Stub queue", queue.getDescription());
+        assertEquals(4194304, queue.getAttribute("MaxMsgLength"));
+        assertEquals(10, queue.getCurrentDepth());
+    }
+
+    @Test
+    void testMonitorRefreshKeepsProperties() throws Exception {
+        QueueInfo queue = queueService.getQueueInfo("APP.Q010");
+        responder.putQueue("APP.Q010", 42, 5000, 3, 4);
+
+        List<QueueInfo> monitored = new ArrayList<>(List.of(queue));
+        queueService.refreshAllQueues(monitored);
+
+        assertEquals(42, queue.getCurrentDepth());
+        assertEquals(3, queue.getOpenInputCount());
+        assertEquals("Stub queue", queue.getDescription());
+        assertFalse(queue.getAttributes().isEmpty());
+    }
+}
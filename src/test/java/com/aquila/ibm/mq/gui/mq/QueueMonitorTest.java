@@ -0,0 +1,99 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+import com.aquila.ibm.mq.gui.model.QueueDelta;
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import com.aquila.ibm.mq.gui.model.ThresholdConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueMonitorTest {
+
+    /**
+     * Default thresholds without reading the configuration directory.
+     */
+    private static AlertManager alertManager() {
+        return new AlertManager(null) {
+            @Override
+            public ThresholdConfig getThreshold(String queueName) {
+                return new ThresholdConfig(queueName, 70, 90);
+            }
+        };
+    }
+
+    @Test
+    void testIdleQueuesBackOffAndBusyQueuesStayFast() throws Exception {
+        StubPCFResponder responder = new StubPCFResponder(0);
+        responder.putQueue("APP.BUSY", 0, 5000, 0, 0);
+        responder.putQueue("APP.IDLE", 0, 5000, 0, 0);
+        QueueService queueService = new QueueService(responder.newConnectionManager());
+        QueueMonitor monitor = new QueueMonitor(queueService, alertManager());
+        monitor.setMonitoredQueues(queueService.getQueuesInfo(List.of("APP.BUSY", "APP.IDLE")));
+        int interval = monitor.getRefreshInterval();
+
+        // Queues polled per tick with a poll, by interval since the start
+        Map<Long, Long> batches = new TreeMap<>();
+        monitor.setListener(new QueueMonitor.QueueMonitorListener() {
+            @Override
+            public void onQueuesUpdated(QueueDelta delta) {
+            }
+
+            @Override
+            public void onMonitorError(Exception e) {
+                fail(e.getMessage());
+            }
+        });
+
+        long start = 1_000_000;
+        int depth = 0;
+        for (long now = start; now < start + 20L * interval; now += QueueMonitor.TICK_MS) {
+            if ((now - start) % interval == 0) {
+                responder.putQueue("APP.BUSY", ++depth, 5000, 0, 0);
+            }
+            long before = responder.rows.get();
+            monitor.tick(now);
+            if (responder.rows.get() > before) {
+                assertEquals(0, (now - start) % interval, "poll off the interval");
+                batches.put((now - start) / interval, responder.rows.get() - before);
+            }
+        }
+
+        // Busy queue: every interval. Idle queue: after 0, 2, 6 and 14 intervals.
+        Set<Long> idlePolls = Set.of(0L, 2L, 6L, 14L);
+        assertEquals(20, batches.size());
+        for (long k = 0; k < 20; k++) {
+            assertEquals(Long.valueOf(idlePolls.contains(k) ? 2 : 1), batches.get(k), "queues polled at interval " + k);
+        }
+
+        QueueMonitor.Stats stats = monitor.getStats();
+        assertEquals(20 + 4, stats.queuesPolled());
+        assertEquals(20, stats.polls());
+        assertEquals(1, stats.fastQueues());
+        assertEquals(0, stats.skippedTicks());
+        assertEquals(0, stats.maxPollLagMillis());
+    }
+
+    @Test
+    void testQueueNearThresholdIsPolledAtFullRate() throws Exception {
+        StubPCFResponder responder = new StubPCFResponder(0);
+        // 60% of max depth: above 80% of the 70% warning threshold
+        responder.putQueue("APP.FULL", 3000, 5000, 0, 0);
+        QueueService queueService = new QueueService(responder.newConnectionManager());
+        QueueMonitor monitor = new QueueMonitor(queueService, alertManager());
+        monitor.setMonitoredQueues(queueService.getQueuesInfo(List.of("APP.FULL")));
+        int interval = monitor.getRefreshInterval();
+
+        long start = 1_000_000;
+        for (long now = start; now < start + 10L * interval; now += QueueMonitor.TICK_MS) {
+            monitor.tick(now);
+        }
+
+        assertEquals(10, monitor.getStats().queuesPolled());
+    }
+}
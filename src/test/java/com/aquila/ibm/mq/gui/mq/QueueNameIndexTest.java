@@ -0,0 +1,130 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class QueueNameIndexTest {
+
+    private static List<String> names(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(String.format("APP%02d.SERVICE%05d.%s", i % 40, i, i % 2 == 0 ? "IN" : "OUT"));
+        }
+        return names;
+    }
+
+    @Test
+    void testPrefixSubstringAndFuzzy() {
+        QueueNameIndex index = new QueueNameIndex();
+        List.of("PAYMENT.IN", "PAYMENT.IN.BACKOUT", "PAYMENT.OUT", "ORDER.PAYMENT.EVENTS", "SYSTEM.DEAD.LETTER")
+                .forEach(index::add);
+
+        List<QueueNameIndex.Match> matches = index.search("payment.in", 10);
+        assertEquals("PAYMENT.IN", matches.get(0).name());
+        assertEquals(QueueNameIndex.MatchKind.EXACT, matches.get(0).kind());
+        assertEquals(QueueNameIndex.MatchKind.PREFIX, matches.get(1).kind());
+        // Then names close to it
+        assertTrue(matches.subList(2, matches.size()).stream().allMatch(match -> match.kind() == QueueNameIndex.MatchKind.FUZZY));
+
+        matches = index.search("PAYMENT", 4);
+        assertEquals(4, matches.size());
+        assertEquals(QueueNameIndex.MatchKind.SUBSTRING, matches.get(3).kind());
+        assertEquals("ORDER.PAYMENT.EVENTS", matches.get(3).name());
+
+        matches = index.search("DEAD.LETER", 10);
+        assertEquals("SYSTEM.DEAD.LETTER", matches.get(0).name());
+        assertEquals(QueueNameIndex.MatchKind.FUZZY, matches.get(0).kind());
+    }
+
+    @Test
+    void testAddRemoveKeepsTrieConsistent() {
+        QueueNameIndex index = new QueueNameIndex();
+        Set<String> expected = new HashSet<>();
+        List<String> pool = names(2000);
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            String name = pool.get(random.nextInt(pool.size()));
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(name), index.add(name));
+            } else {
+                assertEquals(expected.remove(name), index.remove(name));
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        for (String name : pool) {
+            assertEquals(expected.contains(name), index.contains(name));
+            List<QueueNameIndex.Match> matches = index.search(name, 1);
+            if (expected.contains(name)) {
+                assertEquals(name, matches.get(0).name());
+                assertEquals(QueueNameIndex.MatchKind.EXACT, matches.get(0).kind());
+            }
+        }
+    }
+
+    @Test
+    void testUpdateAppliesDifferences() {
+        QueueNameIndex index = new QueueNameIndex();
+        index.update(List.of("A.ONE", "A.TWO", "B.ONE"));
+        index.update(List.of("A.TWO", "B.ONE", "B.TWO"));
+        assertEquals(3, index.size());
+        assertFalse(index.contains("A.ONE"));
+        assertTrue(index.contains("B.TWO"));
+        assertEquals(1, index.search("A.", 10).size());
+    }
+
+    @Test
+    void testDirectorySearchesAllConnections() {
+        QueueNameDirectory directory = new QueueNameDirectory();
+        directory.update("QM1", List.of("ORDERS.IN", "ORDERS.OUT"));
+        directory.update("QM2", List.of("ORDERS.IN", "BILLING.IN"));
+
+        List<QueueNameDirectory.Hit> hits = directory.search("orders.in", 2);
+        assertEquals(2, hits.size());
+        assertEquals("QM1", hits.get(0).connectionId());
+        assertEquals("QM2", hits.get(1).connectionId());
+        assertEquals(QueueNameIndex.MatchKind.EXACT, hits.get(1).match().kind());
+
+        directory.remove("QM2", "ORDERS.IN");
+        hits = directory.search("orders.in", 10);
+        assertTrue(hits.stream().noneMatch(hit -> hit.connectionId().equals("QM2")
+                && hit.match().kind() == QueueNameIndex.MatchKind.EXACT));
+        directory.removeConnection("QM1");
+        assertEquals(1, directory.size());
+    }
+
+    @Test
+    void benchmarkSearchOverHundredThousandNames() {
+        QueueNameIndex index = new QueueNameIndex();
+        List<String> names = names(100_000);
+        long start = System.nanoTime();
+        names.forEach(index::add);
+        log.info(String.format("Indexed %d names in %.1f ms", names.size(), (System.nanoTime() - start) / 1e6));
+
+        String[] queries = {"APP07.SERVICE0", "SERVICE04217", "04217.OUT", "APP1", "SERVCE04217", "ZZZ", "IN"};
+        for (int round = 0; round < 20; round++) {
+            for (String query : queries) {
+                index.search(query, 50);
+            }
+        }
+        for (String query : queries) {
+            int runs = 20;
+            start = System.nanoTime();
+            List<QueueNameIndex.Match> matches = null;
+            for (int i = 0; i < runs; i++) {
+                matches = index.search(query, 50);
+            }
+            double millis = (System.nanoTime() - start) / 1e6 / runs;
+            log.info(String.format("%-16s %3d matches %6.2f ms", query, matches.size(), millis));
+        }
+        assertEquals("APP17.SERVICE04217.OUT", index.search("SERVCE04217", 1).get(0).name());
+    }
+}
@@ -0,0 +1,89 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueQueryTest {
+
+    @Test
+    void testAnchoredLiteralBecomesGenericName() {
+        assertEquals("APP.ORDERS*", QueueQuery.fromFilter("(?-i)^APP\\.ORDERS").getGenericName());
+        assertEquals("APP.ORDERS*", QueueQuery.fromFilter("^(?-i)APP\\.ORDERS").getGenericName());
+        // No letters, the same with or without case
+        assertEquals("01_*", QueueQuery.fromFilter("^01_").getGenericName());
+        assertEquals("*", QueueQuery.fromFilter("ORDERS").getGenericName());
+        assertEquals("*", QueueQuery.fromFilter("^APP.*IN$").getGenericName());
+        assertTrue(QueueQuery.fromFilter("").isUnfiltered());
+        assertEquals(QueueQuery.ALL, QueueQuery.fromFilter("ORDERS"));
+    }
+
+    @Test
+    void testCaseInsensitivePrefixIsLeftToTheClient() {
+        // The viewer filter ignores case, the generic name does not
+        assertEquals(QueueQuery.ALL, QueueQuery.fromFilter("^app"));
+        assertEquals(QueueQuery.ALL, QueueQuery.fromFilter("^APP\\.ORDERS"));
+        // Case-sensitive, but the queue manager would not see lower-case names as typed
+        assertEquals(QueueQuery.ALL, QueueQuery.fromFilter("(?-i)^app"));
+    }
+
+    @Test
+    void testLowerCaseQueuesStayListed() throws Exception {
+        StubPCFResponder responder = new StubPCFResponder(0);
+        responder.putQueue("APP.ORDERS", 0, 5000, 0, 0);
+        responder.putQueue("app.orders", 0, 5000, 0, 0);
+        responder.putQueue("OTHER", 0, 5000, 0, 0);
+        QueueService queueService = new QueueService(responder.newConnectionManager());
+
+        assertEquals(3, queueService.getQueues(QueueQuery.fromFilter("^app")).size());
+        assertEquals(1, queueService.getQueues(QueueQuery.fromFilter("(?-i)^APP")).size());
+    }
+
+    @Test
+    void testUnescapedDotIsNotPushedDown() {
+        // Matches APP.X as well as APPLX
+        assertEquals(QueueQuery.ALL, QueueQuery.fromFilter("^APP.X"));
+        assertEquals("APP.X*", QueueQuery.fromFilter("(?-i)^APP\\.X").getGenericName());
+    }
+
+    @Test
+    void testQueueManagerReturnsOnlyMatchingQueues() throws Exception {
+        StubPCFResponder responder = new StubPCFResponder(0);
+        for (int i = 0; i < 1000; i++) {
+            responder.putQueue(String.format("APP.Q%04d", i), i % 100 == 0 ? 10 : 0, 5000, 0, 0);
+            responder.putQueue(String.format("OTHER.Q%04d", i), 10, 5000, 0, 0);
+        }
+        QueueService queueService = new QueueService(responder.newConnectionManager());
+
+        QueueQuery query = QueueQuery.builder().namePrefix("APP.").minDepth(5).build();
+        List<QueueInfo> queues = queueService.getQueues(query);
+
+        assertEquals(10, queues.size());
+        assertEquals(10, responder.rows.get());
+        assertTrue(queues.stream().allMatch(query::matches));
+    }
+
+    @Test
+    void testViewerFilterListsEveryDepth() throws Exception {
+        StubPCFResponder responder = new StubPCFResponder(0);
+        responder.putQueue("APP.EMPTY", 0, 5000, 0, 0);
+        responder.putQueue("APP.FULL", 10, 5000, 0, 0);
+        responder.putQueue("OTHER.FULL", 10, 5000, 0, 0);
+        QueueService queueService = new QueueService(responder.newConnectionManager());
+
+        // A queue empty now is still listed, so it is monitored when it fills up
+        assertEquals(2, queueService.getQueues(QueueQuery.fromFilter("(?-i)^APP\\.")).size());
+    }
+
+    @Test
+    void testNoMatchReturnsEmptyList() throws Exception {
+        StubPCFResponder responder = new StubPCFResponder(0);
+        responder.putQueue("APP.Q1", 0, 5000, 0, 0);
+        QueueService queueService = new QueueService(responder.newConnectionManager());
+
+        assertTrue(queueService.getQueues(QueueQuery.fromFilter("(?-i)^NONE")).isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares per-name inquiries with the batched plan of {@link InquiryPlanner} against a
+ * stand-in command server with a simulated round-trip latency.
+ */
+@Slf4j
+class QueueServiceInquiryBenchmarkTest {
+    private static final long ROUND_TRIP_NANOS = 250_000;
+    private static final int CATALOG_SIZE = 30_000;
+
+    @Test
+    void benchmarkBatchedVersusPerNameInquiry() throws Exception {
+        StubPCFResponder responder = new StubPCFResponder(ROUND_TRIP_NANOS);
+        List<String> catalog = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            String name = String.format("APP%02d.SERVICE%05d.IN", i % 40, i);
+            responder.putQueue(name, i % 100, 5000, i % 3, 1);
+            catalog.add(name);
+        }
+        QueueService queueService = new QueueService(responder.newConnectionManager());
+        InquiryPlanner planner = new InquiryPlanner();
+        // The application lists all queues on connect, which is what the planner learns from
+        InquiryPlanner.Catalog knownQueues = new InquiryPlanner.Catalog(catalog);
+
+        log.info(String.format("%-8s %-10s %12s %12s %12s %14s", "Names", "Strategy", "RoundTrips", "Rows", "Time(ms)", "Plan"));
+        for (int count : new int[]{10, 1_000, 20_000}) {
+            List<String> wanted = new ArrayList<>(catalog);
+            Collections.shuffle(wanted, new Random(count));
+            wanted = wanted.subList(0, count);
+
+            InquiryPlanner.InquiryPlan batchedPlan = planner.plan(wanted, knownQueues);
+            run(queueService, responder, wanted, batchedPlan); // warm-up
+            Result batched = run(queueService, responder, wanted, batchedPlan);
+            Result perName = run(queueService, responder, wanted, InquiryPlanner.InquiryPlan.perName(wanted));
+
+            log.info(String.format("%-8d %-10s %12d %12d %12.1f %14s", count, "per-name",
+                    perName.roundTrips, perName.rows, perName.millis, "-"));
+            log.info(String.format("%-8d %-10s %12d %12d %12.1f %14s", count, "batched",
+                    batched.roundTrips, batched.rows, batched.millis,
+                    batchedPlan.isWildcard() ? "wildcard" : batchedPlan.roundTrips() + " pattern(s)"));
+
+            assertEquals(count, batched.queues.size());
+            assertEquals(perName.queues.size(), batched.queues.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(wanted.get(i), batched.queues.get(i).getQueue());
+                assertEquals(perName.queues.get(i).getCurrentDepth(), batched.queues.get(i).getCurrentDepth());
+            }
+            assertTrue(batched.roundTrips <= perName.roundTrips);
+        }
+    }
+
+    private Result run(QueueService queueService, StubPCFResponder responder, List<String> names,
+                       InquiryPlanner.InquiryPlan plan) throws Exception {
+        responder.resetCounters();
+        long start = System.nanoTime();
+        List<QueueInfo> queues = queueService.getQueuesInfo(null, names, plan, QueueAttributeProfile.MONITOR);
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+        return new Result(queues, responder.roundTrips.get(), responder.rows.get(), millis);
+    }
+
+    private record Result(List<QueueInfo> queues, long roundTrips, long rows, double millis) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.aquila.ibm.mq.gui.model.QueueDelta;
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import com.ibm.mq.MQException;
+import com.ibm.mq.constants.MQConstants;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueSnapshotIndexTest {
+
+    private static QueueInfo queue(String name, int depth, int maxDepth) {
+        QueueInfo queue = new QueueInfo(name);
+        queue.setCurrentDepth(depth);
+        queue.setMaxDepth(maxDepth);
+        return queue;
+    }
+
+    @Test
+    void testMergeUpdatesInPlaceAndReportsChangedFields() {
+        QueueInfo a = queue("A", 1, 100);
+        QueueInfo b = queue("B", 2, 100);
+        QueueSnapshotIndex index = new QueueSnapshotIndex(List.of(a, b));
+
+        QueueDelta delta = index.merge(List.of(queue("A", 5, 100), queue("B", 2, 100), queue("C", 0, 100)), Set.of());
+
+        assertEquals(1, delta.changed().size());
+        assertSame(a, delta.changed().get(0).queue());
+        assertTrue(delta.changed().get(0).has(QueueDelta.CURRENT_DEPTH));
+        assertFalse(delta.changed().get(0).has(QueueDelta.MAX_DEPTH));
+        assertEquals(5, a.getCurrentDepth());
+        assertEquals("C", delta.added().get(0).getQueue());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testUnchangedSnapshotIsEmpty() {
+        QueueSnapshotIndex index = new QueueSnapshotIndex(List.of(queue("A", 1, 100)));
+
+        assertTrue(index.merge(List.of(queue("A", 1, 100)), Set.of()).isEmpty());
+        // A queue absent from the snapshot but not reported missing is kept
+        assertTrue(index.merge(List.of(), Set.of()).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testConnectionErrorStopsTheInquiry() throws Exception {
+        StubPCFResponder responder = new StubPCFResponder(0);
+        List<String> names = List.of("AAA.1", "BBB.2", "CCC.3", "DDD.4");
+        names.forEach(name -> responder.putQueue(name, 1, 100, 0, 0));
+        QueueService queueService = new QueueService(responder.newConnectionManager());
+        QueueSnapshotIndex index = new QueueSnapshotIndex(queueService.getQueuesInfo(names));
+        responder.resetCounters();
+
+        responder.failure = new MQException(MQConstants.MQCC_FAILED, MQConstants.MQRC_CONNECTION_BROKEN, null);
+        QueueDelta delta = queueService.refreshQueues(index);
+
+        // One request fails, the others are not sent on the broken agent
+        assertEquals(1, responder.roundTrips.get());
+        // Queues not answered for are kept
+        assertTrue(delta.removed().isEmpty());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void testDeletedQueueIsRemoved() throws Exception {
+        StubPCFResponder responder = new StubPCFResponder(0);
+        responder.putQueue("APP.A", 1, 100, 0, 0);
+        responder.putQueue("APP.B", 1, 100, 0, 0);
+        QueueService queueService = new QueueService(responder.newConnectionManager());
+        QueueSnapshotIndex index = new QueueSnapshotIndex(queueService.getQueuesInfo(List.of("APP.A", "APP.B")));
+
+        responder.removeQueue("APP.B");
+        responder.putQueue("APP.A", 7, 100, 0, 0);
+        QueueDelta delta = queueService.refreshQueues(index);
+
+        assertEquals(List.of("APP.B"), delta.removed());
+        assertEquals(7, delta.changed().get(0).queue().getCurrentDepth());
+        assertEquals(List.of("APP.A"), index.names());
+    }
+}
@@ -0,0 +1,203 @@
+package com.aquila.ibm.mq.gui.mq;
+
+import com.ibm.mq.MQException;
+import com.ibm.mq.constants.MQConstants;
+import com.ibm.mq.pcf.MQCFIF;
+import com.ibm.mq.pcf.PCFException;
+import com.ibm.mq.pcf.PCFMessage;
+import com.ibm.mq.pcf.PCFMessageAgent;
+import com.ibm.mq.pcf.PCFParameter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stand-in for a queue manager command server. Answers MQCMD_INQUIRE_Q for exact and
+ * generic names from an in-memory catalog, simulating a fixed latency per round trip.
+ * Responses carry the attributes selected by MQIACF_Q_ATTRS, or all of them without it.
+ * An integer filter on MQIA_CURRENT_Q_DEPTH with MQCFOP_NOT_LESS is honoured, other
+ * filters are not.
+ */
+class StubPCFResponder {
+    final NavigableMap<String, PCFMessage> catalog = new ConcurrentSkipListMap<>();
+    final AtomicLong roundTrips = new AtomicLong();
+    final AtomicLong rows = new AtomicLong();
+    final AtomicLong parameters = new AtomicLong();
+    // Catalog projected on each attribute selection seen so far
+    private final Map<List<Integer>, NavigableMap<String, PCFMessage>> projections = new ConcurrentHashMap<>();
+    private final long latencyNanos;
+    // Thrown by every request while set, like a lost connection
+    volatile MQException failure;
+
+    StubPCFResponder(long latencyNanos) {
+        this.latencyNanos = latencyNanos;
+    }
+
+    /**
+     * @param values current depth, max depth, open input count, open output count
+     */
+    void putQueue(String name, int... values) {
+        // Responses are built once so the measured time is latency and client-side parsing only
+        PCFMessage response = new PCFMessage(MQConstants.MQCFT_RESPONSE, MQConstants.MQCMD_INQUIRE_Q, 1, true);
+        addQueueAttributes(response, name, values);
+        catalog.put(name, response);
+        projections.clear();
+    }
+
+    void removeQueue(String name) {
+        catalog.remove(name);
+        projections.clear();
+    }
+
+    void resetCounters() {
+        roundTrips.set(0);
+        rows.set(0);
+        parameters.set(0);
+    }
+
+    PCFMessageAgent newAgent() {
+        return new PCFMessageAgent() {
+            @Override
+            public synchronized PCFMessage[] send(PCFMessage request) throws MQException {
+                return answer(request);
+            }
+
+            @Override
+            public synchronized void disconnect() {
+            }
+        };
+    }
+
+    /**
+     * Connection manager whose leases come from a pool of agents backed by this responder.
+     */
+    MQConnectionManager newConnectionManager() {
+        PCFAgentPool pool = new PCFAgentPool("STUB", this::newAgent);
+        return new MQConnectionManager() {
+            @Override
+            public PCFAgentPool.Lease leaseAgent() throws MQException {
+                return pool.lease();
+            }
+
+            @Override
+            public PCFAgentPool.Lease leaseAgent(String connectionId) throws MQException {
+                return pool.lease();
+            }
+        };
+    }
+
+    private PCFMessage[] answer(PCFMessage request) throws MQException {
+        roundTrips.incrementAndGet();
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (request.getCommand() == MQConstants.MQCMD_PING_Q_MGR) {
+            return new PCFMessage[0];
+        }
+
+        String pattern = request.getStringParameterValue(MQConstants.MQCA_Q_NAME);
+        NavigableMap<String, PCFMessage> source = projectedCatalog(request);
+        List<PCFMessage> matches;
+        if (pattern.endsWith("*")) {
+            String prefix = pattern.substring(0, pattern.length() - 1);
+            matches = new ArrayList<>(prefix.isEmpty() ? source.values()
+                    : source.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+        } else {
+            PCFMessage response = source.get(pattern);
+            matches = response == null ? List.of() : List.of(response);
+        }
+        MQCFIF filter = depthFilter(request);
+        if (filter != null) {
+            matches = new ArrayList<>(matches);
+            matches.removeIf(response -> depthOf(response) < filter.getFilterValue());
+        }
+        if (matches.isEmpty()) {
+            throw new PCFException(MQConstants.MQCC_FAILED, MQConstants.MQRC_UNKNOWN_OBJECT_NAME, this);
+        }
+        rows.addAndGet(matches.size());
+        for (PCFMessage match : matches) {
+            parameters.addAndGet(match.getParameterCount());
+        }
+        return matches.toArray(new PCFMessage[0]);
+    }
+
+    private NavigableMap<String, PCFMessage> projectedCatalog(PCFMessage request) {
+        if (request.getParameter(MQConstants.MQIACF_Q_ATTRS) == null) {
+            return catalog;
+        }
+        List<Integer> selectors;
+        try {
+            selectors = Arrays.stream(request.getIntListParameterValue(MQConstants.MQIACF_Q_ATTRS)).boxed().toList();
+        } catch (PCFException e) {
+            throw new IllegalStateException(e);
+        }
+        return projections.computeIfAbsent(selectors, key -> {
+            NavigableMap<String, PCFMessage> projected = new ConcurrentSkipListMap<>();
+            catalog.forEach((name, response) -> projected.put(name, project(response, key)));
+            return projected;
+        });
+    }
+
+    private static PCFMessage project(PCFMessage response, List<Integer> selectors) {
+        PCFMessage projected = new PCFMessage(MQConstants.MQCFT_RESPONSE, MQConstants.MQCMD_INQUIRE_Q, 1, true);
+        Enumeration<?> parameters = response.getParameters();
+        while (parameters.hasMoreElements()) {
+            PCFParameter parameter = (PCFParameter) parameters.nextElement();
+            // The queue name is always returned
+            if (parameter.getParameter() == MQConstants.MQCA_Q_NAME || selectors.contains(parameter.getParameter())) {
+                projected.addParameter(parameter);
+            }
+        }
+        return projected;
+    }
+
+    private static MQCFIF depthFilter(PCFMessage request) {
+        Enumeration<?> parameters = request.getParameters();
+        while (parameters.hasMoreElements()) {
+            if (parameters.nextElement() instanceof MQCFIF filter
+                    && filter.getParameter() == MQConstants.MQIA_CURRENT_Q_DEPTH
+                    && filter.getOperator() == MQConstants.MQCFOP_NOT_LESS) {
+                return filter;
+            }
+        }
+        return null;
+    }
+
+    private static int depthOf(PCFMessage response) {
+        try {
+            return response.getIntParameterValue(MQConstants.MQIA_CURRENT_Q_DEPTH);
+        } catch (PCFException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void addQueueAttributes(PCFMessage response, String name, int[] values) {
+        response.addParameter(MQConstants.MQCA_Q_NAME, String.format("%-48s", name));
+        response.addParameter(MQConstants.MQIA_Q_TYPE, MQConstants.MQQT_LOCAL);
+        response.addParameter(MQConstants.MQIA_CURRENT_Q_DEPTH, values[0]);
+        response.addParameter(MQConstants.MQIA_MAX_Q_DEPTH, values[1]);
+        response.addParameter(MQConstants.MQIA_OPEN_INPUT_COUNT, values[2]);
+        response.addParameter(MQConstants.MQIA_OPEN_OUTPUT_COUNT, values[3]);
+        response.addParameter(MQConstants.MQCA_Q_DESC, "Stub queue");
+        response.addParameter(MQConstants.MQCA_CREATION_DATE, "2026-01-01");
+        response.addParameter(MQConstants.MQCA_CREATION_TIME, "00.00.00");
+        response.addParameter(MQConstants.MQIA_INHIBIT_PUT, MQConstants.MQQA_PUT_ALLOWED);
+        response.addParameter(MQConstants.MQIA_INHIBIT_GET, MQConstants.MQQA_GET_ALLOWED);
+        response.addParameter(MQConstants.MQIA_SHAREABILITY, MQConstants.MQQA_SHAREABLE);
+        response.addParameter(MQConstants.MQIA_DEF_PRIORITY, 0);
+        response.addParameter(MQConstants.MQIA_DEF_PERSISTENCE, MQConstants.MQPER_NOT_PERSISTENT);
+        response.addParameter(MQConstants.MQIA_TRIGGER_CONTROL, MQConstants.MQTC_OFF);
+        response.addParameter(MQConstants.MQIA_MAX_MSG_LENGTH, 4194304);
+    }
+}
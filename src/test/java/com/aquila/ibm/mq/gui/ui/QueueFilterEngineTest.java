@@ -0,0 +1,82 @@
+package com.aquila.ibm.mq.gui.ui;
+
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueFilterEngineTest {
+    private static final QueueSortOrder BY_NAME = new QueueSortOrder(QueueSortOrder.Column.NAME, true);
+
+    private final QueueFilterEngine engine = new QueueFilterEngine(Runnable::run);
+    private final BlockingQueue<QueueFilterEngine.Result> results = new LinkedBlockingQueue<>();
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    private static List<QueueInfo> queues(int count) {
+        List<QueueInfo> queues = new ArrayList<>(count);
+        for (int i = count - 1; i >= 0; i--) {
+            QueueInfo queue = new QueueInfo(String.format("APP%02d.SERVICE%05d.IN", i % 40, i));
+            queue.setCurrentDepth(i % 100);
+            queues.add(queue);
+        }
+        return queues;
+    }
+
+    private QueueFilterEngine.Result filter(List<QueueInfo> source, long version, String pattern, int minDepth) throws InterruptedException {
+        engine.submit(source, version, new QueueFilterEngine.Criteria(pattern, minDepth), BY_NAME, 0, results::add);
+        QueueFilterEngine.Result result = results.poll(5, TimeUnit.SECONDS);
+        assertNotNull(result);
+        return result;
+    }
+
+    @Test
+    void testNarrowsPreviousResult() throws InterruptedException {
+        List<QueueInfo> source = queues(10_000);
+        QueueFilterEngine.Result service01 = filter(source, 1, "service01", 0);
+        assertEquals(10_000, service01.scanned());
+        assertEquals(1000, service01.queues().size());
+        assertEquals("APP00.SERVICE01000.IN", service01.queues().get(0).getQueue());
+
+        QueueFilterEngine.Result narrowed = filter(source, 1, "service012", 0);
+        assertEquals(1000, narrowed.scanned());
+        assertEquals(100, narrowed.queues().size());
+
+        // A regular expression, another source or a depth floor search everything again
+        assertEquals(10_000, filter(source, 1, "app01.*9", 0).scanned());
+        assertEquals(10_000, filter(source, 2, "app01.service0000", 0).scanned());
+        QueueFilterEngine.Result deep = filter(source, 2, "app01", 50);
+        assertEquals(10_000, deep.scanned());
+        assertTrue(deep.queues().stream().allMatch(queue -> queue.getCurrentDepth() >= 50));
+    }
+
+    @Test
+    void testOnlyLatestRequestPublished() throws InterruptedException {
+        List<QueueInfo> source = queues(1000);
+        for (String pattern : new String[]{"A", "AP", "APP", "APP3"}) {
+            engine.submit(source, 1, new QueueFilterEngine.Criteria(pattern, 0), BY_NAME, 100, results::add);
+        }
+        QueueFilterEngine.Result result = results.poll(5, TimeUnit.SECONDS);
+        assertNotNull(result);
+        assertEquals("APP3", result.criteria().pattern());
+        assertNull(results.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testInvalidPatternShowsAll() throws InterruptedException {
+        QueueFilterEngine.Result result = filter(queues(100), 1, "APP[", 0);
+        assertTrue(result.invalidPattern());
+        assertEquals(100, result.queues().size());
+        assertEquals("APP00.SERVICE00000.IN", result.queues().get(0).getQueue());
+    }
+}
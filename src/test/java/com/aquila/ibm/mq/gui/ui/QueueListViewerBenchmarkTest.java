@@ -0,0 +1,88 @@
+package com.aquila.ibm.mq.gui.ui;
+
+import com.aquila.ibm.mq.gui.config.AlertManager;
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.swt.SWTError;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Time of a refresh of the virtual queue table against the number of queues. Needs a display,
+ * e.g. run under {@code xvfb-run}, and is skipped without one.
+ */
+@Slf4j
+class QueueListViewerBenchmarkTest {
+
+    @Test
+    void benchmarkRefreshVersusRowCount() {
+        Display display = openDisplay();
+        assumeTrue(display != null, "no display");
+        try {
+            Shell shell = new Shell(display);
+            shell.setLayout(new FillLayout());
+            shell.setSize(800, 600);
+            QueueListViewer viewer = new QueueListViewer(shell, 0, new AlertManager(null));
+            shell.open();
+
+            log.info(String.format("%-8s %14s %14s", "Rows", "setQueues(ms)", "refresh(ms)"));
+            for (int count : new int[]{1_000, 5_000, 20_000}) {
+                List<QueueInfo> queues = queues(count);
+                viewer.setQueues(queues); // warm-up
+                Collections.shuffle(queues, new Random(count));
+
+                long start = System.nanoTime();
+                viewer.setQueues(queues);
+                flush(display);
+                double setMillis = (System.nanoTime() - start) / 1e6;
+
+                start = System.nanoTime();
+                viewer.refresh();
+                flush(display);
+                double refreshMillis = (System.nanoTime() - start) / 1e6;
+
+                log.info(String.format("%-8d %14.1f %14.1f", count, setMillis, refreshMillis));
+                assertEquals(count, viewer.getQueues().size());
+                assertTrue(refreshMillis < 1000, "refresh of " + count + " rows took " + refreshMillis + " ms");
+            }
+            shell.dispose();
+        } finally {
+            display.dispose();
+        }
+    }
+
+    private static Display openDisplay() {
+        try {
+            return new Display();
+        } catch (SWTError | UnsatisfiedLinkError e) {
+            return null;
+        }
+    }
+
+    private static void flush(Display display) {
+        while (display.readAndDispatch()) {
+            // Paint the visible rows
+        }
+    }
+
+    private static List<QueueInfo> queues(int count) {
+        List<QueueInfo> queues = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            QueueInfo queue = new QueueInfo(String.format("APP%02d.SERVICE%05d.IN", i % 40, i));
+            queue.setCurrentDepth(i % 100);
+            queue.setMaxDepth(5000);
+            queues.add(queue);
+        }
+        return queues;
+    }
+}
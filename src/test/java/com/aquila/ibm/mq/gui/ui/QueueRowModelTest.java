@@ -0,0 +1,130 @@
+package com.aquila.ibm.mq.gui.ui;
+
+import com.aquila.ibm.mq.gui.model.QueueDelta;
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueRowModelTest {
+    private static final QueueSortOrder BY_DEPTH = new QueueSortOrder(QueueSortOrder.Column.DEPTH, true);
+
+    private QueueRowModel rows;
+    private final List<QueueInfo> queues = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        queues.clear();
+        for (int i = 0; i < 10; i++) {
+            queues.add(queue("Q" + i, i * 10));
+        }
+        rows = new QueueRowModel();
+        rows.reset(queues, queue -> queue.getCurrentDepth() >= 10, BY_DEPTH);
+    }
+
+    private static QueueInfo queue(String name, int depth) {
+        QueueInfo queue = new QueueInfo(name);
+        queue.setCurrentDepth(depth);
+        queue.setMaxDepth(1000);
+        return queue;
+    }
+
+    @Test
+    void testUpdateInPlace() {
+        QueueInfo q3 = queues.get(3);
+        q3.setCurrentDepth(35);
+        QueueRowModel.Changes changes = new QueueRowModel.Changes();
+        rows.update(q3, QueueDelta.CURRENT_DEPTH, changes);
+
+        assertEquals(-1, changes.getMovedFrom());
+        assertFalse(changes.isCountChanged());
+        assertEquals(QueueDelta.CURRENT_DEPTH, (int) changes.getUpdated().get("Q3"));
+        assertEquals(2, (int) rows.rowOf("Q3"));
+    }
+
+    @Test
+    void testUpdateMovesRow() {
+        QueueInfo q2 = queues.get(2);
+        q2.setCurrentDepth(55);
+        QueueRowModel.Changes changes = new QueueRowModel.Changes();
+        rows.update(q2, QueueDelta.CURRENT_DEPTH, changes);
+
+        // Q1 Q3 Q4 Q5 Q2 Q6...: rows 1 to 4 changed
+        assertEquals(1, changes.getMovedFrom());
+        assertEquals(4, changes.getMovedTo());
+        assertTrue(changes.getUpdated().isEmpty());
+        assertEquals(4, (int) rows.rowOf("Q2"));
+        assertEquals(1, (int) rows.rowOf("Q3"));
+        assertEquals(5, (int) rows.rowOf("Q6"));
+        assertOrdered();
+    }
+
+    @Test
+    void testFilterAddsAndRemovesRows() {
+        QueueInfo q0 = queues.get(0);
+        q0.setCurrentDepth(95);
+        QueueInfo q5 = queues.get(5);
+        q5.setCurrentDepth(0);
+        QueueRowModel.Changes changes = new QueueRowModel.Changes();
+        rows.update(q0, QueueDelta.CURRENT_DEPTH, changes);
+        rows.update(q5, QueueDelta.CURRENT_DEPTH, changes);
+
+        assertTrue(changes.isCountChanged());
+        assertEquals(9, rows.size());
+        assertNull(rows.rowOf("Q5"));
+        assertEquals(8, (int) rows.rowOf("Q0"));
+        assertEquals(4, changes.getMovedFrom());
+        assertOrdered();
+
+        rows.remove("Q1", changes);
+        assertEquals(8, rows.size());
+        assertEquals(0, changes.getMovedFrom());
+        assertEquals(0, (int) rows.rowOf("Q2"));
+    }
+
+    @Test
+    void testSortByPercentageDescending() {
+        queues.get(4).setMaxDepth(50);
+        rows.sort(new QueueSortOrder(QueueSortOrder.Column.PERCENTAGE, false));
+        assertEquals(0, (int) rows.rowOf("Q4"));
+        assertEquals(1, (int) rows.rowOf("Q9"));
+
+        // Q4 at 80%, then Q9 at 9%, Q8 at 8%...
+        QueueInfo q1 = queues.get(1);
+        q1.setCurrentDepth(850);
+        QueueRowModel.Changes changes = new QueueRowModel.Changes();
+        rows.update(q1, QueueDelta.CURRENT_DEPTH, changes);
+        assertEquals(0, (int) rows.rowOf("Q1"));
+        assertEquals(1, (int) rows.rowOf("Q4"));
+        assertEquals(0, changes.getMovedFrom());
+        assertEquals(8, changes.getMovedTo());
+        for (int row = 1; row < rows.size(); row++) {
+            assertTrue(rows.get(row - 1).getDepthPercentage() >= rows.get(row).getDepthPercentage(), "order at row " + row);
+        }
+    }
+
+    @Test
+    void testSortTiesByName() {
+        QueueSortOrder byDepth = new QueueSortOrder(QueueSortOrder.Column.DEPTH, false);
+        QueueInfo a = queue("A", 5);
+        QueueInfo b = queue("B", 5);
+        assertTrue(byDepth.compare(a, b) < 0);
+        assertTrue(new QueueSortOrder(QueueSortOrder.Column.NAME, false).compare(a, b) > 0);
+        a.setLabel("zeta");
+        b.setLabel("Alpha");
+        assertTrue(new QueueSortOrder(QueueSortOrder.Column.LABEL, true).compare(a, b) > 0);
+    }
+
+    private void assertOrdered() {
+        for (int row = 0; row < rows.size(); row++) {
+            assertEquals(row, (int) rows.rowOf(rows.get(row).getQueue()));
+            if (row > 0) {
+                assertTrue(BY_DEPTH.compare(rows.get(row - 1), rows.get(row)) < 0, "order at row " + row);
+            }
+        }
+    }
+}
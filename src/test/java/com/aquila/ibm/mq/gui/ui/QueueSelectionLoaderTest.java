@@ -0,0 +1,126 @@
+package com.aquila.ibm.mq.gui.ui;
+
+import com.aquila.ibm.mq.gui.model.QueueInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueSelectionLoaderTest {
+    private final Map<String, AtomicInteger> fetches = new ConcurrentHashMap<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final Semaphore started = new Semaphore(0);
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final BlockingQueue<String> loaded = new LinkedBlockingQueue<>();
+    private volatile boolean blocking = true;
+    private volatile boolean interrupted;
+
+    private final QueueSelectionLoader loader = new QueueSelectionLoader((connectionId, queueName) -> {
+        fetches.computeIfAbsent(queueName, name -> new AtomicInteger()).incrementAndGet();
+        started.release();
+        if (blocking) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+                throw e;
+            }
+        }
+        QueueInfo queue = new QueueInfo(queueName);
+        queue.setDescription("read from " + connectionId);
+        return queue;
+    }, Runnable::run, 5_000, now::get);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        loader.close();
+    }
+
+    private void select(String queueName) {
+        loader.select("QM1", queueName, queue -> loaded.add(queue.getQueue()), e -> loaded.add("failed " + e));
+    }
+
+    private int fetchCount(String queueName) {
+        AtomicInteger count = fetches.get(queueName);
+        return count != null ? count.get() : 0;
+    }
+
+    @Test
+    void testCloseLetsFetchFinish() throws InterruptedException {
+        select("A");
+        assertTrue(started.tryAcquire(5, TimeUnit.SECONDS));
+        new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        }).start();
+
+        loader.close();
+        assertFalse(interrupted);
+        assertEquals(1, fetchCount("A"));
+    }
+
+    @Test
+    void testOnlyLatestSelectionPublished() throws InterruptedException {
+        // Both workers busy, C waits for one of them and is replaced by D before it starts
+        select("A");
+        select("B");
+        assertTrue(started.tryAcquire(2, 5, TimeUnit.SECONDS));
+        select("C");
+        select("D");
+        release.countDown();
+
+        assertEquals("D", loaded.poll(5, TimeUnit.SECONDS));
+        assertNull(loaded.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, fetchCount("C"));
+    }
+
+    @Test
+    void testReselectServedFromCache() throws InterruptedException {
+        blocking = false;
+        select("A");
+        assertEquals("A", loaded.poll(5, TimeUnit.SECONDS));
+
+        // At once, on the calling thread
+        select("A");
+        assertEquals("A", loaded.poll());
+        assertEquals(1, fetchCount("A"));
+
+        now.addAndGet(5_000);
+        select("A");
+        assertEquals("A", loaded.poll(5, TimeUnit.SECONDS));
+        assertEquals(2, fetchCount("A"));
+
+        loader.invalidate("QM1", "A");
+        select("A");
+        assertEquals("A", loaded.poll(5, TimeUnit.SECONDS));
+        assertEquals(3, fetchCount("A"));
+    }
+
+    @Test
+    void testSelectionJoinsLoadInFlight() throws InterruptedException {
+        select("A");
+        assertTrue(started.tryAcquire(5, TimeUnit.SECONDS));
+        select("B");
+        select("A");
+        release.countDown();
+
+        assertEquals("A", loaded.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, fetchCount("A"));
+        assertNull(loaded.poll(200, TimeUnit.MILLISECONDS));
+    }
+}
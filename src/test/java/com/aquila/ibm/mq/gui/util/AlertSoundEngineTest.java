@@ -0,0 +1,64 @@
+package com.aquila.ibm.mq.gui.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertSoundEngineTest {
+
+    @Test
+    void testBurstPlaysOneSoundPerLevelWithoutBlocking() throws Exception {
+        List<SoundPlayer.Sound> played = new CopyOnWriteArrayList<>();
+        // As slow as the former synchronous tone
+        AlertSoundEngine engine = new AlertSoundEngine(sound -> {
+            played.add(sound);
+            sleep(450);
+        });
+        engine.setCoalesceWindowMillis(10_000);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            engine.request(SoundPlayer.Sound.ALERT);
+            engine.request(SoundPlayer.Sound.WARNING);
+        }
+        long requestMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (played.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(500);
+        engine.shutdown();
+
+        assertTrue(requestMillis < 200, "requests took " + requestMillis + " ms");
+        assertEquals(List.of(SoundPlayer.Sound.ALERT, SoundPlayer.Sound.WARNING), played);
+        assertEquals(100, engine.getRequestedCount());
+    }
+
+    @Test
+    void testSoundIsPlayedAgainAfterTheWindow() throws Exception {
+        List<SoundPlayer.Sound> played = new CopyOnWriteArrayList<>();
+        AlertSoundEngine engine = new AlertSoundEngine(played::add);
+        engine.setCoalesceWindowMillis(100);
+
+        engine.request(SoundPlayer.Sound.WARNING);
+        Thread.sleep(300);
+        engine.request(SoundPlayer.Sound.WARNING);
+        Thread.sleep(300);
+        engine.shutdown();
+
+        assertEquals(2, played.size());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
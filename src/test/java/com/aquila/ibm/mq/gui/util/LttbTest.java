@@ -0,0 +1,67 @@
+package com.aquila.ibm.mq.gui.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class LttbTest {
+
+    @Test
+    void testFewPointsAreKept() {
+        long[] x = {10, 20, 30, 40};
+        int[] y = {1, 2, 3, 4};
+        Lttb.Points points = Lttb.downsample(x, y, 1, 3, 100);
+        assertEquals(3, points.size());
+        assertEquals(20.0, points.x()[0]);
+        assertEquals(40.0, points.x()[2]);
+        assertEquals(2.0, points.y()[0]);
+        assertEquals(4.0, points.y()[2]);
+    }
+
+    @Test
+    void testSpikeSurvives() {
+        int length = 10_000;
+        long[] x = new long[length];
+        int[] y = new int[length];
+        for (int i = 0; i < length; i++) {
+            x[i] = 1_700_000_000_000L + i * 5000L;
+            y[i] = 100 + (i % 10);
+        }
+        y[6_543] = 50_000;
+
+        Lttb.Points points = Lttb.downsample(x, y, 0, length, 500);
+        assertEquals(500, points.size());
+        assertEquals(x[0], (long) points.x()[0]);
+        assertEquals(x[length - 1], (long) points.x()[499]);
+        double max = 0;
+        for (int i = 0; i < points.size(); i++) {
+            max = Math.max(max, points.y()[i]);
+            if (i > 0) {
+                assertTrue(points.x()[i] > points.x()[i - 1]);
+            }
+        }
+        assertEquals(50_000.0, max);
+    }
+
+    @Test
+    void testLargeSeriesIsDownsampled() {
+        int length = 7 * 17_280;
+        long[] x = new long[length];
+        int[] y = new int[length];
+        for (int i = 0; i < length; i++) {
+            x[i] = i * 5000L;
+            y[i] = (int) (1000 * Math.sin(i / 500.0));
+        }
+        // Warm-up
+        Lttb.Points points = Lttb.downsample(x, y, 0, length, 1000);
+        assertEquals(1000, points.size());
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            Lttb.downsample(x, y, 0, length, 1000);
+        }
+        double millis = (System.nanoTime() - start) / 20 / 1e6;
+        log.info("LTTB of {} points to 1000: {} ms", length, String.format("%.2f", millis));
+    }
+}
@@ -0,0 +1,140 @@
+package com.aquila.ibm.mq.gui.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskServiceTest {
+    private final TaskService service = new TaskService(2, System::currentTimeMillis);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final Semaphore started = new Semaphore(0);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.close();
+    }
+
+    private TaskService.Task<String> submit(String name, String connectionId, String key) {
+        return service.submit(name, connectionId, key, token -> {
+            runs.incrementAndGet();
+            started.release();
+            release.await(5, TimeUnit.SECONDS);
+            return name;
+        });
+    }
+
+    @Test
+    void testConnectionCapQueuesExtraTasks() throws Exception {
+        TaskService.Task<String> first = submit("first", "QM1", null);
+        TaskService.Task<String> second = submit("second", "QM1", null);
+        TaskService.Task<String> third = submit("third", "QM1", null);
+        TaskService.Task<String> other = submit("other", "QM2", null);
+
+        // Two of QM1 and the one of QM2 run, the third of QM1 waits
+        assertTrue(started.tryAcquire(3, 5, TimeUnit.SECONDS));
+        assertEquals(TaskService.State.RUNNING, first.getState());
+        assertEquals(TaskService.State.RUNNING, second.getState());
+        assertEquals(TaskService.State.QUEUED, third.getState());
+        assertEquals(TaskService.State.RUNNING, other.getState());
+        assertEquals(4, service.getActiveCount());
+
+        release.countDown();
+        assertEquals("third", third.getFuture().get(5, TimeUnit.SECONDS));
+        assertEquals(TaskService.State.SUCCEEDED, third.getState());
+        assertEquals(4, runs.get());
+    }
+
+    @Test
+    void testSameKeyJoinsTaskInFlight() throws Exception {
+        TaskService.Task<String> task = submit("load", "QM1", "queues:QM1");
+        assertSame(task, submit("load again", "QM1", "queues:QM1"));
+        release.countDown();
+        assertEquals("load", task.getFuture().get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+
+        // Done, the same key runs again
+        assertEquals("load again", submit("load again", "QM1", "queues:QM1").getFuture().get(5, TimeUnit.SECONDS));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void testCancelledQueuedTaskNeverRuns() throws Exception {
+        submit("first", "QM1", null);
+        submit("second", "QM1", null);
+        TaskService.Task<String> queued = submit("queued", "QM1", null);
+        assertTrue(started.tryAcquire(2, 5, TimeUnit.SECONDS));
+
+        queued.cancel();
+        assertEquals(TaskService.State.CANCELLED, queued.getState());
+        assertThrows(CancellationException.class, () -> queued.getFuture().get(5, TimeUnit.SECONDS));
+
+        release.countDown();
+        TaskService.Task<String> last = submit("last", "QM1", null);
+        assertEquals("last", last.getFuture().get(5, TimeUnit.SECONDS));
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void testRunningTaskStopsAtItsCheck() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        TaskService.Task<Integer> task = service.submit("steps", "QM1", null, token -> {
+            started.release();
+            cancelled.await(5, TimeUnit.SECONDS);
+            token.throwIfCancelled();
+            return 1;
+        });
+        assertTrue(started.tryAcquire(5, TimeUnit.SECONDS));
+        task.cancel();
+        cancelled.countDown();
+
+        assertThrows(CancellationException.class, () -> task.getFuture().get(5, TimeUnit.SECONDS));
+        assertEquals(TaskService.State.CANCELLED, task.getState());
+        assertNull(task.getError());
+    }
+
+    @Test
+    void testFailureRecordedInHistory() throws InterruptedException {
+        TaskService.Task<Object> task = service.submit("broken", null, null, token -> {
+            throw new IllegalStateException("no channel");
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> task.getFuture().get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertEquals(TaskService.State.FAILED, task.getState());
+        assertEquals("no channel", task.getError());
+        assertNull(task.getConnectionId());
+        assertTrue(service.getTasks().contains(task));
+        assertEquals(0, service.getActiveCount());
+    }
+
+    @Test
+    void testCloseWaitsWithoutInterrupting() throws Exception {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        TaskService.Task<Integer> task = service.submit("steps", "QM1", null, token -> {
+            started.release();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            token.throwIfCancelled();
+            return 1;
+        });
+        assertTrue(started.tryAcquire(5, TimeUnit.SECONDS));
+
+        service.close();
+        assertTrue(task.getFuture().isDone());
+        assertFalse(interrupted.get());
+        assertEquals(TaskService.State.CANCELLED, task.getState());
+    }
+}